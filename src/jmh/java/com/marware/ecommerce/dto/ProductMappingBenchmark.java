@@ -0,0 +1,52 @@
+package com.marware.ecommerce.dto;
+
+import com.marware.ecommerce.model.Product;
+import com.marware.ecommerce.model.Tenant;
+import com.marware.ecommerce.model.User;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProductMappingBenchmark {
+
+    private Product product;
+
+    @Setup
+    public void setUp() {
+        User seller = new User();
+        seller.setId(7L);
+        seller.setFullName("Seller User");
+        product = Product.builder()
+                .id(1L)
+                .name("Camiseta de algodón orgánico")
+                .description("Camiseta básica de manga corta, 100% algodón orgánico")
+                .price(new BigDecimal("19.99"))
+                .stock(25)
+                .imageUrl("https://bucket.s3.us-east-2.amazonaws.com/uploads/p.png")
+                .seller(seller)
+                .tenant(new Tenant(1L, "Demo Store", "Demo"))
+                .build();
+    }
+
+    // Mapeo desde la entidad, como en las respuestas de escritura de ProductService
+    @Benchmark
+    public ProductResponse fromEntity() {
+        return ProductResponse.fromEntity(product);
+    }
+
+    // Constructor de la proyección RESPONSE_SELECT que usan los listados
+    @Benchmark
+    public ProductResponse projectionConstructor() {
+        return new ProductResponse(product.getId(), product.getName(), product.getDescription(),
+                product.getPrice(), product.getStock(), product.getImageUrl(), product.getThumbnailUrl(),
+                product.getMediumUrl(), product.getSeller().getFullName(), product.getTenant().getName(),
+                product.getVersion());
+    }
+}
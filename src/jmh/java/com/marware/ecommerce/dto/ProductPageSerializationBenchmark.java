@@ -0,0 +1,52 @@
+package com.marware.ecommerce.dto;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProductPageSerializationBenchmark {
+
+    @Param({"20", "100"})
+    public int pageSize;
+
+    private ObjectMapper objectMapper;
+    private Page<ProductResponse> page;
+
+    @Setup
+    public void setUp() {
+        objectMapper = JsonMapper.builder().findAndAddModules().build();
+        List<ProductResponse> content = new ArrayList<>(pageSize);
+        for (long i = 0; i < pageSize; i++) {
+            content.add(ProductResponse.builder()
+                    .id(i)
+                    .name("Producto " + i)
+                    .description("Descripción del producto " + i + " con texto de longitud realista")
+                    .price(BigDecimal.valueOf(1999 + i, 2))
+                    .stock((int) (i % 50))
+                    .imageUrl("https://bucket.s3.us-east-2.amazonaws.com/uploads/" + i + ".png")
+                    .sellerName("Seller " + (i % 10))
+                    .tenantName("Demo Store")
+                    .build());
+        }
+        page = new PageImpl<>(content, PageRequest.of(3, pageSize), 10_000);
+    }
+
+    @Benchmark
+    public byte[] serializePage() throws Exception {
+        return objectMapper.writeValueAsBytes(page);
+    }
+}
@@ -0,0 +1,108 @@
+package com.marware.ecommerce.repository;
+
+import com.marware.ecommerce.EcommerceApplication;
+import com.marware.ecommerce.dto.ProductResponse;
+import com.marware.ecommerce.model.Product;
+import com.marware.ecommerce.model.Tenant;
+import com.marware.ecommerce.model.User;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * searchPublicProducts contra H2 en memoria con el contexto completo y un
+ * catálogo sembrado de {@code products} filas.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductSearchQueryBenchmark {
+
+    private static final String[] WORDS = {
+            "camiseta", "pantalón", "zapatilla", "chaqueta", "gorra",
+            "algodón", "lana", "deportiva", "clásica", "roja", "azul", "negra"
+    };
+
+    @Param({"10000"})
+    public int products;
+
+    @Param({"camis", "azul"})
+    public String query;
+
+    private ConfigurableApplicationContext context;
+    private ProductRepository productRepository;
+    private final PageRequest firstPage = PageRequest.of(0, 20);
+    private final PageRequest deepPage = PageRequest.of(200, 20);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(EcommerceApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("app.catalog-index.enabled=false",
+                        "spring.jpa.show-sql=false",
+                        "spring.datasource.url=jdbc:h2:mem:jmh;DB_CLOSE_DELAY=-1;MODE=MySQL")
+                .run();
+        productRepository = context.getBean(ProductRepository.class);
+        seed(context.getBean(TenantRepository.class), context.getBean(UserRepository.class));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Page<Product> searchPublicProducts_entities() {
+        return productRepository.searchPublicProducts(query, firstPage);
+    }
+
+    @Benchmark
+    public Page<ProductResponse> searchPublicProducts_projection() {
+        return productRepository.searchPublicProductResponses(query, firstPage);
+    }
+
+    @Benchmark
+    public Page<ProductResponse> searchPublicProducts_deepPage() {
+        return productRepository.searchPublicProductResponses(null, deepPage);
+    }
+
+    private void seed(TenantRepository tenantRepository, UserRepository userRepository) {
+        Tenant tenant = tenantRepository.save(new Tenant(null, "JMH Store", "Benchmark tenant"));
+        List<User> sellers = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            sellers.add(userRepository.save(User.builder()
+                    .email("jmh-seller-" + i + "@example.com")
+                    .password("x")
+                    .fullName("JMH Seller " + i)
+                    .tenant(tenant)
+                    .build()));
+        }
+        List<Product> batch = new ArrayList<>(1000);
+        for (int i = 0; i < products; i++) {
+            batch.add(Product.builder()
+                    .name(WORDS[i % 5] + " " + WORDS[5 + i % 7] + " " + i)
+                    .description("Producto " + WORDS[(i * 7) % WORDS.length] + " de prueba")
+                    .price(BigDecimal.valueOf(500 + (i * 37L) % 20_000, 2))
+                    .stock(i % 10 == 0 ? 0 : i % 50)
+                    .seller(sellers.get(i % sellers.size()))
+                    .tenant(tenant)
+                    .build());
+            if (batch.size() == 1000) {
+                productRepository.saveAll(batch);
+                batch.clear();
+            }
+        }
+        productRepository.saveAll(batch);
+    }
+}
@@ -0,0 +1,65 @@
+package com.marware.ecommerce.security;
+
+import com.marware.ecommerce.model.Role;
+import com.marware.ecommerce.model.Tenant;
+import com.marware.ecommerce.model.User;
+import com.marware.ecommerce.service.JwtService;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Base64;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtFilterBenchmark {
+
+    @Param({"false", "true"})
+    public boolean cacheEnabled;
+
+    private JwtFilter filter;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+    private final FilterChain chain = (req, res) -> { };
+
+    @Setup
+    public void setUp() {
+        JwtService jwtService = new JwtService();
+        String secret = Base64.getEncoder().encodeToString("0123456789ABCDEF0123456789ABCDEF".getBytes());
+        ReflectionTestUtils.setField(jwtService, "secretKey", secret);
+        ReflectionTestUtils.setField(jwtService, "expirationMs", 3_600_000L);
+        ReflectionTestUtils.setField(jwtService, "cacheEnabled", cacheEnabled);
+        ReflectionTestUtils.setField(jwtService, "cacheMaxSize", 10_000L);
+
+        User user = new User();
+        user.setId(42L);
+        user.setEmail("seller@example.com");
+        user.setFullName("Seller User");
+        user.setTenant(new Tenant(1L, "Demo Store", "Demo"));
+        user.setRoles(Set.of(new Role(2L, "ROLE_SELLER")));
+
+        filter = new JwtFilter(jwtService);
+        request = new MockHttpServletRequest("GET", "/api/products/mine");
+        request.addHeader("Authorization", "Bearer " + jwtService.generateToken(user));
+        response = new MockHttpServletResponse();
+    }
+
+    @Benchmark
+    public Object doFilterInternal() throws Exception {
+        try {
+            filter.doFilterInternal(request, response, chain);
+            return SecurityContextHolder.getContext().getAuthentication();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+}
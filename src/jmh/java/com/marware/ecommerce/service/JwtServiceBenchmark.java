@@ -0,0 +1,65 @@
+package com.marware.ecommerce.service;
+
+import com.marware.ecommerce.model.Role;
+import com.marware.ecommerce.model.Tenant;
+import com.marware.ecommerce.model.User;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Base64;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtServiceBenchmark {
+
+    @Param({"false", "true"})
+    public boolean cacheEnabled;
+
+    private JwtService jwtService;
+    private User user;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtService = newJwtService(cacheEnabled);
+        user = benchmarkUser();
+        token = jwtService.generateToken(user);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtService.generateToken(user);
+    }
+
+    @Benchmark
+    public Claims extractAllClaims() {
+        return jwtService.extractAllClaims(token);
+    }
+
+    static JwtService newJwtService(boolean cacheEnabled) {
+        JwtService service = new JwtService();
+        String secret = Base64.getEncoder().encodeToString("0123456789ABCDEF0123456789ABCDEF".getBytes());
+        ReflectionTestUtils.setField(service, "secretKey", secret);
+        ReflectionTestUtils.setField(service, "expirationMs", 3_600_000L);
+        ReflectionTestUtils.setField(service, "cacheEnabled", cacheEnabled);
+        ReflectionTestUtils.setField(service, "cacheMaxSize", 10_000L);
+        return service;
+    }
+
+    static User benchmarkUser() {
+        User user = new User();
+        user.setId(42L);
+        user.setEmail("seller@example.com");
+        user.setFullName("Seller User");
+        user.setTenant(new Tenant(1L, "Demo Store", "Demo"));
+        user.setRoles(Set.of(new Role(2L, "ROLE_SELLER")));
+        return user;
+    }
+}
@@ -0,0 +1,57 @@
+package com.marware.ecommerce.aspect;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * /actuator/latency: p50/p99/p999 (ms) por método de servicio o controlador,
+ * ordenado por p99 descendente.
+ */
+@Component
+@Endpoint(id = "latency")
+@RequiredArgsConstructor
+public class LatencyEndpoint {
+
+    private final MeterRegistry meterRegistry;
+
+    @ReadOperation
+    public Map<String, Map<String, Object>> latencies() {
+        Map<String, Map<String, Object>> result = new LinkedHashMap<>();
+        meterRegistry.find(LoggingAspect.LATENCY_METRIC).timers().stream()
+                .map(timer -> Map.entry(timer, timer.takeSnapshot()))
+                .sorted(Comparator.comparingDouble(
+                        (Map.Entry<Timer, HistogramSnapshot> e) -> percentile(e.getValue(), 0.99)).reversed())
+                .forEach(e -> {
+                    Timer timer = e.getKey();
+                    HistogramSnapshot snapshot = e.getValue();
+                    Map<String, Object> stats = new LinkedHashMap<>();
+                    stats.put("count", snapshot.count());
+                    stats.put("p50", percentile(snapshot, 0.5));
+                    stats.put("p99", percentile(snapshot, 0.99));
+                    stats.put("p999", percentile(snapshot, 0.999));
+                    stats.put("max", snapshot.max(TimeUnit.MILLISECONDS));
+                    result.put(timer.getId().getTag("method") + " [" + timer.getId().getTag("outcome") + "]", stats);
+                });
+        return result;
+    }
+
+    private static double percentile(HistogramSnapshot snapshot, double percentile) {
+        for (ValueAtPercentile value : snapshot.percentileValues()) {
+            if (value.percentile() == percentile) {
+                return value.value(TimeUnit.MILLISECONDS);
+            }
+        }
+        return Double.NaN;
+    }
+}
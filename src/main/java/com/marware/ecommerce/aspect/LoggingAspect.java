@@ -1,40 +1,137 @@
 package com.marware.ecommerce.aspect;
 
+import com.marware.ecommerce.exception.ApiException;
+import com.marware.ecommerce.exception.ErrorHandler;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.Signature;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Pointcut;
+import org.aspectj.lang.reflect.MethodSignature;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mide la latencia de servicios y controladores con timers de Micrometer
+ * (histogramas HDR sin bloqueo, System.nanoTime). En el camino normal no se
+ * construyen strings: argumentos y resultado sólo se registran en DEBUG para
+ * una fracción de llamadas, o siempre en INFO con logging.aspect.verbose=true.
+ */
 @Aspect
 @Component
 public class LoggingAspect {
 
+    public static final String LATENCY_METRIC = "app.method.latency";
+
     private static final Logger log = LoggerFactory.getLogger(LoggingAspect.class);
 
+    private final MeterRegistry meterRegistry;
+    // Un timer por método y resultado; se crean una sola vez
+    private final Map<Object, Timer> successTimers = new ConcurrentHashMap<>();
+    private final Map<Object, Timer> errorTimers = new ConcurrentHashMap<>();
+
+    @Value("${logging.aspect.verbose:false}")
+    private boolean verbose;
+
+    @Value("${logging.aspect.sample-rate:0.0}")
+    private double sampleRate;
+
+    public LoggingAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
     // Pointcut para todos los métodos en servicios y controladores
     @Pointcut("within(com.marware.ecommerce.service..*) || within(com.marware.ecommerce.controller..*)")
     public void applicationLayer() {}
 
     @Around("applicationLayer()")
     public Object logExecution(ProceedingJoinPoint pjp) throws Throwable {
-        String signature = pjp.getSignature().toShortString();
-        Object[] args = pjp.getArgs();
-
-        log.info("Entering {} with arguments = {}", signature, args);
-        long start = System.currentTimeMillis();
+        boolean logDetails = shouldLogDetails();
+        if (logDetails) {
+            logEntry(pjp);
+        }
+        long start = System.nanoTime();
 
         try {
             Object result = pjp.proceed();
-            long elapsed = System.currentTimeMillis() - start;
-            log.info("Exiting {} with result = {} ({} ms)", signature, result, elapsed);
+            long elapsed = System.nanoTime() - start;
+            timer(successTimers, pjp.getSignature(), "success").record(elapsed, TimeUnit.NANOSECONDS);
+            if (logDetails) {
+                logExit(pjp, result, elapsed);
+            }
             return result;
         } catch (Throwable ex) {
-            long elapsed = System.currentTimeMillis() - start;
-            log.error("Exception in {} after {} ms: {}", signature, elapsed, ex.getMessage());
+            long elapsed = System.nanoTime() - start;
+            timer(errorTimers, pjp.getSignature(), "error").record(elapsed, TimeUnit.NANOSECONDS);
+            logFailure(pjp, ex, elapsed);
             throw ex;
         }
     }
+
+    // Los errores del cliente (un 404 de un id inexistente) son esperados: sólo en DEBUG
+    private void logFailure(ProceedingJoinPoint pjp, Throwable ex, long elapsedNanos) {
+        if (ex instanceof ApiException apiException
+                && ErrorHandler.determineHttpStatus(apiException).is4xxClientError()) {
+            if (log.isDebugEnabled()) {
+                log.debug("Client error in {} after {} ms: {}", pjp.getSignature().toShortString(),
+                        TimeUnit.NANOSECONDS.toMillis(elapsedNanos), ex.getMessage());
+            }
+            return;
+        }
+        log.error("Exception in {} after {} ms: {}",
+                pjp.getSignature().toShortString(), TimeUnit.NANOSECONDS.toMillis(elapsedNanos), ex.getMessage());
+    }
+
+    private boolean shouldLogDetails() {
+        if (verbose) {
+            return log.isInfoEnabled();
+        }
+        return sampleRate > 0
+                && log.isDebugEnabled()
+                && ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+
+    private void logEntry(ProceedingJoinPoint pjp) {
+        if (verbose) {
+            log.info("Entering {} with arguments = {}", pjp.getSignature().toShortString(), pjp.getArgs());
+        } else {
+            log.debug("Entering {} with arguments = {}", pjp.getSignature().toShortString(), pjp.getArgs());
+        }
+    }
+
+    private void logExit(ProceedingJoinPoint pjp, Object result, long elapsedNanos) {
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+        if (verbose) {
+            log.info("Exiting {} with result = {} ({} ms)", pjp.getSignature().toShortString(), result, elapsedMs);
+        } else {
+            log.debug("Exiting {} with result = {} ({} ms)", pjp.getSignature().toShortString(), result, elapsedMs);
+        }
+    }
+
+    private Timer timer(Map<Object, Timer> timers, Signature signature, String outcome) {
+        // Method es una clave estable por método; toShortString sólo se calcula al crear el timer
+        Object key = signature instanceof MethodSignature methodSignature
+                ? methodSignature.getMethod()
+                : signature.toShortString();
+        Timer timer = timers.get(key);
+        if (timer == null) {
+            timer = timers.computeIfAbsent(key, k -> Timer.builder(LATENCY_METRIC)
+                    .tag("method", signature.toShortString())
+                    .tag("outcome", outcome)
+                    .publishPercentiles(0.5, 0.99, 0.999)
+                    .distributionStatisticExpiry(Duration.ofMinutes(2))
+                    .register(meterRegistry));
+        }
+        return timer;
+    }
 }
@@ -0,0 +1,138 @@
+package com.marware.ecommerce.cache;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Filtro de Bloom escalable sobre ids long: una serie de etapas, cada una con
+ * el doble de capacidad y la mitad de tasa de falsos positivos que la
+ * anterior. Se añade siempre a la última y, al llenarse, se abre otra, así
+ * que crece sin conocer el número de elementos y la tasa total queda por
+ * debajo de 2 * fpp.
+ *
+ * Sin falsos negativos: mightContain(id) es false sólo si id nunca se añadió.
+ * Los bits son AtomicLongArray para que una lectura desde otro hilo vea un
+ * add ya terminado. Los add deben venir de un solo hilo a la vez.
+ */
+final class BloomFilter {
+
+    private static final double GROWTH = 2.0;
+    private static final double TIGHTENING = 0.5;
+    private static final int MAX_HASHES = 24;
+
+    private volatile Stage[] stages;
+    private long count;
+
+    BloomFilter(long expectedItems, double fpp) {
+        this.stages = new Stage[]{new Stage(Math.max(1, expectedItems), fpp)};
+    }
+
+    boolean mightContain(long id) {
+        long hash = mix(id);
+        for (Stage stage : stages) {
+            if (stage.mightContain(hash)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    void add(long id) {
+        long hash = mix(id);
+        Stage[] current = stages;
+        for (Stage stage : current) {
+            if (stage.mightContain(hash)) {
+                return;
+            }
+        }
+        Stage last = current[current.length - 1];
+        if (last.added >= last.capacity) {
+            Stage[] grown = Arrays.copyOf(current, current.length + 1);
+            last = new Stage((long) (last.capacity * GROWTH), last.fpp * TIGHTENING);
+            grown[current.length] = last;
+            stages = grown;
+        }
+        last.add(hash);
+        count++;
+    }
+
+    long count() {
+        return count;
+    }
+
+    int stageCount() {
+        return stages.length;
+    }
+
+    long bitSize() {
+        long bits = 0;
+        for (Stage stage : stages) {
+            bits += stage.bits.length() * 64L;
+        }
+        return bits;
+    }
+
+    // fmix64 de MurmurHash3: ids consecutivos acaban en bits sin relación
+    static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+
+    /**
+     * m = -n ln(p) / ln(2)^2 bits redondeado a potencia de dos y
+     * k = m/n ln(2) funciones, derivadas de un hash de 64 bits como
+     * h1 + i * h2 (Kirsch-Mitzenmacher).
+     */
+    private static final class Stage {
+        private final long capacity;
+        private final double fpp;
+        private final AtomicLongArray bits;
+        private final long mask;
+        private final int hashes;
+        private long added;
+
+        Stage(long capacity, double fpp) {
+            this.capacity = capacity;
+            this.fpp = fpp;
+            double optimal = -capacity * Math.log(fpp) / (Math.log(2) * Math.log(2));
+            long size = Long.highestOneBit(Math.max(64L, (long) Math.ceil(optimal)) - 1) << 1;
+            if (size > 1L << 36) {
+                throw new IllegalArgumentException("Bloom filter stage too large: " + capacity + " items");
+            }
+            this.bits = new AtomicLongArray((int) (size >>> 6));
+            this.mask = size - 1;
+            this.hashes = (int) Math.max(1, Math.min(MAX_HASHES, Math.round((double) size / capacity * Math.log(2))));
+        }
+
+        boolean mightContain(long hash) {
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32) | 1;
+            for (int i = 0; i < hashes; i++) {
+                long bit = (h1 + (long) i * h2) & mask;
+                if ((bits.get((int) (bit >>> 6)) & 1L << bit) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void add(long hash) {
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32) | 1;
+            for (int i = 0; i < hashes; i++) {
+                long bit = (h1 + (long) i * h2) & mask;
+                int word = (int) (bit >>> 6);
+                long flag = 1L << bit;
+                long old;
+                do {
+                    old = bits.get(word);
+                } while ((old & flag) == 0 && !bits.compareAndSet(word, old, old | flag));
+            }
+            added++;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.marware.ecommerce.cache;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * /actuator/catalogcache: aciertos, fallos y expulsiones de la caché pública,
+ * y cargas agrupadas en curso.
+ */
+@Component
+@Endpoint(id = "catalogcache")
+@RequiredArgsConstructor
+public class CatalogCacheEndpoint {
+
+    private final PublicCatalogCache cache;
+
+    @ReadOperation
+    public Map<String, Object> stats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put(PublicCatalogCache.DETAIL_CACHE, toMap(cache.detailStats()));
+        result.put(PublicCatalogCache.PAGE_CACHE, toMap(cache.pageStats()));
+        result.put("inFlight", cache.inFlight());
+        return result;
+    }
+
+    private static Map<String, Object> toMap(CacheStats stats) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("hits", stats.hitCount());
+        map.put("misses", stats.missCount());
+        map.put("hitRate", stats.hitRate());
+        map.put("evictions", stats.evictionCount());
+        map.put("loads", stats.loadCount());
+        return map;
+    }
+}
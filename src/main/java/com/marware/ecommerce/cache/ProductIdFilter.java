@@ -0,0 +1,81 @@
+package com.marware.ecommerce.cache;
+
+import com.marware.ecommerce.event.ProductChangedEvent;
+import com.marware.ecommerce.event.ProductSnapshot;
+import com.marware.ecommerce.search.CatalogIndex;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Caché negativa del detalle público: filtro de Bloom con los ids de todos
+ * los productos, cargado por CatalogIndexLoader y ampliado en cada alta. Si
+ * mightExist(id) es false el producto no existe y no hace falta ir a la
+ * caché ni a la BD.
+ *
+ * Los borrados no se pueden quitar de un filtro de Bloom: esos ids siguen
+ * dando true hasta la próxima reconstrucción y se resuelven como antes.
+ * Mientras no termina la primera carga todo id puede existir.
+ */
+@Component
+public class ProductIdFilter implements CatalogIndex {
+
+    public static final String REJECTIONS_METRIC = "public.products.id_filter.rejections";
+
+    private final long expectedProducts;
+    private final double fpp;
+    private final Counter rejections;
+
+    private volatile BloomFilter filter;
+    private BloomFilter building;
+
+    public ProductIdFilter(MeterRegistry meterRegistry,
+                           @Value("${app.public-id-filter.expected-products:100000}") long expectedProducts,
+                           @Value("${app.public-id-filter.fpp:0.01}") double fpp) {
+        this.expectedProducts = expectedProducts;
+        this.fpp = fpp;
+        this.rejections = Counter.builder(REJECTIONS_METRIC)
+                .description("Public detail lookups answered 404 by the id filter")
+                .register(meterRegistry);
+        Gauge.builder("public.products.id_filter.bits", this, f -> f.filter == null ? 0 : f.filter.bitSize())
+                .register(meterRegistry);
+    }
+
+    public boolean mightExist(Long productId) {
+        BloomFilter current = filter;
+        if (productId == null || current == null || current.mightContain(productId)) {
+            return true;
+        }
+        rejections.increment();
+        return false;
+    }
+
+    @Override
+    public void beginRebuild() {
+        BloomFilter current = filter;
+        // Si la carga anterior tuvo que crecer, se dimensiona de entrada para ese tamaño
+        long expected = current == null ? expectedProducts : Math.max(expectedProducts, current.count());
+        building = new BloomFilter(expected, fpp);
+    }
+
+    @Override
+    public void accept(ProductSnapshot product) {
+        building.add(product.id());
+    }
+
+    @Override
+    public void finishRebuild() {
+        filter = building;
+        building = null;
+    }
+
+    @Override
+    public void apply(ProductChangedEvent event) {
+        BloomFilter current = filter;
+        if (current != null && event.type() == ProductChangedEvent.Type.CREATED) {
+            current.add(event.after().id());
+        }
+    }
+}
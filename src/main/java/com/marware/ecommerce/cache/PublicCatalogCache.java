@@ -0,0 +1,341 @@
+package com.marware.ecommerce.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.marware.ecommerce.dto.ProductFilter;
+import com.marware.ecommerce.dto.ProductResponse;
+import com.marware.ecommerce.event.ProductChangedEvent;
+import com.marware.ecommerce.event.ProductSnapshot;
+import com.marware.ecommerce.search.Tokenizer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Caché read-through del catálogo público: detalle por id y páginas de listado
+ * por (query, página, tamaño, orden). Acotada por tamaño y TTL.
+ *
+ * Las escrituras invalidan sólo lo afectado: el detalle del producto y las
+ * páginas que lo contienen. Si además cambia algo que mueve el producto entre
+ * listados (visibilidad, nombre, descripción o precio), todas las páginas de
+ * cada búsqueda que podía incluirlo antes o puede incluirlo ahora: al entrar
+ * o salir un producto se desplazan también las páginas siguientes y cambia
+ * totalElements. Un cambio sólo de stock que no cambia la visibilidad (cada
+ * reserva) no recorre las claves. El texto del producto se normaliza una vez
+ * por evento, no una por clave.
+ *
+ * Una página leída antes de que una escritura confirmara puede terminar de
+ * cargarse después de su invalidación. Cada invalidación sube un contador y
+ * la página sólo se publica si el contador no ha cambiado desde que empezó a
+ * leerse; si cambia, se sirve a quien la pidió pero no se cachea.
+ *
+ * Las lecturas concurrentes de la misma clave pasan por un SingleFlight: una
+ * carga y las demás esperan su resultado (o su excepción) hasta
+ * coalesce-timeout. Con stale-while-revalidate > 0 una entrada con más de
+ * ttl sigue sirviéndose durante ese margen mientras una sola tarea en segundo
+ * plano la recarga; las invalidaciones por escritura la quitan igualmente.
+ */
+@Component
+public class PublicCatalogCache {
+
+    public static final String DETAIL_CACHE = "public.products.detail";
+    public static final String PAGE_CACHE = "public.products.pages";
+
+    // terms sale de query: se tokeniza al crear la clave y no en cada evento
+    record PageKey(String query, List<String> terms, boolean fuzzy, int page, int size, String sort) {
+
+        static PageKey of(String query, boolean fuzzy, Pageable pageable) {
+            String normalized = query == null ? "" : Tokenizer.normalize(query.trim());
+            return new PageKey(normalized, List.copyOf(Tokenizer.tokenize(normalized)), fuzzy,
+                    pageable.getPageNumber(), pageable.getPageSize(), pageable.getSort().toString());
+        }
+
+        /** productText: nombre y descripción normalizados (matchText), calculado una vez por evento. */
+        boolean couldMatch(String productText) {
+            // Con erratas no se puede descartar por subcadena
+            if (query.isEmpty() || fuzzy) {
+                return true;
+            }
+            for (String term : terms) {
+                if (!productText.contains(term)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        static String matchText(ProductSnapshot product) {
+            return Tokenizer.normalize(product.name()) + " " + Tokenizer.normalize(product.description());
+        }
+    }
+
+    // Listado filtrado (ProductFacetIndex): no se cachea, sólo se agrupa
+    record FilteredKey(PageKey page, ProductFilter filter) {
+    }
+
+    /** Valor cacheado con el instante de carga, para saber si ya está pasado. */
+    record Entry<V>(V value, long loadedAt) {
+    }
+
+    private final Cache<Long, Entry<ProductResponse>> details;
+    private final Cache<PageKey, Entry<Page<ProductResponse>>> pages;
+    // productId -> páginas cacheadas que lo contienen
+    private final Map<Long, Set<PageKey>> pagesByProduct = new ConcurrentHashMap<>();
+    // Sube antes de cada invalidación de páginas
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private final SingleFlight<Long, Entry<ProductResponse>> detailFlights;
+    private final SingleFlight<PageKey, Entry<Page<ProductResponse>>> pageFlights;
+    private final SingleFlight<FilteredKey, Page<ProductResponse>> filteredFlights;
+    private final Ticker ticker;
+    private final long detailFreshNanos;
+    private final long pageFreshNanos;
+    private final boolean detailStaleWhileRevalidate;
+    private final boolean pageStaleWhileRevalidate;
+    private final Executor refreshExecutor;
+
+    @Autowired
+    public PublicCatalogCache(MeterRegistry meterRegistry,
+                              @Value("${app.cache.public-products.max-size:10000}") long detailMaxSize,
+                              @Value("${app.cache.public-products.ttl:60s}") Duration detailTtl,
+                              @Value("${app.cache.public-products.stale-while-revalidate:0s}") Duration detailStale,
+                              @Value("${app.cache.public-pages.max-size:2000}") long pageMaxSize,
+                              @Value("${app.cache.public-pages.ttl:30s}") Duration pageTtl,
+                              @Value("${app.cache.public-pages.stale-while-revalidate:0s}") Duration pageStale,
+                              @Value("${app.cache.coalesce-timeout:5s}") Duration coalesceTimeout,
+                              @Value("${app.cache.refresh-threads:2}") int refreshThreads) {
+        this(meterRegistry, detailMaxSize, detailTtl, detailStale, pageMaxSize, pageTtl, pageStale,
+                coalesceTimeout, Ticker.systemTicker(), Executors.newFixedThreadPool(Math.max(1, refreshThreads), r -> {
+                    Thread thread = new Thread(r, "catalog-cache-refresh");
+                    thread.setDaemon(true);
+                    return thread;
+                }));
+    }
+
+    PublicCatalogCache(MeterRegistry meterRegistry,
+                       long detailMaxSize, Duration detailTtl, Duration detailStale,
+                       long pageMaxSize, Duration pageTtl, Duration pageStale,
+                       Duration coalesceTimeout, Ticker ticker, Executor refreshExecutor) {
+        this.details = Caffeine.newBuilder()
+                .maximumSize(detailMaxSize)
+                .expireAfterWrite(detailTtl.plus(detailStale))
+                .ticker(ticker)
+                .recordStats()
+                .build();
+        this.pages = Caffeine.newBuilder()
+                .maximumSize(pageMaxSize)
+                .expireAfterWrite(pageTtl.plus(pageStale))
+                .ticker(ticker)
+                .recordStats()
+                .removalListener(this::onPageRemoved)
+                .build();
+        this.detailFlights = new SingleFlight<>(coalesceTimeout);
+        this.pageFlights = new SingleFlight<>(coalesceTimeout);
+        this.filteredFlights = new SingleFlight<>(coalesceTimeout);
+        this.ticker = ticker;
+        this.detailFreshNanos = detailTtl.toNanos();
+        this.pageFreshNanos = pageTtl.toNanos();
+        this.detailStaleWhileRevalidate = !detailStale.isZero() && !detailStale.isNegative();
+        this.pageStaleWhileRevalidate = !pageStale.isZero() && !pageStale.isNegative();
+        this.refreshExecutor = refreshExecutor;
+
+        CaffeineCacheMetrics.monitor(meterRegistry, details, DETAIL_CACHE);
+        CaffeineCacheMetrics.monitor(meterRegistry, pages, PAGE_CACHE);
+    }
+
+    public ProductResponse getProduct(Long id, Function<Long, ProductResponse> loader) {
+        Entry<ProductResponse> entry = detailFlights.run(id, () -> details.get(id, key -> load(loader.apply(key))));
+        if (detailStaleWhileRevalidate && isStale(entry, detailFreshNanos)) {
+            detailFlights.runAsync(id, () -> load(loader.apply(id)), refreshExecutor,
+                    fresh -> details.asMap().replace(id, entry, fresh));
+        }
+        return entry.value();
+    }
+
+    public Page<ProductResponse> getPage(String query, Pageable pageable, Supplier<Page<ProductResponse>> loader) {
+        return getPage(query, false, pageable, loader);
+    }
+
+    public Page<ProductResponse> getPage(String query, boolean fuzzy, Pageable pageable,
+                                         Supplier<Page<ProductResponse>> loader) {
+        if (pageable.isUnpaged()) {
+            return loader.get();
+        }
+        PageKey key = PageKey.of(query, fuzzy, pageable);
+        Entry<Page<ProductResponse>> entry = pageFlights.run(key, () -> {
+            Entry<Page<ProductResponse>> cached = pages.getIfPresent(key);
+            return cached != null ? cached : loadPage(key, loader, null);
+        });
+        if (pageStaleWhileRevalidate && isStale(entry, pageFreshNanos)) {
+            pageFlights.runAsync(key, () -> loadPage(key, loader, entry), refreshExecutor, fresh -> {
+            });
+        }
+        return entry.value();
+    }
+
+    /**
+     * Listado filtrado: no se cachea (lo sirve un índice en memoria), pero las
+     * peticiones idénticas simultáneas comparten una sola ejecución.
+     */
+    public Page<ProductResponse> getFilteredPage(String query, boolean fuzzy, ProductFilter filter, Pageable pageable,
+                                                 Supplier<Page<ProductResponse>> loader) {
+        if (pageable.isUnpaged()) {
+            return loader.get();
+        }
+        return filteredFlights.run(new FilteredKey(PageKey.of(query, fuzzy, pageable), filter), loader);
+    }
+
+    /**
+     * Carga la página y la publica en lugar de previous (null si no había).
+     * No se queda en la caché si entretanto ha habido una invalidación: la
+     * lectura pudo ver la fila de antes de la escritura.
+     */
+    private Entry<Page<ProductResponse>> loadPage(PageKey key, Supplier<Page<ProductResponse>> loader,
+                                                  Entry<Page<ProductResponse>> previous) {
+        long generation = invalidations.get();
+        Entry<Page<ProductResponse>> loaded = load(loader.get());
+        boolean published = previous == null
+                ? pages.asMap().putIfAbsent(key, loaded) == null
+                : pages.asMap().replace(key, previous, loaded);
+        if (!published) {
+            return loaded;
+        }
+        // Una escritura que llegue después ya la encuentra; la que llegó antes ha subido el contador
+        for (ProductResponse product : loaded.value().getContent()) {
+            pagesByProduct.computeIfAbsent(product.getId(), id -> ConcurrentHashMap.newKeySet()).add(key);
+        }
+        if (invalidations.get() != generation) {
+            pages.asMap().remove(key, loaded);
+        }
+        return loaded;
+    }
+
+    private <V> Entry<V> load(V value) {
+        return new Entry<>(value, ticker.read());
+    }
+
+    private boolean isStale(Entry<?> entry, long freshNanos) {
+        return ticker.read() - entry.loadedAt() > freshNanos;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        Long productId = event.productId();
+        invalidations.incrementAndGet();
+        details.invalidate(productId);
+
+        Set<PageKey> containing = pagesByProduct.remove(productId);
+        if (containing != null) {
+            pages.invalidateAll(containing);
+        }
+
+        ProductSnapshot before = visible(event.before());
+        ProductSnapshot after = visible(event.after());
+        if (!movesBetweenListings(before, after)) {
+            return;
+        }
+        String beforeText = before != null ? PageKey.matchText(before) : null;
+        String afterText = after != null ? PageKey.matchText(after) : null;
+        List<PageKey> affected = new ArrayList<>();
+        for (PageKey key : pages.asMap().keySet()) {
+            if ((beforeText != null && key.couldMatch(beforeText)) || (afterText != null && key.couldMatch(afterText))) {
+                affected.add(key);
+            }
+        }
+        pages.invalidateAll(affected);
+    }
+
+    private static ProductSnapshot visible(ProductSnapshot product) {
+        return product != null && product.inStock() ? product : null;
+    }
+
+    // Sólo visibles: lo que decide en qué listados y en qué posición aparece el producto
+    private static boolean movesBetweenListings(ProductSnapshot before, ProductSnapshot after) {
+        if (before == null || after == null) {
+            return before != after;
+        }
+        return !Objects.equals(before.name(), after.name())
+                || !Objects.equals(before.description(), after.description())
+                || !samePrice(before.price(), after.price());
+    }
+
+    private static boolean samePrice(BigDecimal a, BigDecimal b) {
+        return a == null ? b == null : b != null && a.compareTo(b) == 0;
+    }
+
+    public void invalidateAll() {
+        invalidations.incrementAndGet();
+        details.invalidateAll();
+        pages.invalidateAll();
+        pagesByProduct.clear();
+    }
+
+    public CacheStats detailStats() {
+        return details.stats();
+    }
+
+    public CacheStats pageStats() {
+        return pages.stats();
+    }
+
+    public int inFlight() {
+        return detailFlights.inFlight() + pageFlights.inFlight() + filteredFlights.inFlight();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (refreshExecutor instanceof ExecutorService executor) {
+            executor.shutdownNow();
+        }
+    }
+
+    // Deja de seguir los productos de la página quitada salvo los que siguen en la publicada ahora
+    private void onPageRemoved(PageKey key, Entry<Page<ProductResponse>> entry, RemovalCause cause) {
+        if (key == null || entry == null) {
+            return;
+        }
+        for (ProductResponse product : entry.value().getContent()) {
+            pagesByProduct.computeIfPresent(product.getId(), (id, keys) -> {
+                // Se mira dentro del compute: un registro concurrente del mismo producto espera a este
+                Entry<Page<ProductResponse>> current = pages.asMap().get(key);
+                if (current == null || !contains(current.value(), id)) {
+                    keys.remove(key);
+                }
+                return keys.isEmpty() ? null : keys;
+            });
+        }
+    }
+
+    private static boolean contains(Page<ProductResponse> page, Long productId) {
+        for (ProductResponse product : page.getContent()) {
+            if (productId.equals(product.getId())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,107 @@
+package com.marware.ecommerce.cache;
+
+import com.marware.ecommerce.exception.CatalogTimeoutException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Agrupa llamadas concurrentes con la misma clave: la primera (líder) ejecuta
+ * el loader en su hilo y las demás esperan su CompletableFuture hasta timeout.
+ * Todas reciben el mismo resultado o la misma excepción; al terminar la clave
+ * queda libre y la siguiente llamada vuelve a ejecutar el loader.
+ */
+final class SingleFlight<K, V> {
+
+    private static final Logger log = LoggerFactory.getLogger(SingleFlight.class);
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> calls = new ConcurrentHashMap<>();
+    private final Duration timeout;
+
+    SingleFlight(Duration timeout) {
+        this.timeout = timeout;
+    }
+
+    V run(K key, Supplier<V> loader) {
+        CompletableFuture<V> call = new CompletableFuture<>();
+        CompletableFuture<V> inFlight = calls.putIfAbsent(key, call);
+        if (inFlight != null) {
+            return await(inFlight);
+        }
+        try {
+            V value = loader.get();
+            call.complete(value);
+            return value;
+        } catch (RuntimeException | Error ex) {
+            call.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            calls.remove(key, call);
+        }
+    }
+
+    /**
+     * Ejecuta el loader en executor si no hay ya una llamada con esa clave y
+     * pasa el resultado a onSuccess. Los errores quedan en el future que
+     * reciben quienes estén esperando; el que lanza la tarea no los ve.
+     */
+    boolean runAsync(K key, Supplier<V> loader, Executor executor, Consumer<V> onSuccess) {
+        CompletableFuture<V> call = new CompletableFuture<>();
+        if (calls.putIfAbsent(key, call) != null) {
+            return false;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    V value = loader.get();
+                    onSuccess.accept(value);
+                    call.complete(value);
+                } catch (RuntimeException | Error ex) {
+                    log.warn("Background load failed for {}: {}", key, ex.getMessage());
+                    call.completeExceptionally(ex);
+                } finally {
+                    calls.remove(key, call);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException ex) {
+            calls.remove(key, call);
+            call.completeExceptionally(ex);
+            return false;
+        }
+    }
+
+    int inFlight() {
+        return calls.size();
+    }
+
+    private V await(CompletableFuture<V> call) {
+        try {
+            return call.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            throw new CatalogTimeoutException(timeout);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new CatalogTimeoutException(timeout);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+}
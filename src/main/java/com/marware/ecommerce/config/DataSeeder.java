@@ -8,6 +8,7 @@ import com.marware.ecommerce.repository.RoleRepository;
 import com.marware.ecommerce.repository.TenantRepository;
 import com.marware.ecommerce.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
@@ -25,13 +26,26 @@ public class DataSeeder implements CommandLineRunner {
     private final UserRepository userRepository;
     private final ProductRepository productRepository;
     private final PasswordEncoder passwordEncoder;
+    private final SyntheticCatalogGenerator syntheticCatalogGenerator;
+
+    // Catálogo sintético para pruebas de carga (ver app.seed.synthetic.*)
+    @Value("${app.seed.synthetic.enabled:false}")
+    private boolean syntheticEnabled;
 
     @Override
     public void run(String... args) {
         if (roleRepository.count() > 0 || tenantRepository.count() > 0 || userRepository.count() > 0) {
             System.out.println("🟡 Seeding skipped: ya existen datos iniciales.");
-            return;
+        } else {
+            seedInitialData();
+        }
+
+        if (syntheticEnabled) {
+            seedSyntheticCatalog();
         }
+    }
+
+    private void seedInitialData() {
 
         // 1. Crear roles
         Role adminRole = createRoleIfNotFound("ROLE_ADMIN");
@@ -56,6 +70,16 @@ public class DataSeeder implements CommandLineRunner {
         System.out.println("✅ Seeding completed successfully.");
     }
 
+    private void seedSyntheticCatalog() {
+        if (productRepository.count() > 0) {
+            System.out.println("🟡 Synthetic seeding skipped: ya existen productos.");
+            return;
+        }
+        Role sellerRole = createRoleIfNotFound("ROLE_SELLER");
+        long inserted = syntheticCatalogGenerator.generate(sellerRole);
+        System.out.println("✅ Synthetic seeding completed: " + inserted + " productos.");
+    }
+
 
     private Role createRoleIfNotFound(String roleName) {
         return roleRepository.findByName(roleName).orElseGet(() -> {
@@ -0,0 +1,74 @@
+package com.marware.ecommerce.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.hibernate.cfg.AvailableSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Presupuesto de sentencias SQL por petición para los endpoints de listado.
+ * Con app.query-budget.fail-on-exceed=true (modo test) la petición falla
+ * en cuanto se supera el máximo; si no, sólo se registra un warning.
+ */
+@Configuration
+public class QueryBudgetConfig implements WebMvcConfigurer {
+
+    private static final Logger log = LoggerFactory.getLogger(QueryBudgetConfig.class);
+
+    @Value("${app.query-budget.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.query-budget.max-statements:5}")
+    private int maxStatements;
+
+    @Value("${app.query-budget.fail-on-exceed:false}")
+    private boolean failOnExceed;
+
+    @Bean
+    public HibernatePropertiesCustomizer statementCountCustomizer() {
+        return props -> props.put(AvailableSettings.STATEMENT_INSPECTOR, new StatementCountInspector());
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        if (!enabled) {
+            return;
+        }
+        registry.addInterceptor(new AsyncHandlerInterceptor() {
+                    @Override
+                    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+                        if ("GET".equals(request.getMethod())) {
+                            StatementCountInspector.begin(maxStatements, failOnExceed);
+                        }
+                        return true;
+                    }
+
+                    // Respuestas en streaming: el hilo del contenedor se libera antes de afterCompletion
+                    @Override
+                    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+                                                               Object handler) {
+                        StatementCountInspector.end();
+                    }
+
+                    @Override
+                    public void afterCompletion(HttpServletRequest request, HttpServletResponse response,
+                                                Object handler, Exception ex) {
+                        int count = StatementCountInspector.end();
+                        if (count > maxStatements) {
+                            log.warn("{} {} ran {} SQL statements (budget {})",
+                                    request.getMethod(), request.getRequestURI(), count, maxStatements);
+                        }
+                    }
+                })
+                .addPathPatterns("/api/products", "/api/products/paged", "/api/products/search",
+                        "/api/products/mine", "/public/products");
+    }
+}
@@ -0,0 +1,152 @@
+package com.marware.ecommerce.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Enruta las transacciones readOnly a las réplicas (round-robin entre las que
+ * pasan el health check) y todo lo demás al primario. Debe envolverse en un
+ * LazyConnectionDataSourceProxy: la conexión tiene que pedirse cuando el
+ * flag readOnly de la transacción ya está fijado.
+ *
+ * Con readYourWritesWindow > 0, un usuario que acaba de escribir sigue
+ * leyendo del primario durante esa ventana para no ver datos de una réplica
+ * con retraso.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    static final String PRIMARY = "primary";
+
+    private final DataSource primary;
+    private final Map<String, DataSource> replicas = new LinkedHashMap<>();
+    private final List<String> replicaKeys;
+    private final Set<String> healthy = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger next = new AtomicInteger();
+    private final Cache<String, Boolean> recentWriters;
+    private final ScheduledExecutorService healthChecker;
+
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicaDataSources,
+                                    Duration healthCheckInterval, Duration readYourWritesWindow) {
+        this.primary = primary;
+        for (int i = 0; i < replicaDataSources.size(); i++) {
+            replicas.put("replica-" + (i + 1), replicaDataSources.get(i));
+        }
+        this.replicaKeys = List.copyOf(replicas.keySet());
+        this.healthy.addAll(replicaKeys);
+        this.recentWriters = readYourWritesWindow.isZero() || readYourWritesWindow.isNegative()
+                ? null
+                : Caffeine.newBuilder().expireAfterWrite(readYourWritesWindow).maximumSize(100_000).build();
+
+        Map<Object, Object> targets = new HashMap<>(replicas);
+        targets.put(PRIMARY, primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+
+        this.healthChecker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "replica-health-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (!replicaKeys.isEmpty()) {
+            long interval = Math.max(100, healthCheckInterval.toMillis());
+            healthChecker.scheduleWithFixedDelay(this::checkReplicas, 0, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String user = currentUser();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (user != null && recentWriters != null && TransactionSynchronizationManager.isActualTransactionActive()) {
+                recentWriters.put(user, Boolean.TRUE);
+            }
+            return PRIMARY;
+        }
+        if (user != null && recentWriters != null && recentWriters.getIfPresent(user) != null) {
+            return PRIMARY;
+        }
+        return nextHealthyReplica();
+    }
+
+    /** Comprueba cada réplica con Connection.isValid; las caídas dejan de recibir lecturas. */
+    void checkReplicas() {
+        replicas.forEach((key, dataSource) -> {
+            boolean up;
+            try (Connection connection = dataSource.getConnection()) {
+                up = connection.isValid(2);
+            } catch (Exception e) {
+                up = false;
+            }
+            boolean changed = up ? healthy.add(key) : healthy.remove(key);
+            if (changed) {
+                log.warn("Read replica {} is now {}", key, up ? "UP" : "DOWN");
+            }
+        });
+    }
+
+    public List<String> healthyReplicas() {
+        List<String> result = new ArrayList<>();
+        for (String key : replicaKeys) {
+            if (healthy.contains(key)) result.add(key);
+        }
+        return result;
+    }
+
+    @Override
+    public void close() {
+        healthChecker.shutdownNow();
+        for (DataSource dataSource : replicas.values()) {
+            closeQuietly(dataSource);
+        }
+        closeQuietly(primary);
+    }
+
+    private String nextHealthyReplica() {
+        int size = replicaKeys.size();
+        for (int attempt = 0; attempt < size; attempt++) {
+            String key = replicaKeys.get(Math.floorMod(next.getAndIncrement(), size));
+            if (healthy.contains(key)) {
+                return key;
+            }
+        }
+        // Sin réplicas sanas las lecturas vuelven al primario
+        return PRIMARY;
+    }
+
+    private static String currentUser() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        return auth != null && auth.isAuthenticated() ? auth.getName() : null;
+    }
+
+    private static void closeQuietly(DataSource dataSource) {
+        if (dataSource instanceof AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                log.debug("Error closing datasource", e);
+            }
+        }
+    }
+}
@@ -1,19 +1,79 @@
 package com.marware.ecommerce.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import software.amazon.awssdk.auth.credentials.EnvironmentVariableCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
 import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
 import software.amazon.awssdk.services.s3.S3Client;
 
+import java.time.Duration;
+
+/**
+ * Clientes S3 de larga vida compartidos por toda la aplicación: el pool de
+ * conexiones, el contexto TLS y las credenciales se crean una sola vez.
+ * Spring los cierra al parar el contexto.
+ */
 @Configuration
 public class S3Config {
 
+    @Value("${aws.accessKey}")
+    private String accessKey;
+
+    @Value("${aws.secretKey}")
+    private String secretKey;
+
+    @Value("${aws.region}")
+    private String region;
+
+    @Value("${aws.s3.max-connections:64}")
+    private int maxConnections;
+
+    @Value("${aws.s3.connection-timeout:2s}")
+    private Duration connectionTimeout;
+
+    @Value("${aws.s3.socket-timeout:30s}")
+    private Duration socketTimeout;
+
+    @Value("${aws.s3.connection-max-idle:60s}")
+    private Duration connectionMaxIdle;
+
     @Bean
-    public S3Client s3Client() {
+    public AwsCredentialsProvider s3CredentialsProvider() {
+        return StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey));
+    }
+
+    @Bean
+    public S3Client s3Client(AwsCredentialsProvider s3CredentialsProvider) {
         return S3Client.builder()
-                .region(Region.US_EAST_2)
-                .credentialsProvider(EnvironmentVariableCredentialsProvider.create())
+                .region(Region.of(region))
+                .credentialsProvider(s3CredentialsProvider)
+                .httpClientBuilder(ApacheHttpClient.builder()
+                        .maxConnections(maxConnections)
+                        .connectionTimeout(connectionTimeout)
+                        .socketTimeout(socketTimeout)
+                        .connectionMaxIdleTime(connectionMaxIdle)
+                        .tcpKeepAlive(true))
+                .build();
+    }
+
+    @Bean
+    public S3AsyncClient s3AsyncClient(AwsCredentialsProvider s3CredentialsProvider) {
+        return S3AsyncClient.builder()
+                .region(Region.of(region))
+                .credentialsProvider(s3CredentialsProvider)
+                .httpClientBuilder(NettyNioAsyncHttpClient.builder()
+                        .maxConcurrency(maxConnections)
+                        .connectionTimeout(connectionTimeout)
+                        .readTimeout(socketTimeout)
+                        .writeTimeout(socketTimeout)
+                        .connectionMaxIdleTime(connectionMaxIdle)
+                        .tcpKeepAlive(true))
                 .build();
     }
 }
@@ -0,0 +1,10 @@
+package com.marware.ecommerce.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Volcado de los contadores flash sale y barrido de reservas de stock caducadas
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
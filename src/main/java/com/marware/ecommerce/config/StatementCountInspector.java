@@ -0,0 +1,53 @@
+package com.marware.ecommerce.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Cuenta las sentencias SQL que Hibernate prepara en el hilo actual.
+ * Si hay un presupuesto activo y se supera, falla en la sentencia que lo excede
+ * (modo estricto) para detectar regresiones N+1 en los listados.
+ */
+public class StatementCountInspector implements StatementInspector {
+
+    private static final ThreadLocal<Budget> CURRENT = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        Budget budget = CURRENT.get();
+        if (budget != null) {
+            budget.count++;
+            if (budget.failOnExceed && budget.count > budget.maxStatements) {
+                throw new IllegalStateException(String.format(
+                        "Query budget exceeded: %d statements (max %d) - %s",
+                        budget.count, budget.maxStatements, sql));
+            }
+        }
+        return sql;
+    }
+
+    public static void begin(int maxStatements, boolean failOnExceed) {
+        CURRENT.set(new Budget(maxStatements, failOnExceed));
+    }
+
+    public static int count() {
+        Budget budget = CURRENT.get();
+        return budget == null ? 0 : budget.count;
+    }
+
+    public static int end() {
+        int count = count();
+        CURRENT.remove();
+        return count;
+    }
+
+    private static final class Budget {
+        private final int maxStatements;
+        private final boolean failOnExceed;
+        private int count;
+
+        private Budget(int maxStatements, boolean failOnExceed) {
+            this.maxStatements = maxStatements;
+            this.failOnExceed = failOnExceed;
+        }
+    }
+}
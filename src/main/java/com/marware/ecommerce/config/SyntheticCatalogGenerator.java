@@ -0,0 +1,318 @@
+package com.marware.ecommerce.config;
+
+import com.marware.ecommerce.model.Product;
+import com.marware.ecommerce.model.Role;
+import com.marware.ecommerce.model.Tenant;
+import com.marware.ecommerce.model.User;
+import com.marware.ecommerce.repository.TenantRepository;
+import com.marware.ecommerce.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Genera un catálogo sintético para pruebas de carga: N tenants, M sellers por
+ * tenant y millones de productos. Los productos se insertan por lotes (un lote
+ * por transacción, con el batching JDBC de Hibernate) y cada tenant se genera
+ * en su propio hilo.
+ *
+ * El texto sigue una distribución de Zipf sobre un vocabulario con cola larga,
+ * para que la búsqueda, la paginación y las cachés se comporten como con datos
+ * reales (pocos términos muy frecuentes, muchos raros). Con la misma semilla
+ * se obtiene siempre el mismo catálogo.
+ *
+ * En MySQL conviene añadir rewriteBatchedStatements=true a la URL JDBC.
+ */
+@Slf4j
+@Component
+public class SyntheticCatalogGenerator {
+
+    private static final String[] NOUNS = {
+            "camiseta", "pantalón", "zapatilla", "chaqueta", "gorra", "mochila", "reloj", "bolso",
+            "sudadera", "vestido", "falda", "abrigo", "bufanda", "cinturón", "calcetines", "gafas",
+            "auriculares", "teclado", "ratón", "monitor", "lámpara", "taza", "sartén", "cojín",
+            "manta", "toalla", "libreta", "bolígrafo", "botella", "altavoz", "cargador", "funda"
+    };
+    private static final String[] ADJECTIVES = {
+            "clásica", "deportiva", "básica", "premium", "ligera", "impermeable", "ergonómica",
+            "vintage", "compacta", "reforzada", "térmica", "plegable", "inalámbrica", "elegante",
+            "infantil", "profesional", "ecológica", "resistente", "suave", "moderna"
+    };
+    private static final String[] MATERIALS = {
+            "algodón", "lana", "cuero", "poliéster", "acero", "madera", "bambú", "lino",
+            "silicona", "aluminio", "cerámica", "vidrio", "nylon", "seda", "denim"
+    };
+    private static final String[] COLORS = {
+            "negro", "blanco", "azul", "rojo", "gris", "verde", "beige", "marrón",
+            "rosa", "amarillo", "naranja", "morado", "turquesa", "burdeos"
+    };
+    private static final String[] SYLLABLES = {
+            "ka", "lo", "mi", "ra", "te", "su", "no", "vi", "pa", "ze", "to", "ri", "ma", "de", "fu", "xo"
+    };
+
+    private final TenantRepository tenantRepository;
+    private final UserRepository userRepository;
+    private final PasswordEncoder passwordEncoder;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+
+    private final int tenants;
+    private final int sellersPerTenant;
+    private final long products;
+    private final int batchSize;
+    private final int threads;
+    private final long seed;
+
+    private final String[] vocabulary;
+    private final ZipfSampler vocabularySampler;
+
+    public SyntheticCatalogGenerator(TenantRepository tenantRepository,
+                                     UserRepository userRepository,
+                                     PasswordEncoder passwordEncoder,
+                                     EntityManager entityManager,
+                                     PlatformTransactionManager transactionManager,
+                                     @Value("${app.seed.synthetic.tenants:10}") int tenants,
+                                     @Value("${app.seed.synthetic.sellers-per-tenant:20}") int sellersPerTenant,
+                                     @Value("${app.seed.synthetic.products:1000000}") long products,
+                                     @Value("${app.seed.synthetic.batch-size:1000}") int batchSize,
+                                     @Value("${app.seed.synthetic.threads:0}") int threads,
+                                     @Value("${app.seed.synthetic.vocabulary-size:5000}") int vocabularySize,
+                                     @Value("${app.seed.synthetic.seed:42}") long seed) {
+        this.tenantRepository = tenantRepository;
+        this.userRepository = userRepository;
+        this.passwordEncoder = passwordEncoder;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.tenants = Math.max(1, tenants);
+        this.sellersPerTenant = Math.max(1, sellersPerTenant);
+        this.products = Math.max(0, products);
+        this.batchSize = Math.max(1, batchSize);
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.seed = seed;
+        this.vocabulary = buildVocabulary(Math.max(vocabularySize, 0), seed);
+        this.vocabularySampler = new ZipfSampler(vocabulary.length, 1.07);
+    }
+
+    /**
+     * Crea los tenants, sellers y productos configurados. Devuelve el número
+     * de productos insertados.
+     */
+    public long generate(Role sellerRole) {
+        long start = System.nanoTime();
+        // Una sola codificación: BCrypt por usuario tardaría minutos con miles de sellers
+        String password = passwordEncoder.encode("seller123");
+
+        List<Tenant> createdTenants = new ArrayList<>(tenants);
+        List<List<User>> sellersByTenant = new ArrayList<>(tenants);
+        for (int t = 0; t < tenants; t++) {
+            Tenant tenant = new Tenant();
+            tenant.setName("Synthetic Store " + (t + 1));
+            tenant.setDescription("Tenant sintético para pruebas de carga");
+            tenant = tenantRepository.save(tenant);
+            createdTenants.add(tenant);
+
+            List<User> sellers = new ArrayList<>(sellersPerTenant);
+            for (int s = 0; s < sellersPerTenant; s++) {
+                User seller = new User();
+                seller.setEmail("seller" + (s + 1) + "@store" + (t + 1) + ".synthetic");
+                seller.setFullName("Seller " + (s + 1) + " Store " + (t + 1));
+                seller.setPassword(password);
+                seller.setTenant(tenant);
+                Set<Role> roles = new HashSet<>();
+                roles.add(sellerRole);
+                seller.setRoles(roles);
+                sellers.add(seller);
+            }
+            sellersByTenant.add(userRepository.saveAll(sellers));
+        }
+
+        AtomicLong inserted = new AtomicLong();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, tenants));
+        try {
+            List<Future<?>> tasks = new ArrayList<>(tenants);
+            for (int t = 0; t < tenants; t++) {
+                long count = products / tenants + (t < products % tenants ? 1 : 0);
+                Tenant tenant = createdTenants.get(t);
+                List<User> sellers = sellersByTenant.get(t);
+                SplittableRandom random = new SplittableRandom(seed + t);
+                tasks.add(executor.submit(() -> insertProducts(tenant, sellers, count, random, inserted)));
+            }
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Synthetic seeding interrupted", e);
+        } catch (Exception e) {
+            throw new IllegalStateException("Synthetic seeding failed", e);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        log.info("Synthetic catalog: {} tenants, {} sellers, {} products in {} ms",
+                tenants, tenants * sellersPerTenant, inserted.get(), elapsedMs);
+        return inserted.get();
+    }
+
+    private void insertProducts(Tenant tenant, List<User> sellers, long count,
+                                SplittableRandom random, AtomicLong inserted) {
+        ZipfSampler sellerSampler = new ZipfSampler(sellers.size(), 0.8);
+        long remaining = count;
+        while (remaining > 0) {
+            int size = (int) Math.min(batchSize, remaining);
+            long offset = count - remaining;
+            transactionTemplate.executeWithoutResult(status -> {
+                Tenant tenantRef = entityManager.getReference(Tenant.class, tenant.getId());
+                for (int i = 0; i < size; i++) {
+                    User seller = sellers.get(sellerSampler.sample(random));
+                    entityManager.persist(Product.builder()
+                            .name(productName(random) + reference(tenant, offset + i))
+                            .description(productDescription(random))
+                            .price(price(random))
+                            .stock(stock(random))
+                            .seller(entityManager.getReference(User.class, seller.getId()))
+                            .tenant(tenantRef)
+                            .build());
+                }
+                // Ids de la secuencia pooled: el flush sale en lotes JDBC de hibernate.jdbc.batch_size
+                entityManager.flush();
+                entityManager.clear();
+            });
+            remaining -= size;
+            long total = inserted.addAndGet(size);
+            if (total / 100_000 != (total - size) / 100_000) {
+                log.info("Synthetic catalog: {} / {} products", total, products);
+            }
+        }
+    }
+
+    // Nombre: sustantivo + adjetivo + material/color, cada uno con sesgo de Zipf
+    private String productName(SplittableRandom random) {
+        StringBuilder name = new StringBuilder(48)
+                .append(pick(NOUNS, random)).append(' ')
+                .append(pick(ADJECTIVES, random));
+        if (random.nextInt(3) > 0) {
+            name.append(" de ").append(pick(MATERIALS, random));
+        }
+        if (random.nextBoolean()) {
+            name.append(' ').append(pick(COLORS, random));
+        }
+        if (vocabulary.length > 0 && random.nextInt(4) == 0) {
+            name.append(' ').append(vocabulary[vocabularySampler.sample(random)]);
+        }
+        return capitalize(name.toString());
+    }
+
+    // Referencia única por tenant: el nombre tiene restricción de unicidad (uk_product_name_normalized)
+    private static String reference(Tenant tenant, long index) {
+        return " #" + tenant.getId() + "-" + (index + 1);
+    }
+
+    // Descripción: 8–60 palabras del vocabulario, máximo 1000 caracteres (longitud de la columna)
+    private String productDescription(SplittableRandom random) {
+        int words = 8 + (int) Math.min(52, Math.abs(random.nextGaussian() * 15));
+        StringBuilder description = new StringBuilder(words * 8);
+        for (int w = 0; w < words; w++) {
+            String word = vocabulary.length > 0 && random.nextInt(5) > 0
+                    ? vocabulary[vocabularySampler.sample(random)]
+                    : pick(random.nextBoolean() ? MATERIALS : COLORS, random);
+            if (description.length() + word.length() + 2 > 1000) {
+                break;
+            }
+            if (w > 0) {
+                description.append(' ');
+            }
+            description.append(word);
+        }
+        return capitalize(description.append('.').toString());
+    }
+
+    // Log-normal: la mayoría de precios entre 5 y 100, con cola hasta miles
+    private static BigDecimal price(SplittableRandom random) {
+        double value = Math.exp(3.2 + random.nextGaussian() * 0.9);
+        return BigDecimal.valueOf(Math.max(0.5, Math.min(value, 9999.99))).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    // ~10% agotados, el resto entre 1 y 500
+    private static int stock(SplittableRandom random) {
+        return random.nextInt(10) == 0 ? 0 : 1 + random.nextInt(500);
+    }
+
+    private static String pick(String[] values, SplittableRandom random) {
+        // Sesgo cuadrático hacia los primeros elementos
+        double r = random.nextDouble();
+        return values[(int) (r * r * values.length)];
+    }
+
+    private static String capitalize(String value) {
+        return Character.toUpperCase(value.charAt(0)) + value.substring(1);
+    }
+
+    private static String[] buildVocabulary(int size, long seed) {
+        String[] words = new String[size];
+        int base = Math.min(size, NOUNS.length + ADJECTIVES.length + MATERIALS.length + COLORS.length);
+        String[] common = concat(NOUNS, ADJECTIVES, MATERIALS, COLORS);
+        System.arraycopy(common, 0, words, 0, base);
+
+        SplittableRandom random = new SplittableRandom(seed);
+        Set<String> used = new HashSet<>(Arrays.asList(common));
+        for (int i = base; i < size; i++) {
+            String word;
+            do {
+                int syllables = 2 + random.nextInt(3);
+                StringBuilder sb = new StringBuilder(syllables * 2);
+                for (int s = 0; s < syllables; s++) {
+                    sb.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+                }
+                word = sb.toString();
+            } while (!used.add(word));
+            words[i] = word;
+        }
+        return words;
+    }
+
+    private static String[] concat(String[]... arrays) {
+        return Arrays.stream(arrays).flatMap(Arrays::stream).toArray(String[]::new);
+    }
+
+    /** Muestreo de Zipf por búsqueda binaria sobre la distribución acumulada. */
+    static final class ZipfSampler {
+
+        private final double[] cumulative;
+
+        ZipfSampler(int n, double exponent) {
+            cumulative = new double[Math.max(n, 1)];
+            double sum = 0;
+            for (int k = 0; k < cumulative.length; k++) {
+                sum += 1.0 / Math.pow(k + 1, exponent);
+                cumulative[k] = sum;
+            }
+            for (int k = 0; k < cumulative.length; k++) {
+                cumulative[k] /= sum;
+            }
+        }
+
+        int sample(SplittableRandom random) {
+            int index = Arrays.binarySearch(cumulative, random.nextDouble());
+            return Math.min(index >= 0 ? index : -index - 1, cumulative.length - 1);
+        }
+    }
+}
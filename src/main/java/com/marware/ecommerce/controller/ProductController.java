@@ -1,8 +1,12 @@
 package com.marware.ecommerce.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.marware.ecommerce.dto.CursorPage;
+import com.marware.ecommerce.dto.ProductImportResult;
 import com.marware.ecommerce.dto.ProductRequest;
 import com.marware.ecommerce.dto.ProductResponse;
+import com.marware.ecommerce.exception.ApiException;
+import com.marware.ecommerce.service.ProductImportService;
 import com.marware.ecommerce.service.ProductService;
 import jakarta.validation.ConstraintViolation;
 import jakarta.validation.ConstraintViolationException;
@@ -10,12 +14,15 @@ import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStream;
 import java.util.List;
 import java.util.Set;
 
@@ -25,6 +32,7 @@ import java.util.Set;
 public class ProductController {
 
     private final ProductService productService;
+    private final ProductImportService productImportService;
     private final ObjectMapper objectMapper;
     private final Validator validator;
 
@@ -41,34 +49,72 @@ public class ProductController {
             }
 
             ProductResponse created = productService.createProduct(request, image);
-            return ResponseEntity.status(HttpStatus.CREATED).body(created);
-        } catch (ConstraintViolationException e) {
+            return ResponseEntity.status(HttpStatus.CREATED).eTag(ProductETags.of(created)).body(created);
+        } catch (ConstraintViolationException | ApiException e) {
             throw e;
         } catch (Exception e) {
             throw new RuntimeException("Invalid product JSON", e);
         }
     }
 
+    // Alta masiva: CSV con cabecera (name,description,price,stock) o NDJSON de ProductRequest
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<ProductImportResult> importProducts(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            InputStream body) {
+        return ResponseEntity.ok(productImportService.importProducts(body, MediaType.parseMediaType(contentType)));
+    }
+
+    // fuzzy=true: coincidencia por nombre tolerante a erratas (índice de trigramas)
     @GetMapping("/search")
     public ResponseEntity<Page<ProductResponse>> searchProducts(
             @RequestParam(required = false) String query,
+            @RequestParam(defaultValue = "false") boolean fuzzy,
             Pageable pageable) {
-        return ResponseEntity.ok(productService.searchProducts(query, pageable));
+        Page<ProductResponse> page = productService.searchProducts(query, fuzzy, pageable);
+        return ResponseEntity.ok().eTag(ProductETags.of(page)).body(page);
     }
 
     @GetMapping("/paged")
     public ResponseEntity<Page<ProductResponse>> getAllProducts(Pageable pageable) {
-        return ResponseEntity.ok(productService.getAllProducts(pageable));
+        Page<ProductResponse> page = productService.getAllProducts(pageable);
+        return ResponseEntity.ok().eTag(ProductETags.of(page)).body(page);
+    }
+
+    @GetMapping(value = "/paged", params = "after")
+    public ResponseEntity<CursorPage<ProductResponse>> getAllProductsByCursor(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "id") String sort,
+            @RequestParam(defaultValue = "20") int size) {
+        CursorPage<ProductResponse> page = productService.getAllProductsAfter(after, sort, size);
+        return ResponseEntity.ok().eTag(ProductETags.of(page)).body(page);
     }
 
     @GetMapping
     public ResponseEntity<List<ProductResponse>> getAllProducts() {
-        return ResponseEntity.ok(productService.getAllProducts());
+        List<ProductResponse> products = productService.getAllProducts();
+        return ResponseEntity.ok().eTag(ProductETags.of(products)).body(products);
+    }
+
+    // Catálogo completo en streaming con memoria constante: NDJSON o, con ?stream=true, array JSON por trozos
+    @GetMapping(produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> streamAllProductsNdjson() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(out -> productService.writeAllProducts(out, true));
+    }
+
+    @GetMapping(params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamAllProductsJson() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> productService.writeAllProducts(out, false));
     }
 
     @GetMapping("/mine")
     public ResponseEntity<List<ProductResponse>> getProductsBySeller() {
-        return ResponseEntity.ok(productService.getProductsBySeller());
+        List<ProductResponse> products = productService.getProductsBySeller();
+        return ResponseEntity.ok().eTag(ProductETags.of(products)).body(products);
     }
 
     @DeleteMapping("/{productId}")
@@ -77,19 +123,24 @@ public class ProductController {
         return ResponseEntity.noContent().build();
     }
 
+    // If-Match con el ETag del producto: 412 si ha cambiado desde que el cliente lo leyó
     @PatchMapping(value = "/{productId}/image", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ResponseEntity<ProductResponse> updateProductImage(
             @PathVariable Long productId,
-            @RequestPart("image") MultipartFile image) {
+            @RequestPart("image") MultipartFile image,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
 
-        return ResponseEntity.ok(productService.updateProductImage(productId, image));
+        ProductResponse updated = productService.updateProductImage(
+                productId, image, ProductETags.expectedVersion(ifMatch));
+        return ResponseEntity.ok().eTag(ProductETags.of(updated)).body(updated);
     }
 
     @PutMapping(value = "/{productId}", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ResponseEntity<ProductResponse> updateProductWithImage(
             @PathVariable Long productId,
             @RequestPart("product") String productJson,
-            @RequestPart(value = "image", required = false) MultipartFile image) {
+            @RequestPart(value = "image", required = false) MultipartFile image,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
 
         try {
             ProductRequest request = objectMapper.readValue(productJson, ProductRequest.class);
@@ -97,10 +148,10 @@ public class ProductController {
             if (!violations.isEmpty()) {
                 throw new ConstraintViolationException(violations);
             }
-            return ResponseEntity.ok(
-                    productService.updateProductWithImage(productId, request, image)
-            );
-        } catch (ConstraintViolationException e) {
+            ProductResponse updated = productService.updateProductWithImage(
+                    productId, request, image, ProductETags.expectedVersion(ifMatch));
+            return ResponseEntity.ok().eTag(ProductETags.of(updated)).body(updated);
+        } catch (ConstraintViolationException | ApiException e) {
             throw e;
         } catch (Exception e) {
             throw new RuntimeException("Invalid product JSON", e);
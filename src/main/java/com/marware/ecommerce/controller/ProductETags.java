@@ -0,0 +1,98 @@
+package com.marware.ecommerce.controller;
+
+import com.marware.ecommerce.dto.CursorPage;
+import com.marware.ecommerce.dto.FacetedPage;
+import com.marware.ecommerce.dto.ProductResponse;
+import org.springframework.data.domain.Page;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * ETags de producto a partir de la columna @Version. El de un producto es su
+ * versión ("3") y sirve para If-Match; el de un listado es débil y resume id y
+ * versión de cada elemento más la paginación (y las facetas, si las hay), así
+ * que cambia en cuanto cambia cualquier producto de la página.
+ *
+ * Con ResponseEntity.eTag() Spring MVC responde 304 a un GET con
+ * If-None-Match coincidente sin serializar el cuerpo.
+ */
+final class ProductETags {
+
+    // Versión imposible (las reales empiezan en 0): un If-Match mal formado nunca coincide
+    static final long NO_MATCH = -1L;
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private ProductETags() {
+    }
+
+    static String of(ProductResponse product) {
+        return "\"" + product.getVersion() + "\"";
+    }
+
+    static String of(List<ProductResponse> products) {
+        return weak(hash(FNV_OFFSET, products));
+    }
+
+    static String of(Page<ProductResponse> page) {
+        long hash = hash(FNV_OFFSET, page.getContent());
+        hash = mix(hash, page.getTotalElements());
+        hash = mix(hash, page.getNumber());
+        if (page instanceof FacetedPage<ProductResponse> faceted && faceted.getFacets() != null) {
+            hash = mix(hash, faceted.getFacets().hashCode());
+        }
+        return weak(mix(hash, page.getSize()));
+    }
+
+    static String of(CursorPage<ProductResponse> page) {
+        long hash = hash(FNV_OFFSET, page.getContent());
+        return weak(mix(hash, Objects.hashCode(page.getNextCursor())));
+    }
+
+    /**
+     * Versión esperada según If-Match, o null si no hay precondición (sin
+     * cabecera o "*"). Sólo se admite una etiqueta fuerte; una débil, una lista
+     * o un valor no numérico devuelven NO_MATCH y la petición acaba en 412.
+     */
+    static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank()) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.equals("*")) {
+            return null;
+        }
+        if (tag.length() < 3 || tag.charAt(0) != '"' || tag.charAt(tag.length() - 1) != '"') {
+            return NO_MATCH;
+        }
+        try {
+            return Long.parseLong(tag.substring(1, tag.length() - 1));
+        } catch (NumberFormatException e) {
+            return NO_MATCH;
+        }
+    }
+
+    private static long hash(long hash, List<ProductResponse> products) {
+        hash = mix(hash, products.size());
+        for (ProductResponse product : products) {
+            hash = mix(hash, product.getId() == null ? 0 : product.getId());
+            hash = mix(hash, product.getVersion() == null ? 0 : product.getVersion());
+        }
+        return hash;
+    }
+
+    // FNV-1a sobre los 8 bytes del valor
+    private static long mix(long hash, long value) {
+        for (int i = 0; i < 8; i++) {
+            hash ^= (value >>> (i * 8)) & 0xff;
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+
+    private static String weak(long hash) {
+        return "W/\"" + Long.toHexString(hash) + "\"";
+    }
+}
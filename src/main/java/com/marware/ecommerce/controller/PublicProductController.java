@@ -1,12 +1,21 @@
 package com.marware.ecommerce.controller;
 
+import com.marware.ecommerce.dto.CursorPage;
+import com.marware.ecommerce.dto.ProductFilter;
 import com.marware.ecommerce.dto.ProductResponse;
+import com.marware.ecommerce.search.Suggestion;
 import com.marware.ecommerce.service.ProductService;
+import com.marware.ecommerce.stream.CatalogStreamHub;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.math.BigDecimal;
+import java.util.List;
 
 @RestController
 @RequestMapping("/public/products")
@@ -14,19 +23,55 @@ import org.springframework.web.bind.annotation.*;
 public class PublicProductController {
 
     private final ProductService productService;
+    private final CatalogStreamHub catalogStreamHub;
 
     @GetMapping
     public ResponseEntity<Page<ProductResponse>> listPublicProducts(
             @RequestParam(required = false) String query,
+            @RequestParam(defaultValue = "false") boolean fuzzy,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) Long sellerId,
+            @RequestParam(defaultValue = "false") boolean facets,
             Pageable pageable) {
 
-        Page<ProductResponse> page = productService.getPublicProducts(query, pageable);
-        return ResponseEntity.ok(page);
+        ProductFilter filter = new ProductFilter(minPrice, maxPrice, sellerId, facets);
+        Page<ProductResponse> page = productService.getPublicProducts(query, fuzzy, filter, pageable);
+        return ResponseEntity.ok().eTag(ProductETags.of(page)).body(page);
+    }
+
+    // Modo cursor: ?after= (vacío para la primera página) &sort=id|price &size=
+    @GetMapping(params = "after")
+    public ResponseEntity<CursorPage<ProductResponse>> listPublicProductsByCursor(
+            @RequestParam(required = false) String query,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "id") String sort,
+            @RequestParam(defaultValue = "20") int size) {
+
+        CursorPage<ProductResponse> page = productService.getPublicProductsAfter(query, after, sort, size);
+        return ResponseEntity.ok().eTag(ProductETags.of(page)).body(page);
+    }
+
+    // Autocompletado: productos en stock cuyo nombre tiene una palabra que empieza por prefix
+    @GetMapping("/suggest")
+    public ResponseEntity<List<Suggestion>> suggest(
+            @RequestParam String prefix,
+            @RequestParam(required = false) Long tenantId,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(productService.suggestPublicProducts(prefix, tenantId, limit));
+    }
+
+    // Cambios de precio y stock por SSE: ?ids=1,2 y/o ?tenants=3 (ver CatalogStreamHub)
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(
+            @RequestParam(required = false) List<Long> ids,
+            @RequestParam(required = false) List<Long> tenants) {
+        return catalogStreamHub.subscribe(ids, tenants);
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<ProductResponse> getPublicProduct(@PathVariable Long id) {
         ProductResponse response = productService.getPublicProductById(id);
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok().eTag(ProductETags.of(response)).body(response);
     }
 }
@@ -0,0 +1,64 @@
+package com.marware.ecommerce.controller;
+
+import com.marware.ecommerce.dto.StockReservationRequest;
+import com.marware.ecommerce.dto.StockReservationResponse;
+import com.marware.ecommerce.security.RoleConstants;
+import com.marware.ecommerce.stock.FlashSaleStock;
+import com.marware.ecommerce.stock.StockReservationService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Set;
+
+@RestController
+@RequestMapping("/api")
+@RequiredArgsConstructor
+public class StockController {
+
+    private final StockReservationService reservationService;
+    private final FlashSaleStock flashSaleStock;
+
+    // 409 OUT_OF_STOCK si no hay unidades suficientes; nunca se vende por debajo de cero
+    @PostMapping("/products/{productId}/stock/reserve")
+    public ResponseEntity<StockReservationResponse> reserve(
+            @PathVariable Long productId,
+            @Valid @RequestBody StockReservationRequest request) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(reservationService.reserve(productId, request));
+    }
+
+    @PostMapping("/stock/reservations/{reservationId}/confirm")
+    public ResponseEntity<StockReservationResponse> confirm(@PathVariable Long reservationId) {
+        return ResponseEntity.ok(reservationService.confirm(reservationId));
+    }
+
+    @DeleteMapping("/stock/reservations/{reservationId}")
+    public ResponseEntity<Void> cancel(@PathVariable Long reservationId) {
+        reservationService.cancel(reservationId);
+        return ResponseEntity.noContent().build();
+    }
+
+    // Modo flash sale por instancia (contadores en memoria); ver FlashSaleStock
+    @PreAuthorize(RoleConstants.HAS_ADMIN)
+    @GetMapping("/stock/flash-sale")
+    public ResponseEntity<Set<Long>> flashSaleProducts() {
+        return ResponseEntity.ok(flashSaleStock.activeProducts());
+    }
+
+    @PreAuthorize(RoleConstants.HAS_ADMIN)
+    @PutMapping("/products/{productId}/stock/flash-sale")
+    public ResponseEntity<Void> enableFlashSale(@PathVariable Long productId) {
+        flashSaleStock.enable(productId);
+        return ResponseEntity.noContent().build();
+    }
+
+    @PreAuthorize(RoleConstants.HAS_ADMIN)
+    @DeleteMapping("/products/{productId}/stock/flash-sale")
+    public ResponseEntity<Void> disableFlashSale(@PathVariable Long productId) {
+        flashSaleStock.disable(productId);
+        return ResponseEntity.noContent().build();
+    }
+}
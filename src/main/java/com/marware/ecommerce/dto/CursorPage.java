@@ -0,0 +1,21 @@
+package com.marware.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Página por cursor (keyset): sin total ni COUNT(*). Para pedir la siguiente
+ * página se envía nextCursor como parámetro "after".
+ */
+@Getter
+@Builder
+@AllArgsConstructor
+public class CursorPage<T> {
+    private List<T> content;
+    private String nextCursor;
+    private boolean hasNext;
+    private int size;
+}
@@ -0,0 +1,22 @@
+package com.marware.ecommerce.dto;
+
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+/**
+ * Página cuyo totalElements (y con él totalPages) es aproximado: una cuenta
+ * cacheada, una estimación o una cota inferior. Se serializa como cualquier
+ * Page más "totalApproximate": true.
+ */
+public class EstimatedPage<T> extends PageImpl<T> {
+
+    public EstimatedPage(List<T> content, Pageable pageable, long total) {
+        super(content, pageable, total);
+    }
+
+    public boolean isTotalApproximate() {
+        return true;
+    }
+}
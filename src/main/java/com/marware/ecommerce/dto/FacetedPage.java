@@ -0,0 +1,26 @@
+package com.marware.ecommerce.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+/**
+ * Página del listado público filtrado: se serializa como cualquier Page más
+ * el campo "facets" cuando se piden.
+ */
+public class FacetedPage<T> extends PageImpl<T> {
+
+    private final transient ProductFacets facets;
+
+    public FacetedPage(List<T> content, Pageable pageable, long total, ProductFacets facets) {
+        super(content, pageable, total);
+        this.facets = facets;
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public ProductFacets getFacets() {
+        return facets;
+    }
+}
@@ -0,0 +1,23 @@
+package com.marware.ecommerce.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Recuentos de facetas del listado público filtrado. Cada faceta ignora su
+ * propio filtro: prices cuenta por tramos sin aplicar minPrice/maxPrice,
+ * sellers sin aplicar sellerId. inStock/outOfStock cuentan, con los filtros de
+ * precio y vendedor, los productos con y sin stock; los agotados no se listan.
+ * En los tramos de precio, from es inclusivo, to exclusivo y null es abierto.
+ */
+public record ProductFacets(long inStock,
+                            long outOfStock,
+                            List<SellerCount> sellers,
+                            List<PriceRange> prices) {
+
+    public record SellerCount(Long sellerId, long count) {
+    }
+
+    public record PriceRange(BigDecimal from, BigDecimal to, long count) {
+    }
+}
@@ -0,0 +1,18 @@
+package com.marware.ecommerce.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Filtros del listado público (/public/products?minPrice=&maxPrice=&sellerId=&facets=).
+ * Los límites de precio son inclusivos. Sólo pueden restringir el listado, que
+ * nunca incluye productos agotados (como getPublicProductById, que responde 404).
+ */
+public record ProductFilter(BigDecimal minPrice,
+                            BigDecimal maxPrice,
+                            Long sellerId,
+                            boolean facets) {
+
+    public boolean isActive() {
+        return minPrice != null || maxPrice != null || sellerId != null || facets;
+    }
+}
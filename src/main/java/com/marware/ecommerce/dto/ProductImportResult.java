@@ -0,0 +1,29 @@
+package com.marware.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Resumen de una importación masiva. Las filas se numeran desde 1 sin contar
+ * la cabecera CSV; errors se corta en app.import.max-reported-errors.
+ */
+@Getter
+@Builder
+@AllArgsConstructor
+public class ProductImportResult {
+    private long total;
+    private long imported;
+    private long failed;
+    private List<RowError> errors;
+    private boolean errorsTruncated;
+
+    @Getter
+    @AllArgsConstructor
+    public static class RowError {
+        private long row;
+        private List<String> messages;
+    }
+}
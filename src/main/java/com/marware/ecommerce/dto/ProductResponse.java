@@ -1,6 +1,7 @@
 package com.marware.ecommerce.dto;
 
 import com.marware.ecommerce.model.Product;
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
 
@@ -8,6 +9,7 @@ import java.math.BigDecimal;
 
 @Getter
 @Builder
+@AllArgsConstructor
 public class ProductResponse {
     private Long id;
     private String name;
@@ -15,8 +17,12 @@ public class ProductResponse {
     private BigDecimal price;
     private Integer stock;
     private String imageUrl;
+    // null hasta que se generan; el cliente usa imageUrl mientras tanto
+    private String thumbnailUrl;
+    private String mediumUrl;
     private String sellerName;
     private String tenantName;
+    private Long version;
 
     public static ProductResponse fromEntity(Product product) {
         return ProductResponse.builder()
@@ -26,8 +32,11 @@ public class ProductResponse {
                 .price(product.getPrice())
                 .stock(product.getStock())
                 .imageUrl(product.getImageUrl())
+                .thumbnailUrl(product.getThumbnailUrl())
+                .mediumUrl(product.getMediumUrl())
                 .sellerName(product.getSeller().getFullName())
                 .tenantName(product.getTenant().getName())
+                .version(product.getVersion())
                 .build();
     }
 }
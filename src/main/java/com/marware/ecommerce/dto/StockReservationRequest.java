@@ -0,0 +1,19 @@
+package com.marware.ecommerce.dto;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class StockReservationRequest {
+
+    @NotNull(message = "Quantity is required")
+    @Min(value = 1, message = "Quantity must be at least 1")
+    private Integer quantity;
+
+    // Opcional: sin valor se usa app.stock.reservations.default-ttl
+    @Min(value = 1, message = "TTL must be at least 1 second")
+    private Long ttlSeconds;
+}
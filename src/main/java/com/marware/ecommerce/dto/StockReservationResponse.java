@@ -0,0 +1,29 @@
+package com.marware.ecommerce.dto;
+
+import com.marware.ecommerce.model.StockReservation;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.Instant;
+
+@Getter
+@Builder
+@AllArgsConstructor
+public class StockReservationResponse {
+    private Long id;
+    private Long productId;
+    private int quantity;
+    private StockReservation.Status status;
+    private Instant expiresAt;
+
+    public static StockReservationResponse fromEntity(StockReservation reservation) {
+        return StockReservationResponse.builder()
+                .id(reservation.getId())
+                .productId(reservation.getProductId())
+                .quantity(reservation.getQuantity())
+                .status(reservation.getStatus())
+                .expiresAt(reservation.getExpiresAt())
+                .build();
+    }
+}
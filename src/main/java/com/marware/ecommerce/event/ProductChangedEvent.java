@@ -0,0 +1,36 @@
+package com.marware.ecommerce.event;
+
+/**
+ * Se publica desde ProductService en cada escritura. Los consumidores lo
+ * escuchan tras el commit para mantener índices y cachés en memoria.
+ * before es null en CREATED y after es null en DELETED.
+ */
+public record ProductChangedEvent(Type type, ProductSnapshot before, ProductSnapshot after) {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+
+    public static ProductChangedEvent created(ProductSnapshot after) {
+        return new ProductChangedEvent(Type.CREATED, null, after);
+    }
+
+    public static ProductChangedEvent updated(ProductSnapshot before, ProductSnapshot after) {
+        return new ProductChangedEvent(Type.UPDATED, before, after);
+    }
+
+    public static ProductChangedEvent deleted(ProductSnapshot before) {
+        return new ProductChangedEvent(Type.DELETED, before, null);
+    }
+
+    public Long productId() {
+        return after != null ? after.id() : before.id();
+    }
+
+    /** Estado vigente del producto, o el último conocido si se ha borrado. */
+    public ProductSnapshot current() {
+        return after != null ? after : before;
+    }
+}
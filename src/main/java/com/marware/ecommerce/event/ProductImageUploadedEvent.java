@@ -0,0 +1,8 @@
+package com.marware.ecommerce.event;
+
+/**
+ * Se publica desde ProductService al guardar una imagen nueva. Tras el commit,
+ * ImageVariantPipeline genera sus variantes reducidas en segundo plano.
+ */
+public record ProductImageUploadedEvent(Long productId, String imageUrl) {
+}
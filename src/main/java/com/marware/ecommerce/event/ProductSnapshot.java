@@ -0,0 +1,46 @@
+package com.marware.ecommerce.event;
+
+import com.marware.ecommerce.model.Product;
+
+import java.math.BigDecimal;
+
+/**
+ * Copia inmutable de los campos de un producto que necesitan los índices y
+ * cachés en memoria. No contiene asociaciones, sólo sus ids.
+ */
+public record ProductSnapshot(
+        Long id,
+        Long tenantId,
+        Long sellerId,
+        String name,
+        String description,
+        BigDecimal price,
+        Integer stock
+) {
+
+    public static ProductSnapshot from(Product product) {
+        return new ProductSnapshot(
+                product.getId(),
+                product.getTenant() != null ? product.getTenant().getId() : null,
+                product.getSeller() != null ? product.getSeller().getId() : null,
+                product.getName(),
+                product.getDescription(),
+                product.getPrice(),
+                product.getStock()
+        );
+    }
+
+    public ProductSnapshot withStock(Integer newStock) {
+        return new ProductSnapshot(id, tenantId, sellerId, name, description, price, newStock);
+    }
+
+    public boolean inStock() {
+        return stock != null && stock > 0;
+    }
+
+    public boolean sameText(ProductSnapshot other) {
+        return other != null
+                && java.util.Objects.equals(name, other.name)
+                && java.util.Objects.equals(description, other.description);
+    }
+}
@@ -13,6 +13,16 @@ public abstract class ApiException extends RuntimeException {
         this.errorCode = errorCode;
     }
 
+    /**
+     * Para errores esperados (un 404 de un id inexistente) que ErrorHandler
+     * convierte en respuesta sin registrar la traza: sin stack trace ni
+     * excepciones suprimidas, así crearla no recorre la pila.
+     */
+    protected ApiException(String errorCode, String message, boolean stackless) {
+        super(message, null, !stackless, !stackless);
+        this.errorCode = errorCode;
+    }
+
     public String getErrorCode() {
         return errorCode;
     }
@@ -0,0 +1,15 @@
+package com.marware.ecommerce.exception;
+
+import java.time.Duration;
+
+/**
+ * Una consulta del catálogo público agrupada con otra idéntica no ha
+ * terminado a tiempo (503).
+ */
+public class CatalogTimeoutException extends ApiException {
+
+    public CatalogTimeoutException(Duration timeout) {
+        super("CATALOG_TIMEOUT",
+                String.format("El catálogo no ha respondido en %d ms", timeout.toMillis()));
+    }
+}
@@ -1,8 +1,9 @@
 package com.marware.ecommerce.exception;
 
+// Sin stack trace: es un 404 esperado y en el detalle público llega a ser buena parte del tráfico
 public class EntityNotFoundException extends ApiException {
     public EntityNotFoundException(String entityName, Long id) {
         super("ENTITY_NOT_FOUND",
-                String.format("%s con ID %d no encontrado", entityName, id));
+                String.format("%s con ID %d no encontrado", entityName, id), true);
     }
 }
@@ -53,10 +53,17 @@ public class ErrorHandler {
         return ResponseEntity.internalServerError().body(response);
     }
 
-    private HttpStatus determineHttpStatus(ApiException ex) {
+    /** Estado con el que se responde ex; LoggingAspect lo usa para no registrar los 4xx como errores. */
+    public static HttpStatus determineHttpStatus(ApiException ex) {
+        if (ex instanceof FileProcessingException) {
+            return HttpStatus.BAD_REQUEST;
+        }
         return switch (ex.getErrorCode()) {
             case "ENTITY_NOT_FOUND" -> HttpStatus.NOT_FOUND;
-            case "VALIDATION_FAILED" -> HttpStatus.BAD_REQUEST;
+            case "VALIDATION_FAILED", "INVALID_CURSOR", "INVALID_IMPORT" -> HttpStatus.BAD_REQUEST;
+            case "PRECONDITION_FAILED" -> HttpStatus.PRECONDITION_FAILED;
+            case "CONCURRENT_MODIFICATION", "OUT_OF_STOCK", "RESERVATION_NOT_ACTIVE", "STOCK_LEASED" -> HttpStatus.CONFLICT;
+            case "TOO_MANY_SUBSCRIBERS", "CATALOG_TIMEOUT" -> HttpStatus.SERVICE_UNAVAILABLE;
             default -> HttpStatus.INTERNAL_SERVER_ERROR;
         };
     }
@@ -0,0 +1,27 @@
+package com.marware.ecommerce.exception;
+
+/**
+ * Operaciones de stock que no pueden aplicarse por el estado actual (409).
+ */
+public class StockException extends ApiException {
+
+    private StockException(String errorCode, String message) {
+        super(errorCode, message);
+    }
+
+    public static StockException outOfStock(Long productId, int quantity) {
+        return new StockException("OUT_OF_STOCK",
+                String.format("No hay %d unidades disponibles del producto con ID %d", quantity, productId));
+    }
+
+    public static StockException reservationNotActive(Long reservationId) {
+        return new StockException("RESERVATION_NOT_ACTIVE",
+                String.format("La reserva con ID %d ya no está activa", reservationId));
+    }
+
+    public static StockException belowLeased(Long productId, int leased) {
+        return new StockException("STOCK_LEASED",
+                String.format("El producto con ID %d tiene %d unidades en venta flash; el stock no puede ser menor",
+                        productId, leased));
+    }
+}
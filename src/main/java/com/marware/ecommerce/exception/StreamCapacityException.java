@@ -0,0 +1,12 @@
+package com.marware.ecommerce.exception;
+
+/**
+ * El stream del catálogo ha alcanzado su máximo de suscriptores (503).
+ */
+public class StreamCapacityException extends ApiException {
+
+    public StreamCapacityException(int maxSubscribers) {
+        super("TOO_MANY_SUBSCRIBERS",
+                String.format("El stream del catálogo no admite más de %d suscriptores", maxSubscribers));
+    }
+}
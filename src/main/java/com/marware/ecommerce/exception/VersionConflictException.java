@@ -0,0 +1,22 @@
+package com.marware.ecommerce.exception;
+
+/**
+ * La versión del producto no es la que esperaba el cliente: If-Match que no
+ * coincide (412) o un UPDATE concurrente detectado por @Version (409).
+ */
+public class VersionConflictException extends ApiException {
+
+    private VersionConflictException(String errorCode, String message) {
+        super(errorCode, message);
+    }
+
+    public static VersionConflictException preconditionFailed(Long productId, Long currentVersion) {
+        return new VersionConflictException("PRECONDITION_FAILED",
+                String.format("El producto con ID %d ha cambiado (versión actual %d)", productId, currentVersion));
+    }
+
+    public static VersionConflictException concurrentModification(Long productId) {
+        return new VersionConflictException("CONCURRENT_MODIFICATION",
+                String.format("El producto con ID %d ha sido modificado por otra petición", productId));
+    }
+}
@@ -0,0 +1,310 @@
+package com.marware.ecommerce.image;
+
+import com.marware.ecommerce.event.ProductChangedEvent;
+import com.marware.ecommerce.event.ProductImageUploadedEvent;
+import com.marware.ecommerce.repository.ProductRepository;
+import com.marware.ecommerce.service.FileService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Genera en segundo plano la miniatura y la variante media de cada imagen
+ * subida y guarda sus URLs en el producto. La petición que sube la imagen sólo
+ * publica ProductImageUploadedEvent; tras el commit se encola aquí sin esperar.
+ *
+ * - Workers: pool fijo de app.images.workers hilos con una cola de
+ *   queue-capacity trabajos. Si está llena el trabajo se descarta (no se
+ *   bloquea a nadie) y lo recoge el barrido.
+ * - Reintentos: un fallo se reencola tras retry-delay, doblando la espera en
+ *   cada intento, hasta max-attempts.
+ * - Barrido: cada sweep-interval se encolan los productos con imagen y sin
+ *   variantes (descartados, agotados, pendientes de un reinicio o anteriores a
+ *   esta funcionalidad) hasta que la cola se llena. Avanza con un cursor por
+ *   id y vuelve al principio al llegar al final, así que las imágenes que
+ *   fallan siempre se reintentan una vez por vuelta sin tapar a las demás.
+ *
+ * El UPDATE de las variantes sólo se aplica si el producto sigue teniendo la
+ * misma imagen; si no, las variantes recién subidas se borran. Sube la
+ * versión, así que el ETag cambia y las cachés se invalidan con el
+ * ProductChangedEvent que se publica.
+ */
+@Slf4j
+@Service
+public class ImageVariantPipeline {
+
+    public static final String GENERATED_METRIC = "images.variants.generated";
+    public static final String FAILED_METRIC = "images.variants.failed";
+    public static final String REJECTED_METRIC = "images.variants.rejected";
+
+    private static final int MAX_BACKOFF_SHIFT = 10;
+
+    private final FileService fileService;
+    private final ProductRepository productRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final ImageVariants variants;
+    private final Executor workers;
+    private final ScheduledExecutorService retries;
+    private final int thumbnailSize;
+    private final int mediumSize;
+    private final int maxAttempts;
+    private final Duration retryDelay;
+    private final int sweepBatchSize;
+    private final boolean enabled;
+
+    // Imágenes encoladas, en proceso o esperando reintento; evita que el barrido las duplique
+    private final Set<ProductImageUploadedEvent> queued = ConcurrentHashMap.newKeySet();
+
+    // Último id revisado por el barrido; 0 = desde el principio
+    private volatile long sweepCursor;
+
+    private final Counter generated;
+    private final Counter failed;
+    private final Counter rejected;
+
+    @Autowired
+    public ImageVariantPipeline(FileService fileService,
+                                ProductRepository productRepository,
+                                ApplicationEventPublisher eventPublisher,
+                                PlatformTransactionManager transactionManager,
+                                MeterRegistry meterRegistry,
+                                @Value("${app.images.variants.enabled:true}") boolean enabled,
+                                @Value("${app.images.format:webp}") String format,
+                                @Value("${app.images.quality:0.8}") float quality,
+                                @Value("${app.images.max-pixels:40000000}") long maxPixels,
+                                @Value("${app.images.thumbnail-size:200}") int thumbnailSize,
+                                @Value("${app.images.medium-size:800}") int mediumSize,
+                                @Value("${app.images.workers:2}") int workers,
+                                @Value("${app.images.queue-capacity:100}") int queueCapacity,
+                                @Value("${app.images.max-attempts:3}") int maxAttempts,
+                                @Value("${app.images.retry-delay:2s}") Duration retryDelay,
+                                @Value("${app.images.sweep-batch-size:100}") int sweepBatchSize) {
+        this(fileService, productRepository, eventPublisher, transactionManager, meterRegistry, enabled,
+                new ImageVariants(format, quality, maxPixels), thumbnailSize, mediumSize,
+                workerPool(workers, queueCapacity), Executors.newSingleThreadScheduledExecutor(r -> {
+                    Thread thread = new Thread(r, "image-variants-retry");
+                    thread.setDaemon(true);
+                    return thread;
+                }), maxAttempts, retryDelay, sweepBatchSize);
+        log.info("Image variants enabled={} format={} thumbnail={}px medium={}px",
+                enabled, variants.format(), thumbnailSize, mediumSize);
+    }
+
+    ImageVariantPipeline(FileService fileService, ProductRepository productRepository,
+                         ApplicationEventPublisher eventPublisher, PlatformTransactionManager transactionManager,
+                         MeterRegistry meterRegistry, boolean enabled, ImageVariants variants,
+                         int thumbnailSize, int mediumSize, Executor workers, ScheduledExecutorService retries,
+                         int maxAttempts, Duration retryDelay, int sweepBatchSize) {
+        this.fileService = fileService;
+        this.productRepository = productRepository;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.variants = variants;
+        this.thumbnailSize = thumbnailSize;
+        this.mediumSize = mediumSize;
+        this.workers = workers;
+        this.retries = retries;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryDelay = retryDelay;
+        this.sweepBatchSize = Math.max(1, sweepBatchSize);
+        this.generated = Counter.builder(GENERATED_METRIC)
+                .description("Images whose thumbnail and medium variants were stored")
+                .register(meterRegistry);
+        this.failed = Counter.builder(FAILED_METRIC)
+                .description("Images whose variants failed after every attempt")
+                .register(meterRegistry);
+        this.rejected = Counter.builder(REJECTED_METRIC)
+                .description("Variant jobs dropped because the worker queue was full")
+                .register(meterRegistry);
+        Gauge.builder("images.variants.queued", queued, Set::size).register(meterRegistry);
+    }
+
+    private static ExecutorService workerPool(int workers, int queueCapacity) {
+        int threads = Math.max(1, workers);
+        AtomicInteger sequence = new AtomicInteger();
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), r -> {
+                    Thread thread = new Thread(r, "image-variants-" + sequence.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onImageUploaded(ProductImageUploadedEvent event) {
+        if (enabled && event.imageUrl() != null && queued.add(event)) {
+            submit(event, 1);
+        }
+    }
+
+    /** Encola imágenes sin variantes hasta sweep-batch-size o hasta que la cola se llena. */
+    @Scheduled(fixedDelayString = "${app.images.sweep-interval:5m}")
+    public int enqueueMissing() {
+        if (!enabled) {
+            return 0;
+        }
+        List<ProductImageUploadedEvent> batch =
+                productRepository.findImagesWithoutVariants(sweepCursor, PageRequest.of(0, sweepBatchSize));
+        long next = batch.size() < sweepBatchSize ? 0L : batch.get(batch.size() - 1).productId();
+        int enqueued = 0;
+        for (ProductImageUploadedEvent image : batch) {
+            if (!queued.add(image)) {
+                continue;
+            }
+            if (!submit(image, 1)) {
+                // Cola llena: el siguiente barrido sigue desde esta imagen
+                next = image.productId() - 1;
+                break;
+            }
+            enqueued++;
+        }
+        sweepCursor = next;
+        if (enqueued > 0) {
+            log.debug("Enqueued {} images without variants", enqueued);
+        }
+        return enqueued;
+    }
+
+    long sweepCursor() {
+        return sweepCursor;
+    }
+
+    int queued() {
+        return queued.size();
+    }
+
+    private boolean submit(ProductImageUploadedEvent image, int attempt) {
+        try {
+            workers.execute(() -> process(image, attempt));
+            return true;
+        } catch (RejectedExecutionException ex) {
+            queued.remove(image);
+            rejected.increment();
+            log.debug("Image variant queue full, product {} left for the sweep", image.productId());
+            return false;
+        }
+    }
+
+    private void process(ProductImageUploadedEvent image, int attempt) {
+        try {
+            generate(image);
+            queued.remove(image);
+        } catch (IOException | RuntimeException ex) {
+            if (attempt >= maxAttempts) {
+                queued.remove(image);
+                failed.increment();
+                log.warn("Image variants for product {} failed after {} attempts: {}",
+                        image.productId(), attempt, ex.getMessage());
+                return;
+            }
+            long delay = retryDelay.toMillis() << Math.min(attempt - 1, MAX_BACKOFF_SHIFT);
+            log.debug("Image variants for product {} failed (attempt {}), retrying in {} ms: {}",
+                    image.productId(), attempt, delay, ex.getMessage());
+            try {
+                retries.schedule(() -> submit(image, attempt + 1), delay, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException rejectedRetry) {
+                queued.remove(image);
+            }
+        }
+    }
+
+    private void generate(ProductImageUploadedEvent image) throws IOException {
+        BufferedImage original;
+        try (InputStream in = fileService.openFile(image.imageUrl())) {
+            original = variants.read(in);
+        }
+
+        List<String> uploaded = new ArrayList<>(2);
+        String thumbnailUrl;
+        String mediumUrl;
+        try {
+            if (original == null) {
+                // Formato sin lector en ImageIO o demasiado grande: las variantes apuntan al original
+                thumbnailUrl = image.imageUrl();
+                mediumUrl = image.imageUrl();
+            } else {
+                thumbnailUrl = upload(image, original, "thumb", thumbnailSize, uploaded);
+                mediumUrl = upload(image, original, "medium", mediumSize, uploaded);
+            }
+            if (!saveVariants(image, thumbnailUrl, mediumUrl)) {
+                // La imagen se ha cambiado o el producto se ha borrado mientras tanto
+                log.debug("Discarding stale variants of product {}", image.productId());
+                uploaded.forEach(this::deleteQuietly);
+                return;
+            }
+        } catch (IOException | RuntimeException ex) {
+            uploaded.forEach(this::deleteQuietly);
+            throw ex;
+        }
+        generated.increment();
+    }
+
+    private String upload(ProductImageUploadedEvent image, BufferedImage original, String variant, int size,
+                          List<String> uploaded) throws IOException {
+        byte[] content = variants.encode(original, size);
+        String fileName = "product-" + image.productId() + "-" + variant + "." + variants.extension();
+        String url = fileService.uploadFile(content, fileName, variants.contentType());
+        uploaded.add(url);
+        return url;
+    }
+
+    private boolean saveVariants(ProductImageUploadedEvent image, String thumbnailUrl, String mediumUrl) {
+        Boolean saved = transactionTemplate.execute(status -> {
+            if (productRepository.setImageVariants(image.productId(), image.imageUrl(), thumbnailUrl, mediumUrl) == 0) {
+                return false;
+            }
+            // Precio y stock no cambian: el evento sólo invalida las cachés del producto
+            productRepository.findSnapshotById(image.productId())
+                    .ifPresent(product -> eventPublisher.publishEvent(ProductChangedEvent.updated(product, product)));
+            return true;
+        });
+        return Boolean.TRUE.equals(saved);
+    }
+
+    private void deleteQuietly(String fileUrl) {
+        try {
+            fileService.deleteFile(fileUrl);
+        } catch (RuntimeException ex) {
+            log.debug("Could not delete variant {}: {}", fileUrl, ex.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        retries.shutdownNow();
+        if (workers instanceof ExecutorService executor) {
+            executor.shutdownNow();
+        }
+    }
+}
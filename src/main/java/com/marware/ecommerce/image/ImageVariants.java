@@ -0,0 +1,141 @@
+package com.marware.ecommerce.image;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.Locale;
+
+/**
+ * Decodifica, reduce y codifica las variantes con ImageIO. El formato de
+ * salida es el preferido (webp) si hay un ImageWriter registrado para él
+ * (plugin en el classpath) y JPEG si no.
+ */
+final class ImageVariants {
+
+    static final String FALLBACK_FORMAT = "jpeg";
+
+    private final String format;
+    private final float quality;
+    private final long maxPixels;
+
+    ImageVariants(String preferredFormat, float quality, long maxPixels) {
+        String preferred = preferredFormat.trim().toLowerCase(Locale.ROOT);
+        this.format = ImageIO.getImageWritersByFormatName(preferred).hasNext() ? preferred : FALLBACK_FORMAT;
+        this.quality = quality;
+        this.maxPixels = maxPixels;
+    }
+
+    String format() {
+        return format;
+    }
+
+    String contentType() {
+        return "image/" + format;
+    }
+
+    String extension() {
+        return format.equals(FALLBACK_FORMAT) ? "jpg" : format;
+    }
+
+    /**
+     * Imagen decodificada, o null si ImageIO no tiene lector para su formato
+     * (p. ej. WebP sin plugin) o supera maxPixels. Las dimensiones se leen de
+     * la cabecera antes de reservar el raster.
+     */
+    BufferedImage read(InputStream in) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(in)) {
+            if (input == null) {
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                if ((long) reader.getWidth(0) * reader.getHeight(0) > maxPixels) {
+                    return null;
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    byte[] encode(BufferedImage image, int maxSize) throws IOException {
+        BufferedImage resized = resize(image, maxSize);
+        ImageWriter writer = ImageIO.getImageWritersByFormatName(format).next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(output);
+            writer.write(null, new IIOImage(resized, null, null), writeParam(writer));
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    private ImageWriteParam writeParam(ImageWriter writer) {
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        if (param.canWriteCompressed()) {
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            String[] types = param.getCompressionTypes();
+            if (param.getCompressionType() == null && types != null && types.length > 0) {
+                param.setCompressionType(types[0]);
+            }
+            param.setCompressionQuality(quality);
+        }
+        return param;
+    }
+
+    /**
+     * Reduce la imagen para que su lado mayor no pase de maxSize (nunca la
+     * amplía). Baja a mitades con interpolación bilineal hasta acercarse al
+     * tamaño final para no perder detalle, y pinta sobre blanco porque JPEG no
+     * tiene canal alfa.
+     */
+    static BufferedImage resize(BufferedImage image, int maxSize) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        double scale = Math.min(1.0, (double) maxSize / Math.max(width, height));
+        int targetWidth = Math.max(1, (int) Math.round(width * scale));
+        int targetHeight = Math.max(1, (int) Math.round(height * scale));
+
+        BufferedImage current = image;
+        while (width / 2 >= targetWidth && height / 2 >= targetHeight) {
+            width /= 2;
+            height /= 2;
+            current = draw(current, width, height);
+        }
+        return draw(current, targetWidth, targetHeight);
+    }
+
+    private static BufferedImage draw(BufferedImage source, int width, int height) {
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = target.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, width, height);
+            g.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return target;
+    }
+}
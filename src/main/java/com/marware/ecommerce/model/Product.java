@@ -3,10 +3,14 @@ package com.marware.ecommerce.model;
 import jakarta.persistence.*;
 
 import lombok.*;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.math.BigDecimal;
+import java.util.Locale;
 
 @Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = Product.NAME_UNIQUE_CONSTRAINT, columnNames = "name_normalized"))
+@DynamicUpdate
 @Getter
 @Setter
 @NoArgsConstructor
@@ -14,12 +18,21 @@ import java.math.BigDecimal;
 @Builder
 public class Product extends Auditable {
 
+    public static final String NAME_UNIQUE_CONSTRAINT = "uk_product_name_normalized";
+
+    // Secuencia con optimizador pooled: un round trip cada 50 ids y permite
+    // el batching de inserts de Hibernate (IDENTITY lo desactiva)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_seq")
+    @SequenceGenerator(name = "product_seq", sequenceName = "product_seq", allocationSize = 50)
     private Long id;
 
     private String name;
 
+    // Nombre en minúsculas y sin espacios extremos, indexado para búsquedas sin distinguir mayúsculas
+    @Column(name = "name_normalized")
+    private String nameNormalized;
+
     @Column(length = 1000)
     private String description;
 
@@ -27,8 +40,20 @@ public class Product extends Auditable {
 
     private Integer stock;
 
+    // Unidades arrendadas a los contadores flash sale de las instancias; siguen contando en stock
+    // hasta que se vuelcan como vendidas, así que stock > 0 sigue siendo el filtro del catálogo
+    @Column(name = "stock_leased", nullable = false)
+    private int stockLeased;
+
     private String imageUrl;
 
+    // Variantes reducidas de imageUrl; las rellena ImageVariantPipeline tras el commit
+    @Column(name = "thumbnail_url")
+    private String thumbnailUrl;
+
+    @Column(name = "medium_url")
+    private String mediumUrl;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "tenant_id")
     private Tenant tenant;
@@ -36,4 +61,23 @@ public class Product extends Auditable {
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "seller_id")
     private User seller;
+
+    // Bloqueo optimista: cada UPDATE lleva WHERE version = ? y se expone como ETag
+    @Version
+    private Long version;
+
+    public void setName(String name) {
+        this.name = name;
+        this.nameNormalized = normalizeName(name);
+    }
+
+    @PrePersist
+    @PreUpdate
+    void normalizeName() {
+        nameNormalized = normalizeName(name);
+    }
+
+    public static String normalizeName(String name) {
+        return name == null ? null : name.trim().toLowerCase(Locale.ROOT);
+    }
 }
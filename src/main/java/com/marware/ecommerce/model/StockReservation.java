@@ -0,0 +1,55 @@
+package com.marware.ecommerce.model;
+
+import jakarta.persistence.*;
+
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Unidades apartadas de un producto hasta expiresAt. El stock se descuenta al
+ * reservar; si la reserva caduca o se cancela las unidades vuelven al stock.
+ * Los cambios de estado se hacen con UPDATE condicional sobre status, así que
+ * confirmar, cancelar y caducar no pueden aplicarse dos veces.
+ */
+@Entity
+@Table(name = "stock_reservation")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StockReservation extends Auditable {
+
+    public enum Status {
+        RESERVED,
+        CONFIRMED,
+        RELEASED,
+        EXPIRED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "stock_reservation_seq")
+    @SequenceGenerator(name = "stock_reservation_seq", sequenceName = "stock_reservation_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(nullable = false)
+    private int quantity;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Status status;
+
+    // Unidades tomadas de un contador flash sale en lugar de la fila de product
+    @Column(name = "flash_sale", nullable = false)
+    private boolean flashSale;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+}
@@ -14,7 +14,8 @@ import lombok.*;
 public class Tenant extends Auditable {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "tenants_seq")
+    @SequenceGenerator(name = "tenants_seq", sequenceName = "tenants_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false, unique = true)
@@ -1,35 +1,58 @@
 package com.marware.ecommerce.repository;
 
+import com.marware.ecommerce.dto.ProductResponse;
+import com.marware.ecommerce.event.ProductImageUploadedEvent;
+import com.marware.ecommerce.event.ProductSnapshot;
 import com.marware.ecommerce.model.Product;
 import com.marware.ecommerce.model.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 
 public interface ProductRepository extends JpaRepository<Product, Long> {
+
+    // Proyección a ProductResponse en una sola sentencia (sin N+1 sobre seller/tenant)
+    String RESPONSE_SELECT = "SELECT new com.marware.ecommerce.dto.ProductResponse(" +
+            "p.id, p.name, p.description, p.price, p.stock, p.imageUrl, p.thumbnailUrl, p.mediumUrl, " +
+            "s.fullName, t.name, p.version) " +
+            "FROM Product p LEFT JOIN p.seller s LEFT JOIN p.tenant t ";
+
+    String SEARCH_FILTER = "(:search IS NULL OR " +
+            "p.nameNormalized LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+            "LOWER(p.description) LIKE LOWER(CONCAT('%', :search, '%')))";
+
     boolean existsByName(String name);
 
     boolean existsByNameAndIdNot(String name, Long id);
 
+    // Comprobación de duplicados por lotes en la importación masiva
+    @Query("SELECT p.nameNormalized FROM Product p WHERE p.nameNormalized IN :names")
+    List<String> findExistingNormalizedNames(@Param("names") Collection<String> names);
+
     List<Product> findAllBySeller(User seller);
 
-    @Query("SELECT p FROM Product p WHERE " +
-            "(:search IS NULL OR " +
-            "LOWER(p.name) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
-            "LOWER(p.description) LIKE LOWER(CONCAT('%', :search, '%')))")
+    @Query("SELECT p FROM Product p WHERE " + SEARCH_FILTER)
     Page<Product> searchProducts(@Param("search") String search, Pageable pageable);
 
     @Query("SELECT p FROM Product p WHERE p.tenant.id = :tenantId")
     Page<Product> findAllByTenant(Long tenantId, Pageable pageable);
 
-    @Query("SELECT p FROM Product p WHERE p.stock > 0 AND (" +
-            ":search IS NULL OR LOWER(p.name) LIKE LOWER(CONCAT('%', :search, '%')) " +
-            "OR LOWER(p.description) LIKE LOWER(CONCAT('%', :search, '%')))")
+    @Query("SELECT p FROM Product p WHERE p.stock > 0 AND " + SEARCH_FILTER)
     Page<Product> searchPublicProducts(@Param("search") String search, Pageable pageable);
 
     @Query("SELECT p FROM Product p WHERE p.stock > 0")
@@ -38,4 +61,151 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     @Query("SELECT p FROM Product p WHERE p.stock > 0")
     Page<Product> findAllWithStockAvailable(Pageable pageable);
 
+    // === Proyecciones para los listados ===
+
+    @Query(RESPONSE_SELECT)
+    List<ProductResponse> findAllResponses();
+
+    @Query(value = RESPONSE_SELECT,
+            countQuery = "SELECT COUNT(p) FROM Product p")
+    Page<ProductResponse> findAllResponses(Pageable pageable);
+
+    @Query(RESPONSE_SELECT + "WHERE s.id = :sellerId")
+    List<ProductResponse> findResponsesBySellerId(@Param("sellerId") Long sellerId);
+
+    @Query(value = RESPONSE_SELECT + "WHERE " + SEARCH_FILTER,
+            countQuery = "SELECT COUNT(p) FROM Product p WHERE " + SEARCH_FILTER)
+    Page<ProductResponse> searchProductResponses(@Param("search") String search, Pageable pageable);
+
+    @Query(value = RESPONSE_SELECT + "WHERE p.stock > 0 AND " + SEARCH_FILTER,
+            countQuery = "SELECT COUNT(p) FROM Product p WHERE p.stock > 0 AND " + SEARCH_FILTER)
+    Page<ProductResponse> searchPublicProductResponses(@Param("search") String search, Pageable pageable);
+
+    // === Listados sin COUNT: el total lo resuelve ProductCounts según app.pagination.count-strategy ===
+
+    @Query(RESPONSE_SELECT + "WHERE " + SEARCH_FILTER)
+    Slice<ProductResponse> sliceProductResponses(@Param("search") String search, Pageable pageable);
+
+    @Query(RESPONSE_SELECT + "WHERE p.stock > 0 AND " + SEARCH_FILTER)
+    Slice<ProductResponse> slicePublicProductResponses(@Param("search") String search, Pageable pageable);
+
+    @Query("SELECT COUNT(p) FROM Product p WHERE " + SEARCH_FILTER)
+    long countProducts(@Param("search") String search);
+
+    @Query("SELECT COUNT(p) FROM Product p WHERE p.stock > 0 AND " + SEARCH_FILTER)
+    long countPublicProducts(@Param("search") String search);
+
+    // Filtros del listado público; sólo se usan mientras ProductFacetIndex no está listo
+    String PUBLIC_FILTERS = "(:minPrice IS NULL OR p.price >= :minPrice) AND " +
+            "(:maxPrice IS NULL OR p.price <= :maxPrice) AND " +
+            "(:sellerId IS NULL OR p.seller.id = :sellerId) AND " +
+            "p.stock > 0 AND " + SEARCH_FILTER;
+
+    @Query(value = RESPONSE_SELECT + "WHERE " + PUBLIC_FILTERS,
+            countQuery = "SELECT COUNT(p) FROM Product p WHERE " + PUBLIC_FILTERS)
+    Page<ProductResponse> filterPublicProductResponses(@Param("search") String search,
+                                                       @Param("minPrice") BigDecimal minPrice,
+                                                       @Param("maxPrice") BigDecimal maxPrice,
+                                                       @Param("sellerId") Long sellerId,
+                                                       Pageable pageable);
+
+    // === Paginación keyset (sin OFFSET ni COUNT) ===
+
+    String AFTER_ID = "p.id > :afterId ORDER BY p.id";
+
+    // "p.price >= :afterPrice" es redundante pero da al optimizador un rango sobre idx_product_price_id
+    String AFTER_PRICE = "p.price >= :afterPrice AND (p.price > :afterPrice OR (p.price = :afterPrice AND p.id > :afterId)) " +
+            "ORDER BY p.price, p.id";
+
+    @Query(RESPONSE_SELECT + "WHERE " + AFTER_ID)
+    Slice<ProductResponse> findResponsesAfterId(@Param("afterId") long afterId, Pageable pageable);
+
+    @Query(RESPONSE_SELECT + "WHERE " + AFTER_PRICE)
+    Slice<ProductResponse> findResponsesAfterPrice(@Param("afterPrice") BigDecimal afterPrice,
+                                                   @Param("afterId") long afterId,
+                                                   Pageable pageable);
+
+    @Query(RESPONSE_SELECT + "WHERE p.stock > 0 AND " + AFTER_ID)
+    Slice<ProductResponse> findWithStockAvailableAfterId(@Param("afterId") long afterId, Pageable pageable);
+
+    @Query(RESPONSE_SELECT + "WHERE p.stock > 0 AND " + AFTER_PRICE)
+    Slice<ProductResponse> findWithStockAvailableAfterPrice(@Param("afterPrice") BigDecimal afterPrice,
+                                                            @Param("afterId") long afterId,
+                                                            Pageable pageable);
+
+    @Query(RESPONSE_SELECT + "WHERE p.stock > 0 AND " + SEARCH_FILTER + " AND " + AFTER_ID)
+    Slice<ProductResponse> searchPublicProductsAfterId(@Param("search") String search,
+                                                       @Param("afterId") long afterId,
+                                                       Pageable pageable);
+
+    @Query(RESPONSE_SELECT + "WHERE p.stock > 0 AND " + SEARCH_FILTER + " AND " + AFTER_PRICE)
+    Slice<ProductResponse> searchPublicProductsAfterPrice(@Param("search") String search,
+                                                          @Param("afterPrice") BigDecimal afterPrice,
+                                                          @Param("afterId") long afterId,
+                                                          Pageable pageable);
+
+    @Query(RESPONSE_SELECT + "WHERE p.id IN :ids")
+    List<ProductResponse> findResponsesByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Detalle público en una sentencia: también se carga fuera de transacción al refrescar la caché
+    @Query(RESPONSE_SELECT + "WHERE p.id = :id AND p.stock > 0")
+    Optional<ProductResponse> findPublicResponseById(@Param("id") Long id);
+
+    // Listado completo en streaming: proyección (no entra en el contexto de persistencia) leída por bloques
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(RESPONSE_SELECT + "ORDER BY p.id")
+    Stream<ProductResponse> streamAllResponses();
+
+    // === Stock: UPDATE condicionales atómicos, sin leer y sobrescribir la fila ===
+
+    // Sólo cuenta el stock no arrendado a contadores flash sale; devuelve 0 si no alcanza
+    @Modifying
+    @Query("UPDATE Product p SET p.stock = p.stock - :quantity, p.version = p.version + 1 " +
+            "WHERE p.id = :id AND p.stock - p.stockLeased >= :quantity")
+    int reserveStock(@Param("id") Long id, @Param("quantity") int quantity);
+
+    @Modifying
+    @Query("UPDATE Product p SET p.stock = p.stock + :quantity, p.version = p.version + 1 WHERE p.id = :id")
+    int returnStock(@Param("id") Long id, @Param("quantity") int quantity);
+
+    // Ventas de un contador flash sale: salen a la vez del stock y de lo arrendado
+    @Modifying
+    @Query("UPDATE Product p SET p.stock = p.stock - :sold, p.stockLeased = p.stockLeased - :sold, " +
+            "p.version = p.version + 1 WHERE p.id = :id")
+    int applyLeasedSales(@Param("id") Long id, @Param("sold") int sold);
+
+    @Modifying
+    @Query("UPDATE Product p SET p.stockLeased = p.stockLeased - :units WHERE p.id = :id")
+    int returnLease(@Param("id") Long id, @Param("units") int units);
+
+    // === Variantes de imagen (ImageVariantPipeline) ===
+
+    // Sólo si la imagen sigue siendo la misma: si se ha cambiado o el producto se ha borrado devuelve 0
+    @Modifying
+    @Query("UPDATE Product p SET p.thumbnailUrl = :thumbnailUrl, p.mediumUrl = :mediumUrl, " +
+            "p.version = p.version + 1 WHERE p.id = :id AND p.imageUrl = :imageUrl")
+    int setImageVariants(@Param("id") Long id, @Param("imageUrl") String imageUrl,
+                         @Param("thumbnailUrl") String thumbnailUrl, @Param("mediumUrl") String mediumUrl);
+
+    // Imágenes sin variantes (cola llena, reinicio o reintentos agotados) a partir de un cursor por id
+    @Query("SELECT new com.marware.ecommerce.event.ProductImageUploadedEvent(p.id, p.imageUrl) " +
+            "FROM Product p WHERE p.imageUrl IS NOT NULL AND p.thumbnailUrl IS NULL AND p.id > :afterId " +
+            "ORDER BY p.id")
+    List<ProductImageUploadedEvent> findImagesWithoutVariants(@Param("afterId") long afterId, Pageable pageable);
+
+    @Query("SELECT new com.marware.ecommerce.event.ProductSnapshot(" +
+            "p.id, t.id, s.id, p.name, p.description, p.price, p.stock) " +
+            "FROM Product p LEFT JOIN p.tenant t LEFT JOIN p.seller s WHERE p.id = :id")
+    Optional<ProductSnapshot> findSnapshotById(@Param("id") Long id);
+
+    // Recorrido completo para reconstruir los índices en memoria
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new com.marware.ecommerce.event.ProductSnapshot(" +
+            "p.id, t.id, s.id, p.name, p.description, p.price, p.stock) " +
+            "FROM Product p LEFT JOIN p.tenant t LEFT JOIN p.seller s ORDER BY p.id")
+    Stream<ProductSnapshot> streamAllSnapshots();
+
 }
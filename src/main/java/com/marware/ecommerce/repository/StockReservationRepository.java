@@ -0,0 +1,31 @@
+package com.marware.ecommerce.repository;
+
+import com.marware.ecommerce.model.StockReservation;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface StockReservationRepository extends JpaRepository<StockReservation, Long> {
+
+    // Sobre idx_stock_reservation_status_expires
+    @Query("SELECT r FROM StockReservation r WHERE r.status = com.marware.ecommerce.model.StockReservation.Status.RESERVED " +
+            "AND r.expiresAt < :now ORDER BY r.expiresAt")
+    List<StockReservation> findExpired(@Param("now") Instant now, Pageable pageable);
+
+    // Transiciones condicionales: devuelven 0 si la reserva ya no estaba activa
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE StockReservation r SET r.status = com.marware.ecommerce.model.StockReservation.Status.CONFIRMED " +
+            "WHERE r.id = :id AND r.status = com.marware.ecommerce.model.StockReservation.Status.RESERVED " +
+            "AND r.expiresAt > :now")
+    int confirm(@Param("id") Long id, @Param("now") Instant now);
+
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE StockReservation r SET r.status = :status " +
+            "WHERE r.id = :id AND r.status = com.marware.ecommerce.model.StockReservation.Status.RESERVED")
+    int release(@Param("id") Long id, @Param("status") StockReservation.Status status);
+}
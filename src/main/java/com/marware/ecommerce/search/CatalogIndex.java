@@ -0,0 +1,21 @@
+package com.marware.ecommerce.search;
+
+import com.marware.ecommerce.event.ProductChangedEvent;
+import com.marware.ecommerce.event.ProductSnapshot;
+
+/**
+ * Estructura en memoria derivada del catálogo. CatalogIndexLoader la
+ * reconstruye recorriendo todos los productos y le reenvía los cambios
+ * confirmados. Durante una reconstrucción se siguen aplicando los cambios a
+ * la versión vigente; al terminar se reaplican sobre la nueva.
+ */
+public interface CatalogIndex {
+
+    void beginRebuild();
+
+    void accept(ProductSnapshot product);
+
+    void finishRebuild();
+
+    void apply(ProductChangedEvent event);
+}
@@ -0,0 +1,115 @@
+package com.marware.ecommerce.search;
+
+import com.marware.ecommerce.event.ProductChangedEvent;
+import com.marware.ecommerce.event.ProductSnapshot;
+import com.marware.ecommerce.repository.ProductRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+@Component
+public class CatalogIndexLoader {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogIndexLoader.class);
+
+    private final List<CatalogIndex> indexes;
+    private final ProductRepository productRepository;
+    private final TransactionTemplate readOnlyTx;
+    private final ExecutorService executor =
+            Executors.newSingleThreadExecutor(r -> new Thread(r, "catalog-index-loader"));
+
+    private final Object lock = new Object();
+    private boolean rebuilding;
+    private final List<ProductChangedEvent> pending = new ArrayList<>();
+
+    @Value("${app.catalog-index.enabled:true}")
+    private boolean enabled;
+
+    public CatalogIndexLoader(List<CatalogIndex> indexes,
+                              ProductRepository productRepository,
+                              PlatformTransactionManager transactionManager) {
+        this.indexes = indexes;
+        this.productRepository = productRepository;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (enabled) {
+            rebuildAsync();
+        }
+    }
+
+    public Future<?> rebuildAsync() {
+        return executor.submit(this::rebuild);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        synchronized (lock) {
+            for (CatalogIndex index : indexes) {
+                index.apply(event);
+            }
+            if (rebuilding) {
+                pending.add(event);
+            }
+        }
+    }
+
+    void rebuild() {
+        long start = System.nanoTime();
+        synchronized (lock) {
+            rebuilding = true;
+            pending.clear();
+            indexes.forEach(CatalogIndex::beginRebuild);
+        }
+        try {
+            AtomicLong count = new AtomicLong();
+            readOnlyTx.executeWithoutResult(status -> {
+                try (Stream<ProductSnapshot> products = productRepository.streamAllSnapshots()) {
+                    products.forEach(p -> {
+                        indexes.forEach(index -> index.accept(p));
+                        count.incrementAndGet();
+                    });
+                }
+            });
+            synchronized (lock) {
+                indexes.forEach(CatalogIndex::finishRebuild);
+                for (ProductChangedEvent event : pending) {
+                    indexes.forEach(index -> index.apply(event));
+                }
+                pending.clear();
+                rebuilding = false;
+            }
+            log.info("Catalog indexes rebuilt with {} products in {} ms",
+                    count, (System.nanoTime() - start) / 1_000_000);
+        } catch (RuntimeException ex) {
+            synchronized (lock) {
+                pending.clear();
+                rebuilding = false;
+            }
+            log.error("Catalog index rebuild failed: {}", ex.getMessage(), ex);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,115 @@
+package com.marware.ecommerce.search;
+
+/**
+ * Acumulador disperso por docId para una consulta: tabla hash de
+ * direccionamiento abierto con un contador y una puntuación por documento.
+ * Sólo ocupa y recorre los documentos tocados por las postings visitadas, en
+ * lugar de arrays de docCount posiciones. No es thread-safe: uno por búsqueda.
+ */
+final class DocAccumulator {
+
+    private static final int GOLDEN = 0x9E3779B9;
+
+    private int[] docs;      // docId + 1; 0 = posición libre
+    private int[] counts;
+    private float[] scores;
+    private int bits;
+    private int size;
+
+    DocAccumulator(int expected) {
+        bits = Math.max(4, 32 - Integer.numberOfLeadingZeros(Math.max(1, expected) * 2 - 1));
+        allocate();
+    }
+
+    int size() {
+        return size;
+    }
+
+    /** Posición del documento o -1 si no se ha añadido. */
+    int find(int docId) {
+        int mask = docs.length - 1;
+        for (int slot = hash(docId); ; slot = (slot + 1) & mask) {
+            int stored = docs[slot];
+            if (stored == 0) {
+                return -1;
+            }
+            if (stored == docId + 1) {
+                return slot;
+            }
+        }
+    }
+
+    /** Posición del documento; si no estaba se añade con contador y puntuación a 0. */
+    int findOrAdd(int docId) {
+        if ((size + 1) * 2 > docs.length) {
+            grow();
+        }
+        int mask = docs.length - 1;
+        for (int slot = hash(docId); ; slot = (slot + 1) & mask) {
+            int stored = docs[slot];
+            if (stored == 0) {
+                docs[slot] = docId + 1;
+                size++;
+                return slot;
+            }
+            if (stored == docId + 1) {
+                return slot;
+            }
+        }
+    }
+
+    /** Capacidad de la tabla: las posiciones válidas van de 0 a capacity() - 1. */
+    int capacity() {
+        return docs.length;
+    }
+
+    /** docId de la posición, o -1 si está libre. */
+    int doc(int slot) {
+        return docs[slot] - 1;
+    }
+
+    int count(int slot) {
+        return counts[slot];
+    }
+
+    void setCount(int slot, int count) {
+        counts[slot] = count;
+    }
+
+    float score(int slot) {
+        return scores[slot];
+    }
+
+    void addScore(int slot, float score) {
+        scores[slot] += score;
+    }
+
+    private int hash(int docId) {
+        return (docId * GOLDEN) >>> (32 - bits);
+    }
+
+    private void allocate() {
+        docs = new int[1 << bits];
+        counts = new int[1 << bits];
+        scores = new float[1 << bits];
+    }
+
+    private void grow() {
+        int[] oldDocs = docs;
+        int[] oldCounts = counts;
+        float[] oldScores = scores;
+        bits++;
+        allocate();
+        int mask = docs.length - 1;
+        for (int i = 0; i < oldDocs.length; i++) {
+            if (oldDocs[i] == 0) continue;
+            int slot = hash(oldDocs[i] - 1);
+            while (docs[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            docs[slot] = oldDocs[i];
+            counts[slot] = oldCounts[i];
+            scores[slot] = oldScores[i];
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.marware.ecommerce.search;
+
+import java.util.Map;
+
+/**
+ * Recuentos de facetas. Cada uno aplica todos los filtros salvo el de su
+ * propia dimensión, para que el cliente vea cuántos productos quedarían al
+ * cambiarla. priceCounts tiene un tramo más que priceBoundsCents: el tramo i
+ * es [priceBoundsCents[i - 1], priceBoundsCents[i]) con los extremos abiertos.
+ */
+public record FacetCounts(long inStock,
+                          long outOfStock,
+                          Map<Long, Long> sellers,
+                          long[] priceBoundsCents,
+                          long[] priceCounts) {
+}
@@ -0,0 +1,10 @@
+package com.marware.ecommerce.search;
+
+import java.util.List;
+
+/**
+ * Ids de la página pedida en el orden de la consulta, total de coincidencias
+ * y recuentos de facetas (null si no se pidieron).
+ */
+public record FacetHits(List<Long> productIds, long total, FacetCounts counts) {
+}
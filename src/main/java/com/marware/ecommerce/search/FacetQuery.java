@@ -0,0 +1,22 @@
+package com.marware.ecommerce.search;
+
+import java.util.List;
+
+/**
+ * Filtros y orden de una consulta al ProductFacetIndex. Los precios van en
+ * céntimos y los límites son inclusivos; null es "sin filtro". candidates,
+ * si no es null, restringe la consulta a esos productos (los de una búsqueda
+ * de texto) y su posición es la relevancia.
+ */
+public record FacetQuery(Long minPriceCents,
+                         Long maxPriceCents,
+                         Long sellerId,
+                         boolean inStockOnly,
+                         List<Long> candidates,
+                         Order order,
+                         boolean facets) {
+
+    public enum Order {
+        ID, RELEVANCE, PRICE_ASC, PRICE_DESC
+    }
+}
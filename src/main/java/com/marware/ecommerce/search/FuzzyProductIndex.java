@@ -0,0 +1,115 @@
+package com.marware.ecommerce.search;
+
+import com.marware.ecommerce.event.ProductChangedEvent;
+import com.marware.ecommerce.event.ProductSnapshot;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Búsqueda tolerante a erratas sobre el nombre de los productos (fuzzy=true),
+ * con un TenantTrigramIndex por tenant. Los resultados se ordenan por número
+ * de ediciones y, a igualdad, por trigramas compartidos. El total es el de
+ * coincidencias verificadas entre los max-candidates mejores candidatos de
+ * cada tenant, así que es una cota inferior.
+ */
+@Component
+public class FuzzyProductIndex implements CatalogIndex {
+
+    private static final long NO_TENANT = 0L;
+    private static final Comparator<TenantTrigramIndex.Hit> RANKING =
+            Comparator.comparingInt(TenantTrigramIndex.Hit::edits)
+                    .thenComparing(Comparator.comparingInt(TenantTrigramIndex.Hit::shared).reversed())
+                    .thenComparingLong(TenantTrigramIndex.Hit::productId);
+
+    private final int maxProductsPerTenant;
+    private final int maxCandidates;
+
+    private volatile Map<Long, TenantTrigramIndex> tenants = new ConcurrentHashMap<>();
+    private Map<Long, TenantTrigramIndex> building;
+    private volatile boolean ready;
+
+    public FuzzyProductIndex(@Value("${app.fuzzy.max-products-per-tenant:500000}") int maxProductsPerTenant,
+                             @Value("${app.fuzzy.max-candidates:500}") int maxCandidates) {
+        this.maxProductsPerTenant = maxProductsPerTenant;
+        this.maxCandidates = Math.max(1, maxCandidates);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Página [offset, offset + limit) de productos cuyo nombre casa con la
+     * consulta admitiendo erratas, o null si no hay términos o algún tenant
+     * supera el límite de productos (se usa la búsqueda normal).
+     */
+    public SearchHits search(String query, boolean inStockOnly, int offset, int limit) {
+        List<String> terms = Tokenizer.tokenize(query);
+        if (terms.isEmpty()) {
+            return null;
+        }
+        List<TenantTrigramIndex.Hit> merged = new ArrayList<>();
+        for (TenantTrigramIndex index : tenants.values()) {
+            List<TenantTrigramIndex.Hit> hits = index.search(terms, inStockOnly, maxCandidates);
+            if (hits == null) {
+                return null;
+            }
+            merged.addAll(hits);
+        }
+        merged.sort(RANKING);
+
+        List<Long> page = new ArrayList<>(limit);
+        for (int i = offset; i < merged.size() && page.size() < limit; i++) {
+            page.add(merged.get(i).productId());
+        }
+        return new SearchHits(page, merged.size());
+    }
+
+    @Override
+    public void beginRebuild() {
+        building = new HashMap<>();
+    }
+
+    @Override
+    public void accept(ProductSnapshot product) {
+        building.computeIfAbsent(tenantKey(product), k -> new TenantTrigramIndex(maxProductsPerTenant)).upsert(product);
+    }
+
+    @Override
+    public void finishRebuild() {
+        tenants = new ConcurrentHashMap<>(building);
+        building = null;
+        ready = true;
+    }
+
+    @Override
+    public void apply(ProductChangedEvent event) {
+        switch (event.type()) {
+            case CREATED -> tenant(event.after()).upsert(event.after());
+            case UPDATED -> {
+                if (Objects.equals(event.before().name(), event.after().name())) {
+                    tenant(event.after()).updateStock(event.after().id(), event.after().stock());
+                } else {
+                    tenant(event.after()).upsert(event.after());
+                }
+            }
+            case DELETED -> tenant(event.before()).remove(event.before().id());
+        }
+    }
+
+    private TenantTrigramIndex tenant(ProductSnapshot product) {
+        return tenants.computeIfAbsent(tenantKey(product), k -> new TenantTrigramIndex(maxProductsPerTenant));
+    }
+
+    private static Long tenantKey(ProductSnapshot product) {
+        return product.tenantId() != null ? product.tenantId() : NO_TENANT;
+    }
+}
@@ -0,0 +1,72 @@
+package com.marware.ecommerce.search;
+
+import java.util.Arrays;
+
+/**
+ * Lista de postings comprimida: pares (docId, frecuencia) con el docId en
+ * delta respecto al anterior, ambos en varint sobre un byte[]. Los docIds se
+ * añaden siempre en orden creciente.
+ */
+final class PostingList {
+
+    interface Consumer {
+        void accept(int docId, int termFreq);
+    }
+
+    private byte[] data = new byte[8];
+    private int length;
+    private int docFreq;
+    private int lastDocId = -1;
+
+    void add(int docId, int termFreq) {
+        writeVarInt(docId - lastDocId);
+        writeVarInt(termFreq);
+        lastDocId = docId;
+        docFreq++;
+    }
+
+    void forEach(Consumer consumer) {
+        int pos = 0;
+        int docId = -1;
+        while (pos < length) {
+            int delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[pos++];
+                delta |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+
+            int termFreq = 0;
+            shift = 0;
+            do {
+                b = data[pos++];
+                termFreq |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+
+            docId += delta;
+            consumer.accept(docId, termFreq);
+        }
+    }
+
+    int docFreq() {
+        return docFreq;
+    }
+
+    int sizeInBytes() {
+        return length;
+    }
+
+    private void writeVarInt(int value) {
+        if (length + 5 > data.length) {
+            data = Arrays.copyOf(data, Math.max(data.length * 2, length + 5));
+        }
+        while ((value & ~0x7F) != 0) {
+            data[length++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        data[length++] = (byte) value;
+    }
+}
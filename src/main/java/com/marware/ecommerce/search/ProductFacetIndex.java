@@ -0,0 +1,133 @@
+package com.marware.ecommerce.search;
+
+import com.marware.ecommerce.event.ProductChangedEvent;
+import com.marware.ecommerce.event.ProductSnapshot;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Filtros de precio, stock y vendedor del catálogo público, con facetas y
+ * orden por precio en memoria, sobre un TenantFacetIndex por tenant. Cada
+ * tenant devuelve sus offset + limit primeros y aquí se mezclan.
+ */
+@Component
+public class ProductFacetIndex implements CatalogIndex {
+
+    private static final long NO_TENANT = 0L;
+
+    private final long[] priceBoundsCents;
+
+    private volatile Map<Long, TenantFacetIndex> tenants = new ConcurrentHashMap<>();
+    private Map<Long, TenantFacetIndex> building;
+    private volatile boolean ready;
+
+    public ProductFacetIndex(@Value("${app.facets.price-buckets:10,25,50,100,250,500}") String priceBuckets) {
+        this.priceBoundsCents = Arrays.stream(priceBuckets.split(","))
+                .map(String::trim)
+                .filter(bound -> !bound.isEmpty())
+                .mapToLong(bound -> TenantFacetIndex.toCents(new BigDecimal(bound)))
+                .sorted()
+                .distinct()
+                .toArray();
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /** Productos del catálogo (o sólo los que tienen stock), mantenido con cada escritura. */
+    public long count(boolean inStockOnly) {
+        long count = 0;
+        for (TenantFacetIndex index : tenants.values()) {
+            count += index.count(inStockOnly);
+        }
+        return count;
+    }
+
+    public FacetHits search(FacetQuery query, int offset, int limit) {
+        int topK = offset + limit;
+        List<TenantFacetIndex.Result> results = new ArrayList<>(tenants.size());
+        for (TenantFacetIndex index : tenants.values()) {
+            results.add(index.search(query, priceBoundsCents, topK));
+        }
+
+        TenantFacetIndex.TopK merged = new TenantFacetIndex.TopK(topK);
+        long total = 0;
+        for (TenantFacetIndex.Result result : results) {
+            total += result.total();
+            for (int i = 0; i < result.productIds().length; i++) {
+                merged.offer(result.keys()[i], result.productIds()[i]);
+            }
+        }
+        long[] ids = merged.drain()[1];
+        List<Long> page = new ArrayList<>(limit);
+        for (int i = offset; i < ids.length; i++) {
+            page.add(ids[i]);
+        }
+        return new FacetHits(page, total, query.facets() ? mergeCounts(results) : null);
+    }
+
+    private FacetCounts mergeCounts(List<TenantFacetIndex.Result> results) {
+        long inStock = 0;
+        long outOfStock = 0;
+        Map<Long, Long> sellers = new HashMap<>();
+        long[] priceCounts = new long[priceBoundsCents.length + 1];
+        for (TenantFacetIndex.Result result : results) {
+            inStock += result.inStock();
+            outOfStock += result.outOfStock();
+            result.sellers().forEach((sellerId, count) -> sellers.merge(sellerId, count, Long::sum));
+            for (int i = 0; i < priceCounts.length; i++) {
+                priceCounts[i] += result.priceCounts()[i];
+            }
+        }
+        return new FacetCounts(inStock, outOfStock, sellers, priceBoundsCents.clone(), priceCounts);
+    }
+
+    @Override
+    public void beginRebuild() {
+        building = new HashMap<>();
+    }
+
+    @Override
+    public void accept(ProductSnapshot product) {
+        building.computeIfAbsent(tenantKey(product), k -> new TenantFacetIndex()).upsert(product);
+    }
+
+    @Override
+    public void finishRebuild() {
+        tenants = new ConcurrentHashMap<>(building);
+        building = null;
+        ready = true;
+    }
+
+    @Override
+    public void apply(ProductChangedEvent event) {
+        switch (event.type()) {
+            case CREATED -> tenant(event.after()).upsert(event.after());
+            case UPDATED -> {
+                if (!Objects.equals(tenantKey(event.before()), tenantKey(event.after()))) {
+                    tenant(event.before()).remove(event.before().id());
+                }
+                tenant(event.after()).upsert(event.after());
+            }
+            case DELETED -> tenant(event.before()).remove(event.before().id());
+        }
+    }
+
+    private TenantFacetIndex tenant(ProductSnapshot product) {
+        return tenants.computeIfAbsent(tenantKey(product), k -> new TenantFacetIndex());
+    }
+
+    private static Long tenantKey(ProductSnapshot product) {
+        return product.tenantId() != null ? product.tenantId() : NO_TENANT;
+    }
+}
@@ -0,0 +1,104 @@
+package com.marware.ecommerce.search;
+
+import com.marware.ecommerce.event.ProductChangedEvent;
+import com.marware.ecommerce.event.ProductSnapshot;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Búsqueda de texto completo sobre el catálogo con un índice invertido por
+ * tenant. Mientras no termine la primera carga, isReady() devuelve false y
+ * ProductService sigue usando la consulta LIKE de la base de datos.
+ */
+@Component
+public class ProductSearchIndex implements CatalogIndex {
+
+    private static final long NO_TENANT = 0L;
+
+    private volatile Map<Long, TenantSearchIndex> tenants = new ConcurrentHashMap<>();
+    private Map<Long, TenantSearchIndex> building;
+    private volatile boolean ready;
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Devuelve la página [offset, offset + limit) de resultados de todos los
+     * tenants ordenada por puntuación, o null si la consulta no tiene términos.
+     */
+    public SearchHits search(String query, boolean inStockOnly, int offset, int limit) {
+        List<String> terms = Tokenizer.tokenize(query);
+        if (terms.isEmpty()) {
+            return null;
+        }
+        int topK = offset + limit;
+
+        record Scored(long productId, float score) {
+        }
+        PriorityQueue<Scored> merged = new PriorityQueue<>((a, b) -> Float.compare(b.score(), a.score()));
+        long total = 0;
+        for (TenantSearchIndex index : tenants.values()) {
+            TenantSearchIndex.Hits hits = index.search(terms, inStockOnly, topK);
+            total += hits.total();
+            for (int i = 0; i < hits.productIds().length; i++) {
+                merged.add(new Scored(hits.productIds()[i], hits.scores()[i]));
+            }
+        }
+
+        List<Long> page = new ArrayList<>(limit);
+        for (int i = 0; i < topK && !merged.isEmpty(); i++) {
+            Scored next = merged.poll();
+            if (i >= offset) {
+                page.add(next.productId());
+            }
+        }
+        return new SearchHits(page, total);
+    }
+
+    @Override
+    public void beginRebuild() {
+        building = new HashMap<>();
+    }
+
+    @Override
+    public void accept(ProductSnapshot product) {
+        building.computeIfAbsent(tenantKey(product), k -> new TenantSearchIndex()).upsert(product);
+    }
+
+    @Override
+    public void finishRebuild() {
+        tenants = new ConcurrentHashMap<>(building);
+        building = null;
+        ready = true;
+    }
+
+    @Override
+    public void apply(ProductChangedEvent event) {
+        switch (event.type()) {
+            case CREATED -> tenant(event.after()).upsert(event.after());
+            case UPDATED -> {
+                if (event.after().sameText(event.before())) {
+                    tenant(event.after()).updateStock(event.after().id(), event.after().stock());
+                } else {
+                    tenant(event.after()).upsert(event.after());
+                }
+            }
+            case DELETED -> tenant(event.before()).remove(event.before().id());
+        }
+    }
+
+    private TenantSearchIndex tenant(ProductSnapshot product) {
+        return tenants.computeIfAbsent(tenantKey(product), k -> new TenantSearchIndex());
+    }
+
+    private static Long tenantKey(ProductSnapshot product) {
+        return product.tenantId() != null ? product.tenantId() : NO_TENANT;
+    }
+}
@@ -0,0 +1,117 @@
+package com.marware.ecommerce.search;
+
+import com.marware.ecommerce.event.ProductChangedEvent;
+import com.marware.ecommerce.event.ProductSnapshot;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Autocompletado por prefijo del catálogo público con un TenantSuggestIndex
+ * por tenant. La popularidad sale de las visitas al detalle público, que se
+ * acumulan sin bloqueo y se aplican a los índices cada popularity-interval.
+ */
+@Component
+public class ProductSuggestIndex implements CatalogIndex {
+
+    public static final int MAX_LIMIT = 20;
+    private static final long NO_TENANT = 0L;
+
+    private volatile Map<Long, TenantSuggestIndex> tenants = new ConcurrentHashMap<>();
+    private Map<Long, TenantSuggestIndex> building;
+    private volatile boolean ready;
+    private final Map<Long, AtomicInteger> recentViews = new ConcurrentHashMap<>();
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Sugerencias del tenant indicado o, si tenantId es null, de todos los
+     * tenants, ordenadas por popularidad.
+     */
+    public List<Suggestion> suggest(String prefix, Long tenantId, int limit) {
+        String normalized = TenantSuggestIndex.normalize(prefix);
+        int k = Math.max(1, Math.min(limit, MAX_LIMIT));
+        if (normalized.isEmpty()) {
+            return List.of();
+        }
+        if (tenantId != null) {
+            TenantSuggestIndex index = tenants.get(tenantId);
+            return index == null ? List.of() : index.suggest(normalized, k);
+        }
+        List<Suggestion> merged = new ArrayList<>();
+        for (TenantSuggestIndex index : tenants.values()) {
+            merged.addAll(index.suggest(normalized, k));
+        }
+        merged.sort(Comparator.comparingInt(Suggestion::score).reversed());
+        return merged.size() > k ? List.copyOf(merged.subList(0, k)) : merged;
+    }
+
+    public void recordView(Long productId) {
+        recentViews.computeIfAbsent(productId, id -> new AtomicInteger()).incrementAndGet();
+    }
+
+    @Scheduled(fixedDelayString = "${app.suggest.popularity-interval:60s}")
+    public void applyViews() {
+        Map<Long, Integer> views = new HashMap<>();
+        for (Long productId : List.copyOf(recentViews.keySet())) {
+            AtomicInteger count = recentViews.remove(productId);
+            if (count != null) {
+                views.put(productId, count.get());
+            }
+        }
+        for (TenantSuggestIndex index : tenants.values()) {
+            index.applyViews(views);
+        }
+    }
+
+    @Override
+    public void beginRebuild() {
+        building = new HashMap<>();
+    }
+
+    @Override
+    public void accept(ProductSnapshot product) {
+        building.computeIfAbsent(tenantKey(product), k -> new TenantSuggestIndex()).load(product);
+    }
+
+    @Override
+    public void finishRebuild() {
+        building.values().forEach(TenantSuggestIndex::consolidate);
+        tenants = new ConcurrentHashMap<>(building);
+        building = null;
+        ready = true;
+    }
+
+    @Override
+    public void apply(ProductChangedEvent event) {
+        switch (event.type()) {
+            case CREATED -> tenant(event.after()).upsert(event.after());
+            case UPDATED -> {
+                if (Objects.equals(event.before().name(), event.after().name())) {
+                    tenant(event.after()).updateStock(event.after().id(), event.after().stock());
+                } else {
+                    tenant(event.after()).upsert(event.after());
+                }
+            }
+            case DELETED -> tenant(event.before()).remove(event.before().id());
+        }
+    }
+
+    private TenantSuggestIndex tenant(ProductSnapshot product) {
+        return tenants.computeIfAbsent(tenantKey(product), k -> new TenantSuggestIndex());
+    }
+
+    private static Long tenantKey(ProductSnapshot product) {
+        return product.tenantId() != null ? product.tenantId() : NO_TENANT;
+    }
+}
@@ -0,0 +1,9 @@
+package com.marware.ecommerce.search;
+
+import java.util.List;
+
+/**
+ * Ids de producto de la página pedida, ordenados por relevancia, y el total de coincidencias.
+ */
+public record SearchHits(List<Long> productIds, long total) {
+}
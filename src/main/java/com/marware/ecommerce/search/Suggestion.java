@@ -0,0 +1,7 @@
+package com.marware.ecommerce.search;
+
+/**
+ * Producto sugerido para un prefijo y su puntuación de popularidad.
+ */
+public record Suggestion(Long id, String name, int score) {
+}
@@ -0,0 +1,392 @@
+package com.marware.ecommerce.search;
+
+import com.marware.ecommerce.event.ProductSnapshot;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice columnar de un tenant para filtrar por precio, stock y vendedor:
+ * un docId por producto y un array primitivo por columna (precio en céntimos,
+ * stock, ordinal del vendedor), más un DocBitmap por vendedor. Los cambios
+ * de precio o stock se escriben en su sitio; los borrados dejan hueco y se
+ * compacta cuando superan a los vivos.
+ */
+final class TenantFacetIndex {
+
+    private static final int MIN_DELETED_FOR_COMPACTION = 1024;
+    private static final int NO_SELLER = -1;
+    private static final int ANY_SELLER = -2;
+    private static final int UNKNOWN_SELLER = -3;
+
+    /** Página ordenada del tenant: clave de orden e id, más total y recuentos. */
+    record Result(long[] keys, long[] productIds, long total, long inStock, long outOfStock,
+                  Map<Long, Long> sellers, long[] priceCounts) {
+    }
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private long[] productIds = new long[16];
+    private long[] prices = new long[16];
+    private int[] stocks = new int[16];
+    private int[] sellers = new int[16];
+    private BitSet deleted = new BitSet();
+    private final Map<Long, Integer> docIdByProduct = new HashMap<>();
+    private int docCount;
+    private int liveCount;
+    private int inStockCount;
+
+    private final Map<Long, Integer> sellerOrdinals = new HashMap<>();
+    private long[] sellerIds = new long[4];
+    private DocBitmap[] sellerDocs = new DocBitmap[4];
+
+    void upsert(ProductSnapshot product) {
+        lock.writeLock().lock();
+        try {
+            Integer docId = docIdByProduct.get(product.id());
+            if (docId == null) {
+                docId = docCount++;
+                ensureCapacity(docCount);
+                productIds[docId] = product.id();
+                sellers[docId] = NO_SELLER;
+                docIdByProduct.put(product.id(), docId);
+                liveCount++;
+            } else if (stocks[docId] > 0) {
+                inStockCount--;
+            }
+            prices[docId] = toCents(product.price());
+            stocks[docId] = product.stock() == null ? 0 : product.stock();
+            if (stocks[docId] > 0) {
+                inStockCount++;
+            }
+            int seller = product.sellerId() == null ? NO_SELLER : sellerOrdinal(product.sellerId());
+            if (sellers[docId] != seller) {
+                if (sellers[docId] != NO_SELLER) {
+                    sellerDocs[sellers[docId]].remove(docId);
+                }
+                if (seller != NO_SELLER) {
+                    sellerDocs[seller].add(docId);
+                }
+                sellers[docId] = seller;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(long productId) {
+        lock.writeLock().lock();
+        try {
+            Integer docId = docIdByProduct.remove(productId);
+            if (docId == null) {
+                return;
+            }
+            deleted.set(docId);
+            if (stocks[docId] > 0) {
+                inStockCount--;
+            }
+            if (sellers[docId] != NO_SELLER) {
+                sellerDocs[sellers[docId]].remove(docId);
+            }
+            liveCount--;
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return liveCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int count(boolean inStockOnly) {
+        lock.readLock().lock();
+        try {
+            return inStockOnly ? inStockCount : liveCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Los topK primeros productos según query.order() y los recuentos. Con
+     * candidatos sólo se visitan esos; con vendedor y sin facetas, sólo su
+     * bitmap; en otro caso se recorren las columnas enteras.
+     */
+    Result search(FacetQuery query, long[] priceBounds, int topK) {
+        lock.readLock().lock();
+        try {
+            Scan scan = new Scan(query, priceBounds, topK, sellerFilter(query.sellerId()));
+            List<Long> candidates = query.candidates();
+            if (candidates != null) {
+                for (int rank = 0; rank < candidates.size(); rank++) {
+                    Integer docId = docIdByProduct.get(candidates.get(rank));
+                    if (docId != null) {
+                        scan.visit(docId, rank);
+                    }
+                }
+            } else if (scan.seller >= 0 && !query.facets()) {
+                sellerDocs[scan.seller].forEach(docId -> scan.visit(docId, 0));
+            } else if (scan.seller != UNKNOWN_SELLER || query.facets()) {
+                for (int docId = 0; docId < docCount; docId++) {
+                    if (!deleted.get(docId)) {
+                        scan.visit(docId, 0);
+                    }
+                }
+            }
+            return scan.result();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static long toCents(BigDecimal price) {
+        return price == null ? 0 : price.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValue();
+    }
+
+    private int sellerFilter(Long sellerId) {
+        if (sellerId == null) {
+            return ANY_SELLER;
+        }
+        Integer ordinal = sellerOrdinals.get(sellerId);
+        return ordinal == null ? UNKNOWN_SELLER : ordinal;
+    }
+
+    /** Recorrido de una consulta: filtros, top-k y recuentos de facetas. */
+    private final class Scan {
+        private final FacetQuery query;
+        private final long[] priceBounds;
+        private final int seller;
+        private final long minPrice;
+        private final long maxPrice;
+        private final TopK top;
+        private long total;
+        private long inStock;
+        private long outOfStock;
+        private final long[] sellerCounts;
+        private final long[] priceCounts;
+
+        Scan(FacetQuery query, long[] priceBounds, int topK, int seller) {
+            this.query = query;
+            this.priceBounds = priceBounds;
+            this.seller = seller;
+            this.minPrice = query.minPriceCents() == null ? Long.MIN_VALUE : query.minPriceCents();
+            this.maxPrice = query.maxPriceCents() == null ? Long.MAX_VALUE : query.maxPriceCents();
+            this.top = new TopK(topK);
+            this.sellerCounts = query.facets() ? new long[sellerOrdinals.size()] : null;
+            this.priceCounts = query.facets() ? new long[priceBounds.length + 1] : null;
+        }
+
+        void visit(int docId, int rank) {
+            long price = prices[docId];
+            int stock = stocks[docId];
+            boolean priceOk = price >= minPrice && price <= maxPrice;
+            boolean stockOk = !query.inStockOnly() || stock > 0;
+            boolean sellerOk = seller == ANY_SELLER || sellers[docId] == seller;
+
+            if (priceOk && stockOk && sellerOk) {
+                total++;
+                top.offer(sortKey(docId, rank), productIds[docId]);
+            }
+            if (!query.facets()) {
+                return;
+            }
+            if (priceOk && sellerOk) {
+                if (stock > 0) inStock++;
+                else outOfStock++;
+            }
+            if (stockOk && sellerOk) {
+                priceCounts[bucket(price)]++;
+            }
+            if (priceOk && stockOk && sellers[docId] != NO_SELLER) {
+                sellerCounts[sellers[docId]]++;
+            }
+        }
+
+        private long sortKey(int docId, int rank) {
+            return switch (query.order()) {
+                case ID -> productIds[docId];
+                case RELEVANCE -> rank;
+                case PRICE_ASC -> prices[docId];
+                case PRICE_DESC -> -prices[docId];
+            };
+        }
+
+        // El tramo i es [priceBounds[i - 1], priceBounds[i])
+        private int bucket(long price) {
+            int index = Arrays.binarySearch(priceBounds, price);
+            return index >= 0 ? index + 1 : -index - 1;
+        }
+
+        Result result() {
+            Map<Long, Long> bySeller = new HashMap<>();
+            if (sellerCounts != null) {
+                for (int ordinal = 0; ordinal < sellerCounts.length; ordinal++) {
+                    if (sellerCounts[ordinal] > 0) {
+                        bySeller.put(sellerIds[ordinal], sellerCounts[ordinal]);
+                    }
+                }
+            }
+            long[][] sorted = top.drain();
+            return new Result(sorted[0], sorted[1], total, inStock, outOfStock, bySeller, priceCounts);
+        }
+    }
+
+    /**
+     * Los k menores pares (clave, id) con un max-heap sobre arrays primitivos,
+     * que crecen según llegan coincidencias en lugar de reservar k de entrada.
+     */
+    static final class TopK {
+        private final int capacity;
+        private long[] keys;
+        private long[] ids;
+        private int size;
+
+        TopK(int capacity) {
+            this.capacity = Math.max(0, capacity);
+            int initial = Math.min(this.capacity, 64);
+            this.keys = new long[initial];
+            this.ids = new long[initial];
+        }
+
+        void offer(long key, long id) {
+            if (capacity == 0) {
+                return;
+            }
+            if (size < capacity) {
+                if (size == keys.length) {
+                    int grown = Math.min(capacity, size * 2);
+                    keys = Arrays.copyOf(keys, grown);
+                    ids = Arrays.copyOf(ids, grown);
+                }
+                keys[size] = key;
+                ids[size] = id;
+                siftUp(size++);
+            } else if (less(key, id, keys[0], ids[0])) {
+                keys[0] = key;
+                ids[0] = id;
+                siftDown(0);
+            }
+        }
+
+        /** Vacía el heap y devuelve {claves, ids} en orden creciente. */
+        long[][] drain() {
+            long[] sortedKeys = new long[size];
+            long[] sortedIds = new long[size];
+            for (int i = size - 1; i >= 0; i--) {
+                sortedKeys[i] = keys[0];
+                sortedIds[i] = ids[0];
+                size--;
+                keys[0] = keys[size];
+                ids[0] = ids[size];
+                siftDown(0);
+            }
+            return new long[][]{sortedKeys, sortedIds};
+        }
+
+        static boolean less(long key, long id, long otherKey, long otherId) {
+            return key < otherKey || (key == otherKey && id < otherId);
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (!less(keys[parent], ids[parent], keys[i], ids[i])) break;
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int largest = i;
+                int left = 2 * i + 1;
+                int right = left + 1;
+                if (left < size && less(keys[largest], ids[largest], keys[left], ids[left])) largest = left;
+                if (right < size && less(keys[largest], ids[largest], keys[right], ids[right])) largest = right;
+                if (largest == i) return;
+                swap(i, largest);
+                i = largest;
+            }
+        }
+
+        private void swap(int a, int b) {
+            long key = keys[a];
+            keys[a] = keys[b];
+            keys[b] = key;
+            long id = ids[a];
+            ids[a] = ids[b];
+            ids[b] = id;
+        }
+    }
+
+    // === Mantenimiento ===
+
+    private int sellerOrdinal(long sellerId) {
+        Integer ordinal = sellerOrdinals.get(sellerId);
+        if (ordinal != null) {
+            return ordinal;
+        }
+        int next = sellerOrdinals.size();
+        if (next == sellerIds.length) {
+            sellerIds = Arrays.copyOf(sellerIds, next * 2);
+            sellerDocs = Arrays.copyOf(sellerDocs, next * 2);
+        }
+        sellerIds[next] = sellerId;
+        sellerDocs[next] = new DocBitmap();
+        sellerOrdinals.put(sellerId, next);
+        return next;
+    }
+
+    private void ensureCapacity(int size) {
+        if (size > productIds.length) {
+            int capacity = Math.max(size, productIds.length * 2);
+            productIds = Arrays.copyOf(productIds, capacity);
+            prices = Arrays.copyOf(prices, capacity);
+            stocks = Arrays.copyOf(stocks, capacity);
+            sellers = Arrays.copyOf(sellers, capacity);
+        }
+    }
+
+    // Reescribe las columnas sin huecos y rehace los bitmaps, que dependen del docId
+    private void compactIfNeeded() {
+        int deletedCount = docCount - liveCount;
+        if (deletedCount < MIN_DELETED_FOR_COMPACTION || deletedCount <= liveCount) {
+            return;
+        }
+        long[] oldSellerIds = sellerIds;
+        sellerOrdinals.clear();
+        sellerIds = new long[4];
+        sellerDocs = new DocBitmap[4];
+
+        int next = 0;
+        for (int docId = 0; docId < docCount; docId++) {
+            if (deleted.get(docId)) {
+                continue;
+            }
+            productIds[next] = productIds[docId];
+            prices[next] = prices[docId];
+            stocks[next] = stocks[docId];
+            int seller = sellers[docId] == NO_SELLER ? NO_SELLER : sellerOrdinal(oldSellerIds[sellers[docId]]);
+            sellers[next] = seller;
+            if (seller != NO_SELLER) {
+                sellerDocs[seller].add(next);
+            }
+            docIdByProduct.put(productIds[next], next);
+            next++;
+        }
+        docCount = next;
+        deleted = new BitSet();
+    }
+}
@@ -0,0 +1,280 @@
+package com.marware.ecommerce.search;
+
+import com.marware.ecommerce.event.ProductSnapshot;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice invertido de un tenant sobre nombre y descripción. Los documentos
+ * reciben un docId secuencial; las actualizaciones marcan el documento
+ * anterior como borrado y añaden uno nuevo. Cuando los borrados superan a los
+ * vivos se compactan las postings reasignando docIds.
+ */
+final class TenantSearchIndex {
+
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+    private static final int NAME_BOOST = 2;
+    private static final int MAX_PREFIX_EXPANSIONS = 256;
+    private static final int MIN_DELETED_FOR_COMPACTION = 1024;
+
+    /** Resultado de un tenant: los mejores documentos y el total de coincidencias. */
+    record Hits(long[] productIds, float[] scores, int total) {
+    }
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private TreeMap<String, PostingList> postings = new TreeMap<>();
+    private long[] productIds = new long[16];
+    private int[] docLengths = new int[16];
+    private int[] stocks = new int[16];
+    private BitSet deleted = new BitSet();
+    private final Map<Long, Integer> docIdByProduct = new HashMap<>();
+    private int docCount;
+    private int liveCount;
+    private long liveLength;
+
+    void upsert(ProductSnapshot product) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(product.id());
+            addInternal(product);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void updateStock(long productId, Integer stock) {
+        lock.writeLock().lock();
+        try {
+            Integer docId = docIdByProduct.get(productId);
+            if (docId != null) {
+                stocks[docId] = stock == null ? 0 : stock;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(long productId) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(productId);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return liveCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Todos los términos deben aparecer (AND); el último se trata como prefijo
+     * para soportar búsqueda mientras se escribe. Ranking BM25.
+     *
+     * Las puntuaciones se acumulan de forma dispersa: el término más raro
+     * crea los candidatos y los demás sólo suman a los que ya están, así que
+     * el coste es el de las postings recorridas y no el tamaño del tenant.
+     */
+    Hits search(List<String> terms, boolean inStockOnly, int topK) {
+        lock.readLock().lock();
+        try {
+            if (terms.isEmpty() || liveCount == 0) {
+                return new Hits(new long[0], new float[0], 0);
+            }
+            List<Collection<PostingList>> termLists = new ArrayList<>(terms.size());
+            for (int t = 0; t < terms.size(); t++) {
+                Collection<PostingList> lists = (t == terms.size() - 1)
+                        ? expandPrefix(terms.get(t))
+                        : single(postings.get(terms.get(t)));
+                if (lists.isEmpty()) {
+                    return new Hits(new long[0], new float[0], 0);
+                }
+                termLists.add(lists);
+            }
+            termLists.sort(Comparator.comparingLong(TenantSearchIndex::docFreq));
+
+            float avgLength = (float) liveLength / liveCount;
+            DocAccumulator matches = new DocAccumulator((int) Math.min(docFreq(termLists.get(0)), docCount));
+            for (int t = 0; t < termLists.size(); t++) {
+                final int term = t;
+                for (PostingList list : termLists.get(t)) {
+                    float idf = (float) Math.log(1 + (liveCount - list.docFreq() + 0.5) / (list.docFreq() + 0.5));
+                    list.forEach((docId, tf) -> {
+                        int slot = term == 0 ? matches.findOrAdd(docId) : matches.find(docId);
+                        if (slot < 0) {
+                            return;
+                        }
+                        // Un documento puede aparecer en varias expansiones del mismo prefijo: cuenta una vez
+                        if (matches.count(slot) == term) {
+                            matches.setCount(slot, term + 1);
+                        }
+                        if (matches.count(slot) == term + 1) {
+                            float norm = K1 * (1 - B + B * docLengths[docId] / avgLength);
+                            matches.addScore(slot, idf * tf * (K1 + 1) / (tf + norm));
+                        }
+                    });
+                }
+            }
+
+            int required = termLists.size();
+            int total = 0;
+            PriorityQueue<Integer> top = new PriorityQueue<>(
+                    Math.max(1, topK), (a, b) -> Float.compare(matches.score(a), matches.score(b)));
+            for (int slot = 0; slot < matches.capacity(); slot++) {
+                int docId = matches.doc(slot);
+                if (docId < 0 || matches.count(slot) != required || deleted.get(docId)) continue;
+                if (inStockOnly && stocks[docId] <= 0) continue;
+                total++;
+                if (topK <= 0) continue;
+                if (top.size() < topK) {
+                    top.add(slot);
+                } else if (matches.score(slot) > matches.score(top.peek())) {
+                    top.poll();
+                    top.add(slot);
+                }
+            }
+
+            int n = top.size();
+            long[] ids = new long[n];
+            float[] resultScores = new float[n];
+            for (int i = n - 1; i >= 0; i--) {
+                int slot = top.poll();
+                ids[i] = productIds[matches.doc(slot)];
+                resultScores[i] = matches.score(slot);
+            }
+            return new Hits(ids, resultScores, total);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static long docFreq(Collection<PostingList> lists) {
+        long docFreq = 0;
+        for (PostingList list : lists) {
+            docFreq += list.docFreq();
+        }
+        return docFreq;
+    }
+
+    private Collection<PostingList> expandPrefix(String prefix) {
+        NavigableMap<String, PostingList> range =
+                postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+        if (range.size() <= MAX_PREFIX_EXPANSIONS) {
+            return range.values();
+        }
+        List<PostingList> limited = new ArrayList<>(MAX_PREFIX_EXPANSIONS);
+        PostingList exact = postings.get(prefix);
+        if (exact != null) {
+            limited.add(exact);
+        }
+        for (PostingList list : range.values()) {
+            if (limited.size() >= MAX_PREFIX_EXPANSIONS) break;
+            if (list != exact) limited.add(list);
+        }
+        return limited;
+    }
+
+    private static Collection<PostingList> single(PostingList list) {
+        return list == null ? List.of() : List.of(list);
+    }
+
+    private void addInternal(ProductSnapshot product) {
+        Map<String, Integer> termFreqs = new HashMap<>();
+        int length = 0;
+        for (String token : Tokenizer.tokenize(product.name())) {
+            termFreqs.merge(token, NAME_BOOST, Integer::sum);
+            length += NAME_BOOST;
+        }
+        for (String token : Tokenizer.tokenize(product.description())) {
+            termFreqs.merge(token, 1, Integer::sum);
+            length++;
+        }
+
+        int docId = docCount++;
+        ensureCapacity(docCount);
+        productIds[docId] = product.id();
+        docLengths[docId] = length;
+        stocks[docId] = product.stock() == null ? 0 : product.stock();
+        docIdByProduct.put(product.id(), docId);
+        liveCount++;
+        liveLength += length;
+
+        termFreqs.forEach((term, tf) -> postings.computeIfAbsent(term, k -> new PostingList()).add(docId, tf));
+    }
+
+    private void removeInternal(long productId) {
+        Integer docId = docIdByProduct.remove(productId);
+        if (docId != null) {
+            deleted.set(docId);
+            liveCount--;
+            liveLength -= docLengths[docId];
+        }
+    }
+
+    private void ensureCapacity(int size) {
+        if (size > productIds.length) {
+            int capacity = Math.max(size, productIds.length * 2);
+            productIds = Arrays.copyOf(productIds, capacity);
+            docLengths = Arrays.copyOf(docLengths, capacity);
+            stocks = Arrays.copyOf(stocks, capacity);
+        }
+    }
+
+    private void compactIfNeeded() {
+        int deletedCount = docCount - liveCount;
+        if (deletedCount < MIN_DELETED_FOR_COMPACTION || deletedCount <= liveCount) {
+            return;
+        }
+        int[] remap = new int[docCount];
+        int next = 0;
+        for (int docId = 0; docId < docCount; docId++) {
+            if (deleted.get(docId)) {
+                remap[docId] = -1;
+            } else {
+                remap[docId] = next;
+                productIds[next] = productIds[docId];
+                docLengths[next] = docLengths[docId];
+                stocks[next] = stocks[docId];
+                docIdByProduct.put(productIds[next], next);
+                next++;
+            }
+        }
+
+        TreeMap<String, PostingList> compacted = new TreeMap<>();
+        postings.forEach((term, list) -> {
+            PostingList copy = new PostingList();
+            list.forEach((docId, tf) -> {
+                if (remap[docId] >= 0) {
+                    copy.add(remap[docId], tf);
+                }
+            });
+            if (copy.docFreq() > 0) {
+                compacted.put(term, copy);
+            }
+        });
+
+        postings = compacted;
+        docCount = next;
+        deleted = new BitSet();
+    }
+}
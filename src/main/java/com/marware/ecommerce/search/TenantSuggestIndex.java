@@ -0,0 +1,493 @@
+package com.marware.ecommerce.search;
+
+import com.marware.ecommerce.event.ProductSnapshot;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntConsumer;
+
+/**
+ * Autocompletado de un tenant. Cada producto ocupa un slot (nombre original,
+ * nombre normalizado, popularidad) y aporta una entrada por cada comienzo de
+ * palabra de su nombre normalizado, codificada como (slot, offset) en dos
+ * arrays int ordenados por el texto desde ese offset, sin copiar subcadenas.
+ *
+ * Un prefijo corresponde a un rango contiguo que se localiza con búsqueda
+ * binaria; los k más populares del rango salen de un árbol de segmentos con
+ * el argmax de la puntuación, en O(k log n) sin recorrer el rango entero.
+ *
+ * Las altas y renombrados van a un delta ordenado pequeño que se recorre en
+ * cada consulta; las bajas y los cambios de stock o popularidad actualizan el
+ * árbol in situ. Cuando el delta o los slots muertos crecen se reconstruye
+ * todo (coste amortizado).
+ *
+ * En la carga inicial (load) sólo se añaden slots, sin delta ni
+ * reconstrucciones intermedias, y consolidate() ordena todo una vez.
+ */
+final class TenantSuggestIndex {
+
+    private static final int MAX_WORD_STARTS = 4;
+    private static final int MIN_DELTA_FOR_MERGE = 64;
+    private static final int NOT_SUGGESTED = -1;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // === Slots ===
+    private long[] productIds = new long[16];
+    private String[] names = new String[16];
+    private String[] keys = new String[16];
+    private int[] popularity = new int[16];
+    private boolean[] inStock = new boolean[16];
+    private boolean[] dead = new boolean[16];
+    private final Map<Long, Integer> slotByProduct = new HashMap<>();
+    private int slotCount;
+    private int liveCount;
+
+    // === Entradas consolidadas: ordenadas, con árbol de segmentos sobre la puntuación ===
+    private int[] entrySlot = new int[0];
+    private int[] entryOffset = new int[0];
+    private int[][] entriesBySlot = new int[16][];
+    private int[] tree = new int[0];
+    private int leaves;
+
+    // === Delta: texto desde cada comienzo de palabra -> slots añadidos desde la última consolidación ===
+    private final TreeMap<String, Set<Integer>> delta = new TreeMap<>();
+    private int deltaEntries;
+    // Slots de load() que aún no están ni en el delta ni en las entradas consolidadas
+    private int unindexedSlots;
+
+    void upsert(ProductSnapshot product) {
+        lock.writeLock().lock();
+        try {
+            Integer existing = slotByProduct.get(product.id());
+            String key = normalize(product.name());
+            if (existing != null && keys[existing].equals(key)) {
+                // Mismo texto indexado: sólo cambian el nombre visible y el stock
+                names[existing] = product.name();
+                setInStock(existing, product.stock());
+                return;
+            }
+            int popularityBefore = existing != null ? popularity[existing] : 0;
+            removeInternal(product.id());
+            if (key.isEmpty()) {
+                return;
+            }
+            int slot = addSlot(product, key, popularityBefore);
+            forEachWordStart(key, offset -> {
+                delta.computeIfAbsent(key.substring(offset), k -> new HashSet<>(2)).add(slot);
+                deltaEntries++;
+            });
+            mergeIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Alta de la carga inicial: el slot no es consultable hasta consolidate(). */
+    void load(ProductSnapshot product) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(product.id());
+            String key = normalize(product.name());
+            if (!key.isEmpty()) {
+                addSlot(product, key, 0);
+                unindexedSlots++;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void updateStock(long productId, Integer stock) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = slotByProduct.get(productId);
+            if (slot != null) {
+                setInStock(slot, stock);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(long productId) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(productId);
+            mergeIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Suma las visitas recientes a la popularidad, que antes pierde un cuarto
+     * de su valor: lo visitado hace tiempo deja paso a lo que se visita ahora.
+     */
+    void applyViews(Map<Long, Integer> views) {
+        lock.writeLock().lock();
+        try {
+            for (int slot = 0; slot < slotCount; slot++) {
+                popularity[slot] -= popularity[slot] >> 2;
+            }
+            views.forEach((productId, count) -> {
+                Integer slot = slotByProduct.get(productId);
+                if (slot != null) {
+                    popularity[slot] = (int) Math.min(Integer.MAX_VALUE, (long) popularity[slot] + count);
+                }
+            });
+            buildTree();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Ordena lo cargado con load() y pasa el delta al bloque consolidado. */
+    void consolidate() {
+        lock.writeLock().lock();
+        try {
+            if (unindexedSlots > 0 || deltaEntries > 0 || slotCount > liveCount) {
+                merge();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return liveCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Los limit productos en stock más populares cuyo nombre tiene una palabra que empieza por prefix. */
+    List<Suggestion> suggest(String prefix, int limit) {
+        lock.readLock().lock();
+        try {
+            List<Suggestion> result = new ArrayList<>(limit);
+            if (prefix.isEmpty() || limit <= 0 || liveCount == 0) {
+                return result;
+            }
+            int lo = lowerBound(prefix);
+            int hi = upperBound(prefix, lo);
+
+            // Candidatos del delta, ya filtrados
+            List<Integer> deltaSlots = new ArrayList<>();
+            for (Set<Integer> slots : delta.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+                for (int slot : slots) {
+                    if (score(slot) != NOT_SUGGESTED) {
+                        deltaSlots.add(slot);
+                    }
+                }
+            }
+            deltaSlots.sort(Comparator.comparingInt(this::score).reversed());
+
+            // Rangos del árbol ordenados por su mejor puntuación
+            record Range(int from, int to, int best) {
+            }
+            PriorityQueue<Range> ranges = new PriorityQueue<>(
+                    (a, b) -> Integer.compare(score(entrySlot[b.best()]), score(entrySlot[a.best()])));
+            if (lo < hi) {
+                ranges.add(new Range(lo, hi, argmax(lo, hi)));
+            }
+
+            Set<Integer> seen = new HashSet<>();
+            int d = 0;
+            while (result.size() < limit) {
+                int treeSlot = NOT_SUGGESTED;
+                Range top = ranges.peek();
+                if (top != null && score(entrySlot[top.best()]) != NOT_SUGGESTED) {
+                    treeSlot = entrySlot[top.best()];
+                }
+                int deltaSlot = d < deltaSlots.size() ? deltaSlots.get(d) : NOT_SUGGESTED;
+                if (treeSlot == NOT_SUGGESTED && deltaSlot == NOT_SUGGESTED) {
+                    break;
+                }
+                int slot;
+                if (deltaSlot != NOT_SUGGESTED && (treeSlot == NOT_SUGGESTED || score(deltaSlot) > score(treeSlot))) {
+                    slot = deltaSlot;
+                    d++;
+                } else {
+                    slot = treeSlot;
+                    ranges.poll();
+                    int best = top.best();
+                    if (top.from() < best) ranges.add(new Range(top.from(), best, argmax(top.from(), best)));
+                    if (best + 1 < top.to()) ranges.add(new Range(best + 1, top.to(), argmax(best + 1, top.to())));
+                }
+                // Un producto puede coincidir por varias palabras
+                if (seen.add(slot)) {
+                    result.add(new Suggestion(productIds[slot], names[slot], score(slot)));
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Nombre normalizado: sin acentos, minúsculas y palabras separadas por un espacio. */
+    static String normalize(String text) {
+        return String.join(" ", Tokenizer.tokenize(text));
+    }
+
+    // === Slots ===
+
+    private int addSlot(ProductSnapshot product, String key, int initialPopularity) {
+        int slot = slotCount++;
+        ensureCapacity(slotCount);
+        productIds[slot] = product.id();
+        names[slot] = product.name();
+        keys[slot] = key;
+        popularity[slot] = initialPopularity;
+        inStock[slot] = product.inStock();
+        dead[slot] = false;
+        entriesBySlot[slot] = null;
+        slotByProduct.put(product.id(), slot);
+        liveCount++;
+        return slot;
+    }
+
+    private void removeInternal(long productId) {
+        Integer slot = slotByProduct.remove(productId);
+        if (slot == null) {
+            return;
+        }
+        dead[slot] = true;
+        liveCount--;
+        if (entriesBySlot[slot] == null) {
+            String key = keys[slot];
+            forEachWordStart(key, offset -> delta.computeIfPresent(key.substring(offset), (k, slots) -> {
+                if (slots.remove(slot)) {
+                    deltaEntries--;
+                }
+                return slots.isEmpty() ? null : slots;
+            }));
+        } else {
+            refreshTree(slot);
+        }
+    }
+
+    private void setInStock(int slot, Integer stock) {
+        boolean available = stock != null && stock > 0;
+        if (inStock[slot] != available) {
+            inStock[slot] = available;
+            refreshTree(slot);
+        }
+    }
+
+    private int score(int slot) {
+        return dead[slot] || !inStock[slot] ? NOT_SUGGESTED : popularity[slot];
+    }
+
+    private void ensureCapacity(int size) {
+        if (size > productIds.length) {
+            int capacity = Math.max(size, productIds.length * 2);
+            productIds = Arrays.copyOf(productIds, capacity);
+            names = Arrays.copyOf(names, capacity);
+            keys = Arrays.copyOf(keys, capacity);
+            popularity = Arrays.copyOf(popularity, capacity);
+            inStock = Arrays.copyOf(inStock, capacity);
+            dead = Arrays.copyOf(dead, capacity);
+            entriesBySlot = Arrays.copyOf(entriesBySlot, capacity);
+        }
+    }
+
+    // === Consolidación ===
+
+    private void mergeIfNeeded() {
+        int deadSlots = slotCount - liveCount;
+        if (deltaEntries >= Math.max(MIN_DELTA_FOR_MERGE, liveCount / 8)
+                || (deadSlots >= MIN_DELTA_FOR_MERGE && deadSlots > liveCount)) {
+            merge();
+        }
+    }
+
+    /** Compacta los slots vivos y vuelve a ordenar todas sus entradas. */
+    private void merge() {
+        int next = 0;
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (dead[slot]) continue;
+            productIds[next] = productIds[slot];
+            names[next] = names[slot];
+            keys[next] = keys[slot];
+            popularity[next] = popularity[slot];
+            inStock[next] = inStock[slot];
+            dead[next] = false;
+            slotByProduct.put(productIds[next], next);
+            next++;
+        }
+        Arrays.fill(names, next, slotCount, null);
+        Arrays.fill(keys, next, slotCount, null);
+        slotCount = next;
+        delta.clear();
+        deltaEntries = 0;
+        unindexedSlots = 0;
+
+        List<Long> entries = new ArrayList<>();
+        for (int slot = 0; slot < slotCount; slot++) {
+            int s = slot;
+            forEachWordStart(keys[slot], offset -> entries.add(pack(s, offset)));
+        }
+        entries.sort((a, b) -> compareEntries(a, b));
+
+        int n = entries.size();
+        entrySlot = new int[n];
+        entryOffset = new int[n];
+        int[] perSlot = new int[slotCount];
+        for (int i = 0; i < n; i++) {
+            long entry = entries.get(i);
+            entrySlot[i] = (int) (entry >>> 32);
+            entryOffset[i] = (int) (entry & 0xffffffffL);
+            perSlot[entrySlot[i]]++;
+        }
+        for (int slot = 0; slot < slotCount; slot++) {
+            entriesBySlot[slot] = new int[perSlot[slot]];
+            perSlot[slot] = 0;
+        }
+        Arrays.fill(entriesBySlot, slotCount, entriesBySlot.length, null);
+        for (int i = 0; i < n; i++) {
+            int slot = entrySlot[i];
+            entriesBySlot[slot][perSlot[slot]++] = i;
+        }
+        buildTree();
+    }
+
+    // === Árbol de segmentos (argmax de la puntuación) ===
+
+    private void buildTree() {
+        int n = entrySlot.length;
+        leaves = Integer.highestOneBit(Math.max(1, n - 1)) << 1;
+        tree = new int[2 * leaves];
+        Arrays.fill(tree, -1);
+        for (int i = 0; i < n; i++) {
+            tree[leaves + i] = i;
+        }
+        for (int node = leaves - 1; node >= 1; node--) {
+            tree[node] = better(tree[2 * node], tree[2 * node + 1]);
+        }
+    }
+
+    private void refreshTree(int slot) {
+        int[] entries = entriesBySlot[slot];
+        if (entries == null) {
+            return;
+        }
+        for (int entry : entries) {
+            for (int node = (leaves + entry) >> 1; node >= 1; node >>= 1) {
+                tree[node] = better(tree[2 * node], tree[2 * node + 1]);
+            }
+        }
+    }
+
+    // Entrada con mayor puntuación en [from, to); a igualdad, la primera en orden alfabético
+    private int argmax(int from, int to) {
+        int left = -1;
+        int right = -1;
+        for (int l = from + leaves, r = to + leaves; l < r; l >>= 1, r >>= 1) {
+            if ((l & 1) == 1) left = better(left, tree[l++]);
+            if ((r & 1) == 1) right = better(tree[--r], right);
+        }
+        return better(left, right);
+    }
+
+    private int better(int a, int b) {
+        if (a < 0) return b;
+        if (b < 0) return a;
+        int sa = score(entrySlot[a]);
+        int sb = score(entrySlot[b]);
+        return sa > sb || (sa == sb && a < b) ? a : b;
+    }
+
+    // === Comparaciones sin crear subcadenas ===
+
+    private int lowerBound(String prefix) {
+        int lo = 0;
+        int hi = entrySlot.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (compareSuffix(keys[entrySlot[mid]], entryOffset[mid], prefix) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private int upperBound(String prefix, int from) {
+        int lo = from;
+        int hi = entrySlot.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (comparePrefix(keys[entrySlot[mid]], entryOffset[mid], prefix) <= 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private int compareEntries(long a, long b) {
+        int slotA = (int) (a >>> 32);
+        int slotB = (int) (b >>> 32);
+        String keyA = keys[slotA];
+        String keyB = keys[slotB];
+        int offA = (int) (a & 0xffffffffL);
+        int offB = (int) (b & 0xffffffffL);
+        int lenA = keyA.length() - offA;
+        int lenB = keyB.length() - offB;
+        for (int i = 0, n = Math.min(lenA, lenB); i < n; i++) {
+            int c = Character.compare(keyA.charAt(offA + i), keyB.charAt(offB + i));
+            if (c != 0) return c;
+        }
+        if (lenA != lenB) return Integer.compare(lenA, lenB);
+        return Long.compare(a, b);
+    }
+
+    // Orden del texto key[offset..] frente a other
+    private static int compareSuffix(String key, int offset, String other) {
+        int len = key.length() - offset;
+        for (int i = 0, n = Math.min(len, other.length()); i < n; i++) {
+            int c = Character.compare(key.charAt(offset + i), other.charAt(i));
+            if (c != 0) return c;
+        }
+        return Integer.compare(len, other.length());
+    }
+
+    // 0 si key[offset..] empieza por prefix; si no, su orden relativo
+    private static int comparePrefix(String key, int offset, String prefix) {
+        int len = key.length() - offset;
+        for (int i = 0, n = Math.min(len, prefix.length()); i < n; i++) {
+            int c = Character.compare(key.charAt(offset + i), prefix.charAt(i));
+            if (c != 0) return c;
+        }
+        return len >= prefix.length() ? 0 : -1;
+    }
+
+    private static void forEachWordStart(String key, IntConsumer action) {
+        int starts = 0;
+        for (int i = 0; i < key.length() && starts < MAX_WORD_STARTS; i++) {
+            if (i == 0 || key.charAt(i - 1) == ' ') {
+                action.accept(i);
+                starts++;
+            }
+        }
+    }
+
+    private static long pack(int slot, int offset) {
+        return ((long) slot << 32) | offset;
+    }
+}
@@ -0,0 +1,344 @@
+package com.marware.ecommerce.search;
+
+import com.marware.ecommerce.event.ProductSnapshot;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice de trigramas de un tenant sobre el nombre normalizado, para la
+ * búsqueda tolerante a erratas. Las postings son int[] de docIds crecientes;
+ * como en TenantSearchIndex, una actualización marca el documento anterior
+ * como borrado y añade otro, y se compacta cuando los borrados superan a los
+ * vivos.
+ *
+ * La memoria está acotada: de cada nombre se indexan como mucho
+ * MAX_NAME_CHARS caracteres y el tenant admite maxDocs productos. Pasado ese
+ * límite queda saturado y search devuelve null para que se use la búsqueda
+ * normal en lugar de dar resultados incompletos.
+ */
+final class TenantTrigramIndex {
+
+    static final int MAX_NAME_CHARS = 64;
+    private static final int MIN_DELETED_FOR_COMPACTION = 1024;
+    private static final float MIN_OVERLAP = 0.25f;
+
+    /** Coincidencia verificada: ediciones totales (menos es mejor) y trigramas compartidos. */
+    record Hit(long productId, int edits, int shared) {
+    }
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final int maxDocs;
+
+    private final Map<Integer, Postings> postings = new HashMap<>();
+    private long[] productIds = new long[16];
+    private String[] keys = new String[16];
+    private int[] stocks = new int[16];
+    private BitSet deleted = new BitSet();
+    private final Map<Long, Integer> docIdByProduct = new HashMap<>();
+    private int docCount;
+    private int liveCount;
+    private boolean saturated;
+
+    TenantTrigramIndex(int maxDocs) {
+        this.maxDocs = maxDocs;
+    }
+
+    void upsert(ProductSnapshot product) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(product.id());
+            if (liveCount >= maxDocs) {
+                saturated = true;
+                return;
+            }
+            addInternal(product);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void updateStock(long productId, Integer stock) {
+        lock.writeLock().lock();
+        try {
+            Integer docId = docIdByProduct.get(productId);
+            if (docId != null) {
+                stocks[docId] = stock == null ? 0 : stock;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(long productId) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(productId);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return liveCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Candidatos por solapamiento de trigramas (al menos un cuarto de los de
+     * la consulta); los maxCandidates con más trigramas en común se verifican
+     * con distancia de edición: cada término de la consulta debe estar a
+     * maxEdits de alguna palabra del nombre. null si el tenant está saturado.
+     */
+    List<Hit> search(List<String> terms, boolean inStockOnly, int maxCandidates) {
+        lock.readLock().lock();
+        try {
+            if (saturated) {
+                return null;
+            }
+            List<Hit> hits = new ArrayList<>();
+            if (terms.isEmpty() || liveCount == 0) {
+                return hits;
+            }
+            int[] grams = trigrams(String.join(" ", terms));
+            List<Postings> lists = new ArrayList<>(grams.length);
+            long touched = 0;
+            for (int gram : grams) {
+                Postings list = postings.get(gram);
+                if (list != null) {
+                    lists.add(list);
+                    touched += list.size;
+                }
+            }
+            // Sólo los documentos de las postings de la consulta, no todo el tenant
+            DocAccumulator shared = new DocAccumulator((int) Math.min(touched, docCount));
+            for (Postings list : lists) {
+                for (int i = 0; i < list.size; i++) {
+                    int slot = shared.findOrAdd(list.docs[i]);
+                    shared.setCount(slot, shared.count(slot) + 1);
+                }
+            }
+
+            int minShared = Math.max(1, (int) Math.ceil(grams.length * MIN_OVERLAP));
+            PriorityQueue<Integer> top = new PriorityQueue<>(
+                    Math.max(1, maxCandidates), (a, b) -> Integer.compare(shared.count(a), shared.count(b)));
+            for (int slot = 0; slot < shared.capacity(); slot++) {
+                int docId = shared.doc(slot);
+                if (docId < 0 || shared.count(slot) < minShared || deleted.get(docId)) continue;
+                if (inStockOnly && stocks[docId] <= 0) continue;
+                if (top.size() < maxCandidates) {
+                    top.add(slot);
+                } else if (shared.count(slot) > shared.count(top.peek())) {
+                    top.poll();
+                    top.add(slot);
+                }
+            }
+
+            for (int slot : top) {
+                int docId = shared.doc(slot);
+                int edits = matchEdits(terms, keys[docId]);
+                if (edits >= 0) {
+                    hits.add(new Hit(productIds[docId], edits, shared.count(slot)));
+                }
+            }
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // === Verificación ===
+
+    /** Suma de ediciones para casar cada término con alguna palabra de key, o -1 si alguno no casa. */
+    static int matchEdits(List<String> terms, String key) {
+        String[] words = key.split(" ");
+        int total = 0;
+        for (String term : terms) {
+            int allowed = maxEdits(term);
+            int best = allowed + 1;
+            for (String word : words) {
+                best = Math.min(best, boundedEditDistance(term, word, Math.min(allowed, best - 1)));
+                if (best == 0) break;
+            }
+            if (best > allowed) {
+                return -1;
+            }
+            total += best;
+        }
+        return total;
+    }
+
+    // Como el modo AUTO habitual: términos cortos exactos, medianos 1 edición, largos 2
+    static int maxEdits(String term) {
+        int length = term.length();
+        return length <= 2 ? 0 : length <= 5 ? 1 : 2;
+    }
+
+    /**
+     * Distancia de edición con transposiciones de letras contiguas (OSA) si
+     * es <= max; si no, max + 1. Sólo calcula la banda diagonal.
+     */
+    static int boundedEditDistance(String a, String b, int max) {
+        if (max < 0) {
+            return max + 1;
+        }
+        if (Math.abs(a.length() - b.length()) > max) {
+            return max + 1;
+        }
+        int[] beforePrevious = new int[b.length() + 1];
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            int from = Math.max(1, i - max);
+            int to = Math.min(b.length(), i + max);
+            current[0] = i;
+            if (from > 1) current[from - 1] = max + 1;
+            int rowMin = from == 1 ? current[0] : max + 1;
+            for (int j = from; j <= to; j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(previous[j - 1] + cost, Math.min(previous[j] + 1, current[j - 1] + 1));
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    value = Math.min(value, beforePrevious[j - 2] + 1);
+                }
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (to < b.length()) current[to + 1] = max + 1;
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] swap = beforePrevious;
+            beforePrevious = previous;
+            previous = current;
+            current = swap;
+        }
+        return Math.min(previous[b.length()], max + 1);
+    }
+
+    // === Trigramas ===
+
+    /** Trigramas distintos de " " + key + " " (el relleno da peso a principios y finales de palabra). */
+    static int[] trigrams(String key) {
+        String padded = " " + (key.length() > MAX_NAME_CHARS ? key.substring(0, MAX_NAME_CHARS) : key) + " ";
+        int[] grams = new int[Math.max(0, padded.length() - 2)];
+        int n = 0;
+        for (int i = 0; i + 2 < padded.length(); i++) {
+            grams[n++] = code(padded.charAt(i), padded.charAt(i + 1), padded.charAt(i + 2));
+        }
+        return Arrays.stream(grams, 0, n).distinct().toArray();
+    }
+
+    // 10 bits por carácter: exacto para el texto normalizado habitual; las colisiones sólo añaden candidatos
+    private static int code(char a, char b, char c) {
+        return (a & 0x3ff) << 20 | (b & 0x3ff) << 10 | (c & 0x3ff);
+    }
+
+    // === Mantenimiento ===
+
+    private void addInternal(ProductSnapshot product) {
+        String key = String.join(" ", Tokenizer.tokenize(product.name()));
+        int docId = docCount++;
+        ensureCapacity(docCount);
+        productIds[docId] = product.id();
+        keys[docId] = key;
+        stocks[docId] = product.stock() == null ? 0 : product.stock();
+        docIdByProduct.put(product.id(), docId);
+        liveCount++;
+        if (key.isEmpty()) {
+            return;
+        }
+        for (int gram : trigrams(key)) {
+            postings.computeIfAbsent(gram, k -> new Postings()).add(docId);
+        }
+    }
+
+    private void removeInternal(long productId) {
+        Integer docId = docIdByProduct.remove(productId);
+        if (docId != null) {
+            deleted.set(docId);
+            keys[docId] = null;
+            liveCount--;
+        }
+    }
+
+    private void ensureCapacity(int size) {
+        if (size > productIds.length) {
+            int capacity = Math.max(size, productIds.length * 2);
+            productIds = Arrays.copyOf(productIds, capacity);
+            keys = Arrays.copyOf(keys, capacity);
+            stocks = Arrays.copyOf(stocks, capacity);
+        }
+    }
+
+    private void compactIfNeeded() {
+        int deletedCount = docCount - liveCount;
+        if (deletedCount < MIN_DELETED_FOR_COMPACTION || deletedCount <= liveCount) {
+            return;
+        }
+        int[] remap = new int[docCount];
+        int next = 0;
+        for (int docId = 0; docId < docCount; docId++) {
+            if (deleted.get(docId)) {
+                remap[docId] = -1;
+            } else {
+                remap[docId] = next;
+                productIds[next] = productIds[docId];
+                keys[next] = keys[docId];
+                stocks[next] = stocks[docId];
+                docIdByProduct.put(productIds[next], next);
+                next++;
+            }
+        }
+        Arrays.fill(keys, next, docCount, null);
+
+        postings.values().removeIf(list -> {
+            int size = 0;
+            for (int i = 0; i < list.size; i++) {
+                int mapped = remap[list.docs[i]];
+                if (mapped >= 0) {
+                    list.docs[size++] = mapped;
+                }
+            }
+            list.size = size;
+            list.trim();
+            return size == 0;
+        });
+
+        docCount = next;
+        deleted = new BitSet();
+    }
+
+    /** docIds crecientes sobre un int[] que crece al doble. */
+    private static final class Postings {
+        private int[] docs = new int[4];
+        private int size;
+
+        void add(int docId) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+            }
+            docs[size++] = docId;
+        }
+
+        void trim() {
+            if (docs.length > 4 && size < docs.length / 4) {
+                docs = Arrays.copyOf(docs, Math.max(4, size));
+            }
+        }
+    }
+}
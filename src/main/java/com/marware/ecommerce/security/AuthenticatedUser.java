@@ -0,0 +1,70 @@
+package com.marware.ecommerce.security;
+
+import com.marware.ecommerce.model.Role;
+import com.marware.ecommerce.model.User;
+import io.jsonwebtoken.Claims;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.security.core.AuthenticatedPrincipal;
+
+import java.util.List;
+
+/**
+ * Principal ligero que JwtFilter instala a partir de los claims del token:
+ * permite comprobar propiedad y asignar seller/tenant sin cargar el User.
+ */
+@Getter
+@AllArgsConstructor
+public class AuthenticatedUser implements AuthenticatedPrincipal {
+
+    public static final String CLAIM_USER_ID = "userId";
+    public static final String CLAIM_TENANT_ID = "tenantId";
+    public static final String CLAIM_TENANT_NAME = "tenantName";
+    public static final String CLAIM_FULL_NAME = "fullName";
+    public static final String CLAIM_ROLES = "roles";
+
+    private final Long userId;
+    private final Long tenantId;
+    private final String email;
+    private final String fullName;
+    private final String tenantName;
+    private final List<String> roles;
+
+    /** Devuelve null si el token no trae userId (tokens emitidos antes de este cambio). */
+    @SuppressWarnings("unchecked")
+    public static AuthenticatedUser fromClaims(Claims claims) {
+        Long userId = claims.get(CLAIM_USER_ID, Long.class);
+        if (userId == null) {
+            return null;
+        }
+        List<String> roles = claims.get(CLAIM_ROLES, List.class);
+        return new AuthenticatedUser(
+                userId,
+                claims.get(CLAIM_TENANT_ID, Long.class),
+                claims.getSubject(),
+                claims.get(CLAIM_FULL_NAME, String.class),
+                claims.get(CLAIM_TENANT_NAME, String.class),
+                roles == null ? List.of() : List.copyOf(roles)
+        );
+    }
+
+    public static AuthenticatedUser from(User user) {
+        return new AuthenticatedUser(
+                user.getId(),
+                user.getTenant() != null ? user.getTenant().getId() : null,
+                user.getEmail(),
+                user.getFullName(),
+                user.getTenant() != null ? user.getTenant().getName() : null,
+                user.getRoles() == null ? List.of() : user.getRoles().stream().map(Role::getName).toList()
+        );
+    }
+
+    public boolean isAdmin() {
+        return roles.contains(RoleConstants.ROLE_ADMIN);
+    }
+
+    @Override
+    public String getName() {
+        return email;
+    }
+}
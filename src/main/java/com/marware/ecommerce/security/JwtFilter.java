@@ -52,10 +52,11 @@ public class JwtFilter extends OncePerRequestFilter {
         }
 
         String token = authHeader.substring(7);
-        String userEmail = jwtService.extractUsername(token);
+        // Una sola verificación de firma por petición
+        Claims claims = jwtService.extractAllClaims(token);
+        String userEmail = claims.getSubject();
 
         if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            Claims claims = jwtService.extractAllClaims(token);
             @SuppressWarnings("unchecked")
             List<String> roles = claims.get("roles", List.class);
 
@@ -63,10 +64,14 @@ public class JwtFilter extends OncePerRequestFilter {
                     .map(SimpleGrantedAuthority::new)
                     .collect(Collectors.toList());
 
-            User userDetails = new User(userEmail, "", authorities);
+            // Principal con userId/tenantId del token; los tokens antiguos siguen usando User
+            Object principal = AuthenticatedUser.fromClaims(claims);
+            if (principal == null) {
+                principal = new User(userEmail, "", authorities);
+            }
 
             UsernamePasswordAuthenticationToken authToken =
-                    new UsernamePasswordAuthenticationToken(userDetails, null, authorities);
+                    new UsernamePasswordAuthenticationToken(principal, null, authorities);
             authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
             SecurityContextHolder.getContext().setAuthentication(authToken);
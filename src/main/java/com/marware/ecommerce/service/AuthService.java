@@ -10,9 +10,11 @@ import com.marware.ecommerce.model.User;
 import com.marware.ecommerce.repository.RoleRepository;
 import com.marware.ecommerce.repository.TenantRepository;
 import com.marware.ecommerce.repository.UserRepository;
+import com.marware.ecommerce.security.AuthenticatedUser;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -67,6 +69,18 @@ public class AuthService {
         return new AuthResponse(jwtService.generateToken(user));
     }
 
+    /**
+     * Usuario actual sin acceso a base de datos cuando el token ya trae
+     * userId/tenantId; si no (tokens antiguos, tests), lo carga por email.
+     */
+    public AuthenticatedUser getCurrentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof AuthenticatedUser current) {
+            return current;
+        }
+        return AuthenticatedUser.from(getAuthenticatedUser());
+    }
+
     public User getAuthenticatedUser() {
         String email = SecurityContextHolder.getContext().getAuthentication().getName();
         return userRepository.findByEmail(email)
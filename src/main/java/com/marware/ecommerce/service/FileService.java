@@ -2,7 +2,11 @@ package com.marware.ecommerce.service;
 
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.InputStream;
+
 public interface FileService {
     String uploadFile(MultipartFile file);
+    String uploadFile(byte[] content, String fileName, String contentType);
+    InputStream openFile(String fileUrl);
     void deleteFile(String fileUrl);
 }
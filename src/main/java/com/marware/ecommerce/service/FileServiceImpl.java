@@ -1,28 +1,34 @@
 package com.marware.ecommerce.service;
 
+import com.marware.ecommerce.exception.FileUploadException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
-import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
-import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.core.async.BlockingInputStreamAsyncRequestBody;
 import software.amazon.awssdk.core.sync.RequestBody;
-import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Service
 @RequiredArgsConstructor
 public class FileServiceImpl implements FileService {
 
-    @Value("${aws.accessKey}")
-    private String accessKey;
-
-    @Value("${aws.secretKey}")
-    private String secretKey;
+    private final S3Client s3Client;
+    private final S3AsyncClient s3AsyncClient;
 
     @Value("${aws.region}")
     private String region;
@@ -30,6 +36,14 @@ public class FileServiceImpl implements FileService {
     @Value("${aws.s3.bucket}")
     private String bucketName;
 
+    // Sube por el cliente asíncrono leyendo directamente del InputStream del multipart
+    @Value("${aws.s3.async-uploads:true}")
+    private boolean asyncUploads;
+
+    // Tope de la espera del hilo de la petición por una subida asíncrona
+    @Value("${aws.s3.upload-timeout:60s}")
+    private Duration uploadTimeout;
+
     @Override
     public String uploadFile(MultipartFile file) {
         validateFile(file);
@@ -40,6 +54,41 @@ public class FileServiceImpl implements FileService {
         return generatePublicUrl(fileKey);
     }
 
+    // Variantes generadas en el servidor: ya vienen en memoria y con su content type
+    @Override
+    public String uploadFile(byte[] content, String fileName, String contentType) {
+        if (contentType == null || !contentType.startsWith("image/")) {
+            throw new IllegalArgumentException("Solo se permiten archivos de imagen");
+        }
+
+        String fileKey = generateFileKey(fileName);
+        PutObjectRequest putRequest = PutObjectRequest.builder()
+                .bucket(bucketName)
+                .key(fileKey)
+                .contentType(contentType)
+                .contentLength((long) content.length)
+                .build();
+        try {
+            s3Client.putObject(putRequest, RequestBody.fromBytes(content));
+        } catch (Exception e) {
+            throw new RuntimeException("Error al cargar el archivo", e);
+        }
+        return generatePublicUrl(fileKey);
+    }
+
+    @Override
+    public InputStream openFile(String fileUrl) {
+        GetObjectRequest getRequest = GetObjectRequest.builder()
+                .bucket(bucketName)
+                .key(extractFileKey(fileUrl))
+                .build();
+        try {
+            return s3Client.getObject(getRequest);
+        } catch (Exception e) {
+            throw new RuntimeException("Error al leer el archivo de S3", e);
+        }
+    }
+
     private void validateFile(MultipartFile file) {
         if (file == null || file.isEmpty()) {
             throw new IllegalArgumentException("El archivo no puede estar vacío");
@@ -55,41 +104,65 @@ public class FileServiceImpl implements FileService {
     }
 
     private void uploadToS3(MultipartFile file, String fileKey) {
-        try (S3Client s3Client = buildS3Client()) {
-            PutObjectRequest putRequest = PutObjectRequest.builder()
-                    .bucket(bucketName)
-                    .key(fileKey)
-                    .contentType(file.getContentType())
-                    .build();
+        PutObjectRequest putRequest = PutObjectRequest.builder()
+                .bucket(bucketName)
+                .key(fileKey)
+                .contentType(file.getContentType())
+                .contentLength(file.getSize())
+                .build();
 
-            s3Client.putObject(putRequest,
-                    RequestBody.fromInputStream(file.getInputStream(), file.getSize()));
+        if (asyncUploads) {
+            uploadAsync(putRequest, file);
+            return;
+        }
+        try (InputStream in = file.getInputStream()) {
+            s3Client.putObject(putRequest, RequestBody.fromInputStream(in, file.getSize()));
         } catch (IOException e) {
-            throw new RuntimeException("Error al cargar el archivo", e);
+            throw new FileUploadException("Error al cargar el archivo", e);
         }
     }
 
+    /**
+     * El cuerpo se escribe desde este hilo directamente al canal de Netty, sin
+     * copias intermedias, y la espera por la respuesta de S3 queda acotada por
+     * uploadTimeout. Cualquier fallo antes de la respuesta (lectura del
+     * multipart, S3 sin suscribirse al cuerpo, timeout o interrupción) cancela
+     * la subida pendiente.
+     */
+    private void uploadAsync(PutObjectRequest putRequest, MultipartFile file) {
+        BlockingInputStreamAsyncRequestBody body = AsyncRequestBody.forBlockingInputStream(file.getSize());
+        CompletableFuture<PutObjectResponse> upload = null;
+        try (InputStream in = file.getInputStream()) {
+            upload = s3AsyncClient.putObject(putRequest, body);
+            body.writeInputStream(in);
+            upload.get(uploadTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw new FileUploadException("Error al cargar el archivo", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw uploadFailed(upload, e);
+        } catch (IOException | TimeoutException | RuntimeException e) {
+            throw uploadFailed(upload, e);
+        }
+    }
+
+    private static FileUploadException uploadFailed(CompletableFuture<PutObjectResponse> upload, Exception cause) {
+        if (upload != null) {
+            upload.cancel(true);
+        }
+        return new FileUploadException("Error al cargar el archivo", cause);
+    }
+
     private String generatePublicUrl(String fileKey) {
         return String.format("https://%s.s3.%s.amazonaws.com/%s",
                 bucketName, region, fileKey);
     }
 
-    private S3Client buildS3Client() {
-        return S3Client.builder()
-                .region(Region.of(region))
-                .credentialsProvider(
-                        StaticCredentialsProvider.create(
-                                AwsBasicCredentials.create(accessKey, secretKey)
-                        )
-                )
-                .build();
-    }
-
     @Override
     public void deleteFile(String fileUrl) {
         String fileKey = extractFileKey(fileUrl);
 
-        try (S3Client s3Client = buildS3Client()) {
+        try {
             s3Client.deleteObject(builder -> builder
                     .bucket(bucketName)
                     .key(fileKey)
@@ -1,7 +1,12 @@
 package com.marware.ecommerce.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import com.marware.ecommerce.model.User;
+import com.marware.ecommerce.security.AuthenticatedUser;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
@@ -10,9 +15,14 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 @Service
@@ -24,15 +34,33 @@ public class JwtService {
     @Value("${jwt.expiration.ms}")
     private Long expirationMs;
 
+    // Caché opcional de claims ya verificados, indexada por hash del token
+    @Value("${jwt.cache.enabled:false}")
+    private boolean cacheEnabled;
+
+    @Value("${jwt.cache.max-size:10000}")
+    private long cacheMaxSize;
+
+    // Se inicializan una sola vez: decodificar la clave y construir el parser es caro
+    private volatile Key signingKey;
+    private volatile JwtParser parser;
+    private volatile Cache<String, Claims> verifiedTokens;
+
     public String generateToken(User user) {
         List<String> roles = user.getRoles().stream()
                 .map(role -> role.getName())
                 .toList();
 
+        Long tenantId = user.getTenant() != null ? user.getTenant().getId() : null;
+        String tenantName = user.getTenant() != null ? user.getTenant().getName() : null;
+
         return Jwts.builder()
                 .setSubject(user.getEmail())
-                .claim("userId", user.getId())
-                .claim("roles", roles)
+                .claim(AuthenticatedUser.CLAIM_USER_ID, user.getId())
+                .claim(AuthenticatedUser.CLAIM_TENANT_ID, tenantId)
+                .claim(AuthenticatedUser.CLAIM_TENANT_NAME, tenantName)
+                .claim(AuthenticatedUser.CLAIM_FULL_NAME, user.getFullName())
+                .claim(AuthenticatedUser.CLAIM_ROLES, roles)
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + expirationMs))
                 .signWith(getSignInKey(), SignatureAlgorithm.HS256)
@@ -49,29 +77,106 @@ public class JwtService {
     }
 
     public boolean isTokenValid(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername())) && !isTokenExpired(token);
+        final Claims claims = extractAllClaims(token);
+        return claims.getSubject().equals(userDetails.getUsername())
+                && !claims.getExpiration().before(new Date());
     }
 
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    /**
+     * Verifica la firma y devuelve los claims. Cada token se parsea una sola
+     * vez; con la caché activa, las peticiones siguientes con el mismo token
+     * reutilizan los claims hasta su expiración.
+     */
+    public Claims extractAllClaims(String token) {
+        Cache<String, Claims> cache = getVerifiedTokens();
+        if (cache == null) {
+            return getParser().parseClaimsJws(token).getBody();
+        }
+        return cache.get(hash(token), key -> getParser().parseClaimsJws(token).getBody());
     }
 
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+    private Key getSignInKey() {
+        Key key = signingKey;
+        if (key == null) {
+            synchronized (this) {
+                key = signingKey;
+                if (key == null) {
+                    byte[] keyBytes = Decoders.BASE64.decode(secretKey);
+                    key = Keys.hmacShaKeyFor(keyBytes);
+                    signingKey = key;
+                }
+            }
+        }
+        return key;
     }
 
-    public Claims extractAllClaims(String token) {
-        return Jwts
-                .parserBuilder()
-                .setSigningKey(getSignInKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    private JwtParser getParser() {
+        JwtParser current = parser;
+        if (current == null) {
+            synchronized (this) {
+                current = parser;
+                if (current == null) {
+                    current = Jwts.parserBuilder()
+                            .setSigningKey(getSignInKey())
+                            .build();
+                    parser = current;
+                }
+            }
+        }
+        return current;
     }
 
-    private Key getSignInKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secretKey);
-        return Keys.hmacShaKeyFor(keyBytes);
+    private Cache<String, Claims> getVerifiedTokens() {
+        if (!cacheEnabled) {
+            return null;
+        }
+        Cache<String, Claims> cache = verifiedTokens;
+        if (cache == null) {
+            synchronized (this) {
+                cache = verifiedTokens;
+                if (cache == null) {
+                    cache = Caffeine.newBuilder()
+                            .maximumSize(cacheMaxSize)
+                            .expireAfter(new ClaimsExpiry())
+                            .build();
+                    verifiedTokens = cache;
+                }
+            }
+        }
+        return cache;
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    // Cada entrada caduca exactamente en el exp del token
+    private static final class ClaimsExpiry implements Expiry<String, Claims> {
+
+        @Override
+        public long expireAfterCreate(String key, Claims claims, long currentTime) {
+            Date expiration = claims.getExpiration();
+            if (expiration == null) {
+                return 0;
+            }
+            long remainingMs = expiration.getTime() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, remainingMs));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
 }
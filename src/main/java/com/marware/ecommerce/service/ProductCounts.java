@@ -0,0 +1,116 @@
+package com.marware.ecommerce.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.marware.ecommerce.dto.EstimatedPage;
+import com.marware.ecommerce.dto.ProductResponse;
+import com.marware.ecommerce.search.ProductFacetIndex;
+import com.marware.ecommerce.search.Tokenizer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Total de los listados paginados por SQL según app.pagination.count-strategy:
+ *
+ * - exact: Page con su COUNT(*) en cada petición (comportamiento de siempre).
+ * - cached: el COUNT(*) de la primera página se guarda count-cache-ttl por
+ *   (listado, query) y las siguientes reutilizan el cacheado.
+ * - estimated: sin COUNT(*) en los listados sin query, cuyo total sale de
+ *   los contadores de ProductFacetIndex. Con query, o mientras el índice no
+ *   está listo, se actúa como cached: el contenido sale del LIKE y su total
+ *   también (el índice de texto casa por términos y daría otro número).
+ *
+ * Salvo en exact, el contenido se pide como Slice (size + 1 filas, sin
+ * COUNT) y, pasada la primera página, nunca se cuenta: se usa lo cacheado o
+ * estimado o, si no hay, una cota inferior. Un total que no sale de un
+ * COUNT(*) de esta misma petición se marca con EstimatedPage; si el Slice
+ * llega al final, el total es exacto y no hace falta contar.
+ */
+@Component
+public class ProductCounts {
+
+    public enum Strategy {
+        EXACT, CACHED, ESTIMATED
+    }
+
+    /** Listado al que pertenece la cuenta: todo el catálogo o sólo lo que tiene stock. */
+    public enum Scope {
+        ALL, PUBLIC
+    }
+
+    // Los listados no se filtran por tenant: la clave es (listado, query normalizada)
+    record Key(Scope scope, String query) {
+    }
+
+    private final ProductFacetIndex facetIndex;
+    private final Strategy strategy;
+    private final Cache<Key, Long> counts;
+
+    public ProductCounts(ProductFacetIndex facetIndex,
+                         @Value("${app.pagination.count-strategy:exact}") String strategy,
+                         @Value("${app.pagination.count-cache-ttl:60s}") Duration cacheTtl,
+                         @Value("${app.pagination.count-cache-max-size:10000}") long cacheMaxSize) {
+        this.facetIndex = facetIndex;
+        this.strategy = Strategy.valueOf(strategy.trim().toUpperCase(Locale.ROOT));
+        this.counts = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfterWrite(cacheTtl)
+                .build();
+    }
+
+    public Strategy strategy() {
+        return strategy;
+    }
+
+    /**
+     * Página del listado scope/query. exactPage es la consulta con COUNT de
+     * siempre; slice la misma sin COUNT y count el COUNT(*) por separado.
+     */
+    public Page<ProductResponse> page(Scope scope, String query, Pageable pageable,
+                                      Supplier<Page<ProductResponse>> exactPage,
+                                      Supplier<Slice<ProductResponse>> slice,
+                                      LongSupplier count) {
+        if (strategy == Strategy.EXACT || pageable.isUnpaged()) {
+            return exactPage.get();
+        }
+        Slice<ProductResponse> content = slice.get();
+        long seen = pageable.getOffset() + content.getNumberOfElements();
+        if (!content.hasNext() && (content.hasContent() || pageable.getPageNumber() == 0)) {
+            return new PageImpl<>(content.getContent(), pageable, seen);
+        }
+        long lowerBound = seen + (content.hasNext() ? 1 : 0);
+
+        Key key = new Key(scope, normalize(query));
+        Long total = strategy == Strategy.ESTIMATED ? estimate(key) : null;
+        if (total == null) {
+            total = counts.getIfPresent(key);
+        }
+        if (total == null && pageable.getPageNumber() == 0) {
+            long exact = count.getAsLong();
+            counts.put(key, exact);
+            return new PageImpl<>(content.getContent(), pageable, Math.max(exact, lowerBound));
+        }
+        return new EstimatedPage<>(content.getContent(), pageable,
+                total == null ? lowerBound : Math.max(total, lowerBound));
+    }
+
+    private Long estimate(Key key) {
+        if (!key.query().isEmpty() || !facetIndex.isReady()) {
+            return null;
+        }
+        return facetIndex.count(key.scope() == Scope.PUBLIC);
+    }
+
+    private static String normalize(String query) {
+        return query == null || query.isBlank() ? "" : Tokenizer.normalize(query.trim());
+    }
+}
@@ -0,0 +1,90 @@
+package com.marware.ecommerce.service;
+
+import com.marware.ecommerce.exception.ValidationException;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Cursor opaco para la paginación keyset de productos: codifica la clave de
+ * ordenación y el id de la última fila entregada ("id|42" o "price|19.99|42").
+ */
+final class ProductCursor {
+
+    static final String SORT_ID = "id";
+    static final String SORT_PRICE = "price";
+
+    // Valores anteriores a cualquier fila real: ids > 0 y precios >= 0.01
+    private static final long FIRST_ID = 0L;
+    private static final BigDecimal FIRST_PRICE = BigDecimal.valueOf(-1);
+
+    private final String sort;
+    private final BigDecimal price;
+    private final long id;
+
+    private ProductCursor(String sort, BigDecimal price, long id) {
+        this.sort = sort;
+        this.price = price;
+        this.id = id;
+    }
+
+    static ProductCursor decode(String token, String sort) {
+        String sortKey = normalizeSort(sort);
+        if (token == null || token.isBlank()) {
+            return new ProductCursor(sortKey, FIRST_PRICE, FIRST_ID);
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|");
+            if (SORT_ID.equals(sortKey) && parts.length == 2 && SORT_ID.equals(parts[0])) {
+                return new ProductCursor(SORT_ID, FIRST_PRICE, Long.parseLong(parts[1]));
+            }
+            if (SORT_PRICE.equals(sortKey) && parts.length == 3 && SORT_PRICE.equals(parts[0])) {
+                return new ProductCursor(SORT_PRICE, new BigDecimal(parts[1]), Long.parseLong(parts[2]));
+            }
+        } catch (IllegalArgumentException ignored) {
+            // cae al error de cursor inválido
+        }
+        throw invalid("The cursor does not match the requested sort");
+    }
+
+    static String encode(String sort, BigDecimal price, Long id) {
+        String raw = SORT_PRICE.equals(sort)
+                ? SORT_PRICE + "|" + price.toPlainString() + "|" + id
+                : SORT_ID + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String normalizeSort(String sort) {
+        if (sort == null || sort.isBlank() || SORT_ID.equalsIgnoreCase(sort)) {
+            return SORT_ID;
+        }
+        if (SORT_PRICE.equalsIgnoreCase(sort)) {
+            return SORT_PRICE;
+        }
+        throw invalid("Unsupported sort for cursor pagination: " + sort);
+    }
+
+    private static ValidationException invalid(String message) {
+        return new ValidationException("INVALID_CURSOR", message, List.of("after: " + message));
+    }
+
+    String sort() {
+        return sort;
+    }
+
+    boolean sortedByPrice() {
+        return SORT_PRICE.equals(sort);
+    }
+
+    BigDecimal price() {
+        return price;
+    }
+
+    long id() {
+        return id;
+    }
+}
@@ -0,0 +1,173 @@
+package com.marware.ecommerce.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.marware.ecommerce.dto.ProductRequest;
+import com.marware.ecommerce.exception.ValidationException;
+import org.springframework.http.MediaType;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Lee una importación fila a fila sin cargarla entera en memoria. Acepta CSV
+ * con cabecera (name, description, price, stock; separador coma, comillas
+ * dobles RFC 4180) o NDJSON con un ProductRequest por línea.
+ */
+final class ProductImportReader implements Closeable {
+
+    static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv");
+    static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private static final List<String> CSV_COLUMNS = List.of("name", "description", "price", "stock");
+
+    /** Una fila leída: o bien request, o bien el error que impidió interpretarla. */
+    record Row(long number, ProductRequest request, String error) {
+    }
+
+    private final BufferedReader reader;
+    private final ObjectMapper objectMapper;
+    private final boolean csv;
+    private Map<String, Integer> columns;
+    private long rowNumber;
+
+    private ProductImportReader(InputStream in, ObjectMapper objectMapper, boolean csv) {
+        this.reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 64 * 1024);
+        this.objectMapper = objectMapper;
+        this.csv = csv;
+    }
+
+    static ProductImportReader open(InputStream in, MediaType contentType, ObjectMapper objectMapper) {
+        if (contentType != null && TEXT_CSV.includes(contentType)) {
+            return new ProductImportReader(in, objectMapper, true);
+        }
+        if (contentType != null && APPLICATION_NDJSON.includes(contentType)) {
+            return new ProductImportReader(in, objectMapper, false);
+        }
+        throw new ValidationException("INVALID_IMPORT", "Unsupported import format",
+                List.of("Content-Type must be text/csv or application/x-ndjson"));
+    }
+
+    /** Siguiente fila no vacía, o null al final del fichero. */
+    Row next() throws IOException {
+        return csv ? nextCsv() : nextNdjson();
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private Row nextNdjson() throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) continue;
+            long number = ++rowNumber;
+            try {
+                return new Row(number, objectMapper.readValue(line, ProductRequest.class), null);
+            } catch (JsonProcessingException e) {
+                return new Row(number, null, "Invalid JSON: " + e.getOriginalMessage());
+            }
+        }
+        return null;
+    }
+
+    private Row nextCsv() throws IOException {
+        if (columns == null) {
+            readHeader();
+        }
+        List<String> fields;
+        while ((fields = readRecord()) != null) {
+            if (fields.size() == 1 && fields.get(0).isBlank()) continue;
+            long number = ++rowNumber;
+            try {
+                ProductRequest request = new ProductRequest();
+                request.setName(field(fields, "name"));
+                request.setDescription(field(fields, "description"));
+                String price = field(fields, "price");
+                request.setPrice(price == null ? null : new BigDecimal(price));
+                String stock = field(fields, "stock");
+                request.setStock(stock == null ? null : Integer.valueOf(stock));
+                return new Row(number, request, null);
+            } catch (NumberFormatException e) {
+                return new Row(number, null, "price/stock: invalid number");
+            }
+        }
+        return null;
+    }
+
+    private void readHeader() throws IOException {
+        List<String> header = readRecord();
+        columns = new HashMap<>();
+        if (header != null) {
+            for (int i = 0; i < header.size(); i++) {
+                columns.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+            }
+        }
+        List<String> missing = CSV_COLUMNS.stream()
+                .filter(column -> !"description".equals(column) && !columns.containsKey(column))
+                .toList();
+        if (!missing.isEmpty()) {
+            throw new ValidationException("INVALID_IMPORT", "Invalid CSV header",
+                    missing.stream().map(column -> column + ": column is required").toList());
+        }
+    }
+
+    private String field(List<String> fields, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= fields.size()) {
+            return null;
+        }
+        String value = fields.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    // Un registro CSV; los campos entre comillas pueden contener comas y saltos de línea
+    private List<String> readRecord() throws IOException {
+        int c = reader.read();
+        if (c == -1) {
+            return null;
+        }
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (c != -1) {
+            if (quoted) {
+                if (c == '"') {
+                    reader.mark(1);
+                    int next = reader.read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        reader.reset();
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n') {
+                break;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+            c = reader.read();
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
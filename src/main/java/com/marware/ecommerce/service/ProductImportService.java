@@ -0,0 +1,210 @@
+package com.marware.ecommerce.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.marware.ecommerce.dto.ProductImportResult;
+import com.marware.ecommerce.dto.ProductRequest;
+import com.marware.ecommerce.event.ProductChangedEvent;
+import com.marware.ecommerce.event.ProductSnapshot;
+import com.marware.ecommerce.exception.ValidationException;
+import com.marware.ecommerce.model.Product;
+import com.marware.ecommerce.model.Tenant;
+import com.marware.ecommerce.model.User;
+import com.marware.ecommerce.repository.ProductRepository;
+import com.marware.ecommerce.repository.TenantRepository;
+import com.marware.ecommerce.repository.UserRepository;
+import com.marware.ecommerce.security.AuthenticatedUser;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Alta masiva de productos del seller autenticado. Cada lote de
+ * app.import.batch-size filas válidas se inserta en su propia transacción,
+ * así que un fallo sólo descarta ese lote y lo ya confirmado se mantiene.
+ * Los errores se informan por fila en lugar de abortar la importación.
+ */
+@Slf4j
+@Service
+public class ProductImportService {
+
+    private final ProductRepository productRepository;
+    private final UserRepository userRepository;
+    private final TenantRepository tenantRepository;
+    private final AuthService authService;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final EntityManager entityManager;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxReportedErrors;
+
+    public ProductImportService(ProductRepository productRepository,
+                                UserRepository userRepository,
+                                TenantRepository tenantRepository,
+                                AuthService authService,
+                                Validator validator,
+                                ObjectMapper objectMapper,
+                                EntityManager entityManager,
+                                ApplicationEventPublisher eventPublisher,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${app.import.batch-size:500}") int batchSize,
+                                @Value("${app.import.max-reported-errors:1000}") int maxReportedErrors) {
+        this.productRepository = productRepository;
+        this.userRepository = userRepository;
+        this.tenantRepository = tenantRepository;
+        this.authService = authService;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.entityManager = entityManager;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = Math.max(1, batchSize);
+        this.maxReportedErrors = Math.max(0, maxReportedErrors);
+    }
+
+    public ProductImportResult importProducts(InputStream body, MediaType contentType) {
+        AuthenticatedUser seller = authService.getCurrentUser();
+        Report report = new Report(maxReportedErrors);
+        Set<String> namesInFile = new HashSet<>();
+        List<ProductImportReader.Row> chunk = new ArrayList<>(batchSize);
+
+        try (ProductImportReader reader = ProductImportReader.open(body, contentType, objectMapper)) {
+            ProductImportReader.Row row;
+            while ((row = reader.next()) != null) {
+                report.total++;
+                List<String> errors = validate(row, namesInFile);
+                if (!errors.isEmpty()) {
+                    report.fail(row.number(), errors);
+                    continue;
+                }
+                chunk.add(row);
+                if (chunk.size() == batchSize) {
+                    writeChunk(chunk, seller, report);
+                }
+            }
+            writeChunk(chunk, seller, report);
+        } catch (IOException e) {
+            throw new ValidationException("INVALID_IMPORT", "Could not read import stream",
+                    List.of("Rows processed before the error: " + report.total, e.getMessage()));
+        }
+
+        log.info("Product import by user {}: {} rows, {} imported, {} failed",
+                seller.getUserId(), report.total, report.imported, report.failed);
+        return report.toResult();
+    }
+
+    private List<String> validate(ProductImportReader.Row row, Set<String> namesInFile) {
+        if (row.error() != null) {
+            return List.of(row.error());
+        }
+        List<String> errors = validator.validate(row.request()).stream()
+                .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                .sorted()
+                .toList();
+        if (errors.isEmpty() && !namesInFile.add(Product.normalizeName(row.request().getName()))) {
+            return List.of("name: Duplicated in import file");
+        }
+        return errors;
+    }
+
+    private void writeChunk(List<ProductImportReader.Row> chunk, AuthenticatedUser seller, Report report) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        try {
+            List<ProductImportReader.Row> duplicates = transactionTemplate.execute(status -> insert(chunk, seller));
+            duplicates.forEach(row -> report.fail(row.number(), List.of("name: The name must be unique")));
+            report.imported += chunk.size() - duplicates.size();
+        } catch (DataAccessException | PersistenceException e) {
+            log.warn("Product import chunk of {} rows rejected: {}", chunk.size(), e.getMessage());
+            String message = "Chunk rejected by database: " + NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+            chunk.forEach(row -> report.fail(row.number(), List.of(message)));
+        }
+        chunk.clear();
+    }
+
+    // Devuelve las filas descartadas por nombre ya existente en la BD
+    private List<ProductImportReader.Row> insert(List<ProductImportReader.Row> chunk, AuthenticatedUser seller) {
+        Set<String> existing = new HashSet<>(productRepository.findExistingNormalizedNames(
+                chunk.stream().map(row -> Product.normalizeName(row.request().getName())).toList()));
+
+        User sellerRef = userRepository.getReferenceById(seller.getUserId());
+        Tenant tenantRef = seller.getTenantId() != null ? tenantRepository.getReferenceById(seller.getTenantId()) : null;
+
+        List<ProductImportReader.Row> duplicates = new ArrayList<>();
+        List<Product> products = new ArrayList<>(chunk.size());
+        for (ProductImportReader.Row row : chunk) {
+            ProductRequest request = row.request();
+            if (existing.contains(Product.normalizeName(request.getName()))) {
+                duplicates.add(row);
+                continue;
+            }
+            products.add(Product.builder()
+                    .name(request.getName())
+                    .description(request.getDescription())
+                    .price(request.getPrice())
+                    .stock(request.getStock())
+                    .seller(sellerRef)
+                    .tenant(tenantRef)
+                    .build());
+        }
+
+        // Ids de la secuencia pooled: Hibernate agrupa los INSERT en lotes JDBC
+        productRepository.saveAll(products);
+        entityManager.flush();
+        for (Product product : products) {
+            eventPublisher.publishEvent(ProductChangedEvent.created(ProductSnapshot.from(product)));
+        }
+        entityManager.clear();
+        return duplicates;
+    }
+
+    private static final class Report {
+
+        private final int maxErrors;
+        private final List<ProductImportResult.RowError> errors = new ArrayList<>();
+        private long total;
+        private long imported;
+        private long failed;
+
+        Report(int maxErrors) {
+            this.maxErrors = maxErrors;
+        }
+
+        void fail(long row, List<String> messages) {
+            failed++;
+            if (errors.size() < maxErrors) {
+                errors.add(new ProductImportResult.RowError(row, messages));
+            }
+        }
+
+        ProductImportResult toResult() {
+            errors.sort(Comparator.comparingLong(ProductImportResult.RowError::getRow));
+            return ProductImportResult.builder()
+                    .total(total)
+                    .imported(imported)
+                    .failed(failed)
+                    .errors(errors)
+                    .errorsTruncated(failed > errors.size())
+                    .build();
+        }
+    }
+}
@@ -1,32 +1,94 @@
 package com.marware.ecommerce.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.marware.ecommerce.cache.ProductIdFilter;
+import com.marware.ecommerce.cache.PublicCatalogCache;
+import com.marware.ecommerce.dto.CursorPage;
+import com.marware.ecommerce.dto.EstimatedPage;
+import com.marware.ecommerce.dto.FacetedPage;
+import com.marware.ecommerce.dto.ProductFacets;
+import com.marware.ecommerce.dto.ProductFilter;
 import com.marware.ecommerce.dto.ProductRequest;
 import com.marware.ecommerce.dto.ProductResponse;
+import com.marware.ecommerce.event.ProductChangedEvent;
+import com.marware.ecommerce.event.ProductImageUploadedEvent;
+import com.marware.ecommerce.event.ProductSnapshot;
 import com.marware.ecommerce.exception.EntityNotFoundException;
 import com.marware.ecommerce.exception.FileProcessingException;
+import com.marware.ecommerce.exception.StockException;
 import com.marware.ecommerce.exception.UnauthorizedException;
 import com.marware.ecommerce.exception.ValidationException;
+import com.marware.ecommerce.exception.VersionConflictException;
 import com.marware.ecommerce.model.Product;
-import com.marware.ecommerce.model.User;
 import com.marware.ecommerce.repository.ProductRepository;
+import com.marware.ecommerce.repository.TenantRepository;
+import com.marware.ecommerce.repository.UserRepository;
+import com.marware.ecommerce.security.AuthenticatedUser;
+import com.marware.ecommerce.search.FacetCounts;
+import com.marware.ecommerce.search.FacetHits;
+import com.marware.ecommerce.search.FacetQuery;
+import com.marware.ecommerce.search.FuzzyProductIndex;
+import com.marware.ecommerce.search.ProductFacetIndex;
+import com.marware.ecommerce.search.ProductSearchIndex;
+import com.marware.ecommerce.search.ProductSuggestIndex;
+import com.marware.ecommerce.search.SearchHits;
+import com.marware.ecommerce.search.Suggestion;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class ProductService {
 
     private final ProductRepository productRepository;
+    private final UserRepository userRepository;
+    private final TenantRepository tenantRepository;
     private final AuthService authService;
     private final FileService fileService;
-
+    private final ProductSearchIndex searchIndex;
+    private final ProductSuggestIndex suggestIndex;
+    private final FuzzyProductIndex fuzzyIndex;
+    private final ProductFacetIndex facetIndex;
+    private final PublicCatalogCache publicCatalogCache;
+    private final ProductIdFilter productIdFilter;
+    private final ProductCounts productCounts;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+
+    private static final int MAX_CURSOR_PAGE_SIZE = 100;
+    private static final int STREAM_FLUSH_EVERY = 500;
+    // Coincidencias de texto que se filtran en memoria; con más se usa la consulta SQL
+    private static final int MAX_FILTER_CANDIDATES = 10_000;
+    private static final int MAX_SELLER_FACETS = 20;
     private static final long MAX_FILE_SIZE = 5L * 1024 * 1024; // 5MB
     private static final List<String> ALLOWED_CONTENT_TYPES = List.of(
             "image/jpeg",
@@ -36,21 +98,24 @@ public class ProductService {
 
     @Transactional
     public ProductResponse createProduct(ProductRequest request, MultipartFile image) {
-        validateProductName(request.getName(), null);
-
-        User seller = authService.getAuthenticatedUser();
+        AuthenticatedUser seller = authService.getCurrentUser();
 
+        // Referencias (proxies) en lugar de cargar User y Tenant
         Product product = Product.builder()
                 .name(request.getName())
                 .description(request.getDescription())
                 .price(request.getPrice())
                 .stock(request.getStock())
-                .seller(seller)
-                .tenant(seller.getTenant())
+                .seller(userRepository.getReferenceById(seller.getUserId()))
+                .tenant(seller.getTenantId() != null ? tenantRepository.getReferenceById(seller.getTenantId()) : null)
                 .imageUrl(uploadImage(image))
                 .build();
 
-        return mapToProductResponse(productRepository.save(product));
+        Product saved = productRepository.save(product);
+        flushChanges(saved, saved.getImageUrl());
+        eventPublisher.publishEvent(ProductChangedEvent.created(ProductSnapshot.from(saved)));
+        publishImageUploaded(saved, saved.getImageUrl());
+        return mapToProductResponse(saved, seller);
     }
 
     @Transactional(readOnly = true)
@@ -62,39 +127,76 @@ public class ProductService {
 
     @Transactional(readOnly = true)
     public List<ProductResponse> getAllProducts() {
-        return productRepository.findAll().stream()
-                .map(this::mapToProductResponse)
-                .collect(Collectors.toList());
+        return productRepository.findAllResponses();
+    }
+
+    /**
+     * Escribe el catálogo completo en out sin materializarlo: NDJSON (un
+     * producto por línea) o un array JSON. La consulta se recorre con fetch
+     * size fijo y se vacía el buffer cada STREAM_FLUSH_EVERY productos, así que
+     * la memoria no crece con el tamaño de la tabla.
+     */
+    @Transactional(readOnly = true)
+    public void writeAllProducts(OutputStream out, boolean ndjson) throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(ProductResponse.class);
+        try (Stream<ProductResponse> products = productRepository.streamAllResponses();
+             SequenceWriter sequence = ndjson
+                     ? writer.withRootValueSeparator("\n").writeValues(out)
+                     : writer.writeValuesAsArray(out)) {
+            int written = 0;
+            for (Iterator<ProductResponse> it = products.iterator(); it.hasNext(); ) {
+                sequence.write(it.next());
+                if (++written % STREAM_FLUSH_EVERY == 0) {
+                    sequence.flush();
+                }
+            }
+            if (ndjson && written > 0) {
+                out.write('\n');
+            }
+        }
     }
 
     @Transactional(readOnly = true)
     public Page<ProductResponse> getAllProducts(Pageable pageable) {
-        return productRepository.findAll(pageable)
-                .map(this::mapToProductResponse);
+        return productCounts.page(ProductCounts.Scope.ALL, null, pageable,
+                () -> productRepository.findAllResponses(pageable),
+                () -> productRepository.sliceProductResponses(null, pageable),
+                () -> productRepository.countProducts(null));
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<ProductResponse> getAllProductsAfter(String after, String sort, int size) {
+        ProductCursor cursor = ProductCursor.decode(after, sort);
+        Pageable limit = Pageable.ofSize(clampCursorSize(size));
+        Slice<ProductResponse> slice = cursor.sortedByPrice()
+                ? productRepository.findResponsesAfterPrice(cursor.price(), cursor.id(), limit)
+                : productRepository.findResponsesAfterId(cursor.id(), limit);
+        return toCursorPage(slice, cursor);
     }
 
     @Transactional(readOnly = true)
     public List<ProductResponse> getProductsBySeller() {
-        User seller = authService.getAuthenticatedUser();
-        return productRepository.findAllBySeller(seller).stream()
-                .map(this::mapToProductResponse)
-                .collect(Collectors.toList());
+        return productRepository.findResponsesBySellerId(authService.getCurrentUser().getUserId());
     }
 
     @Transactional
-    public ProductResponse updateProduct(Long productId, ProductRequest request) {
+    public ProductResponse updateProduct(Long productId, ProductRequest request, Long expectedVersion) {
         Product product = productRepository.findById(productId)
                 .orElseThrow(() -> new EntityNotFoundException("Product", productId));
 
-        validateProductOwnership(product);
-        validateProductName(request.getName(), productId);
+        AuthenticatedUser currentUser = validateProductOwnership(product);
+        checkVersion(product, expectedVersion);
 
+        // Entidad gestionada: el dirty checking genera un único UPDATE con las columnas cambiadas
+        ProductSnapshot before = ProductSnapshot.from(product);
         product.setName(request.getName());
         product.setDescription(request.getDescription());
         product.setPrice(request.getPrice());
-        product.setStock(request.getStock());
+        product.setStock(checkStock(product, request.getStock()));
+        flushChanges(product, null);
 
-        return mapToProductResponse(productRepository.save(product));
+        eventPublisher.publishEvent(ProductChangedEvent.updated(before, ProductSnapshot.from(product)));
+        return mapToProductResponse(product, currentUser);
     }
 
     @Transactional
@@ -104,99 +206,240 @@ public class ProductService {
 
         validateProductOwnership(product);
 
-        if (product.getImageUrl() != null) {
-            fileService.deleteFile(product.getImageUrl());
-        }
+        imageFiles(product).forEach(fileService::deleteFile);
 
         productRepository.delete(product);
+        eventPublisher.publishEvent(ProductChangedEvent.deleted(ProductSnapshot.from(product)));
     }
 
     @Transactional(readOnly = true)
     public Page<ProductResponse> searchProducts(String query, Pageable pageable) {
-        return productRepository.searchProducts(query, pageable)
-                .map(this::mapToProductResponse);
+        return searchProducts(query, false, pageable);
+    }
+
+    @Transactional(readOnly = true)
+    public Page<ProductResponse> searchProducts(String query, boolean fuzzy, Pageable pageable) {
+        Page<ProductResponse> indexed = fuzzy
+                ? searchFuzzy(query, false, pageable)
+                : searchIndexed(query, false, pageable);
+        if (indexed != null) {
+            return indexed;
+        }
+        return productCounts.page(ProductCounts.Scope.ALL, query, pageable,
+                () -> productRepository.searchProductResponses(query, pageable),
+                () -> productRepository.sliceProductResponses(query, pageable),
+                () -> productRepository.countProducts(query));
     }
 
     @Transactional
-    public ProductResponse updateProductImage(Long productId, MultipartFile image) {
+    public ProductResponse updateProductImage(Long productId, MultipartFile image, Long expectedVersion) {
         Product product = productRepository.findById(productId)
                 .orElseThrow(() -> new EntityNotFoundException("Product", productId));
 
-        validateProductOwnership(product);
-
-        if (product.getImageUrl() != null) {
-            fileService.deleteFile(product.getImageUrl());
-        }
+        AuthenticatedUser currentUser = validateProductOwnership(product);
+        checkVersion(product, expectedVersion);
 
+        ProductSnapshot before = ProductSnapshot.from(product);
+        List<String> previousImages = imageFiles(product);
         String newImageUrl = uploadImage(image);
-        product.setImageUrl(newImageUrl);
+        replaceImage(product, newImageUrl);
+        flushChanges(product, newImageUrl);
+        previousImages.forEach(fileService::deleteFile);
 
-        return mapToProductResponse(productRepository.save(product));
+        eventPublisher.publishEvent(ProductChangedEvent.updated(before, ProductSnapshot.from(product)));
+        publishImageUploaded(product, newImageUrl);
+        return mapToProductResponse(product, currentUser);
     }
 
     @Transactional
-    public ProductResponse updateProductWithImage(Long productId, ProductRequest request, MultipartFile image) {
+    public ProductResponse updateProductWithImage(Long productId, ProductRequest request, MultipartFile image,
+                                                  Long expectedVersion) {
         Product product = productRepository.findById(productId)
                 .orElseThrow(() -> new EntityNotFoundException("Product", productId));
 
-        validateProductOwnership(product);
-        validateProductName(request.getName(), productId);
+        AuthenticatedUser currentUser = validateProductOwnership(product);
+        checkVersion(product, expectedVersion);
 
+        ProductSnapshot before = ProductSnapshot.from(product);
         product.setName(request.getName());
         product.setDescription(request.getDescription());
         product.setPrice(request.getPrice());
-        product.setStock(request.getStock());
+        product.setStock(checkStock(product, request.getStock()));
 
-        if (image != null && !image.isEmpty()) {
-            if (product.getImageUrl() != null) {
-                fileService.deleteFile(product.getImageUrl());
-            }
-            product.setImageUrl(uploadImage(image));
+        // La imagen anterior sólo se borra cuando el UPDATE ha pasado la restricción de unicidad y la versión
+        List<String> previousImages = imageFiles(product);
+        String newImageUrl = uploadImage(image);
+        if (newImageUrl != null) {
+            replaceImage(product, newImageUrl);
+        }
+        flushChanges(product, newImageUrl);
+        if (newImageUrl != null) {
+            previousImages.forEach(fileService::deleteFile);
         }
 
-        return mapToProductResponse(productRepository.save(product));
+        eventPublisher.publishEvent(ProductChangedEvent.updated(before, ProductSnapshot.from(product)));
+        publishImageUploaded(product, newImageUrl);
+        return mapToProductResponse(product, currentUser);
     }
 
     // --- Public API methods ---
 
     @Transactional(readOnly = true)
     public Page<ProductResponse> getPublicProducts(String query, Pageable pageable) {
-        return productRepository.searchPublicProducts(query, pageable)
-                .map(this::mapToProductResponse);
+        return getPublicProducts(query, false, pageable);
+    }
+
+    @Transactional(readOnly = true)
+    public Page<ProductResponse> getPublicProducts(String query, boolean fuzzy, Pageable pageable) {
+        return publicCatalogCache.getPage(query, fuzzy, pageable, () -> {
+            Page<ProductResponse> indexed = fuzzy
+                    ? searchFuzzy(query, true, pageable)
+                    : searchIndexed(query, true, pageable);
+            if (indexed != null) {
+                return indexed;
+            }
+            return productCounts.page(ProductCounts.Scope.PUBLIC, query, pageable,
+                    () -> productRepository.searchPublicProductResponses(query, pageable),
+                    () -> productRepository.slicePublicProductResponses(query, pageable),
+                    () -> productRepository.countPublicProducts(query));
+        });
+    }
+
+    /**
+     * Listado público con filtros de precio y vendedor y, si se piden, facetas.
+     * Como el listado sin filtros, sólo incluye productos en stock. Lo resuelve ProductFacetIndex sin cachear el resultado (sólo se
+     * agrupan peticiones idénticas simultáneas); la consulta SQL sólo se usa
+     * mientras el índice carga, con un orden que no sea id o price, o con
+     * demasiadas coincidencias de texto (sin facetas).
+     */
+    @Transactional(readOnly = true)
+    public Page<ProductResponse> getPublicProducts(String query, boolean fuzzy, ProductFilter filter, Pageable pageable) {
+        if (filter == null || !filter.isActive()) {
+            return getPublicProducts(query, fuzzy, pageable);
+        }
+        return publicCatalogCache.getFilteredPage(query, fuzzy, filter, pageable, () -> {
+            Page<ProductResponse> indexed = filterIndexed(query, fuzzy, filter, pageable);
+            if (indexed != null) {
+                return indexed;
+            }
+            return productRepository.filterPublicProductResponses(query, filter.minPrice(), filter.maxPrice(),
+                    filter.sellerId(), pageable);
+        });
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<ProductResponse> getPublicProductsAfter(String query, String after, String sort, int size) {
+        ProductCursor cursor = ProductCursor.decode(after, sort);
+        Pageable limit = Pageable.ofSize(clampCursorSize(size));
+        boolean hasQuery = query != null && !query.isBlank();
+
+        Slice<ProductResponse> slice;
+        if (cursor.sortedByPrice()) {
+            slice = hasQuery
+                    ? productRepository.searchPublicProductsAfterPrice(query, cursor.price(), cursor.id(), limit)
+                    : productRepository.findWithStockAvailableAfterPrice(cursor.price(), cursor.id(), limit);
+        } else {
+            slice = hasQuery
+                    ? productRepository.searchPublicProductsAfterId(query, cursor.id(), limit)
+                    : productRepository.findWithStockAvailableAfterId(cursor.id(), limit);
+        }
+        return toCursorPage(slice, cursor);
     }
 
     @Transactional(readOnly = true)
     public ProductResponse getPublicProductById(Long id) {
-        Product product = productRepository.findById(id)
-                .filter(p -> p.getStock() != null && p.getStock() > 0)
-                .orElseThrow(() -> new EntityNotFoundException("Public Product", id));
-        return mapToProductResponse(product);
+        // Ids que no pueden existir: 404 sin pasar por la caché ni la BD
+        if (!productIdFilter.mightExist(id)) {
+            throw new EntityNotFoundException("Public Product", id);
+        }
+        // Proyección y no entidad: el refresco en segundo plano no tiene transacción para los proxies LAZY
+        ProductResponse response = publicCatalogCache.getProduct(id, productId ->
+                productRepository.findPublicResponseById(productId)
+                        .orElseThrow(() -> new EntityNotFoundException("Public Product", productId)));
+        // Popularidad para el autocompletado: también cuentan las visitas servidas desde la caché
+        suggestIndex.recordView(id);
+        return response;
+    }
+
+    public List<Suggestion> suggestPublicProducts(String prefix, Long tenantId, int limit) {
+        if (prefix == null || prefix.isBlank() || !suggestIndex.isReady()) {
+            return List.of();
+        }
+        return suggestIndex.suggest(prefix, tenantId, limit);
     }
 
     // === Helpers ===
 
-    private void validateProductName(String name, Long excludeId) {
-        boolean duplicate = (excludeId == null)
-                ? productRepository.existsByName(name)
-                : productRepository.existsByNameAndIdNot(name, excludeId);
+    // El stock arrendado a contadores flash sale ya puede estar vendido: no se puede bajar de ahí
+    private static Integer checkStock(Product product, Integer stock) {
+        if (product.getStockLeased() > 0 && (stock == null || stock < product.getStockLeased())) {
+            throw StockException.belowLeased(product.getId(), product.getStockLeased());
+        }
+        return stock;
+    }
 
-        if (duplicate) {
-            throw new ValidationException(
-                    "DUPLICATE_PRODUCT",
-                    "A product with this name already exists",
-                    List.of("name: The name must be unique")
-            );
+    /**
+     * If-Match: sin cabecera (null) la modificación es incondicional. No se
+     * toma ningún bloqueo; un UPDATE concurrente entre esta comprobación y el
+     * flush lo detecta el WHERE version = ? de @Version.
+     */
+    private static void checkVersion(Product product, Long expectedVersion) {
+        if (expectedVersion != null && !expectedVersion.equals(product.getVersion())) {
+            throw VersionConflictException.preconditionFailed(product.getId(), product.getVersion());
+        }
+    }
+
+    /**
+     * Ejecuta las escrituras pendientes y traduce la violación de
+     * uk_product_name_normalized a DUPLICATE_PRODUCT y el fallo de @Version a
+     * CONCURRENT_MODIFICATION. La unicidad la garantiza la BD, sin consulta
+     * previa. Si falla, borra la imagen recién subida.
+     */
+    private void flushChanges(Product product, String uploadedImageUrl) {
+        try {
+            productRepository.flush();
+        } catch (OptimisticLockingFailureException e) {
+            discardUpload(uploadedImageUrl);
+            throw VersionConflictException.concurrentModification(product.getId());
+        } catch (DataIntegrityViolationException e) {
+            discardUpload(uploadedImageUrl);
+            if (isDuplicateName(e)) {
+                throw new ValidationException(
+                        "DUPLICATE_PRODUCT",
+                        "A product with this name already exists",
+                        List.of("name: The name must be unique")
+                );
+            }
+            throw e;
+        }
+    }
+
+    private void discardUpload(String uploadedImageUrl) {
+        if (uploadedImageUrl != null) {
+            fileService.deleteFile(uploadedImageUrl);
+        }
+    }
+
+    private static boolean isDuplicateName(DataIntegrityViolationException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation && violation.getConstraintName() != null) {
+                return violation.getConstraintName().toLowerCase(Locale.ROOT).contains(Product.NAME_UNIQUE_CONSTRAINT);
+            }
         }
+        String message = NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+        return message != null && message.toLowerCase(Locale.ROOT).contains(Product.NAME_UNIQUE_CONSTRAINT);
     }
 
-    private void validateProductOwnership(Product product) {
-        User currentUser = authService.getAuthenticatedUser();
-        if (!product.getSeller().getId().equals(currentUser.getId()) && !currentUser.isAdmin()) {
+    // getSeller().getId() no inicializa el proxy: la comprobación no consulta la BD
+    private AuthenticatedUser validateProductOwnership(Product product) {
+        AuthenticatedUser currentUser = authService.getCurrentUser();
+        if (!product.getSeller().getId().equals(currentUser.getUserId()) && !currentUser.isAdmin()) {
             throw new UnauthorizedException(
                     "OPERATION_NOT_ALLOWED",
                     "You do not have permission to modify this product"
             );
         }
+        return currentUser;
     }
 
     private String uploadImage(MultipartFile image) {
@@ -211,6 +454,198 @@ public class ProductService {
         return fileService.uploadFile(image);
     }
 
+    // Las variantes de la imagen anterior dejan de valer; ImageVariantPipeline genera las nuevas tras el commit
+    private static void replaceImage(Product product, String newImageUrl) {
+        product.setImageUrl(newImageUrl);
+        product.setThumbnailUrl(null);
+        product.setMediumUrl(null);
+    }
+
+    private void publishImageUploaded(Product product, String imageUrl) {
+        if (imageUrl != null) {
+            eventPublisher.publishEvent(new ProductImageUploadedEvent(product.getId(), imageUrl));
+        }
+    }
+
+    // Original y variantes en S3; si el original no se pudo reducir, las variantes apuntan a él
+    private static List<String> imageFiles(Product product) {
+        return Stream.of(product.getImageUrl(), product.getThumbnailUrl(), product.getMediumUrl())
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+    }
+
+    /**
+     * Resuelve la búsqueda con el índice invertido (ranking por relevancia).
+     * Devuelve null para usar la consulta SQL: índice aún cargando, consulta
+     * vacía u orden explícito pedido por el cliente.
+     */
+    private Page<ProductResponse> searchIndexed(String query, boolean inStockOnly, Pageable pageable) {
+        if (query == null || query.isBlank() || !searchIndex.isReady()
+                || pageable.isUnpaged() || pageable.getSort().isSorted()) {
+            return null;
+        }
+        SearchHits hits = searchIndex.search(query, inStockOnly,
+                (int) pageable.getOffset(), pageable.getPageSize());
+        if (hits == null) {
+            return null;
+        }
+        return new PageImpl<>(loadInOrder(hits.productIds()), pageable, hits.total());
+    }
+
+    /**
+     * Como searchIndexed, con el índice de trigramas. Si el índice no está
+     * listo o algún tenant supera su límite, se usa la búsqueda normal; con un
+     * orden explícito también, porque el índice sólo ordena por similitud.
+     */
+    private Page<ProductResponse> searchFuzzy(String query, boolean inStockOnly, Pageable pageable) {
+        if (query == null || query.isBlank() || !fuzzyIndex.isReady()
+                || pageable.isUnpaged() || pageable.getSort().isSorted()) {
+            return null;
+        }
+        SearchHits hits = fuzzyIndex.search(query, inStockOnly, (int) pageable.getOffset(), pageable.getPageSize());
+        if (hits == null) {
+            return searchIndexed(query, inStockOnly, pageable);
+        }
+        // El total del índice de trigramas es una cota inferior
+        return new EstimatedPage<>(loadInOrder(hits.productIds()), pageable, hits.total());
+    }
+
+    private Page<ProductResponse> filterIndexed(String query, boolean fuzzy, ProductFilter filter, Pageable pageable) {
+        boolean hasQuery = query != null && !query.isBlank();
+        FacetQuery.Order order = facetOrder(pageable, hasQuery);
+        if (!facetIndex.isReady() || order == null) {
+            return null;
+        }
+        List<Long> candidates = null;
+        if (hasQuery) {
+            SearchHits matches = textCandidates(query, fuzzy);
+            if (matches == null || matches.total() > MAX_FILTER_CANDIDATES) {
+                return null;
+            }
+            candidates = matches.productIds();
+        }
+
+        FacetHits hits = facetIndex.search(new FacetQuery(
+                        minPriceCents(filter.minPrice()), maxPriceCents(filter.maxPrice()), filter.sellerId(),
+                        true, candidates, order, filter.facets()),
+                (int) pageable.getOffset(), pageable.getPageSize());
+        ProductFacets facets = hits.counts() == null ? null : toFacets(hits.counts());
+        return new FacetedPage<>(loadInOrder(hits.productIds()), pageable, hits.total(), facets);
+    }
+
+    // Sin orden: relevancia si hay texto o id si no; también se admite un único orden por id o price
+    private static FacetQuery.Order facetOrder(Pageable pageable, boolean hasQuery) {
+        if (pageable.isUnpaged()) {
+            return null;
+        }
+        List<Sort.Order> orders = pageable.getSort().toList();
+        if (orders.isEmpty()) {
+            return hasQuery ? FacetQuery.Order.RELEVANCE : FacetQuery.Order.ID;
+        }
+        if (orders.size() > 1) {
+            return null;
+        }
+        Sort.Order order = orders.get(0);
+        return switch (order.getProperty()) {
+            case "price" -> order.isAscending() ? FacetQuery.Order.PRICE_ASC : FacetQuery.Order.PRICE_DESC;
+            case "id" -> order.isAscending() ? FacetQuery.Order.ID : null;
+            default -> null;
+        };
+    }
+
+    private SearchHits textCandidates(String query, boolean fuzzy) {
+        if (fuzzy && fuzzyIndex.isReady()) {
+            SearchHits hits = fuzzyIndex.search(query, true, 0, MAX_FILTER_CANDIDATES);
+            if (hits != null) {
+                return hits;
+            }
+        }
+        return searchIndex.isReady() ? searchIndex.search(query, true, 0, MAX_FILTER_CANDIDATES) : null;
+    }
+
+    // Un minPrice con fracción de céntimo redondea hacia arriba y un maxPrice hacia abajo
+    private static Long minPriceCents(BigDecimal price) {
+        return price == null ? null : price.movePointRight(2).setScale(0, RoundingMode.CEILING).longValue();
+    }
+
+    private static Long maxPriceCents(BigDecimal price) {
+        return price == null ? null : price.movePointRight(2).setScale(0, RoundingMode.FLOOR).longValue();
+    }
+
+    private static ProductFacets toFacets(FacetCounts counts) {
+        List<ProductFacets.SellerCount> sellers = counts.sellers().entrySet().stream()
+                .sorted(Map.Entry.<Long, Long>comparingByValue(Comparator.reverseOrder())
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(MAX_SELLER_FACETS)
+                .map(entry -> new ProductFacets.SellerCount(entry.getKey(), entry.getValue()))
+                .toList();
+
+        long[] bounds = counts.priceBoundsCents();
+        List<ProductFacets.PriceRange> prices = new ArrayList<>(bounds.length + 1);
+        for (int i = 0; i <= bounds.length; i++) {
+            BigDecimal from = i == 0 ? null : BigDecimal.valueOf(bounds[i - 1], 2);
+            BigDecimal to = i == bounds.length ? null : BigDecimal.valueOf(bounds[i], 2);
+            prices.add(new ProductFacets.PriceRange(from, to, counts.priceCounts()[i]));
+        }
+        return new ProductFacets(counts.inStock(), counts.outOfStock(), sellers, prices);
+    }
+
+    private List<ProductResponse> loadInOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, ProductResponse> byId = productRepository.findResponsesByIdIn(ids).stream()
+                .collect(Collectors.toMap(ProductResponse::getId, Function.identity()));
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    private int clampCursorSize(int size) {
+        return Math.max(1, Math.min(size, MAX_CURSOR_PAGE_SIZE));
+    }
+
+    private CursorPage<ProductResponse> toCursorPage(Slice<ProductResponse> slice, ProductCursor cursor) {
+        List<ProductResponse> content = slice.getContent();
+        String nextCursor = null;
+        if (slice.hasNext() && !content.isEmpty()) {
+            ProductResponse last = content.get(content.size() - 1);
+            nextCursor = ProductCursor.encode(cursor.sort(), last.getPrice(), last.getId());
+        }
+        return CursorPage.<ProductResponse>builder()
+                .content(content)
+                .nextCursor(nextCursor)
+                .hasNext(nextCursor != null)
+                .size(content.size())
+                .build();
+    }
+
+    /**
+     * Igual que mapToProductResponse(Product), pero toma los nombres de seller
+     * y tenant del principal cuando coinciden, sin inicializar los proxies.
+     */
+    private ProductResponse mapToProductResponse(Product product, AuthenticatedUser currentUser) {
+        boolean ownSeller = product.getSeller() != null
+                && currentUser.getUserId().equals(product.getSeller().getId());
+        boolean ownTenant = product.getTenant() != null
+                && product.getTenant().getId().equals(currentUser.getTenantId());
+        return ProductResponse.builder()
+                .id(product.getId())
+                .name(product.getName())
+                .description(product.getDescription())
+                .price(product.getPrice())
+                .stock(product.getStock())
+                .imageUrl(product.getImageUrl())
+                .thumbnailUrl(product.getThumbnailUrl())
+                .mediumUrl(product.getMediumUrl())
+                .sellerName(ownSeller ? currentUser.getFullName() : product.getSeller().getFullName())
+                .tenantName(ownTenant ? currentUser.getTenantName() : product.getTenant().getName())
+                .version(product.getVersion())
+                .build();
+    }
+
     private ProductResponse mapToProductResponse(Product product) {
         return ProductResponse.builder()
                 .id(product.getId())
@@ -219,8 +654,11 @@ public class ProductService {
                 .price(product.getPrice())
                 .stock(product.getStock())
                 .imageUrl(product.getImageUrl())
+                .thumbnailUrl(product.getThumbnailUrl())
+                .mediumUrl(product.getMediumUrl())
                 .sellerName(product.getSeller().getFullName())
                 .tenantName(product.getTenant().getName())
+                .version(product.getVersion())
                 .build();
     }
 }
@@ -0,0 +1,234 @@
+package com.marware.ecommerce.stock;
+
+import com.marware.ecommerce.event.ProductChangedEvent;
+import com.marware.ecommerce.model.Product;
+import com.marware.ecommerce.repository.ProductRepository;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Modo flash sale: las reservas de los productos activados en esta instancia
+ * se sirven desde un ShardedStockCounter en memoria en lugar de un UPDATE por
+ * reserva sobre la misma fila.
+ *
+ * El contador no parte del stock leído, sino de bloques arrendados a la BD
+ * (product.stock_leased, con bloqueo de fila sólo durante el arriendo), así
+ * que varias instancias con el modo activo no pueden vender más unidades de
+ * las que hay. Las ventas se vuelcan cada app.stock.flash-sale.flush-interval
+ * descontándolas a la vez de stock y stock_leased: stock nunca queda por
+ * debajo de lo realmente disponible y el filtro stock > 0 del catálogo sigue
+ * siendo correcto, como mucho con ese retraso.
+ *
+ * Al desactivar el modo (o parar la instancia) se vuelcan las ventas y se
+ * devuelven las unidades arrendadas sin vender. Si una instancia muere con
+ * unidades arrendadas, quedan apartadas en stock_leased hasta corregirlo a mano.
+ */
+@Slf4j
+@Component
+public class FlashSaleStock {
+
+    public enum Result {
+        NOT_ACTIVE,
+        ACQUIRED,
+        SOLD_OUT
+    }
+
+    private final ProductRepository productRepository;
+    private final EntityManager entityManager;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final int shards;
+    private final int leaseSize;
+    private final List<Long> initialProductIds;
+    private final Map<Long, Counter> counters = new ConcurrentHashMap<>();
+
+    public FlashSaleStock(ProductRepository productRepository,
+                          EntityManager entityManager,
+                          ApplicationEventPublisher eventPublisher,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${app.stock.flash-sale.shards:16}") int shards,
+                          @Value("${app.stock.flash-sale.lease-size:100}") int leaseSize,
+                          @Value("${app.stock.flash-sale.product-ids:}") List<Long> initialProductIds) {
+        this.productRepository = productRepository;
+        this.entityManager = entityManager;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.shards = Math.max(1, shards);
+        this.leaseSize = Math.max(1, leaseSize);
+        this.initialProductIds = initialProductIds;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void enableConfiguredProducts() {
+        initialProductIds.forEach(this::enable);
+    }
+
+    public void enable(Long productId) {
+        if (counters.putIfAbsent(productId, new Counter(productId, new ShardedStockCounter(shards))) == null) {
+            log.info("Flash sale mode enabled for product {}", productId);
+        }
+    }
+
+    public void disable(Long productId) {
+        Counter counter = counters.remove(productId);
+        if (counter != null) {
+            close(counter);
+            log.info("Flash sale mode disabled for product {}", productId);
+        }
+    }
+
+    public boolean isActive(Long productId) {
+        return counters.containsKey(productId);
+    }
+
+    public Set<Long> activeProducts() {
+        return Set.copyOf(counters.keySet());
+    }
+
+    /**
+     * Debe llamarse fuera de una transacción: el arriendo abre la suya propia y,
+     * anidado en otra, retendría dos conexiones por reserva.
+     */
+    public Result tryAcquire(Long productId, int quantity) {
+        Counter counter = counters.get(productId);
+        if (counter == null) {
+            return Result.NOT_ACTIVE;
+        }
+        while (true) {
+            if (counter.stock.tryAcquire(quantity)) {
+                return Result.ACQUIRED;
+            }
+            // Sin unidades locales suficientes: se arrienda otro bloque a la BD
+            Boolean leased = lease(counter, quantity);
+            if (leased == null) {
+                return Result.NOT_ACTIVE;
+            }
+            if (!leased) {
+                return Result.SOLD_OUT;
+            }
+        }
+    }
+
+    /** Devuelve unidades al contador; false si el modo ya no está activo y hay que devolverlas a la BD. */
+    public boolean release(Long productId, int quantity) {
+        Counter counter = counters.get(productId);
+        if (counter == null) {
+            return false;
+        }
+        synchronized (counter) {
+            if (counter.closed) {
+                return false;
+            }
+            counter.stock.release(quantity);
+            return true;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.stock.flash-sale.flush-interval:500ms}")
+    public void flushSales() {
+        for (Counter counter : counters.values()) {
+            flush(counter);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (Long productId : List.copyOf(counters.keySet())) {
+            disable(productId);
+        }
+    }
+
+    // null si el contador se ha cerrado mientras tanto (el llamante pasa al camino normal)
+    private Boolean lease(Counter counter, int quantity) {
+        synchronized (counter) {
+            if (counter.closed) {
+                return null;
+            }
+            long local = counter.stock.available();
+            if (local >= quantity) {
+                return true;
+            }
+            int needed = (int) (quantity - local);
+            Integer granted = transactionTemplate.execute(status -> {
+                Product product = entityManager.find(Product.class, counter.productId, LockModeType.PESSIMISTIC_WRITE);
+                if (product == null || product.getStock() == null) {
+                    return 0;
+                }
+                int free = product.getStock() - product.getStockLeased();
+                if (free < needed) {
+                    return 0;
+                }
+                int units = Math.min(free, Math.max(leaseSize, needed));
+                // Dirty checking con @Version: un PUT concurrente del seller sobre esta fila falla
+                product.setStockLeased(product.getStockLeased() + units);
+                return units;
+            });
+            if (granted == null || granted == 0) {
+                return false;
+            }
+            counter.stock.add(granted);
+            return true;
+        }
+    }
+
+    private void flush(Counter counter) {
+        long sold = counter.stock.drainSold();
+        if (sold == 0) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                productRepository.applyLeasedSales(counter.productId, Math.toIntExact(sold));
+                productRepository.findSnapshotById(counter.productId).ifPresent(after ->
+                        eventPublisher.publishEvent(ProductChangedEvent.updated(
+                                after.withStock(after.stock() + (int) sold), after)));
+            });
+        } catch (RuntimeException e) {
+            counter.stock.restoreSold(sold);
+            log.warn("Flash sale flush for product {} failed, will retry: {}", counter.productId, e.getMessage());
+        }
+    }
+
+    private void close(Counter counter) {
+        synchronized (counter) {
+            counter.closed = true;
+        }
+        // Primero se vacía lo disponible para que no se vendan más unidades y después se vuelca lo vendido
+        long unused = counter.stock.drainAvailable();
+        flush(counter);
+        if (unused > 0) {
+            try {
+                transactionTemplate.executeWithoutResult(status ->
+                        productRepository.returnLease(counter.productId, Math.toIntExact(unused)));
+            } catch (RuntimeException e) {
+                log.error("Could not return {} leased units of product {}", unused, counter.productId, e);
+            }
+        }
+    }
+
+    private static final class Counter {
+        private final Long productId;
+        private final ShardedStockCounter stock;
+        private boolean closed;
+
+        Counter(Long productId, ShardedStockCounter stock) {
+            this.productId = productId;
+            this.stock = stock;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.marware.ecommerce.stock;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Contador de unidades disponibles repartido en shards para que los hilos que
+ * reservan el mismo producto no compitan por una sola variable (ni por la
+ * misma fila de la BD). Cada shard ocupa su propia línea de caché y guarda
+ * las unidades disponibles y las vendidas pendientes de volcar.
+ *
+ * Nunca baja de cero: las unidades se toman con CAS y, si un shard no
+ * alcanza, se juntan de varios y se devuelven si no hay suficientes en total.
+ */
+final class ShardedStockCounter {
+
+    // 8 longs = 64 bytes por shard: [disponibles, vendidas, relleno...]
+    private static final int STRIDE = 8;
+    private static final int AVAILABLE = 0;
+    private static final int SOLD = 1;
+
+    private final int shards;
+    private final AtomicLongArray cells;
+
+    ShardedStockCounter(int shards) {
+        this.shards = Math.max(1, shards);
+        this.cells = new AtomicLongArray(this.shards * STRIDE);
+    }
+
+    boolean tryAcquire(int quantity) {
+        int home = home();
+        for (int i = 0; i < shards; i++) {
+            if (take(slot((home + i) % shards, AVAILABLE), quantity, quantity) == quantity) {
+                cells.addAndGet(slot(home, SOLD), quantity);
+                return true;
+            }
+        }
+        return acquireFragmented(home, quantity);
+    }
+
+    /** Vuelve a poner disponibles unidades ya vendidas (reserva cancelada o caducada). */
+    void release(int quantity) {
+        int home = home();
+        cells.addAndGet(slot(home, AVAILABLE), quantity);
+        cells.addAndGet(slot(home, SOLD), -quantity);
+    }
+
+    /** Reparte unidades nuevas (un arriendo a la BD) entre los shards. */
+    void add(long units) {
+        long share = units / shards;
+        long remainder = units % shards;
+        for (int i = 0; i < shards; i++) {
+            long amount = share + (i < remainder ? 1 : 0);
+            if (amount > 0) {
+                cells.addAndGet(slot(i, AVAILABLE), amount);
+            }
+        }
+    }
+
+    long available() {
+        long total = 0;
+        for (int i = 0; i < shards; i++) {
+            total += cells.get(slot(i, AVAILABLE));
+        }
+        return total;
+    }
+
+    /** Vendidas desde el último volcado (puede ser negativo si se liberaron más de las que se vendieron). */
+    long drainSold() {
+        long total = 0;
+        for (int i = 0; i < shards; i++) {
+            total += cells.getAndSet(slot(i, SOLD), 0);
+        }
+        return total;
+    }
+
+    /** Deshace un drainSold() cuyo volcado a la BD ha fallado. */
+    void restoreSold(long sold) {
+        cells.addAndGet(slot(home(), SOLD), sold);
+    }
+
+    long drainAvailable() {
+        long total = 0;
+        for (int i = 0; i < shards; i++) {
+            total += cells.getAndSet(slot(i, AVAILABLE), 0);
+        }
+        return total;
+    }
+
+    private boolean acquireFragmented(int home, int quantity) {
+        long[] taken = new long[shards];
+        long remaining = quantity;
+        for (int i = 0; i < shards && remaining > 0; i++) {
+            int shard = (home + i) % shards;
+            long got = take(slot(shard, AVAILABLE), 1, remaining);
+            taken[shard] = got;
+            remaining -= got;
+        }
+        if (remaining == 0) {
+            cells.addAndGet(slot(home, SOLD), quantity);
+            return true;
+        }
+        for (int shard = 0; shard < shards; shard++) {
+            if (taken[shard] > 0) {
+                cells.addAndGet(slot(shard, AVAILABLE), taken[shard]);
+            }
+        }
+        return false;
+    }
+
+    // Toma entre min y max unidades del slot con CAS; 0 si hay menos de min
+    private long take(int slot, long min, long max) {
+        while (true) {
+            long current = cells.get(slot);
+            if (current < min) {
+                return 0;
+            }
+            long amount = Math.min(current, max);
+            if (cells.compareAndSet(slot, current, current - amount)) {
+                return amount;
+            }
+        }
+    }
+
+    private int home() {
+        // Mezcla de Fibonacci del id del hilo: hilos consecutivos caen en shards distintos
+        long id = Thread.currentThread().getId();
+        return (int) (((id * 0x9E3779B97F4A7C15L) >>> 33) % shards);
+    }
+
+    private static int slot(int shard, int field) {
+        return shard * STRIDE + field;
+    }
+}
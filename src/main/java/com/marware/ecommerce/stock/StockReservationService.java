@@ -0,0 +1,247 @@
+package com.marware.ecommerce.stock;
+
+import com.marware.ecommerce.dto.StockReservationRequest;
+import com.marware.ecommerce.dto.StockReservationResponse;
+import com.marware.ecommerce.event.ProductChangedEvent;
+import com.marware.ecommerce.exception.EntityNotFoundException;
+import com.marware.ecommerce.exception.StockException;
+import com.marware.ecommerce.exception.UnauthorizedException;
+import com.marware.ecommerce.model.StockReservation;
+import com.marware.ecommerce.repository.ProductRepository;
+import com.marware.ecommerce.repository.StockReservationRepository;
+import com.marware.ecommerce.security.AuthenticatedUser;
+import com.marware.ecommerce.service.AuthService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Reservas de stock sin leer y sobrescribir la fila: el descuento es un
+ * UPDATE ... WHERE stock - stock_leased >= ? que la BD aplica de forma
+ * atómica, así que dos reservas concurrentes nunca venden la misma unidad.
+ * Los productos en modo flash sale se sirven desde FlashSaleStock.
+ *
+ * Las reservas caducan a los ttlSeconds pedidos (o default-ttl) y un barrido
+ * periódico devuelve sus unidades al stock. Confirmar, cancelar y caducar son
+ * UPDATE condicionales sobre status, así que las unidades vuelven una sola vez.
+ *
+ * Los métodos no son @Transactional: las transacciones se abren con
+ * TransactionTemplate para no retener una conexión mientras FlashSaleStock
+ * arrienda un bloque en la suya.
+ */
+@Slf4j
+@Service
+public class StockReservationService {
+
+    private final ProductRepository productRepository;
+    private final StockReservationRepository reservationRepository;
+    private final FlashSaleStock flashSaleStock;
+    private final AuthService authService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration defaultTtl;
+    private final Duration maxTtl;
+    private final int sweepBatchSize;
+    private final Clock clock;
+
+    public StockReservationService(ProductRepository productRepository,
+                                   StockReservationRepository reservationRepository,
+                                   FlashSaleStock flashSaleStock,
+                                   AuthService authService,
+                                   ApplicationEventPublisher eventPublisher,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${app.stock.reservations.default-ttl:10m}") Duration defaultTtl,
+                                   @Value("${app.stock.reservations.max-ttl:1h}") Duration maxTtl,
+                                   @Value("${app.stock.reservations.sweep-batch-size:500}") int sweepBatchSize) {
+        this(productRepository, reservationRepository, flashSaleStock, authService, eventPublisher,
+                transactionManager, defaultTtl, maxTtl, sweepBatchSize, Clock.systemUTC());
+    }
+
+    StockReservationService(ProductRepository productRepository,
+                            StockReservationRepository reservationRepository,
+                            FlashSaleStock flashSaleStock,
+                            AuthService authService,
+                            ApplicationEventPublisher eventPublisher,
+                            PlatformTransactionManager transactionManager,
+                            Duration defaultTtl,
+                            Duration maxTtl,
+                            int sweepBatchSize,
+                            Clock clock) {
+        this.productRepository = productRepository;
+        this.reservationRepository = reservationRepository;
+        this.flashSaleStock = flashSaleStock;
+        this.authService = authService;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.defaultTtl = defaultTtl;
+        this.maxTtl = maxTtl;
+        this.sweepBatchSize = Math.max(1, sweepBatchSize);
+        this.clock = clock;
+    }
+
+    public StockReservationResponse reserve(Long productId, StockReservationRequest request) {
+        AuthenticatedUser user = authService.getCurrentUser();
+        int quantity = request.getQuantity();
+        Instant expiresAt = clock.instant().plus(ttl(request.getTtlSeconds()));
+
+        FlashSaleStock.Result flash = flashSaleStock.tryAcquire(productId, quantity);
+        if (flash == FlashSaleStock.Result.SOLD_OUT) {
+            // FlashSaleStock.lease tampoco arrienda nada si la fila no existe
+            if (!productRepository.existsById(productId)) {
+                throw new EntityNotFoundException("Product", productId);
+            }
+            throw StockException.outOfStock(productId, quantity);
+        }
+        if (flash == FlashSaleStock.Result.ACQUIRED) {
+            try {
+                return transactionTemplate.execute(status -> StockReservationResponse.fromEntity(
+                        reservationRepository.save(newReservation(productId, user, quantity, true, expiresAt))));
+            } catch (RuntimeException e) {
+                // Sin reserva guardada las unidades no pueden quedarse vendidas en el contador
+                returnUnits(productId, quantity, true);
+                throw e;
+            }
+        }
+
+        return transactionTemplate.execute(status -> {
+            if (productRepository.reserveStock(productId, quantity) == 0) {
+                if (!productRepository.existsById(productId)) {
+                    throw new EntityNotFoundException("Product", productId);
+                }
+                throw StockException.outOfStock(productId, quantity);
+            }
+            publishStockChange(productId, quantity);
+            return StockReservationResponse.fromEntity(
+                    reservationRepository.save(newReservation(productId, user, quantity, false, expiresAt)));
+        });
+    }
+
+    /** La reserva pasa a venta: el stock ya se descontó al reservar. */
+    public StockReservationResponse confirm(Long reservationId) {
+        StockReservation reservation = findOwned(reservationId);
+        Integer updated = transactionTemplate.execute(status ->
+                reservationRepository.confirm(reservationId, clock.instant()));
+        if (updated == null || updated == 0) {
+            throw StockException.reservationNotActive(reservationId);
+        }
+        reservation.setStatus(StockReservation.Status.CONFIRMED);
+        return StockReservationResponse.fromEntity(reservation);
+    }
+
+    public void cancel(Long reservationId) {
+        StockReservation reservation = findOwned(reservationId);
+        if (!release(reservation, StockReservation.Status.RELEASED)) {
+            throw StockException.reservationNotActive(reservationId);
+        }
+    }
+
+    /** Devuelve al stock las unidades de las reservas caducadas, por lotes. */
+    @Scheduled(fixedDelayString = "${app.stock.reservations.sweep-interval:30s}")
+    public int releaseExpired() {
+        int released = 0;
+        int batchReleased;
+        List<StockReservation> expired;
+        do {
+            batchReleased = 0;
+            expired = reservationRepository.findExpired(clock.instant(), Pageable.ofSize(sweepBatchSize));
+            for (StockReservation reservation : expired) {
+                try {
+                    if (release(reservation, StockReservation.Status.EXPIRED)) {
+                        batchReleased++;
+                    }
+                } catch (RuntimeException e) {
+                    log.warn("Could not release expired reservation {}: {}", reservation.getId(), e.getMessage());
+                }
+            }
+            released += batchReleased;
+            // Un lote sin avances (todas fallan) se reintenta en el siguiente barrido
+        } while (expired.size() == sweepBatchSize && batchReleased > 0);
+        if (released > 0) {
+            log.info("Released {} expired stock reservations", released);
+        }
+        return released;
+    }
+
+    // === Helpers ===
+
+    private boolean release(StockReservation reservation, StockReservation.Status status) {
+        boolean flashSale = reservation.isFlashSale();
+        Boolean released = transactionTemplate.execute(tx -> {
+            if (reservationRepository.release(reservation.getId(), status) == 0) {
+                return false;
+            }
+            if (!flashSale) {
+                restoreStock(reservation.getProductId(), reservation.getQuantity());
+            }
+            return true;
+        });
+        if (Boolean.TRUE.equals(released) && flashSale) {
+            returnUnits(reservation.getProductId(), reservation.getQuantity(), true);
+        }
+        return Boolean.TRUE.equals(released);
+    }
+
+    // Unidades de flash sale vuelven al contador; si el modo ya no está activo, a la fila
+    private void returnUnits(Long productId, int quantity, boolean flashSale) {
+        if (flashSale && flashSaleStock.release(productId, quantity)) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(tx -> restoreStock(productId, quantity));
+    }
+
+    private void restoreStock(Long productId, int quantity) {
+        if (productRepository.returnStock(productId, quantity) > 0) {
+            publishStockChange(productId, -quantity);
+        }
+    }
+
+    // Las cachés y el índice del catálogo se actualizan tras el commit (stock > 0 puede haber cambiado)
+    private void publishStockChange(Long productId, int taken) {
+        productRepository.findSnapshotById(productId).ifPresent(after ->
+                eventPublisher.publishEvent(ProductChangedEvent.updated(
+                        after.withStock(after.stock() + taken), after)));
+    }
+
+    private StockReservation findOwned(Long reservationId) {
+        StockReservation reservation = reservationRepository.findById(reservationId)
+                .orElseThrow(() -> new EntityNotFoundException("Stock reservation", reservationId));
+        AuthenticatedUser user = authService.getCurrentUser();
+        if (!user.getUserId().equals(reservation.getUserId()) && !user.isAdmin()) {
+            throw new UnauthorizedException(
+                    "OPERATION_NOT_ALLOWED",
+                    "You do not have permission to modify this reservation"
+            );
+        }
+        return reservation;
+    }
+
+    private Duration ttl(Long ttlSeconds) {
+        if (ttlSeconds == null) {
+            return defaultTtl;
+        }
+        Duration requested = Duration.ofSeconds(ttlSeconds);
+        return requested.compareTo(maxTtl) > 0 ? maxTtl : requested;
+    }
+
+    private static StockReservation newReservation(Long productId, AuthenticatedUser user, int quantity,
+                                                   boolean flashSale, Instant expiresAt) {
+        return StockReservation.builder()
+                .productId(productId)
+                .userId(user.getUserId())
+                .quantity(quantity)
+                .status(StockReservation.Status.RESERVED)
+                .flashSale(flashSale)
+                .expiresAt(expiresAt)
+                .build();
+    }
+}
@@ -0,0 +1,40 @@
+package com.marware.ecommerce.stream;
+
+import com.marware.ecommerce.event.ProductChangedEvent;
+import com.marware.ecommerce.event.ProductSnapshot;
+
+import java.math.BigDecimal;
+
+/**
+ * Evento compacto que reciben los suscriptores de /public/products/stream:
+ * sólo lo que necesita una ficha de catálogo para refrescar precio y stock.
+ */
+public record CatalogChange(
+        String type,
+        Long id,
+        Long tenantId,
+        BigDecimal price,
+        Integer stock,
+        boolean inStock
+) {
+
+    /** null si el cambio no afecta a precio ni stock (p. ej. sólo la descripción). */
+    public static CatalogChange from(ProductChangedEvent event) {
+        ProductSnapshot before = event.before();
+        ProductSnapshot after = event.after();
+        if (event.type() == ProductChangedEvent.Type.DELETED) {
+            return new CatalogChange(event.type().name(), before.id(), before.tenantId(), null, null, false);
+        }
+        if (event.type() == ProductChangedEvent.Type.UPDATED && before != null
+                && java.util.Objects.equals(before.stock(), after.stock())
+                && samePrice(before.price(), after.price())) {
+            return null;
+        }
+        return new CatalogChange(event.type().name(), after.id(), after.tenantId(),
+                after.price(), after.stock(), after.inStock());
+    }
+
+    private static boolean samePrice(BigDecimal a, BigDecimal b) {
+        return a == null ? b == null : b != null && a.compareTo(b) == 0;
+    }
+}
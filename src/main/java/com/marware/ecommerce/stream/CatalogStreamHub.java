@@ -0,0 +1,360 @@
+package com.marware.ecommerce.stream;
+
+import com.marware.ecommerce.event.ProductChangedEvent;
+import com.marware.ecommerce.exception.StreamCapacityException;
+import com.marware.ecommerce.exception.ValidationException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Difunde por SSE los cambios de precio y stock del catálogo a los clientes
+ * suscritos a ciertos productos o tenants, en lugar de que sondeen el detalle.
+ *
+ * Las conexiones son asíncronas (SseEmitter), así que un suscriptor inactivo
+ * no ocupa ningún hilo: sólo su entrada en los mapas. Los cambios llegan tras
+ * el commit y se acumulan por suscriptor con un buffer acotado que guarda el
+ * último cambio de cada producto; un hilo los envía cada coalesce-window, de
+ * modo que varias escrituras seguidas del mismo producto salen como un evento.
+ * Si el buffer se llena se descarta y se envía "resync" para que el cliente
+ * vuelva a leer lo que muestra.
+ *
+ * El hilo del hub no escribe en las conexiones: entrega cada suscriptor con
+ * cambios (o con heartbeat pendiente) a un pool de send-threads hilos, y cada
+ * suscriptor tiene como mucho un envío en curso. Así un cliente lento sólo
+ * retrasa su propio buffer; si un envío tarda más de send-timeout el hub le
+ * da de baja (libera su plaza y deja de encolarle cambios) y el emitter se
+ * cierra con error en cuanto ese envío vuelve.
+ */
+@Slf4j
+@Component
+public class CatalogStreamHub {
+
+    static final String EVENT_CHANGE = "product";
+    static final String EVENT_RESYNC = "resync";
+
+    private final Map<Long, Set<Subscriber>> byProduct = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Subscriber>> byTenant = new ConcurrentHashMap<>();
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ConcurrentLinkedQueue<Subscriber> dirty = new ConcurrentLinkedQueue<>();
+    // Suscriptores con un envío en curso, para cortar los que superan send-timeout
+    private final Set<Subscriber> sending = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger count = new AtomicInteger();
+    private final AtomicLong sequence = new AtomicLong();
+    private final ScheduledExecutorService dispatcher;
+    private final Executor senders;
+    private final LongSupplier nanoTime;
+    private final long sendTimeoutNanos;
+    private final int maxSubscribers;
+    private final int maxKeys;
+    private final int bufferSize;
+    private final long timeoutMillis;
+
+    public CatalogStreamHub(@Value("${app.catalog-stream.max-subscribers:10000}") int maxSubscribers,
+                            @Value("${app.catalog-stream.max-ids-per-subscription:200}") int maxKeys,
+                            @Value("${app.catalog-stream.buffer-size:256}") int bufferSize,
+                            @Value("${app.catalog-stream.coalesce-window:250ms}") Duration coalesceWindow,
+                            @Value("${app.catalog-stream.heartbeat-interval:25s}") Duration heartbeatInterval,
+                            @Value("${app.catalog-stream.timeout:30m}") Duration timeout,
+                            @Value("${app.catalog-stream.send-threads:4}") int sendThreads,
+                            @Value("${app.catalog-stream.send-timeout:10s}") Duration sendTimeout) {
+        this(maxSubscribers, maxKeys, bufferSize, coalesceWindow, heartbeatInterval, timeout,
+                senderPool(sendThreads, maxSubscribers), sendTimeout, System::nanoTime);
+    }
+
+    CatalogStreamHub(int maxSubscribers, int maxKeys, int bufferSize, Duration coalesceWindow,
+                     Duration heartbeatInterval, Duration timeout, Executor senders, Duration sendTimeout,
+                     LongSupplier nanoTime) {
+        this.maxSubscribers = maxSubscribers;
+        this.maxKeys = maxKeys;
+        this.bufferSize = Math.max(1, bufferSize);
+        this.timeoutMillis = timeout.toMillis();
+        this.senders = senders;
+        this.sendTimeoutNanos = sendTimeout.toNanos();
+        this.nanoTime = nanoTime;
+        this.dispatcher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "catalog-stream");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long window = Math.max(10, coalesceWindow.toMillis());
+        dispatcher.scheduleWithFixedDelay(this::dispatch, window, window, TimeUnit.MILLISECONDS);
+        long heartbeat = Math.max(1000, heartbeatInterval.toMillis());
+        dispatcher.scheduleWithFixedDelay(this::heartbeat, heartbeat, heartbeat, TimeUnit.MILLISECONDS);
+    }
+
+    // Una tarea por suscriptor como mucho: la cola no pasa de maxSubscribers
+    private static ExecutorService senderPool(int sendThreads, int maxSubscribers) {
+        int threads = Math.max(1, sendThreads);
+        AtomicInteger sequence = new AtomicInteger();
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(Math.max(1, maxSubscribers)), r -> {
+                    Thread thread = new Thread(r, "catalog-stream-send-" + sequence.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    public SseEmitter subscribe(Collection<Long> productIds, Collection<Long> tenantIds) {
+        return register(new SseEmitter(timeoutMillis), productIds, tenantIds);
+    }
+
+    SseEmitter register(SseEmitter emitter, Collection<Long> productIds, Collection<Long> tenantIds) {
+        Set<Long> products = productIds == null ? Set.of() : Set.copyOf(productIds);
+        Set<Long> tenants = tenantIds == null ? Set.of() : Set.copyOf(tenantIds);
+        if (products.isEmpty() && tenants.isEmpty()) {
+            throw new ValidationException("VALIDATION_FAILED", "Nothing to subscribe to",
+                    List.of("ids or tenants: at least one is required"));
+        }
+        if (products.size() + tenants.size() > maxKeys) {
+            throw new ValidationException("VALIDATION_FAILED", "Too many ids in subscription",
+                    List.of("ids + tenants: at most " + maxKeys));
+        }
+        if (count.incrementAndGet() > maxSubscribers) {
+            count.decrementAndGet();
+            throw new StreamCapacityException(maxSubscribers);
+        }
+
+        Subscriber subscriber = new Subscriber(emitter, products, tenants);
+        subscribers.add(subscriber);
+        products.forEach(id -> byProduct.computeIfAbsent(id, k -> ConcurrentHashMap.newKeySet()).add(subscriber));
+        tenants.forEach(id -> byTenant.computeIfAbsent(id, k -> ConcurrentHashMap.newKeySet()).add(subscriber));
+
+        emitter.onCompletion(() -> unregister(subscriber));
+        emitter.onTimeout(() -> unregister(subscriber));
+        emitter.onError(e -> unregister(subscriber));
+        return emitter;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        CatalogChange change = CatalogChange.from(event);
+        if (change == null) {
+            return;
+        }
+        Set<Subscriber> forProduct = byProduct.get(change.id());
+        Set<Subscriber> forTenant = change.tenantId() != null ? byTenant.get(change.tenantId()) : null;
+        if (forProduct != null) {
+            forProduct.forEach(subscriber -> offer(subscriber, change));
+        }
+        if (forTenant != null) {
+            forTenant.forEach(subscriber -> offer(subscriber, change));
+        }
+    }
+
+    public int subscriberCount() {
+        return count.get();
+    }
+
+    /**
+     * Da de baja los envíos que superan send-timeout y entrega a los hilos de
+     * envío cada suscriptor con cambios pendientes. No escribe en ninguna
+     * conexión: cerrar el emitter aquí esperaría al envío bloqueado.
+     */
+    void dispatch() {
+        long now = nanoTime.getAsLong();
+        for (Subscriber subscriber : sending) {
+            if (now - subscriber.sendStartedAt > sendTimeoutNanos) {
+                subscriber.timedOut = true;
+                sending.remove(subscriber);
+                if (unregister(subscriber)) {
+                    log.debug("Catalog stream subscriber dropped: send timed out");
+                }
+            }
+        }
+        Subscriber subscriber;
+        while ((subscriber = dirty.poll()) != null) {
+            Subscriber next = subscriber;
+            try {
+                senders.execute(() -> send(next));
+            } catch (RejectedExecutionException e) {
+                // Pool parado o saturado: se reintenta en la siguiente ventana
+                dirty.add(next);
+                return;
+            }
+        }
+    }
+
+    // Un comentario periódico mantiene vivos los proxies y detecta las conexiones cerradas
+    void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            boolean enqueue;
+            synchronized (subscriber) {
+                subscriber.ping = true;
+                enqueue = markQueued(subscriber);
+            }
+            if (enqueue) {
+                dirty.add(subscriber);
+            }
+        }
+    }
+
+    /** Envía lo acumulado por un suscriptor; se ejecuta en un hilo de envío. */
+    private void send(Subscriber subscriber) {
+        List<CatalogChange> changes;
+        boolean resync;
+        boolean ping;
+        synchronized (subscriber) {
+            subscriber.queued = false;
+            // Ya hay un envío en curso: al terminar vuelve a encolar lo que haya llegado
+            if (subscriber.sending || !subscribers.contains(subscriber)) {
+                return;
+            }
+            subscriber.sending = true;
+            subscriber.sendStartedAt = nanoTime.getAsLong();
+            resync = subscriber.overflowed;
+            ping = subscriber.ping;
+            changes = new ArrayList<>(subscriber.pending.values());
+            subscriber.pending.clear();
+            subscriber.overflowed = false;
+            subscriber.ping = false;
+        }
+        sending.add(subscriber);
+        try {
+            if (resync) {
+                subscriber.emitter.send(SseEmitter.event().name(EVENT_RESYNC).data(""));
+            }
+            for (CatalogChange change : changes) {
+                subscriber.emitter.send(SseEmitter.event()
+                        .id(Long.toString(sequence.incrementAndGet()))
+                        .name(EVENT_CHANGE)
+                        .data(change, MediaType.APPLICATION_JSON));
+            }
+            if (ping && changes.isEmpty() && !resync) {
+                subscriber.emitter.send(SseEmitter.event().comment("ping"));
+            }
+        } catch (IOException | RuntimeException e) {
+            drop(subscriber, e);
+        } finally {
+            sending.remove(subscriber);
+            if (subscriber.timedOut) {
+                complete(subscriber, new IOException("Send timed out"));
+            }
+            boolean enqueue;
+            synchronized (subscriber) {
+                subscriber.sending = false;
+                boolean more = !subscriber.pending.isEmpty() || subscriber.overflowed || subscriber.ping;
+                enqueue = more && subscribers.contains(subscriber) && markQueued(subscriber);
+            }
+            if (enqueue) {
+                dirty.add(subscriber);
+            }
+        }
+    }
+
+    // Con el monitor del suscriptor: true si hay que añadirlo a dirty
+    private static boolean markQueued(Subscriber subscriber) {
+        if (subscriber.queued) {
+            return false;
+        }
+        subscriber.queued = true;
+        return true;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdownNow();
+        if (senders instanceof ExecutorService executor) {
+            executor.shutdownNow();
+        }
+        for (Subscriber subscriber : List.copyOf(subscribers)) {
+            subscriber.emitter.complete();
+            unregister(subscriber);
+        }
+    }
+
+    private void offer(Subscriber subscriber, CatalogChange change) {
+        boolean enqueue;
+        synchronized (subscriber) {
+            if (!subscriber.pending.containsKey(change.id()) && subscriber.pending.size() >= bufferSize) {
+                subscriber.pending.clear();
+                subscriber.overflowed = true;
+            }
+            subscriber.pending.put(change.id(), change);
+            enqueue = markQueued(subscriber);
+        }
+        if (enqueue) {
+            dirty.add(subscriber);
+        }
+    }
+
+    private void drop(Subscriber subscriber, Exception e) {
+        if (!unregister(subscriber)) {
+            return;
+        }
+        log.debug("Catalog stream subscriber dropped: {}", e.getMessage());
+        complete(subscriber, e);
+    }
+
+    private static void complete(Subscriber subscriber, Exception e) {
+        try {
+            subscriber.emitter.completeWithError(e);
+        } catch (RuntimeException ignored) {
+            // La conexión ya estaba cerrada
+        }
+    }
+
+    private boolean unregister(Subscriber subscriber) {
+        if (!subscribers.remove(subscriber)) {
+            return false;
+        }
+        count.decrementAndGet();
+        subscriber.products.forEach(id -> removeFrom(byProduct, id, subscriber));
+        subscriber.tenants.forEach(id -> removeFrom(byTenant, id, subscriber));
+        return true;
+    }
+
+    private static void removeFrom(Map<Long, Set<Subscriber>> index, Long key, Subscriber subscriber) {
+        index.computeIfPresent(key, (k, set) -> {
+            set.remove(subscriber);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    private static final class Subscriber {
+        private final SseEmitter emitter;
+        private final Set<Long> products;
+        private final Set<Long> tenants;
+        // productId -> último cambio; acotado a bufferSize
+        private final Map<Long, CatalogChange> pending = new LinkedHashMap<>();
+        private boolean overflowed;
+        private boolean queued;
+        private boolean ping;
+        // Envío en curso (sólo uno por suscriptor) y su inicio, para send-timeout
+        private boolean sending;
+        private volatile long sendStartedAt;
+        private volatile boolean timedOut;
+
+        Subscriber(SseEmitter emitter, Set<Long> products, Set<Long> tenants) {
+            this.emitter = emitter;
+            this.products = products;
+            this.tenants = tenants;
+        }
+    }
+}
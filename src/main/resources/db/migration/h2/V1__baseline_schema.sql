@@ -0,0 +1,61 @@
+-- Esquema inicial tal como lo generaba hibernate ddl-auto=update
+
+CREATE TABLE roles (
+    id   BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    name VARCHAR(255) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_roles_name UNIQUE (name)
+);
+
+CREATE TABLE tenants (
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    name        VARCHAR(255) NOT NULL,
+    description VARCHAR(255),
+    created_at  TIMESTAMP(6) WITH TIME ZONE,
+    created_by  VARCHAR(255),
+    updated_at  TIMESTAMP(6) WITH TIME ZONE,
+    updated_by  VARCHAR(255),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_tenants_name UNIQUE (name)
+);
+
+CREATE TABLE users (
+    id         BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    email      VARCHAR(255) NOT NULL,
+    password   VARCHAR(255) NOT NULL,
+    full_name  VARCHAR(255),
+    tenant_id  BIGINT,
+    created_at TIMESTAMP(6) WITH TIME ZONE,
+    created_by VARCHAR(255),
+    updated_at TIMESTAMP(6) WITH TIME ZONE,
+    updated_by VARCHAR(255),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_users_email UNIQUE (email),
+    CONSTRAINT fk_users_tenant FOREIGN KEY (tenant_id) REFERENCES tenants (id)
+);
+
+CREATE TABLE user_roles (
+    user_id BIGINT NOT NULL,
+    role_id BIGINT NOT NULL,
+    PRIMARY KEY (role_id, user_id),
+    CONSTRAINT fk_user_roles_user FOREIGN KEY (user_id) REFERENCES users (id),
+    CONSTRAINT fk_user_roles_role FOREIGN KEY (role_id) REFERENCES roles (id)
+);
+
+CREATE TABLE product (
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    name        VARCHAR(255),
+    description VARCHAR(1000),
+    price       NUMERIC(38, 2),
+    stock       INTEGER,
+    image_url   VARCHAR(255),
+    tenant_id   BIGINT,
+    seller_id   BIGINT,
+    created_at  TIMESTAMP(6) WITH TIME ZONE,
+    created_by  VARCHAR(255),
+    updated_at  TIMESTAMP(6) WITH TIME ZONE,
+    updated_by  VARCHAR(255),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_product_tenant FOREIGN KEY (tenant_id) REFERENCES tenants (id),
+    CONSTRAINT fk_product_seller FOREIGN KEY (seller_id) REFERENCES users (id)
+);
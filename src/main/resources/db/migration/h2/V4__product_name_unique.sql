@@ -0,0 +1,4 @@
+-- La unicidad del nombre pasa a garantizarla la BD: sustituye al índice no único
+-- y elimina la consulta previa de duplicados en altas y modificaciones
+DROP INDEX idx_product_name_normalized;
+ALTER TABLE product ADD CONSTRAINT uk_product_name_normalized UNIQUE (name_normalized);
@@ -0,0 +1,2 @@
+-- Versión para bloqueo optimista (@Version): ETag / If-Match en las modificaciones de producto
+ALTER TABLE product ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
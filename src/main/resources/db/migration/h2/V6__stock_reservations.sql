@@ -0,0 +1,23 @@
+-- Unidades arrendadas por los contadores flash sale (ver FlashSaleStock)
+ALTER TABLE product ADD COLUMN stock_leased INTEGER DEFAULT 0 NOT NULL;
+
+CREATE SEQUENCE stock_reservation_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE stock_reservation (
+    id          BIGINT NOT NULL,
+    product_id  BIGINT NOT NULL,
+    user_id     BIGINT,
+    quantity    INTEGER NOT NULL,
+    status      VARCHAR(20) NOT NULL,
+    flash_sale  BOOLEAN NOT NULL,
+    expires_at  TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    created_at  TIMESTAMP(6) WITH TIME ZONE,
+    created_by  VARCHAR(255),
+    updated_at  TIMESTAMP(6) WITH TIME ZONE,
+    updated_by  VARCHAR(255),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_stock_reservation_product FOREIGN KEY (product_id) REFERENCES product (id) ON DELETE CASCADE
+);
+
+-- Barrido de reservas caducadas: WHERE status = 'RESERVED' AND expires_at < ?
+CREATE INDEX idx_stock_reservation_status_expires ON stock_reservation (status, expires_at);
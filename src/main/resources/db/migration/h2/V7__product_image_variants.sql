@@ -0,0 +1,3 @@
+-- Variantes de la imagen generadas en segundo plano (ver ImageVariantPipeline); NULL mientras no existen
+ALTER TABLE product ADD COLUMN thumbnail_url VARCHAR(255);
+ALTER TABLE product ADD COLUMN medium_url VARCHAR(255);
@@ -0,0 +1,62 @@
+-- Esquema inicial tal como lo generaba hibernate ddl-auto=update.
+-- En una BD existente spring.flyway.baseline-on-migrate marca esta versión como aplicada.
+
+CREATE TABLE roles (
+    id   BIGINT NOT NULL AUTO_INCREMENT,
+    name VARCHAR(255) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_roles_name UNIQUE (name)
+) ENGINE = InnoDB;
+
+CREATE TABLE tenants (
+    id          BIGINT NOT NULL AUTO_INCREMENT,
+    name        VARCHAR(255) NOT NULL,
+    description VARCHAR(255),
+    created_at  DATETIME(6),
+    created_by  VARCHAR(255),
+    updated_at  DATETIME(6),
+    updated_by  VARCHAR(255),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_tenants_name UNIQUE (name)
+) ENGINE = InnoDB;
+
+CREATE TABLE users (
+    id         BIGINT NOT NULL AUTO_INCREMENT,
+    email      VARCHAR(255) NOT NULL,
+    password   VARCHAR(255) NOT NULL,
+    full_name  VARCHAR(255),
+    tenant_id  BIGINT,
+    created_at DATETIME(6),
+    created_by VARCHAR(255),
+    updated_at DATETIME(6),
+    updated_by VARCHAR(255),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_users_email UNIQUE (email),
+    CONSTRAINT fk_users_tenant FOREIGN KEY (tenant_id) REFERENCES tenants (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE user_roles (
+    user_id BIGINT NOT NULL,
+    role_id BIGINT NOT NULL,
+    PRIMARY KEY (role_id, user_id),
+    CONSTRAINT fk_user_roles_user FOREIGN KEY (user_id) REFERENCES users (id),
+    CONSTRAINT fk_user_roles_role FOREIGN KEY (role_id) REFERENCES roles (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE product (
+    id          BIGINT NOT NULL AUTO_INCREMENT,
+    name        VARCHAR(255),
+    description VARCHAR(1000),
+    price       DECIMAL(38, 2),
+    stock       INTEGER,
+    image_url   VARCHAR(255),
+    tenant_id   BIGINT,
+    seller_id   BIGINT,
+    created_at  DATETIME(6),
+    created_by  VARCHAR(255),
+    updated_at  DATETIME(6),
+    updated_by  VARCHAR(255),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_product_tenant FOREIGN KEY (tenant_id) REFERENCES tenants (id),
+    CONSTRAINT fk_product_seller FOREIGN KEY (seller_id) REFERENCES users (id)
+) ENGINE = InnoDB;
@@ -0,0 +1,19 @@
+-- Ids por secuencia (pooled, incremento 50). MySQL no tiene secuencias: Hibernate las
+-- emula con una tabla *_seq de una fila. Con baseline-on-migrate la tabla puede existir ya
+-- con el valor que Hibernate ha ido avanzando: sólo se crea la fila si falta y sólo se sube
+-- por encima del MAX(id) actual, para no chocar con filas creadas con AUTO_INCREMENT.
+CREATE TABLE IF NOT EXISTS product_seq (next_val BIGINT) ENGINE = InnoDB;
+INSERT INTO product_seq (next_val) SELECT 1 FROM DUAL WHERE NOT EXISTS (SELECT * FROM product_seq);
+UPDATE product_seq SET next_val = GREATEST(next_val, (SELECT COALESCE(MAX(id), 0) + 51 FROM product));
+
+CREATE TABLE IF NOT EXISTS roles_seq (next_val BIGINT) ENGINE = InnoDB;
+INSERT INTO roles_seq (next_val) SELECT 1 FROM DUAL WHERE NOT EXISTS (SELECT * FROM roles_seq);
+UPDATE roles_seq SET next_val = GREATEST(next_val, (SELECT COALESCE(MAX(id), 0) + 51 FROM roles));
+
+CREATE TABLE IF NOT EXISTS tenants_seq (next_val BIGINT) ENGINE = InnoDB;
+INSERT INTO tenants_seq (next_val) SELECT 1 FROM DUAL WHERE NOT EXISTS (SELECT * FROM tenants_seq);
+UPDATE tenants_seq SET next_val = GREATEST(next_val, (SELECT COALESCE(MAX(id), 0) + 51 FROM tenants));
+
+CREATE TABLE IF NOT EXISTS users_seq (next_val BIGINT) ENGINE = InnoDB;
+INSERT INTO users_seq (next_val) SELECT 1 FROM DUAL WHERE NOT EXISTS (SELECT * FROM users_seq);
+UPDATE users_seq SET next_val = GREATEST(next_val, (SELECT COALESCE(MAX(id), 0) + 51 FROM users));
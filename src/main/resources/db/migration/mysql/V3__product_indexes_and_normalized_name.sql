@@ -0,0 +1,16 @@
+-- Nombre normalizado (minúsculas, sin espacios extremos) para búsquedas sin distinguir mayúsculas
+ALTER TABLE product ADD COLUMN name_normalized VARCHAR(255);
+UPDATE product SET name_normalized = LOWER(TRIM(name));
+CREATE INDEX idx_product_name_normalized ON product (name_normalized);
+
+-- Listados por tenant con stock (findAllByTenant, catálogo público por tenant)
+CREATE INDEX idx_product_tenant_stock ON product (tenant_id, stock);
+
+-- Productos de un seller en orden de id (/api/products/mine); sustituye al índice implícito de la FK
+CREATE INDEX idx_product_seller_id ON product (seller_id, id);
+
+-- COUNT(*) del listado público (stock > 0) resuelto sólo con el índice
+CREATE INDEX idx_product_stock ON product (stock);
+
+-- Paginación keyset por precio: orden (price, id) con stock incluido para filtrar sin ir a la tabla
+CREATE INDEX idx_product_price_id ON product (price, id, stock);
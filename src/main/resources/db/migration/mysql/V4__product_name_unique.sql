@@ -0,0 +1,6 @@
+-- La unicidad del nombre pasa a garantizarla la BD: sustituye al índice no único
+-- y elimina la consulta previa de duplicados en altas y modificaciones.
+-- Falla si ya hay nombres duplicados: hay que resolverlos antes de migrar.
+ALTER TABLE product
+    DROP INDEX idx_product_name_normalized,
+    ADD CONSTRAINT uk_product_name_normalized UNIQUE (name_normalized);
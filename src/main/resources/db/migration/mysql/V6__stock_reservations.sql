@@ -0,0 +1,25 @@
+-- Unidades arrendadas por los contadores flash sale (ver FlashSaleStock)
+ALTER TABLE product ADD COLUMN stock_leased INTEGER NOT NULL DEFAULT 0;
+
+CREATE TABLE IF NOT EXISTS stock_reservation_seq (next_val BIGINT) ENGINE = InnoDB;
+DELETE FROM stock_reservation_seq;
+INSERT INTO stock_reservation_seq VALUES (1);
+
+CREATE TABLE stock_reservation (
+    id          BIGINT NOT NULL,
+    product_id  BIGINT NOT NULL,
+    user_id     BIGINT,
+    quantity    INTEGER NOT NULL,
+    status      VARCHAR(20) NOT NULL,
+    flash_sale  BIT NOT NULL,
+    expires_at  DATETIME(6) NOT NULL,
+    created_at  DATETIME(6),
+    created_by  VARCHAR(255),
+    updated_at  DATETIME(6),
+    updated_by  VARCHAR(255),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_stock_reservation_product FOREIGN KEY (product_id) REFERENCES product (id) ON DELETE CASCADE
+) ENGINE = InnoDB;
+
+-- Barrido de reservas caducadas: WHERE status = 'RESERVED' AND expires_at < ?
+CREATE INDEX idx_stock_reservation_status_expires ON stock_reservation (status, expires_at);
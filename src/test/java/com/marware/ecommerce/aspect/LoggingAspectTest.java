@@ -1,9 +1,16 @@
 package com.marware.ecommerce.aspect;
 
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.marware.ecommerce.exception.EntityNotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.Signature;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
 
 import static org.mockito.Mockito.*;
 import static org.junit.jupiter.api.Assertions.*;
@@ -13,10 +20,12 @@ class LoggingAspectTest {
     private LoggingAspect aspect;
     private ProceedingJoinPoint pjp;
     private Signature signature;
+    private SimpleMeterRegistry registry;
 
     @BeforeEach
     void setUp() {
-        aspect = new LoggingAspect();
+        registry = new SimpleMeterRegistry();
+        aspect = new LoggingAspect(registry);
         pjp = mock(ProceedingJoinPoint.class);
         signature = mock(Signature.class);
     }
@@ -37,6 +46,10 @@ class LoggingAspectTest {
         // 4) Verificaciones
         assertEquals("¡OK!", resultado);
         verify(pjp).proceed();
+        assertEquals(1, registry.get(LoggingAspect.LATENCY_METRIC)
+                .tag("method", "MyClass.myMethod(arg)")
+                .tag("outcome", "success")
+                .timer().count());
     }
 
     @Test
@@ -53,4 +66,28 @@ class LoggingAspectTest {
         });
         assertSame(fallo, lanzada);
     }
-}
\ No newline at end of file
+
+    @Test
+    void cuandoProceedLanzaUn404_entoncesNoSeRegistraComoError() throws Throwable {
+        when(pjp.getSignature()).thenReturn(signature);
+        when(signature.toShortString()).thenReturn("ProductService.getProductById(..)");
+        when(pjp.proceed()).thenThrow(new EntityNotFoundException("Product", 1L))
+                .thenThrow(new IllegalStateException("db down"));
+
+        Logger logger = (Logger) LoggerFactory.getLogger(LoggingAspect.class);
+        ListAppender<ILoggingEvent> appender = new ListAppender<>();
+        appender.start();
+        logger.addAppender(appender);
+        try {
+            assertThrows(EntityNotFoundException.class, () -> aspect.logExecution(pjp));
+            assertThrows(IllegalStateException.class, () -> aspect.logExecution(pjp));
+        } finally {
+            logger.detachAppender(appender);
+        }
+
+        // Sólo el fallo inesperado llega a ERROR
+        assertEquals(1, appender.list.stream().filter(event -> event.getLevel() == Level.ERROR).count());
+        assertTrue(appender.list.stream().noneMatch(event -> event.getLevel() == Level.ERROR
+                && event.getFormattedMessage().contains("no encontrado")));
+    }
+}
@@ -0,0 +1,73 @@
+package com.marware.ecommerce.cache;
+
+import com.marware.ecommerce.event.ProductChangedEvent;
+import com.marware.ecommerce.event.ProductSnapshot;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductIdFilterTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private ProductIdFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new ProductIdFilter(meterRegistry, 1000, 0.01);
+    }
+
+    @Test
+    void mightExist_isTrueForEveryIdUntilTheFirstLoad() {
+        assertThat(filter.mightExist(42L)).isTrue();
+    }
+
+    @Test
+    void mightExist_rejectsIdsThatWereNeverLoadedOrCreated() {
+        filter.beginRebuild();
+        LongStream.rangeClosed(1, 5000).forEach(id -> filter.accept(product(id)));
+        filter.finishRebuild();
+        filter.apply(ProductChangedEvent.created(product(9_000_000L)));
+
+        assertThat(LongStream.rangeClosed(1, 5000).allMatch(filter::mightExist)).isTrue();
+        assertThat(filter.mightExist(9_000_000L)).isTrue();
+
+        long rejected = LongStream.rangeClosed(10_000, 20_000).filter(id -> !filter.mightExist(id)).count();
+        // Escalable: 5x la capacidad inicial y la tasa de falsos positivos sigue por debajo de 2 * fpp
+        assertThat(rejected).isGreaterThan(9_800);
+        assertThat(meterRegistry.counter(ProductIdFilter.REJECTIONS_METRIC).count()).isEqualTo(rejected);
+    }
+
+    @Test
+    void apply_keepsDeletedIdsAsPossibleUntilTheNextRebuild() {
+        filter.beginRebuild();
+        filter.accept(product(1L));
+        filter.finishRebuild();
+
+        filter.apply(ProductChangedEvent.deleted(product(1L)));
+        assertThat(filter.mightExist(1L)).isTrue();
+
+        filter.beginRebuild();
+        filter.finishRebuild();
+        assertThat(filter.mightExist(1L)).isFalse();
+    }
+
+    @Test
+    void bloomFilter_growsInStagesWithoutFalseNegatives() {
+        BloomFilter bloom = new BloomFilter(100, 0.01);
+        LongStream.range(0, 10_000).forEach(bloom::add);
+
+        assertThat(bloom.stageCount()).isGreaterThan(1);
+        assertThat(LongStream.range(0, 10_000).allMatch(bloom::mightContain)).isTrue();
+        assertThat(LongStream.range(1_000_000, 1_100_000).filter(bloom::mightContain).count()).isLessThan(2_000);
+    }
+
+    private static ProductSnapshot product(long id) {
+        return new ProductSnapshot(id, 1L, 1L, "Producto " + id, null, BigDecimal.ONE, 1);
+    }
+}
@@ -0,0 +1,281 @@
+package com.marware.ecommerce.cache;
+
+import com.marware.ecommerce.dto.ProductResponse;
+import com.marware.ecommerce.event.ProductChangedEvent;
+import com.marware.ecommerce.event.ProductSnapshot;
+import com.marware.ecommerce.exception.CatalogTimeoutException;
+import com.marware.ecommerce.exception.EntityNotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PublicCatalogCacheTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private PublicCatalogCache cache;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        cache = cache(Duration.ZERO, Duration.ofSeconds(5));
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    void getProduct_loadsOnceAndCountsHits() {
+        cache.getProduct(1L, this::load);
+        cache.getProduct(1L, this::load);
+
+        assertThat(loads).hasValue(1);
+        assertThat(cache.detailStats().hitCount()).isEqualTo(1);
+        assertThat(cache.detailStats().missCount()).isEqualTo(1);
+    }
+
+    @Test
+    void productWrite_evictsOnlyAffectedPages() {
+        cache.getPage("mesa", PageRequest.of(0, 10), () -> page(1L));
+        cache.getPage("silla", PageRequest.of(0, 10), () -> page(2L));
+        cache.getProduct(1L, this::load);
+
+        ProductSnapshot before = snapshot(1L, "Mesa roble", 3);
+        ProductSnapshot after = snapshot(1L, "Mesa roble", 2);
+        cache.onProductChanged(ProductChangedEvent.updated(before, after));
+
+        AtomicInteger pageLoads = new AtomicInteger();
+        cache.getPage("mesa", PageRequest.of(0, 10), () -> { pageLoads.incrementAndGet(); return page(1L); });
+        cache.getPage("silla", PageRequest.of(0, 10), () -> { pageLoads.incrementAndGet(); return page(2L); });
+        cache.getProduct(1L, this::load);
+
+        assertThat(pageLoads).hasValue(1);
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void newVisibleProduct_evictsPagesWhoseQueryMatches() {
+        cache.getPage("silla", PageRequest.of(0, 10), () -> page(2L));
+        cache.getPage(null, PageRequest.of(0, 10), () -> page(2L));
+        cache.getPage("mesa", PageRequest.of(0, 10), () -> page());
+
+        cache.onProductChanged(ProductChangedEvent.created(snapshot(3L, "Silla plegable", 1)));
+
+        AtomicInteger pageLoads = new AtomicInteger();
+        cache.getPage("silla", PageRequest.of(0, 10), () -> { pageLoads.incrementAndGet(); return page(2L, 3L); });
+        cache.getPage(null, PageRequest.of(0, 10), () -> { pageLoads.incrementAndGet(); return page(2L, 3L); });
+        cache.getPage("mesa", PageRequest.of(0, 10), () -> { pageLoads.incrementAndGet(); return page(); });
+
+        assertThat(pageLoads).hasValue(2);
+    }
+
+    @Test
+    void stockOnlyWrite_keepsBrowsePagesWithoutTheProduct() {
+        cache.getPage(null, PageRequest.of(0, 10), () -> page(2L));
+        cache.getPage(null, PageRequest.of(1, 10), () -> page(1L));
+
+        cache.onProductChanged(ProductChangedEvent.updated(snapshot(1L, "Mesa roble", 3), snapshot(1L, "Mesa roble", 2)));
+
+        AtomicInteger pageLoads = new AtomicInteger();
+        cache.getPage(null, PageRequest.of(0, 10), () -> { pageLoads.incrementAndGet(); return page(2L); });
+        cache.getPage(null, PageRequest.of(1, 10), () -> { pageLoads.incrementAndGet(); return page(1L); });
+
+        assertThat(pageLoads).hasValue(1);
+    }
+
+    @Test
+    void productLeavingCatalog_evictsEveryPageOfQueriesItMatched() {
+        cache.getPage("mesa", PageRequest.of(0, 10), () -> page(1L));
+        cache.getPage("mesa", PageRequest.of(1, 10), () -> page(5L));
+        cache.getPage(null, PageRequest.of(3, 10), () -> page(7L));
+        cache.getPage("silla", PageRequest.of(0, 10), () -> page(2L));
+
+        cache.onProductChanged(ProductChangedEvent.updated(snapshot(1L, "Mesa roble", 1), snapshot(1L, "Mesa roble", 0)));
+
+        AtomicInteger pageLoads = new AtomicInteger();
+        cache.getPage("mesa", PageRequest.of(0, 10), () -> { pageLoads.incrementAndGet(); return page(); });
+        cache.getPage("mesa", PageRequest.of(1, 10), () -> { pageLoads.incrementAndGet(); return page(); });
+        cache.getPage(null, PageRequest.of(3, 10), () -> { pageLoads.incrementAndGet(); return page(); });
+        cache.getPage("silla", PageRequest.of(0, 10), () -> { pageLoads.incrementAndGet(); return page(2L); });
+
+        assertThat(pageLoads).hasValue(3);
+    }
+
+    @Test
+    void getPage_concurrentIdenticalRequestsShareOneLoad() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger pageLoads = new AtomicInteger();
+        Supplier<Page<ProductResponse>> slowLoader = () -> {
+            pageLoads.incrementAndGet();
+            loading.countDown();
+            await(release);
+            return page(1L);
+        };
+
+        AtomicReference<Page<ProductResponse>> leaderResult = new AtomicReference<>();
+        Thread leader = new Thread(() -> leaderResult.set(cache.getPage("mesa", PageRequest.of(0, 10), slowLoader)));
+        leader.start();
+        await(loading);
+        List<AtomicReference<Page<ProductResponse>>> followerResults = List.of(new AtomicReference<>(), new AtomicReference<>());
+        List<Thread> followers = followerResults.stream()
+                .map(result -> startBlocked(() -> result.set(cache.getPage("mesa", PageRequest.of(0, 10), slowLoader))))
+                .toList();
+        release.countDown();
+
+        leader.join(5000);
+        for (Thread follower : followers) {
+            follower.join(5000);
+        }
+        assertThat(pageLoads).hasValue(1);
+        assertThat(followerResults).allSatisfy(result -> assertThat(result.get()).isSameAs(leaderResult.get()));
+    }
+
+    @Test
+    void getProduct_followersGetTheLeadersErrorOrTimeOut() throws Exception {
+        cache = cache(Duration.ZERO, Duration.ofMillis(200));
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Thread leader = new Thread(() -> {
+            try {
+                cache.getProduct(1L, id -> {
+                    loading.countDown();
+                    await(release);
+                    throw new EntityNotFoundException("Public Product", id);
+                });
+            } catch (EntityNotFoundException expected) {
+                // El líder recibe su propia excepción
+            }
+        });
+        leader.start();
+        await(loading);
+        assertThatThrownBy(() -> cache.getProduct(1L, this::load)).isInstanceOf(CatalogTimeoutException.class);
+
+        AtomicReference<Throwable> followerError = new AtomicReference<>();
+        Thread follower = startBlocked(() -> {
+            try {
+                cache.getProduct(1L, this::load);
+            } catch (RuntimeException ex) {
+                followerError.set(ex);
+            }
+        });
+        release.countDown();
+        leader.join(5000);
+        follower.join(5000);
+
+        assertThat(followerError.get()).isInstanceOf(EntityNotFoundException.class);
+        assertThat(loads).hasValue(0);
+    }
+
+    @Test
+    void staleWhileRevalidate_servesStaleValueAndRefreshesOnce() {
+        cache = cache(Duration.ofMinutes(1), Duration.ofSeconds(5));
+        cache.getPage("mesa", PageRequest.of(0, 10), () -> page(1L));
+
+        now.addAndGet(Duration.ofSeconds(61).toNanos());
+        AtomicInteger refreshes = new AtomicInteger();
+        Page<ProductResponse> served = cache.getPage("mesa", PageRequest.of(0, 10),
+                () -> { refreshes.incrementAndGet(); return page(1L, 2L); });
+
+        assertThat(served.getContent()).extracting(ProductResponse::getId).containsExactly(1L);
+        assertThat(refreshes).hasValue(1);
+        assertThat(cache.getPage("mesa", PageRequest.of(0, 10), () -> page()).getContent())
+                .extracting(ProductResponse::getId).containsExactly(1L, 2L);
+
+        // Pasado ttl + stale-while-revalidate la entrada caduca y se carga en primer plano
+        now.addAndGet(Duration.ofMinutes(3).toNanos());
+        assertThat(cache.getPage("mesa", PageRequest.of(0, 10), () -> page(3L)).getContent())
+                .extracting(ProductResponse::getId).containsExactly(3L);
+    }
+
+    @Test
+    void staleWhileRevalidate_refreshDoesNotResurrectInvalidatedPage() {
+        cache = cache(Duration.ofMinutes(1), Duration.ofSeconds(5));
+        cache.getPage("mesa", PageRequest.of(0, 10), () -> page(1L));
+        now.addAndGet(Duration.ofSeconds(61).toNanos());
+
+        cache.getPage("mesa", PageRequest.of(0, 10), () -> {
+            cache.onProductChanged(ProductChangedEvent.deleted(snapshot(1L, "Mesa roble", 1)));
+            return page(1L);
+        });
+
+        AtomicInteger pageLoads = new AtomicInteger();
+        cache.getPage("mesa", PageRequest.of(0, 10), () -> { pageLoads.incrementAndGet(); return page(); });
+        assertThat(pageLoads).hasValue(1);
+    }
+
+    @Test
+    void writeCommittedWhileAPageLoads_isNotCachedStale() {
+        // La lectura ve el stock de antes; la escritura confirma e invalida antes de que la página se publique
+        Page<ProductResponse> served = cache.getPage("mesa", PageRequest.of(0, 10), () -> {
+            Page<ProductResponse> read = page(1L);
+            cache.onProductChanged(ProductChangedEvent.updated(snapshot(1L, "Mesa roble", 3),
+                    snapshot(1L, "Mesa roble", 2)));
+            return read;
+        });
+        assertThat(served.getContent()).extracting(ProductResponse::getId).containsExactly(1L);
+
+        AtomicInteger pageLoads = new AtomicInteger();
+        cache.getPage("mesa", PageRequest.of(0, 10), () -> { pageLoads.incrementAndGet(); return page(1L); });
+        cache.getPage("mesa", PageRequest.of(0, 10), () -> { pageLoads.incrementAndGet(); return page(1L); });
+
+        assertThat(pageLoads).hasValue(1);
+    }
+
+    // Ticker manual y recarga en el mismo hilo para que el test sea determinista
+    private PublicCatalogCache cache(Duration staleWhileRevalidate, Duration coalesceTimeout) {
+        return new PublicCatalogCache(new SimpleMeterRegistry(),
+                100, Duration.ofMinutes(1), staleWhileRevalidate,
+                100, Duration.ofMinutes(1), staleWhileRevalidate,
+                coalesceTimeout, now::get, Runnable::run);
+    }
+
+    // Arranca un hilo y espera a que quede bloqueado esperando la carga en curso
+    private static Thread startBlocked(Runnable action) {
+        Thread thread = new Thread(action);
+        thread.start();
+        while (thread.isAlive() && thread.getState() != Thread.State.TIMED_WAITING) {
+            Thread.onSpinWait();
+        }
+        return thread;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private ProductResponse load(Long id) {
+        loads.incrementAndGet();
+        return ProductResponse.builder().id(id).name("P" + id).build();
+    }
+
+    private static Page<ProductResponse> page(Long... ids) {
+        List<ProductResponse> content = java.util.Arrays.stream(ids)
+                .map(id -> ProductResponse.builder().id(id).build())
+                .toList();
+        return new PageImpl<>(content, PageRequest.of(0, 10), content.size());
+    }
+
+    private static ProductSnapshot snapshot(Long id, String name, int stock) {
+        return new ProductSnapshot(id, 1L, 1L, name, null, BigDecimal.ONE, stock);
+    }
+}
@@ -0,0 +1,111 @@
+package com.marware.ecommerce.config;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+// Dos instancias H2 en memoria: cada una se identifica por la fila de la tabla "node"
+class ReplicaRoutingDataSourceTest {
+
+    private ReplicaRoutingDataSource routing;
+    private JdbcTemplate jdbc;
+    private TransactionTemplate readTx;
+    private TransactionTemplate writeTx;
+    private volatile boolean replicaDown;
+
+    @BeforeEach
+    void setUp() {
+        JdbcDataSource primary = h2("primary");
+        // Réplica "caíble" para simular la pérdida de conexión
+        DataSource replica = new DelegatingDataSource(h2("replica")) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                if (replicaDown) throw new SQLException("replica down");
+                return super.getConnection();
+            }
+        };
+
+        routing = new ReplicaRoutingDataSource(primary, List.of(replica), Duration.ofHours(1), Duration.ofSeconds(30));
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(routing);
+        jdbc = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager txManager = new DataSourceTransactionManager(dataSource);
+        readTx = new TransactionTemplate(txManager);
+        readTx.setReadOnly(true);
+        writeTx = new TransactionTemplate(txManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        routing.close();
+    }
+
+    @Test
+    void readOnlyTransactions_goToReplica_andWritesToPrimary() {
+        assertThat(readNode()).isEqualTo("replica");
+        assertThat(writeNode()).isEqualTo("primary");
+        assertThat(node()).isEqualTo("primary");
+    }
+
+    @Test
+    void unhealthyReplica_fallsBackToPrimary() {
+        replicaDown = true;
+        routing.checkReplicas();
+
+        assertThat(routing.healthyReplicas()).isEmpty();
+        assertThat(readNode()).isEqualTo("primary");
+    }
+
+    @Test
+    void readYourWrites_keepsRecentWriterOnPrimary() {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("seller@example.com", null, List.of()));
+        assertThat(readNode()).isEqualTo("replica");
+
+        writeTx.executeWithoutResult(s -> jdbc.update("UPDATE node SET name = name"));
+
+        assertThat(readNode()).isEqualTo("primary");
+
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("other@example.com", null, List.of()));
+        assertThat(readNode()).isEqualTo("replica");
+    }
+
+    private String readNode() {
+        return readTx.execute(status -> node());
+    }
+
+    private String writeNode() {
+        return writeTx.execute(status -> node());
+    }
+
+    private String node() {
+        return jdbc.queryForObject("SELECT name FROM node", String.class);
+    }
+
+    private static JdbcDataSource h2(String name) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:routing-" + name + "-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+        dataSource.setUser("sa");
+        JdbcTemplate admin = new JdbcTemplate(dataSource);
+        admin.execute("CREATE TABLE node (name VARCHAR(20))");
+        admin.update("INSERT INTO node VALUES (?)", name);
+        return dataSource;
+    }
+}
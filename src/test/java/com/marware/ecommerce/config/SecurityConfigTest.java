@@ -0,0 +1,47 @@
+package com.marware.ecommerce.config;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Sin token: el catálogo público se lee entero (listado, detalle, sugerencias
+ * y stream); el resto de la API sigue pidiendo autenticación.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class SecurityConfigTest {
+
+    @Autowired MockMvc mvc;
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "/public/products?page=0&size=10",
+            "/public/products?after=&size=10",
+            "/public/products/999",
+            "/public/products/suggest?prefix=la",
+            "/public/products/stream?tenants=1"
+    })
+    void publicCatalog_isReadableAnonymously(String url) throws Exception {
+        int status = mvc.perform(get(url)).andReturn().getResponse().getStatus();
+
+        assertThat(status).isNotIn(401, 403);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "/api/products/paged?page=0&size=10",
+            "/api/products/mine"
+    })
+    void sellerApi_requiresAuthentication(String url) throws Exception {
+        int status = mvc.perform(get(url)).andReturn().getResponse().getStatus();
+
+        assertThat(status).isIn(401, 403);
+    }
+}
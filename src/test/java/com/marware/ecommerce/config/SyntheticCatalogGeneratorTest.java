@@ -0,0 +1,82 @@
+package com.marware.ecommerce.config;
+
+import com.marware.ecommerce.model.Role;
+import com.marware.ecommerce.model.Tenant;
+import com.marware.ecommerce.repository.ProductRepository;
+import com.marware.ecommerce.repository.RoleRepository;
+import com.marware.ecommerce.repository.TenantRepository;
+import com.marware.ecommerce.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.NoOpPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.assertj.core.api.Assertions.*;
+
+// Sin transacción de test: los hilos del generador usan sus propias conexiones
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({SyntheticCatalogGenerator.class, SyntheticCatalogGeneratorTest.Config.class})
+@TestPropertySource(properties = {
+        "app.seed.synthetic.tenants=3",
+        "app.seed.synthetic.sellers-per-tenant=4",
+        "app.seed.synthetic.products=2500",
+        "app.seed.synthetic.batch-size=200",
+        "app.seed.synthetic.threads=3",
+        "app.seed.synthetic.vocabulary-size=500",
+        "app.query-budget.enabled=false"
+})
+class SyntheticCatalogGeneratorTest {
+
+    @TestConfiguration
+    static class Config {
+        @Bean
+        PasswordEncoder passwordEncoder() {
+            return NoOpPasswordEncoder.getInstance();
+        }
+    }
+
+    @Autowired SyntheticCatalogGenerator generator;
+    @Autowired ProductRepository productRepo;
+    @Autowired UserRepository userRepo;
+    @Autowired TenantRepository tenantRepo;
+    @Autowired RoleRepository roleRepo;
+    @Autowired JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void cleanUp() {
+        productRepo.deleteAllInBatch();
+        jdbcTemplate.update("DELETE FROM user_roles");
+        userRepo.deleteAllInBatch();
+        tenantRepo.deleteAllInBatch();
+        roleRepo.deleteAllInBatch();
+    }
+
+    @Test
+    void generate_createsConfiguredCatalogSplitAcrossTenants() {
+        Role sellerRole = roleRepo.save(new Role(null, "ROLE_SELLER"));
+
+        long inserted = generator.generate(sellerRole);
+
+        assertThat(inserted).isEqualTo(2500);
+        assertThat(productRepo.count()).isEqualTo(2500);
+        assertThat(userRepo.count()).isEqualTo(12);
+        for (Tenant tenant : tenantRepo.findAll()) {
+            Long perTenant = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM product WHERE tenant_id = ?", Long.class, tenant.getId());
+            assertThat(perTenant).isBetween(833L, 834L);
+        }
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM product WHERE seller_id IS NULL OR LENGTH(description) > 1000", Long.class))
+                .isZero();
+    }
+}
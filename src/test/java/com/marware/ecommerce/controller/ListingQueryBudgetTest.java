@@ -0,0 +1,94 @@
+package com.marware.ecommerce.controller;
+
+import com.marware.ecommerce.model.Product;
+import com.marware.ecommerce.model.Tenant;
+import com.marware.ecommerce.model.User;
+import com.marware.ecommerce.repository.ProductRepository;
+import com.marware.ecommerce.repository.TenantRepository;
+import com.marware.ecommerce.repository.UserRepository;
+import com.marware.ecommerce.security.AuthenticatedUser;
+import com.marware.ecommerce.security.RoleConstants;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.authentication;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Los listados pasan por el interceptor de QueryBudgetConfig con el
+ * presupuesto de src/test/resources (max-statements=3, fail-on-exceed=true):
+ * una sentencia de más hace fallar la petición con 500.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+class ListingQueryBudgetTest {
+
+    @Autowired MockMvc mvc;
+    @Autowired ProductRepository productRepo;
+    @Autowired UserRepository userRepo;
+    @Autowired TenantRepository tenantRepo;
+    @Autowired EntityManager em;
+
+    private User seller;
+
+    @BeforeEach
+    void setUp() {
+        Tenant tenant = tenantRepo.save(new Tenant(null, "Budget Store", "Desc"));
+        // Un vendedor por producto: un N+1 sobre seller o tenant superaría el presupuesto
+        for (int i = 0; i < 5; i++) {
+            seller = userRepo.save(User.builder()
+                    .email("budget" + i + "@store")
+                    .password("p")
+                    .fullName("Seller " + i)
+                    .tenant(tenant)
+                    .build());
+            productRepo.save(Product.builder()
+                    .name("Lámpara " + i)
+                    .description("Lámpara de mesa")
+                    .price(BigDecimal.TEN)
+                    .stock(i)
+                    .seller(seller)
+                    .tenant(tenant)
+                    .build());
+        }
+        // Sin escrituras pendientes: el auto-flush contaría como sentencias de la petición
+        em.flush();
+        em.clear();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "/api/products",
+            "/api/products/paged?page=0&size=10",
+            "/api/products/paged?page=1&size=2&sort=price,asc",
+            "/api/products/search?query=lampara&page=0&size=10",
+            "/api/products/search?query=lampara&page=0&size=10&sort=price,desc",
+            "/api/products/mine",
+            "/public/products?page=0&size=10",
+            "/public/products?query=lampara&page=0&size=10",
+            "/public/products?minPrice=5&facets=true&page=0&size=10"
+    })
+    void listing_staysWithinTheStatementBudget(String url) throws Exception {
+        mvc.perform(get(url).with(authentication(asSeller())))
+                .andExpect(status().isOk());
+    }
+
+    private UsernamePasswordAuthenticationToken asSeller() {
+        List<SimpleGrantedAuthority> authorities = List.of(new SimpleGrantedAuthority(RoleConstants.ROLE_SELLER));
+        return new UsernamePasswordAuthenticationToken(AuthenticatedUser.from(seller), null, authorities);
+    }
+}
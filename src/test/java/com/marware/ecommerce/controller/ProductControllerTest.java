@@ -1,6 +1,7 @@
 package com.marware.ecommerce.controller;
 
 import com.marware.ecommerce.dto.ProductResponse;
+import com.marware.ecommerce.service.ProductImportService;
 import com.marware.ecommerce.service.ProductService;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
@@ -23,6 +24,7 @@ class ProductControllerTest {
 
     @Autowired MockMvc mvc;
     @MockBean ProductService productService;
+    @MockBean ProductImportService productImportService;
 
     @Test
     void createProduct_returnsCreatedDto() throws Exception {
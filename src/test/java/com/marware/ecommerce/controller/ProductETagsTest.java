@@ -0,0 +1,47 @@
+package com.marware.ecommerce.controller;
+
+import com.marware.ecommerce.dto.ProductResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductETagsTest {
+
+    @Test
+    void productETag_isQuotedVersion_andRoundTripsThroughIfMatch() {
+        String etag = ProductETags.of(ProductResponse.builder().id(1L).version(3L).build());
+
+        assertThat(etag).isEqualTo("\"3\"");
+        assertThat(ProductETags.expectedVersion(etag)).isEqualTo(3L);
+    }
+
+    @Test
+    void expectedVersion_withoutPrecondition_isNull_andMalformedNeverMatches() {
+        assertThat(ProductETags.expectedVersion(null)).isNull();
+        assertThat(ProductETags.expectedVersion("*")).isNull();
+        assertThat(ProductETags.expectedVersion("W/\"3\"")).isEqualTo(ProductETags.NO_MATCH);
+        assertThat(ProductETags.expectedVersion("\"abc\"")).isEqualTo(ProductETags.NO_MATCH);
+    }
+
+    @Test
+    void pageETag_changesWhenAnyProductVersionChanges() {
+        List<ProductResponse> before = List.of(product(1L, 0L), product(2L, 4L));
+        List<ProductResponse> after = List.of(product(1L, 0L), product(2L, 5L));
+        PageRequest pageable = PageRequest.of(0, 2);
+
+        String etag = ProductETags.of(new PageImpl<>(before, pageable, 10));
+
+        assertThat(etag).startsWith("W/");
+        assertThat(ProductETags.of(new PageImpl<>(before, pageable, 10))).isEqualTo(etag);
+        assertThat(ProductETags.of(new PageImpl<>(after, pageable, 10))).isNotEqualTo(etag);
+        assertThat(ProductETags.of(new PageImpl<>(before, pageable, 11))).isNotEqualTo(etag);
+    }
+
+    private static ProductResponse product(Long id, Long version) {
+        return ProductResponse.builder().id(id).version(version).build();
+    }
+}
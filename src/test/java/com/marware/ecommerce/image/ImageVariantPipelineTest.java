@@ -0,0 +1,159 @@
+package com.marware.ecommerce.image;
+
+import com.marware.ecommerce.event.ProductImageUploadedEvent;
+import com.marware.ecommerce.repository.ProductRepository;
+import com.marware.ecommerce.service.FileService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ImageVariantPipelineTest {
+
+    private static final String IMAGE_URL = "https://bucket.s3.us-east-1.amazonaws.com/uploads/a_pic.png";
+
+    private final FileService fileService = mock(FileService.class);
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final ScheduledExecutorService retries = mock(ScheduledExecutorService.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        byte[] png = png(1200, 600);
+        when(fileService.openFile(IMAGE_URL)).thenAnswer(invocation -> new ByteArrayInputStream(png));
+        when(fileService.uploadFile(any(byte[].class), anyString(), anyString()))
+                .thenAnswer(invocation -> "https://bucket/" + invocation.getArgument(1));
+        when(productRepository.setImageVariants(anyLong(), anyString(), anyString(), anyString())).thenReturn(1);
+        when(productRepository.findSnapshotById(anyLong())).thenReturn(Optional.empty());
+    }
+
+    @Test
+    void onImageUploaded_storesThumbnailAndMediumVariants() {
+        ImageVariantPipeline pipeline = pipeline(Runnable::run);
+
+        pipeline.onImageUploaded(new ProductImageUploadedEvent(1L, IMAGE_URL));
+
+        verify(fileService).uploadFile(any(byte[].class), eq("product-1-thumb.jpg"), eq("image/jpeg"));
+        verify(fileService).uploadFile(any(byte[].class), eq("product-1-medium.jpg"), eq("image/jpeg"));
+        verify(productRepository).setImageVariants(1L, IMAGE_URL,
+                "https://bucket/product-1-thumb.jpg", "https://bucket/product-1-medium.jpg");
+        assertThat(meterRegistry.counter(ImageVariantPipeline.GENERATED_METRIC).count()).isEqualTo(1);
+        assertThat(pipeline.queued()).isZero();
+    }
+
+    @Test
+    void onImageUploaded_whenImageChangedMeanwhile_thenDeletesUploadedVariants() {
+        when(productRepository.setImageVariants(anyLong(), anyString(), anyString(), anyString())).thenReturn(0);
+        ImageVariantPipeline pipeline = pipeline(Runnable::run);
+
+        pipeline.onImageUploaded(new ProductImageUploadedEvent(1L, IMAGE_URL));
+
+        verify(fileService).deleteFile("https://bucket/product-1-thumb.jpg");
+        verify(fileService).deleteFile("https://bucket/product-1-medium.jpg");
+        assertThat(meterRegistry.counter(ImageVariantPipeline.GENERATED_METRIC).count()).isZero();
+    }
+
+    @Test
+    void onImageUploaded_whenImageCannotBeDecoded_thenVariantsPointToOriginal() {
+        when(fileService.openFile(IMAGE_URL)).thenReturn(new ByteArrayInputStream("RIFF....WEBP".getBytes()));
+        ImageVariantPipeline pipeline = pipeline(Runnable::run);
+
+        pipeline.onImageUploaded(new ProductImageUploadedEvent(1L, IMAGE_URL));
+
+        verify(fileService, never()).uploadFile(any(byte[].class), anyString(), anyString());
+        verify(productRepository).setImageVariants(1L, IMAGE_URL, IMAGE_URL, IMAGE_URL);
+    }
+
+    @Test
+    void onImageUploaded_whenLoadFails_thenRetriesWithBackoffUntilMaxAttempts() {
+        when(fileService.openFile(IMAGE_URL)).thenThrow(new RuntimeException("S3 unavailable"));
+        ImageVariantPipeline pipeline = pipeline(Runnable::run);
+        ArgumentCaptor<Runnable> retry = ArgumentCaptor.forClass(Runnable.class);
+
+        pipeline.onImageUploaded(new ProductImageUploadedEvent(1L, IMAGE_URL));
+        verify(retries).schedule(retry.capture(), eq(2000L), eq(TimeUnit.MILLISECONDS));
+        retry.getValue().run();
+        verify(retries).schedule(retry.capture(), eq(4000L), eq(TimeUnit.MILLISECONDS));
+        assertThat(pipeline.queued()).isEqualTo(1);
+        retry.getValue().run();
+
+        verify(fileService, times(3)).openFile(IMAGE_URL);
+        verifyNoMoreInteractions(retries);
+        assertThat(meterRegistry.counter(ImageVariantPipeline.FAILED_METRIC).count()).isEqualTo(1);
+        assertThat(pipeline.queued()).isZero();
+    }
+
+    @Test
+    void enqueueMissing_whenQueueIsFull_thenStopsWithoutBlocking() {
+        when(productRepository.findImagesWithoutVariants(anyLong(), any(Pageable.class))).thenReturn(List.of(
+                new ProductImageUploadedEvent(1L, IMAGE_URL),
+                new ProductImageUploadedEvent(2L, IMAGE_URL)));
+        ImageVariantPipeline pipeline = pipeline(task -> {
+            throw new RejectedExecutionException("full");
+        });
+
+        assertThat(pipeline.enqueueMissing()).isZero();
+
+        assertThat(meterRegistry.counter(ImageVariantPipeline.REJECTED_METRIC).count()).isEqualTo(1);
+        assertThat(pipeline.queued()).isZero();
+        verify(fileService, never()).openFile(anyString());
+        assertThat(pipeline.sweepCursor()).isZero();
+    }
+
+    @Test
+    void enqueueMissing_advancesCursorPastFailingImagesAndWrapsAtTheEnd() {
+        when(fileService.openFile(anyString())).thenThrow(new RuntimeException("missing object"));
+        when(productRepository.findImagesWithoutVariants(eq(0L), any(Pageable.class))).thenReturn(List.of(
+                new ProductImageUploadedEvent(1L, IMAGE_URL + "1"),
+                new ProductImageUploadedEvent(2L, IMAGE_URL + "2")));
+        when(productRepository.findImagesWithoutVariants(eq(2L), any(Pageable.class))).thenReturn(List.of(
+                new ProductImageUploadedEvent(3L, IMAGE_URL + "3")));
+        ImageVariantPipeline pipeline = pipeline(Runnable::run, 2);
+
+        assertThat(pipeline.enqueueMissing()).isEqualTo(2);
+        assertThat(pipeline.sweepCursor()).isEqualTo(2L);
+        assertThat(pipeline.enqueueMissing()).isEqualTo(1);
+        assertThat(pipeline.sweepCursor()).isZero();
+        verify(fileService).openFile(IMAGE_URL + "3");
+    }
+
+    private ImageVariantPipeline pipeline(Executor workers) {
+        return pipeline(workers, 100);
+    }
+
+    private ImageVariantPipeline pipeline(Executor workers, int sweepBatchSize) {
+        return new ImageVariantPipeline(fileService, productRepository, mock(ApplicationEventPublisher.class),
+                mock(PlatformTransactionManager.class), meterRegistry, true,
+                new ImageVariants("jpeg", 0.8f, 10_000_000), 200, 800, workers, retries,
+                3, Duration.ofSeconds(2), sweepBatchSize);
+    }
+
+    private static byte[] png(int width, int height) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "png", out);
+        return out.toByteArray();
+    }
+}
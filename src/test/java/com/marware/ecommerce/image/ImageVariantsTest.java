@@ -0,0 +1,59 @@
+package com.marware.ecommerce.image;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ImageVariantsTest {
+
+    @Test
+    void resize_fitsLongestSideAndKeepsAspectRatio() {
+        BufferedImage resized = ImageVariants.resize(new BufferedImage(1600, 900, BufferedImage.TYPE_INT_ARGB), 200);
+
+        assertThat(resized.getWidth()).isEqualTo(200);
+        assertThat(resized.getHeight()).isEqualTo(113);
+        assertThat(resized.getType()).isEqualTo(BufferedImage.TYPE_INT_RGB);
+    }
+
+    @Test
+    void resize_neverUpscales() {
+        BufferedImage resized = ImageVariants.resize(new BufferedImage(120, 80, BufferedImage.TYPE_INT_RGB), 200);
+
+        assertThat(resized.getWidth()).isEqualTo(120);
+        assertThat(resized.getHeight()).isEqualTo(80);
+    }
+
+    @Test
+    void encode_fallsBackToJpegWithoutWriterForPreferredFormat() throws IOException {
+        ImageVariants variants = new ImageVariants("no-such-format", 0.8f, 1_000_000);
+
+        byte[] encoded = variants.encode(new BufferedImage(400, 300, BufferedImage.TYPE_INT_RGB), 100);
+        BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(encoded));
+
+        assertThat(variants.contentType()).isEqualTo("image/jpeg");
+        assertThat(variants.extension()).isEqualTo("jpg");
+        assertThat(decoded.getWidth()).isEqualTo(100);
+        assertThat(decoded.getHeight()).isEqualTo(75);
+    }
+
+    @Test
+    void read_returnsNullForUnreadableOrOversizedImages() throws IOException {
+        ImageVariants variants = new ImageVariants("jpeg", 0.8f, 10_000);
+
+        assertThat(variants.read(new ByteArrayInputStream("not an image".getBytes()))).isNull();
+        assertThat(variants.read(new ByteArrayInputStream(png(200, 100)))).isNull();
+        assertThat(variants.read(new ByteArrayInputStream(png(100, 100))).getWidth()).isEqualTo(100);
+    }
+
+    private static byte[] png(int width, int height) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "png", out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,73 @@
+package com.marware.ecommerce.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+// Los planes de H2 nombran el índice elegido: si una migración lo pierde, el test falla.
+// ANALYZE confirma la transacción, así que el test gestiona sus propios datos.
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ProductIndexExplainTest {
+
+    @Autowired JdbcTemplate jdbc;
+
+    // Con la tabla vacía el optimizador no tiene estadísticas: se carga un catálogo y se analiza
+    @BeforeEach
+    void setUp() {
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 1; i <= 2000; i++) {
+            rows.add(new Object[]{i, "Producto " + i, "producto " + i, BigDecimal.valueOf(i % 500), 1 + i % 50});
+        }
+        jdbc.batchUpdate("INSERT INTO product (id, name, name_normalized, price, stock) VALUES (?, ?, ?, ?, ?)", rows);
+        jdbc.execute("ANALYZE");
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbc.update("DELETE FROM product");
+    }
+
+    @Test
+    void nameLookup_usesNormalizedNameIndex() {
+        assertThat(explain("SELECT id FROM product WHERE name_normalized = 'camiseta'"))
+                .containsIgnoringCase("UK_PRODUCT_NAME_NORMALIZED");
+    }
+
+    @Test
+    void tenantListingWithStock_usesTenantStockIndex() {
+        assertThat(explain("SELECT id FROM product WHERE tenant_id = 1 AND stock > 0"))
+                .containsIgnoringCase("IDX_PRODUCT_TENANT_STOCK");
+    }
+
+    @Test
+    void sellerListing_usesIndexLookup() {
+        // H2 puede elegir el índice implícito de la FK, equivalente para esta consulta
+        assertThat(explain("SELECT id FROM product WHERE seller_id = 1 ORDER BY id"))
+                .containsIgnoringCase("SELLER_ID = ")
+                .doesNotContainIgnoringCase("tableScan");
+    }
+
+    @Test
+    void priceKeyset_isServedInIndexOrder() {
+        String plan = explain("SELECT id FROM product WHERE stock > 0 AND price >= 10 AND (price > 10 OR (price = 10 AND id > 5)) "
+                + "ORDER BY price, id FETCH FIRST 20 ROWS ONLY");
+        assertThat(plan).containsIgnoringCase("IDX_PRODUCT_PRICE_ID");
+        assertThat(plan).containsIgnoringCase("index sorted");
+    }
+
+    private String explain(String sql) {
+        return String.join("\n", jdbc.queryForList("EXPLAIN " + sql, String.class));
+    }
+}
@@ -1,22 +1,37 @@
 package com.marware.ecommerce.repository;
 
+import com.marware.ecommerce.config.QueryBudgetConfig;
+import com.marware.ecommerce.config.StatementCountInspector;
+import com.marware.ecommerce.dto.ProductResponse;
 import com.marware.ecommerce.model.Product;
 import com.marware.ecommerce.model.Tenant;
 import com.marware.ecommerce.model.User;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.*;
 
 @DataJpaTest
+@Import(QueryBudgetConfig.class)
 class ProductRepositoryIntegrationTest {
 
     @Autowired ProductRepository productRepo;
     @Autowired UserRepository    userRepo;
     @Autowired TenantRepository  tenantRepo;
+    @Autowired TestEntityManager em;
 
     @Test
     void saveAndFindById() {
@@ -38,4 +53,164 @@ class ProductRepositoryIntegrationTest {
                 .build());
         assertThat(productRepo.findById(p.getId())).isPresent();
     }
+
+    @Test
+    void publicListingProjection_runsFixedNumberOfStatements() {
+        Tenant t = tenantRepo.save(new Tenant(null, "Store", "Desc"));
+        for (int i = 0; i < 5; i++) {
+            User u = userRepo.save(User.builder()
+                    .email("s" + i + "@y")
+                    .password("p")
+                    .fullName("Seller " + i)
+                    .tenant(t)
+                    .build());
+            productRepo.save(Product.builder()
+                    .name("P" + i)
+                    .description("D")
+                    .price(BigDecimal.ONE)
+                    .stock(1)
+                    .seller(u)
+                    .tenant(t)
+                    .build());
+        }
+        em.flush();
+        em.clear();
+
+        StatementCountInspector.begin(2, true);
+        try {
+            Page<ProductResponse> page = productRepo.searchPublicProductResponses(null, PageRequest.of(0, 3));
+
+            assertThat(page.getContent()).hasSize(3);
+            assertThat(page.getTotalElements()).isEqualTo(5);
+            assertThat(page.getContent()).allSatisfy(r -> {
+                assertThat(r.getSellerName()).startsWith("Seller");
+                assertThat(r.getTenantName()).isEqualTo("Store");
+            });
+            assertThat(StatementCountInspector.count()).isEqualTo(2);
+        } finally {
+            StatementCountInspector.end();
+        }
+    }
+
+    @Test
+    void keysetByPrice_walksEveryInStockProductOnce() {
+        Tenant t = tenantRepo.save(new Tenant(null, "Store", "Desc"));
+        User u = userRepo.save(User.builder().email("k@y").password("p").fullName("K").tenant(t).build());
+        int[] prices = {5, 3, 5, 1, 3, 5};
+        for (int i = 0; i < prices.length; i++) {
+            productRepo.save(Product.builder()
+                    .name("K" + i)
+                    .price(BigDecimal.valueOf(prices[i]))
+                    .stock(i == 2 ? 0 : 1)
+                    .seller(u)
+                    .tenant(t)
+                    .build());
+        }
+
+        List<BigDecimal> seen = new ArrayList<>();
+        BigDecimal afterPrice = BigDecimal.valueOf(-1);
+        long afterId = 0;
+        Slice<ProductResponse> slice;
+        do {
+            slice = productRepo.findWithStockAvailableAfterPrice(afterPrice, afterId, Pageable.ofSize(2));
+            for (ProductResponse r : slice.getContent()) {
+                seen.add(r.getPrice());
+                afterPrice = r.getPrice();
+                afterId = r.getId();
+            }
+        } while (slice.hasNext());
+
+        assertThat(seen).extracting(BigDecimal::intValue).containsExactly(1, 3, 3, 5, 5);
+    }
+
+    @Test
+    void filterPublicProductResponses_neverListsOutOfStockProducts() {
+        Tenant t = tenantRepo.save(new Tenant(null, "Store", "Desc"));
+        User u = userRepo.save(User.builder().email("f@y").password("p").fullName("F").tenant(t).build());
+        for (int i = 0; i < 4; i++) {
+            productRepo.save(Product.builder()
+                    .name("F" + i)
+                    .price(BigDecimal.valueOf(10 + i))
+                    .stock(i % 2)
+                    .seller(u)
+                    .tenant(t)
+                    .build());
+        }
+
+        Page<ProductResponse> page = productRepo.filterPublicProductResponses(null, BigDecimal.TEN, null,
+                u.getId(), PageRequest.of(0, 10));
+
+        assertThat(page.getContent()).extracting(ProductResponse::getName).containsExactlyInAnyOrder("F1", "F3");
+        assertThat(page.getTotalElements()).isEqualTo(2);
+    }
+
+    @Test
+    void streamAllResponses_returnsEveryProductOrderedById() {
+        Tenant t = tenantRepo.save(new Tenant(null, "Store", "Desc"));
+        User u = userRepo.save(User.builder().email("st@y").password("p").fullName("St").tenant(t).build());
+        for (int i = 0; i < 7; i++) {
+            productRepo.save(Product.builder().name("S" + i).price(BigDecimal.ONE).stock(i)
+                    .seller(u).tenant(t).build());
+        }
+        em.flush();
+        em.clear();
+
+        List<ProductResponse> streamed;
+        try (Stream<ProductResponse> stream = productRepo.streamAllResponses()) {
+            streamed = stream.toList();
+        }
+
+        assertThat(streamed).hasSize(7);
+        assertThat(streamed).extracting(ProductResponse::getId).isSorted();
+        assertThat(streamed).allSatisfy(p -> assertThat(p.getSellerName()).isEqualTo("St"));
+    }
+
+    @Test
+    void version_isIncrementedByEachUpdate_andStaleUpdateIsRejected() {
+        Tenant t = tenantRepo.save(new Tenant(null, "Store", "Desc"));
+        User u = userRepo.save(User.builder().email("v@y").password("p").fullName("V").tenant(t).build());
+        Product p = productRepo.saveAndFlush(Product.builder().name("Versioned").price(BigDecimal.ONE).stock(1)
+                .seller(u).tenant(t).build());
+        assertThat(p.getVersion()).isZero();
+
+        p.setStock(2);
+        productRepo.flush();
+        assertThat(p.getVersion()).isEqualTo(1L);
+        em.clear();
+
+        // Otra petición actualiza la fila: la copia con versión 1 queda obsoleta
+        em.getEntityManager().createQuery("UPDATE Product p SET p.stock = 3, p.version = p.version + 1 WHERE p.id = :id")
+                .setParameter("id", p.getId())
+                .executeUpdate();
+        p.setStock(4);
+
+        assertThatThrownBy(() -> productRepo.saveAndFlush(p))
+                .isInstanceOf(OptimisticLockingFailureException.class);
+    }
+
+    @Test
+    void reserveStock_neverGoesBelowUnleasedStock() {
+        Tenant t = tenantRepo.save(new Tenant(null, "Store", "Desc"));
+        User u = userRepo.save(User.builder().email("r@y").password("p").fullName("R").tenant(t).build());
+        Product p = productRepo.saveAndFlush(Product.builder().name("Reserved").price(BigDecimal.ONE).stock(5)
+                .stockLeased(2).seller(u).tenant(t).build());
+        em.clear();
+
+        // 5 en stock, 2 arrendadas a un contador flash sale: sólo 3 reservables por UPDATE
+        assertThat(productRepo.reserveStock(p.getId(), 2)).isEqualTo(1);
+        assertThat(productRepo.reserveStock(p.getId(), 2)).isZero();
+        assertThat(productRepo.reserveStock(p.getId(), 1)).isEqualTo(1);
+        assertThat(productRepo.reserveStock(p.getId(), 1)).isZero();
+
+        assertThat(productRepo.applyLeasedSales(p.getId(), 2)).isEqualTo(1);
+        assertThat(productRepo.returnStock(p.getId(), 1)).isEqualTo(1);
+        em.clear();
+
+        Product after = productRepo.findById(p.getId()).orElseThrow();
+        assertThat(after.getStock()).isEqualTo(1);
+        assertThat(after.getStockLeased()).isZero();
+        assertThat(after.getVersion()).isEqualTo(4L);
+        assertThat(productRepo.findSnapshotById(p.getId())).get()
+                .extracting(snapshot -> snapshot.stock()).isEqualTo(1);
+    }
 }
@@ -0,0 +1,70 @@
+package com.marware.ecommerce.search;
+
+import com.marware.ecommerce.event.ProductChangedEvent;
+import com.marware.ecommerce.event.ProductSnapshot;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FuzzyProductIndexTest {
+
+    private FuzzyProductIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new FuzzyProductIndex(1000, 500);
+        index.beginRebuild();
+        index.accept(product(1L, 1L, "Camiseta roja", 5));
+        index.accept(product(2L, 1L, "Mesa de roble", 5));
+        index.accept(product(3L, 2L, "Pantalón vaquero", 0));
+        index.finishRebuild();
+    }
+
+    @Test
+    void search_toleratesTyposAndRanksByEdits() {
+        assertThat(index.search("camsieta", false, 0, 10).productIds()).containsExactly(1L);
+        assertThat(index.search("pantalon vakero", false, 0, 10).productIds()).containsExactly(3L);
+        assertThat(index.search("mesa robel", false, 0, 10).productIds()).containsExactly(2L);
+        assertThat(index.search("zapatilla", false, 0, 10).productIds()).isEmpty();
+    }
+
+    @Test
+    void search_inStockOnlyFiltersOutOfStockProducts() {
+        assertThat(index.search("pantalon", true, 0, 10).productIds()).isEmpty();
+    }
+
+    @Test
+    void apply_keepsIndexInSyncWithWrites() {
+        index.apply(ProductChangedEvent.updated(product(1L, 1L, "Camiseta roja", 5), product(1L, 1L, "Sudadera roja", 5)));
+        index.apply(ProductChangedEvent.created(product(4L, 1L, "Camiseta verde", 1)));
+
+        assertThat(index.search("camiseta", false, 0, 10).productIds()).containsExactly(4L);
+        assertThat(index.search("sudadra", false, 0, 10).productIds()).containsExactly(1L);
+    }
+
+    @Test
+    void search_returnsNullWhenATenantExceedsItsLimit() {
+        FuzzyProductIndex bounded = new FuzzyProductIndex(1, 500);
+        bounded.beginRebuild();
+        bounded.accept(product(1L, 1L, "Camiseta roja", 5));
+        bounded.accept(product(2L, 1L, "Mesa de roble", 5));
+        bounded.finishRebuild();
+
+        assertThat(bounded.search("mesa", false, 0, 10)).isNull();
+    }
+
+    @Test
+    void boundedEditDistance_countsTranspositionsAndStopsAtTheLimit() {
+        assertThat(TenantTrigramIndex.boundedEditDistance("kitten", "sitting", 3)).isEqualTo(3);
+        assertThat(TenantTrigramIndex.boundedEditDistance("kitten", "sitting", 2)).isEqualTo(3);
+        assertThat(TenantTrigramIndex.boundedEditDistance("robel", "roble", 1)).isEqualTo(1);
+        assertThat(TenantTrigramIndex.boundedEditDistance("mesa", "mesa", 0)).isZero();
+    }
+
+    private static ProductSnapshot product(Long id, Long tenantId, String name, int stock) {
+        return new ProductSnapshot(id, tenantId, 1L, name, null, BigDecimal.TEN, stock);
+    }
+}
@@ -0,0 +1,129 @@
+package com.marware.ecommerce.search;
+
+import com.marware.ecommerce.event.ProductChangedEvent;
+import com.marware.ecommerce.event.ProductSnapshot;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductFacetIndexTest {
+
+    private ProductFacetIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ProductFacetIndex("10,50");
+        index.beginRebuild();
+        index.accept(product(1L, 1L, 7L, "5.00", 3));
+        index.accept(product(2L, 1L, 7L, "20.00", 0));
+        index.accept(product(3L, 1L, 8L, "49.99", 1));
+        index.accept(product(4L, 2L, 8L, "50.00", 2));
+        index.accept(product(5L, 2L, 9L, "120.00", 4));
+        index.finishRebuild();
+    }
+
+    @Test
+    void search_filtersByPriceRangeAndStockAcrossTenants() {
+        FacetHits hits = index.search(query(1000L, 5000L, null, true, FacetQuery.Order.ID), 0, 10);
+
+        assertThat(hits.productIds()).containsExactly(3L, 4L);
+        assertThat(hits.total()).isEqualTo(2);
+        assertThat(hits.counts()).isNull();
+    }
+
+    @Test
+    void search_sortsByPriceAndPaginates() {
+        FacetQuery descending = query(null, null, null, false, FacetQuery.Order.PRICE_DESC);
+
+        assertThat(index.search(descending, 0, 2).productIds()).containsExactly(5L, 4L);
+        assertThat(index.search(descending, 2, 2).productIds()).containsExactly(3L, 2L);
+        assertThat(index.search(descending, 4, 2).productIds()).containsExactly(1L);
+        assertThat(index.search(descending, 4, 2).total()).isEqualTo(5);
+    }
+
+    @Test
+    void search_filtersBySellerWithItsBitmap() {
+        FacetHits hits = index.search(query(null, null, 8L, true, FacetQuery.Order.PRICE_ASC), 0, 10);
+        assertThat(hits.productIds()).containsExactly(3L, 4L);
+
+        assertThat(index.search(query(null, null, 99L, true, FacetQuery.Order.ID), 0, 10).total()).isZero();
+    }
+
+    @Test
+    void search_countsEachFacetWithoutItsOwnFilter() {
+        FacetQuery query = new FacetQuery(null, 5000L, 7L, true, null, FacetQuery.Order.ID, true);
+        FacetHits hits = index.search(query, 0, 10);
+
+        assertThat(hits.productIds()).containsExactly(1L);
+        FacetCounts counts = hits.counts();
+        // Stock: vendedor 7 y precio <= 50 → 1 con stock, 2 agotado
+        assertThat(counts.inStock()).isEqualTo(1);
+        assertThat(counts.outOfStock()).isEqualTo(1);
+        // Vendedores: precio <= 50 y con stock
+        assertThat(counts.sellers()).isEqualTo(Map.of(7L, 1L, 8L, 2L));
+        // Tramos [<10, 10-50, >=50]: vendedor 7 y con stock
+        assertThat(counts.priceCounts()).containsExactly(1L, 0L, 0L);
+    }
+
+    @Test
+    void search_restrictsToCandidatesInRelevanceOrder() {
+        FacetQuery query = new FacetQuery(null, null, null, true, List.of(5L, 2L, 1L, 42L),
+                FacetQuery.Order.RELEVANCE, false);
+
+        assertThat(index.search(query, 0, 10).productIds()).containsExactly(5L, 1L);
+    }
+
+    @Test
+    void apply_keepsColumnsAndBitmapsInSyncWithWrites() {
+        index.apply(ProductChangedEvent.updated(product(2L, 1L, 7L, "20.00", 0), product(2L, 1L, 9L, "20.00", 6)));
+        index.apply(ProductChangedEvent.updated(product(5L, 2L, 9L, "120.00", 4), product(5L, 2L, 9L, "8.00", 4)));
+        index.apply(ProductChangedEvent.deleted(product(1L, 1L, 7L, "5.00", 3)));
+        index.apply(ProductChangedEvent.created(product(6L, 3L, 9L, "15.00", 1)));
+
+        FacetHits bySeller = index.search(query(null, null, 9L, true, FacetQuery.Order.PRICE_ASC), 0, 10);
+        assertThat(bySeller.productIds()).containsExactly(5L, 6L, 2L);
+        assertThat(index.search(query(null, null, 7L, false, FacetQuery.Order.ID), 0, 10).total()).isZero();
+    }
+
+    @Test
+    void search_staysCorrectAfterCompaction() {
+        for (long id = 100; id < 3100; id++) {
+            index.apply(ProductChangedEvent.created(product(id, 3L, id % 2 == 0 ? 10L : 11L, "1.00", 1)));
+        }
+        for (long id = 100; id < 3000; id++) {
+            index.apply(ProductChangedEvent.deleted(product(id, 3L, id % 2 == 0 ? 10L : 11L, "1.00", 1)));
+        }
+
+        FacetHits hits = index.search(query(null, null, 10L, true, FacetQuery.Order.ID), 0, 100);
+        assertThat(hits.total()).isEqualTo(50);
+        assertThat(hits.productIds()).first().isEqualTo(3000L);
+        assertThat(hits.productIds()).allMatch(id -> id % 2 == 0 && id >= 3000);
+    }
+
+    @Test
+    void count_followsWritesWithAndWithoutStock() {
+        assertThat(index.count(false)).isEqualTo(5);
+        assertThat(index.count(true)).isEqualTo(4);
+
+        index.apply(ProductChangedEvent.updated(product(2L, 1L, 7L, "20.00", 0), product(2L, 2L, 7L, "20.00", 5)));
+        index.apply(ProductChangedEvent.updated(product(3L, 1L, 8L, "49.99", 1), product(3L, 1L, 8L, "49.99", 0)));
+        index.apply(ProductChangedEvent.deleted(product(1L, 1L, 7L, "5.00", 3)));
+
+        assertThat(index.count(false)).isEqualTo(4);
+        assertThat(index.count(true)).isEqualTo(3);
+    }
+
+    private static FacetQuery query(Long minCents, Long maxCents, Long sellerId, boolean inStockOnly,
+                                    FacetQuery.Order order) {
+        return new FacetQuery(minCents, maxCents, sellerId, inStockOnly, null, order, false);
+    }
+
+    private static ProductSnapshot product(Long id, Long tenantId, Long sellerId, String price, int stock) {
+        return new ProductSnapshot(id, tenantId, sellerId, "Producto " + id, null, new BigDecimal(price), stock);
+    }
+}
@@ -0,0 +1,73 @@
+package com.marware.ecommerce.search;
+
+import com.marware.ecommerce.event.ProductChangedEvent;
+import com.marware.ecommerce.event.ProductSnapshot;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductSearchIndexTest {
+
+    private ProductSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ProductSearchIndex();
+        index.beginRebuild();
+        index.accept(product(1L, 1L, "Camiseta roja", "Algodón orgánico", 5));
+        index.accept(product(2L, 1L, "Pantalón", "Camiseta incluida de regalo", 5));
+        index.accept(product(3L, 2L, "Camiseta azul", "Camiseta básica de algodón", 0));
+        index.finishRebuild();
+    }
+
+    @Test
+    void search_ranksNameMatchesFirstAndMatchesLastTermAsPrefix() {
+        SearchHits hits = index.search("camis", false, 0, 10);
+
+        assertThat(hits.total()).isEqualTo(3);
+        assertThat(hits.productIds()).hasSize(3).last().isEqualTo(2L);
+    }
+
+    @Test
+    void search_requiresAllTermsAndIgnoresAccents() {
+        SearchHits hits = index.search("camiseta ALGODON", false, 0, 10);
+
+        assertThat(hits.productIds()).containsExactlyInAnyOrder(1L, 3L);
+    }
+
+    @Test
+    void search_inStockOnlyFiltersOutOfStockProducts() {
+        SearchHits hits = index.search("camiseta", true, 0, 10);
+
+        assertThat(hits.productIds()).containsExactlyInAnyOrder(1L, 2L);
+    }
+
+    @Test
+    void apply_keepsIndexInSyncWithWrites() {
+        ProductSnapshot before = product(1L, 1L, "Camiseta roja", "Algodón orgánico", 5);
+        ProductSnapshot after = product(1L, 1L, "Sudadera roja", "Algodón orgánico", 5);
+        index.apply(ProductChangedEvent.updated(before, after));
+        index.apply(ProductChangedEvent.deleted(product(2L, 1L, "Pantalón", "Camiseta incluida de regalo", 5)));
+        index.apply(ProductChangedEvent.created(product(4L, 3L, "Camiseta verde", null, 1)));
+
+        assertThat(index.search("camiseta", false, 0, 10).productIds()).containsExactlyInAnyOrder(3L, 4L);
+        assertThat(index.search("sudadera", false, 0, 10).productIds()).containsExactly(1L);
+    }
+
+    @Test
+    void search_pagesAcrossTenantsUsingOffset() {
+        SearchHits firstPage = index.search("camiseta", false, 0, 2);
+        SearchHits secondPage = index.search("camiseta", false, 2, 2);
+
+        assertThat(firstPage.total()).isEqualTo(3);
+        assertThat(firstPage.productIds()).hasSize(2);
+        assertThat(secondPage.productIds()).hasSize(1).doesNotContainAnyElementsOf(firstPage.productIds());
+    }
+
+    private static ProductSnapshot product(Long id, Long tenantId, String name, String description, int stock) {
+        return new ProductSnapshot(id, tenantId, 1L, name, description, BigDecimal.TEN, stock);
+    }
+}
@@ -0,0 +1,103 @@
+package com.marware.ecommerce.search;
+
+import com.marware.ecommerce.event.ProductChangedEvent;
+import com.marware.ecommerce.event.ProductSnapshot;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductSuggestIndexTest {
+
+    private ProductSuggestIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ProductSuggestIndex();
+        index.beginRebuild();
+        index.accept(product(1L, 1L, "Camiseta roja", 5));
+        index.accept(product(2L, 1L, "Camisa de lino", 5));
+        index.accept(product(3L, 1L, "Cámara réflex", 0));
+        index.accept(product(4L, 2L, "Camiseta azul", 5));
+        index.finishRebuild();
+    }
+
+    @Test
+    void suggest_matchesWordPrefixesIgnoringAccentsAndSkipsOutOfStock() {
+        assertThat(ids(index.suggest("CAM", 1L, 10))).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(ids(index.suggest("roj", 1L, 10))).containsExactly(1L);
+        assertThat(ids(index.suggest("camiseta", null, 10))).containsExactlyInAnyOrder(1L, 4L);
+        assertThat(index.suggest("zz", null, 10)).isEmpty();
+    }
+
+    @Test
+    void suggest_ranksByPopularity() {
+        for (int i = 0; i < 5; i++) {
+            index.recordView(2L);
+        }
+        index.recordView(1L);
+        index.applyViews();
+        assertThat(ids(index.suggest("cam", 1L, 1))).containsExactly(2L);
+
+        for (int i = 0; i < 20; i++) {
+            index.recordView(1L);
+        }
+        index.applyViews();
+        assertThat(ids(index.suggest("cam", 1L, 2))).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void apply_keepsSuggestionsInSyncWithWrites() {
+        index.apply(ProductChangedEvent.updated(product(1L, 1L, "Camiseta roja", 5), product(1L, 1L, "Sudadera roja", 5)));
+        index.apply(ProductChangedEvent.updated(product(3L, 1L, "Cámara réflex", 0), product(3L, 1L, "Cámara réflex", 2)));
+        index.apply(ProductChangedEvent.deleted(product(2L, 1L, "Camisa de lino", 5)));
+        index.apply(ProductChangedEvent.created(product(5L, 1L, "Camión de juguete", 1)));
+
+        assertThat(ids(index.suggest("cam", 1L, 10))).containsExactlyInAnyOrder(3L, 5L);
+        assertThat(ids(index.suggest("sud", 1L, 10))).containsExactly(1L);
+    }
+
+    @Test
+    void suggest_staysCorrectAcrossConsolidations() {
+        for (long id = 100; id < 400; id++) {
+            index.apply(ProductChangedEvent.created(product(id, 3L, "Lámpara " + id, 1)));
+        }
+        for (long id = 100; id < 300; id++) {
+            index.apply(ProductChangedEvent.deleted(product(id, 3L, "Lámpara " + id, 1)));
+        }
+
+        assertThat(index.suggest("lampara", 3L, 20)).hasSize(20);
+        assertThat(ids(index.suggest("lampara 39", 3L, 20))).containsExactlyInAnyOrder(390L, 391L, 392L, 393L,
+                394L, 395L, 396L, 397L, 398L, 399L);
+        assertThat(index.suggest("lampara 1", 3L, 20)).isEmpty();
+    }
+
+    @Test
+    void rebuild_bulkLoadIsQueryableAfterFinishAndAcceptsLaterWrites() {
+        index.beginRebuild();
+        for (long id = 1; id <= 2000; id++) {
+            index.accept(product(id, 3L, "Lámpara " + id, 1));
+        }
+        // Repetido durante la carga: cuenta el último
+        index.accept(product(7L, 3L, "Mesa de roble", 1));
+        index.finishRebuild();
+
+        assertThat(ids(index.suggest("lampara 200", 3L, 20))).containsExactlyInAnyOrder(200L, 2000L);
+        assertThat(ids(index.suggest("lampara 7", 3L, 20))).doesNotContain(7L);
+        assertThat(ids(index.suggest("mesa", 3L, 10))).containsExactly(7L);
+
+        index.apply(ProductChangedEvent.created(product(3000L, 3L, "Lámpara de pie", 1)));
+        assertThat(ids(index.suggest("lampara de", 3L, 10))).containsExactly(3000L);
+    }
+
+    private static List<Long> ids(List<Suggestion> suggestions) {
+        return suggestions.stream().map(Suggestion::id).toList();
+    }
+
+    private static ProductSnapshot product(Long id, Long tenantId, String name, int stock) {
+        return new ProductSnapshot(id, tenantId, 1L, name, null, BigDecimal.TEN, stock);
+    }
+}
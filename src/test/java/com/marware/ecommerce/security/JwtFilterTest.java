@@ -49,9 +49,9 @@ class JwtFilterTest {
     void whenValidToken_thenPopulateSecurityContext() throws Exception {
         when(req.getRequestURI()).thenReturn("/api/secured");
         when(req.getHeader("Authorization")).thenReturn("Bearer token123");
-        when(jwtService.extractUsername("token123")).thenReturn("user@example.com");
         Claims claims = mock(Claims.class);
         when(jwtService.extractAllClaims("token123")).thenReturn(claims);
+        when(claims.getSubject()).thenReturn("user@example.com");
         when(claims.get("roles", List.class)).thenReturn(List.of("ROLE_ADMIN"));
 
         filter.doFilterInternal(req, resp, chain);
@@ -59,6 +59,8 @@ class JwtFilterTest {
         assertNotNull(SecurityContextHolder.getContext().getAuthentication());
         assertEquals("user@example.com",
                 SecurityContextHolder.getContext().getAuthentication().getName());
+        verify(jwtService, times(1)).extractAllClaims("token123");
+        verify(jwtService, never()).extractUsername(anyString());
         verify(chain).doFilter(req, resp);
     }
 }
@@ -1,16 +1,31 @@
 package com.marware.ecommerce.service;
 
 import com.marware.ecommerce.exception.FileProcessingException;
+import com.marware.ecommerce.exception.FileUploadException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
 import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.multipart.MultipartFile;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
 import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -19,19 +34,12 @@ class FileServiceImplTest {
 
     @InjectMocks FileServiceImpl fileService;
     @Mock          S3Client     s3Client;
+    @Mock          S3AsyncClient s3AsyncClient;
 
     @BeforeEach
     void setUp() throws Exception {
         MockitoAnnotations.openMocks(this);
 
-        Field accessKeyField = FileServiceImpl.class.getDeclaredField("accessKey");
-        accessKeyField.setAccessible(true);
-        accessKeyField.set(fileService, "AK");
-
-        Field secretKeyField = FileServiceImpl.class.getDeclaredField("secretKey");
-        secretKeyField.setAccessible(true);
-        secretKeyField.set(fileService, "SK");
-
         Field regionField = FileServiceImpl.class.getDeclaredField("region");
         regionField.setAccessible(true);
         regionField.set(fileService, "us-east-1");
@@ -39,6 +47,10 @@ class FileServiceImplTest {
         Field bucketNameField = FileServiceImpl.class.getDeclaredField("bucketName");
         bucketNameField.setAccessible(true);
         bucketNameField.set(fileService, "my-bucket");
+
+        Field uploadTimeoutField = FileServiceImpl.class.getDeclaredField("uploadTimeout");
+        uploadTimeoutField.setAccessible(true);
+        uploadTimeoutField.set(fileService, Duration.ofSeconds(5));
     }
 
     @Test
@@ -70,4 +82,110 @@ class FileServiceImplTest {
         assertThat(url).startsWith("https://my-bucket.s3.");
         verify(s3Client).putObject(any(PutObjectRequest.class), any(RequestBody.class));
     }
-}
\ No newline at end of file
+
+    @Test
+    void uploadFile_whenAsync_thenStreamsTheBodyThroughTheAsyncClient() throws Exception {
+        enableAsyncUploads();
+        CompletableFuture<byte[]> uploaded = new CompletableFuture<>();
+        when(s3AsyncClient.putObject(any(PutObjectRequest.class), any(AsyncRequestBody.class)))
+                .thenAnswer(invocation -> {
+                    subscribe(invocation.getArgument(1), uploaded);
+                    return uploaded.thenApply(bytes -> PutObjectResponse.builder().build());
+                });
+        MockMultipartFile img = new MockMultipartFile(
+                "f", "pic.png", "image/png", "data".getBytes(StandardCharsets.UTF_8));
+
+        String url = fileService.uploadFile(img);
+
+        assertThat(url).startsWith("https://my-bucket.s3.us-east-1.amazonaws.com/uploads/").endsWith("_pic.png");
+        assertThat(new String(uploaded.get(1, TimeUnit.SECONDS), StandardCharsets.UTF_8)).isEqualTo("data");
+        ArgumentCaptor<PutObjectRequest> request = ArgumentCaptor.forClass(PutObjectRequest.class);
+        verify(s3AsyncClient).putObject(request.capture(), any(AsyncRequestBody.class));
+        assertThat(request.getValue().contentLength()).isEqualTo(4L);
+        assertThat(request.getValue().contentType()).isEqualTo("image/png");
+        verifyNoInteractions(s3Client);
+    }
+
+    @Test
+    void uploadFile_whenAsyncUploadFails_thenThrow() throws Exception {
+        enableAsyncUploads();
+        when(s3AsyncClient.putObject(any(PutObjectRequest.class), any(AsyncRequestBody.class)))
+                .thenAnswer(invocation -> {
+                    CompletableFuture<byte[]> uploaded = new CompletableFuture<>();
+                    subscribe(invocation.getArgument(1), uploaded);
+                    // S3 rechaza la subida cuando ya ha recibido el cuerpo
+                    return uploaded.thenApply(bytes -> {
+                        throw S3Exception.builder().message("Access Denied").statusCode(403).build();
+                    });
+                });
+        MockMultipartFile img = new MockMultipartFile(
+                "f", "pic.png", "image/png", "data".getBytes(StandardCharsets.UTF_8));
+
+        assertThatThrownBy(() -> fileService.uploadFile(img))
+                .isInstanceOf(FileUploadException.class)
+                .hasMessage("Error al cargar el archivo")
+                .hasCauseInstanceOf(S3Exception.class);
+    }
+
+    @Test
+    void uploadFile_whenTheBodyCannotBeWritten_thenThrowAndCancelTheUpload() throws Exception {
+        enableAsyncUploads();
+        CompletableFuture<PutObjectResponse> pending = new CompletableFuture<>();
+        when(s3AsyncClient.putObject(any(PutObjectRequest.class), any(AsyncRequestBody.class)))
+                .thenAnswer(invocation -> {
+                    // S3 lee el cuerpo pero no responde: sólo el fallo de lectura corta la espera
+                    subscribe(invocation.getArgument(1), new CompletableFuture<>());
+                    return pending;
+                });
+        MultipartFile img = mock(MultipartFile.class);
+        when(img.getContentType()).thenReturn("image/png");
+        when(img.getOriginalFilename()).thenReturn("pic.png");
+        when(img.getSize()).thenReturn(4L);
+        when(img.getInputStream()).thenReturn(new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("multipart truncated");
+            }
+        });
+
+        assertThatThrownBy(() -> fileService.uploadFile(img))
+                .isInstanceOf(FileUploadException.class)
+                .hasMessage("Error al cargar el archivo")
+                .hasRootCauseInstanceOf(IOException.class);
+        assertThat(pending).isCancelled();
+    }
+
+    private void enableAsyncUploads() throws Exception {
+        Field asyncUploadsField = FileServiceImpl.class.getDeclaredField("asyncUploads");
+        asyncUploadsField.setAccessible(true);
+        asyncUploadsField.set(fileService, true);
+    }
+
+    // Hace de cliente S3: se suscribe al cuerpo y lo lee entero
+    private static void subscribe(AsyncRequestBody body, CompletableFuture<byte[]> uploaded) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        body.subscribe(new Subscriber<ByteBuffer>() {
+            @Override
+            public void onSubscribe(Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(ByteBuffer buffer) {
+                byte[] chunk = new byte[buffer.remaining()];
+                buffer.get(chunk);
+                out.write(chunk, 0, chunk.length);
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                uploaded.completeExceptionally(error);
+            }
+
+            @Override
+            public void onComplete() {
+                uploaded.complete(out.toByteArray());
+            }
+        });
+    }
+}
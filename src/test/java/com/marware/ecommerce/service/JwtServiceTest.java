@@ -53,4 +53,22 @@ class JwtServiceTest {
         Claims claims = jwtService.extractAllClaims(token);
         assertTrue(claims.getExpiration().before(new Date()));
     }
+
+    @Test
+    void extractAllClaims_withCacheEnabled_verifiesTokenOnce() {
+        ReflectionTestUtils.setField(jwtService, "expirationMs", 60_000L);
+        ReflectionTestUtils.setField(jwtService, "cacheEnabled", true);
+        ReflectionTestUtils.setField(jwtService, "cacheMaxSize", 100L);
+        User user = new User();
+        user.setEmail("u@e.com");
+        user.setId(42L);
+        user.setRoles(Collections.emptySet());
+
+        String token = jwtService.generateToken(user);
+
+        Claims first = jwtService.extractAllClaims(token);
+        Claims second = jwtService.extractAllClaims(token);
+        assertSame(first, second);
+        assertEquals("u@e.com", second.getSubject());
+    }
 }
@@ -0,0 +1,157 @@
+package com.marware.ecommerce.service;
+
+import com.marware.ecommerce.dto.EstimatedPage;
+import com.marware.ecommerce.dto.ProductResponse;
+import com.marware.ecommerce.event.ProductSnapshot;
+import com.marware.ecommerce.search.ProductFacetIndex;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductCountsTest {
+
+    private final ProductFacetIndex facetIndex = new ProductFacetIndex("10");
+    private final AtomicInteger counts = new AtomicInteger();
+    private final AtomicInteger exactPages = new AtomicInteger();
+
+    @Test
+    void exact_alwaysUsesThePageWithCount() {
+        ProductCounts productCounts = productCounts("exact");
+
+        Page<ProductResponse> page = page(productCounts, "phone", PageRequest.of(3, 2), true);
+
+        assertThat(page).isNotInstanceOf(EstimatedPage.class);
+        assertThat(page.getTotalElements()).isEqualTo(100);
+        assertThat(exactPages).hasValue(1);
+        assertThat(counts).hasValue(0);
+    }
+
+    @Test
+    void cached_countsOnFirstPageAndReusesItAfterwards() {
+        ProductCounts productCounts = productCounts("cached");
+
+        Page<ProductResponse> first = page(productCounts, " Phone ", PageRequest.of(0, 2), true);
+        Page<ProductResponse> second = page(productCounts, "phone", PageRequest.of(1, 2), true);
+
+        assertThat(first).isNotInstanceOf(EstimatedPage.class);
+        assertThat(first.getTotalElements()).isEqualTo(42);
+        assertThat(second).isInstanceOf(EstimatedPage.class);
+        assertThat(second.getTotalElements()).isEqualTo(42);
+        assertThat(counts).hasValue(1);
+        assertThat(exactPages).hasValue(0);
+    }
+
+    @Test
+    void cached_withoutCountOnLaterPage_returnsLowerBound() {
+        ProductCounts productCounts = productCounts("cached");
+
+        Page<ProductResponse> page = page(productCounts, "phone", PageRequest.of(5, 2), true);
+
+        assertThat(page).isInstanceOf(EstimatedPage.class);
+        assertThat(page.getTotalElements()).isEqualTo(13);
+        assertThat(page.hasNext()).isTrue();
+        assertThat(counts).hasValue(0);
+    }
+
+    @Test
+    void lastSlice_givesExactTotalWithoutCount() {
+        ProductCounts productCounts = productCounts("cached");
+
+        Page<ProductResponse> page = page(productCounts, null, PageRequest.of(4, 2), false);
+
+        assertThat(page).isNotInstanceOf(EstimatedPage.class);
+        assertThat(page.getTotalElements()).isEqualTo(10);
+        assertThat(counts).hasValue(0);
+    }
+
+    @Test
+    void estimated_usesFacetCountersWithoutQuery() {
+        facetIndex.beginRebuild();
+        for (long id = 1; id <= 30; id++) {
+            facetIndex.accept(new ProductSnapshot(id, 1L, 1L, "p" + id, null, BigDecimal.ONE, id % 3 == 0 ? 0 : 1));
+        }
+        facetIndex.finishRebuild();
+        ProductCounts productCounts = productCounts("estimated");
+
+        Page<ProductResponse> all = productCounts.page(ProductCounts.Scope.ALL, null, PageRequest.of(0, 2),
+                exactPage(), slice(PageRequest.of(0, 2), true), count());
+        Page<ProductResponse> inStock = productCounts.page(ProductCounts.Scope.PUBLIC, "", PageRequest.of(0, 2),
+                exactPage(), slice(PageRequest.of(0, 2), true), count());
+
+        assertThat(all).isInstanceOf(EstimatedPage.class);
+        assertThat(all.getTotalElements()).isEqualTo(30);
+        assertThat(inStock.getTotalElements()).isEqualTo(20);
+        assertThat(counts).hasValue(0);
+    }
+
+    @Test
+    void estimated_withQuery_countsTheLikeQueryOnceAndCachesIt() {
+        facetIndex.beginRebuild();
+        facetIndex.accept(new ProductSnapshot(1L, 1L, 1L, "phone", null, BigDecimal.ONE, 1));
+        facetIndex.finishRebuild();
+        ProductCounts productCounts = productCounts("estimated");
+
+        Page<ProductResponse> first = page(productCounts, "phone", PageRequest.of(0, 2), true);
+        Page<ProductResponse> third = page(productCounts, "Phone ", PageRequest.of(2, 2), true);
+
+        // El total es el del mismo LIKE que da el contenido, no el de otro índice
+        assertThat(first).isNotInstanceOf(EstimatedPage.class);
+        assertThat(first.getTotalElements()).isEqualTo(42);
+        assertThat(third.getTotalElements()).isEqualTo(42);
+        assertThat(counts).hasValue(1);
+    }
+
+    @Test
+    void estimated_beforeIndexesAreReady_fallsBackToCachedCount() {
+        ProductCounts productCounts = productCounts("estimated");
+
+        Page<ProductResponse> page = page(productCounts, "phone", PageRequest.of(0, 2), true);
+
+        assertThat(page.getTotalElements()).isEqualTo(42);
+        assertThat(counts).hasValue(1);
+    }
+
+    private ProductCounts productCounts(String strategy) {
+        return new ProductCounts(facetIndex, strategy, Duration.ofMinutes(1), 100);
+    }
+
+    private Page<ProductResponse> page(ProductCounts productCounts, String query, Pageable pageable, boolean hasNext) {
+        return productCounts.page(ProductCounts.Scope.PUBLIC, query, pageable,
+                exactPage(), slice(pageable, hasNext), count());
+    }
+
+    private Supplier<Page<ProductResponse>> exactPage() {
+        return () -> {
+            exactPages.incrementAndGet();
+            return new PageImpl<>(List.of(response(), response()), PageRequest.of(3, 2), 100);
+        };
+    }
+
+    private static Supplier<Slice<ProductResponse>> slice(Pageable pageable, boolean hasNext) {
+        return () -> new SliceImpl<>(List.of(response(), response()), pageable, hasNext);
+    }
+
+    private LongSupplier count() {
+        return () -> {
+            counts.incrementAndGet();
+            return 42;
+        };
+    }
+
+    private static ProductResponse response() {
+        return ProductResponse.builder().build();
+    }
+}
@@ -0,0 +1,129 @@
+package com.marware.ecommerce.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.marware.ecommerce.dto.ProductImportResult;
+import com.marware.ecommerce.exception.ValidationException;
+import com.marware.ecommerce.model.Product;
+import com.marware.ecommerce.model.Tenant;
+import com.marware.ecommerce.model.User;
+import com.marware.ecommerce.repository.ProductRepository;
+import com.marware.ecommerce.repository.TenantRepository;
+import com.marware.ecommerce.repository.UserRepository;
+import com.marware.ecommerce.security.AuthenticatedUser;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest
+@Import({ProductImportService.class, ProductImportServiceTest.Config.class})
+@TestPropertySource(properties = {"app.import.batch-size=2", "app.query-budget.enabled=false"})
+class ProductImportServiceTest {
+
+    @TestConfiguration
+    static class Config {
+        @Bean
+        LocalValidatorFactoryBean validator() {
+            return new LocalValidatorFactoryBean();
+        }
+
+        @Bean
+        ObjectMapper objectMapper() {
+            return new ObjectMapper();
+        }
+    }
+
+    @Autowired ProductImportService importService;
+    @Autowired ProductRepository productRepo;
+    @Autowired UserRepository userRepo;
+    @Autowired TenantRepository tenantRepo;
+    @MockBean AuthService authService;
+
+    private User seller;
+
+    @BeforeEach
+    void setUp() {
+        Tenant tenant = tenantRepo.save(new Tenant(null, "Store", "Desc"));
+        seller = userRepo.save(User.builder()
+                .email("seller@store")
+                .password("p")
+                .fullName("Seller")
+                .tenant(tenant)
+                .build());
+        when(authService.getCurrentUser()).thenReturn(AuthenticatedUser.from(seller));
+    }
+
+    @Test
+    void importCsv_insertsValidRowsAndReportsErrorsPerRow() {
+        productRepo.save(Product.builder().name("Existing").price(BigDecimal.ONE).stock(1)
+                .seller(seller).tenant(seller.getTenant()).build());
+        String csv = """
+                name,description,price,stock
+                Camiseta,"Algodón, manga corta",19.99,10
+                Gorra,"Visera ""curva""
+                ajustable",9.50,3
+                ,Sin nombre,5,1
+                Camiseta,Repetida,5,1
+                Existing,Ya existe,5,1
+                Taza,Cerámica,abc,1
+                Mochila,,30,0
+                """;
+
+        ProductImportResult result = importService.importProducts(stream(csv), MediaType.parseMediaType("text/csv"));
+
+        assertThat(result.getTotal()).isEqualTo(7);
+        assertThat(result.getImported()).isEqualTo(3);
+        assertThat(result.getFailed()).isEqualTo(4);
+        assertThat(result.getErrors()).extracting(ProductImportResult.RowError::getRow)
+                .containsExactly(3L, 4L, 5L, 6L);
+        assertThat(productRepo.findExistingNormalizedNames(java.util.List.of("camiseta", "gorra", "mochila")))
+                .containsExactlyInAnyOrder("camiseta", "gorra", "mochila");
+        assertThat(productRepo.findAll())
+                .filteredOn(p -> "Gorra".equals(p.getName()))
+                .singleElement()
+                .extracting(Product::getDescription)
+                .isEqualTo("Visera \"curva\"\najustable");
+    }
+
+    @Test
+    void importNdjson_reportsInvalidJsonLines() {
+        String ndjson = """
+                {"name":"Lámpara","description":"LED","price":25.00,"stock":4}
+                {"name":"Roto",
+                {"name":"Cojín","price":12.00,"stock":0}
+                """;
+
+        ProductImportResult result = importService.importProducts(stream(ndjson),
+                MediaType.parseMediaType("application/x-ndjson"));
+
+        assertThat(result.getImported()).isEqualTo(2);
+        assertThat(result.getErrors()).singleElement()
+                .satisfies(error -> assertThat(error.getRow()).isEqualTo(2));
+    }
+
+    @Test
+    void importCsv_whenRequiredColumnMissing_thenThrowValidationException() {
+        assertThatThrownBy(() -> importService.importProducts(stream("name,price\nA,1\n"),
+                MediaType.parseMediaType("text/csv")))
+                .isInstanceOf(ValidationException.class)
+                .hasMessageContaining("CSV header");
+    }
+
+    private static ByteArrayInputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -1,19 +1,45 @@
 package com.marware.ecommerce.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.marware.ecommerce.cache.ProductIdFilter;
+import com.marware.ecommerce.cache.PublicCatalogCache;
 import com.marware.ecommerce.dto.ProductRequest;
 import com.marware.ecommerce.dto.ProductResponse;
+import com.marware.ecommerce.exception.EntityNotFoundException;
 import com.marware.ecommerce.exception.FileProcessingException;
 import com.marware.ecommerce.exception.ValidationException;
+import com.marware.ecommerce.exception.VersionConflictException;
 import com.marware.ecommerce.model.Product;
 import com.marware.ecommerce.model.Tenant;
 import com.marware.ecommerce.model.User;
 import com.marware.ecommerce.repository.ProductRepository;
+import com.marware.ecommerce.repository.TenantRepository;
+import com.marware.ecommerce.repository.UserRepository;
+import com.marware.ecommerce.search.FuzzyProductIndex;
+import com.marware.ecommerce.search.ProductFacetIndex;
+import com.marware.ecommerce.search.ProductSearchIndex;
+import com.marware.ecommerce.search.ProductSuggestIndex;
+import com.marware.ecommerce.security.AuthenticatedUser;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.ByteArrayOutputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -28,12 +54,48 @@ class ProductServiceTest {
     @Mock
     private ProductRepository productRepository;
 
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private TenantRepository tenantRepository;
+
     @Mock
     private AuthService authService;
 
     @Mock
     private FileService fileService;
 
+    @Mock
+    private ProductSearchIndex searchIndex;
+
+    @Mock
+    private ProductSuggestIndex suggestIndex;
+
+    @Mock
+    private FuzzyProductIndex fuzzyIndex;
+
+    @Mock
+    private ProductFacetIndex facetIndex;
+
+    @Mock
+    private ProductIdFilter productIdFilter;
+
+    @Mock
+    private ProductCounts productCounts;
+
+    // Caché real con el detalle siempre caducado: cada lectura lanza un refresco en segundo plano
+    @Spy
+    private PublicCatalogCache publicCatalogCache = new PublicCatalogCache(new SimpleMeterRegistry(),
+            100, Duration.ZERO, Duration.ofHours(1), 100, Duration.ofSeconds(30), Duration.ZERO,
+            Duration.ofSeconds(5), 1);
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
@@ -48,12 +110,19 @@ class ProductServiceTest {
         request.setPrice(BigDecimal.valueOf(10));
         request.setStock(5);
 
-        when(productRepository.existsByName("ExistingProduct")).thenReturn(true);
+        User seller = new User();
+        seller.setId(1L);
+        seller.setTenant(new Tenant(1L, "Demo Store", "Desc"));
+        when(authService.getCurrentUser()).thenReturn(AuthenticatedUser.from(seller));
+        when(productRepository.save(any(Product.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        doThrow(new DataIntegrityViolationException("duplicate", new ConstraintViolationException(
+                "Unique index or primary key violation", new SQLException(), "UK_PRODUCT_NAME_NORMALIZED")))
+                .when(productRepository).flush();
 
         // When & Then
         assertThatThrownBy(() -> productService.createProduct(request, null))
                 .isInstanceOf(ValidationException.class)
-                .hasMessageContaining("Ya existe un producto con este nombre");
+                .extracting("errorCode").isEqualTo("DUPLICATE_PRODUCT");
     }
 
     @Test
@@ -65,12 +134,11 @@ class ProductServiceTest {
         request.setPrice(BigDecimal.valueOf(20));
         request.setStock(3);
 
-        when(productRepository.existsByName("NewProduct")).thenReturn(false);
 
         User seller = new User();
         seller.setId(1L);
         seller.setTenant(new Tenant(1L, "Demo Store", "Desc"));
-        when(authService.getAuthenticatedUser()).thenReturn(seller);
+        when(authService.getCurrentUser()).thenReturn(AuthenticatedUser.from(seller));
 
         MultipartFile image = mock(MultipartFile.class);
         when(image.isEmpty()).thenReturn(false);
@@ -93,12 +161,11 @@ class ProductServiceTest {
         request.setPrice(BigDecimal.valueOf(15));
         request.setStock(10);
 
-        when(productRepository.existsByName("AnotherProduct")).thenReturn(false);
 
         User seller = new User();
         seller.setId(2L);
         seller.setTenant(new Tenant(2L, "Other Store", "Otra Desc"));
-        when(authService.getAuthenticatedUser()).thenReturn(seller);
+        when(authService.getCurrentUser()).thenReturn(AuthenticatedUser.from(seller));
 
         MultipartFile image = mock(MultipartFile.class);
         when(image.isEmpty()).thenReturn(false);
@@ -121,13 +188,12 @@ class ProductServiceTest {
         request.setPrice(BigDecimal.valueOf(50));
         request.setStock(7);
 
-        when(productRepository.existsByName("ValidProduct")).thenReturn(false);
 
         User seller = new User();
         seller.setId(3L);
         seller.setFullName("Seller Name");
         seller.setTenant(new Tenant(3L, "Store 3", "Desc 3"));
-        when(authService.getAuthenticatedUser()).thenReturn(seller);
+        when(authService.getCurrentUser()).thenReturn(AuthenticatedUser.from(seller));
 
         Product saved = Product.builder()
                 .id(42L)
@@ -151,4 +217,130 @@ class ProductServiceTest {
         assertThat(response.getTenantName()).isEqualTo("Store 3");
         assertThat(response.getImageUrl()).isNull();
     }
+
+    @Test
+    void writeAllProducts_asNdjson_writesOneProductPerLine() throws Exception {
+        when(productRepository.streamAllResponses()).thenReturn(Stream.of(
+                ProductResponse.builder().id(1L).name("A").price(BigDecimal.ONE).stock(1).build(),
+                ProductResponse.builder().id(2L).name("B").price(BigDecimal.TEN).stock(0).build()));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        productService.writeAllProducts(out, true);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(lines).hasSize(2);
+        assertThat(objectMapper.readTree(lines[1]).get("name").asText()).isEqualTo("B");
+    }
+
+    @Test
+    void writeAllProducts_asJsonArray_writesValidArray() throws Exception {
+        when(productRepository.streamAllResponses()).thenReturn(Stream.of(
+                ProductResponse.builder().id(1L).name("A").build()));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        productService.writeAllProducts(out, false);
+
+        assertThat(objectMapper.readTree(out.toByteArray()).size()).isEqualTo(1);
+    }
+
+    @Test
+    void updateProductWithImage_whenIfMatchIsStale_thenThrowPreconditionFailed() {
+        Product product = ownedProduct(7L);
+        when(productRepository.findById(10L)).thenReturn(Optional.of(product));
+
+        assertThatThrownBy(() -> productService.updateProductWithImage(10L, validRequest(), null, 6L))
+                .isInstanceOf(VersionConflictException.class)
+                .extracting("errorCode").isEqualTo("PRECONDITION_FAILED");
+        verify(productRepository, never()).flush();
+        assertThat(product.getName()).isEqualTo("Original");
+    }
+
+    @Test
+    void updateProductWithImage_whenConcurrentUpdateWins_thenThrowConcurrentModification() {
+        Product product = ownedProduct(7L);
+        when(productRepository.findById(10L)).thenReturn(Optional.of(product));
+        doThrow(new ObjectOptimisticLockingFailureException(Product.class, 10L))
+                .when(productRepository).flush();
+
+        assertThatThrownBy(() -> productService.updateProductWithImage(10L, validRequest(), null, 7L))
+                .isInstanceOf(VersionConflictException.class)
+                .extracting("errorCode").isEqualTo("CONCURRENT_MODIFICATION");
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
+
+    @Test
+    void getPublicProductById_whenIdCannotExist_thenNotFoundWithoutQueryingDatabase() {
+        when(productIdFilter.mightExist(999L)).thenReturn(false);
+
+        assertThatThrownBy(() -> productService.getPublicProductById(999L))
+                .isInstanceOf(EntityNotFoundException.class)
+                .extracting("errorCode").isEqualTo("ENTITY_NOT_FOUND");
+        verifyNoInteractions(productRepository, suggestIndex);
+    }
+
+    @Test
+    void getPublicProductById_whenStale_thenRefreshesInBackgroundWithProjection() throws InterruptedException {
+        when(productIdFilter.mightExist(1L)).thenReturn(true);
+        when(productRepository.findPublicResponseById(1L)).thenReturn(
+                Optional.of(ProductResponse.builder().id(1L).name("Old").version(1L).build()),
+                Optional.of(ProductResponse.builder().id(1L).name("New").version(2L).build()));
+
+        assertThat(productService.getPublicProductById(1L).getName()).isEqualTo("Old");
+        assertThat(productService.getPublicProductById(1L).getName()).isEqualTo("Old");
+
+        // El loader real se ejecuta en catalog-cache-refresh, sin transacción
+        verify(productRepository, timeout(2000).atLeast(2)).findPublicResponseById(1L);
+        String name = "Old";
+        long deadline = System.nanoTime() + Duration.ofSeconds(2).toNanos();
+        while (!name.equals("New") && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+            name = productService.getPublicProductById(1L).getName();
+        }
+        assertThat(name).isEqualTo("New");
+        verify(productRepository, never()).findById(any());
+        publicCatalogCache.shutdown();
+    }
+
+    @Test
+    void searchProducts_fuzzyWithExplicitSort_thenUsesTheSortedQuery() {
+        // Given
+        PageRequest pageable = PageRequest.of(0, 10, Sort.by("price"));
+        when(fuzzyIndex.isReady()).thenReturn(true);
+        when(searchIndex.isReady()).thenReturn(true);
+        when(productCounts.page(any(), any(), any(), any(), any(), any())).thenReturn(Page.empty(pageable));
+
+        // When
+        productService.searchProducts("camsieta", true, pageable);
+
+        // Then
+        verify(fuzzyIndex, never()).search(any(), anyBoolean(), anyInt(), anyInt());
+        verify(searchIndex, never()).search(any(), anyBoolean(), anyInt(), anyInt());
+        verify(productCounts).page(eq(ProductCounts.Scope.ALL), eq("camsieta"), eq(pageable), any(), any(), any());
+    }
+
+    private Product ownedProduct(long version) {
+        User seller = new User();
+        seller.setId(5L);
+        seller.setFullName("Owner");
+        seller.setTenant(new Tenant(5L, "Store 5", "Desc 5"));
+        when(authService.getCurrentUser()).thenReturn(AuthenticatedUser.from(seller));
+        return Product.builder()
+                .id(10L)
+                .name("Original")
+                .price(BigDecimal.ONE)
+                .stock(1)
+                .seller(seller)
+                .tenant(seller.getTenant())
+                .version(version)
+                .build();
+    }
+
+    private static ProductRequest validRequest() {
+        ProductRequest request = new ProductRequest();
+        request.setName("Renamed");
+        request.setDescription("Desc");
+        request.setPrice(BigDecimal.TEN);
+        request.setStock(3);
+        return request;
+    }
 }
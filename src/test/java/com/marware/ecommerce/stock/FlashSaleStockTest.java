@@ -0,0 +1,161 @@
+package com.marware.ecommerce.stock;
+
+import com.marware.ecommerce.event.ProductChangedEvent;
+import com.marware.ecommerce.event.ProductSnapshot;
+import com.marware.ecommerce.model.Product;
+import com.marware.ecommerce.repository.ProductRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class FlashSaleStockTest {
+
+    private static final Long PRODUCT_ID = 1L;
+
+    private ProductRepository productRepository;
+    private EntityManager entityManager;
+    private ApplicationEventPublisher eventPublisher;
+    private FlashSaleStock flashSaleStock;
+
+    @BeforeEach
+    void setUp() {
+        productRepository = mock(ProductRepository.class);
+        entityManager = mock(EntityManager.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        // Bloques de 10 unidades; el TransactionTemplate sólo ejecuta el callback contra los mocks
+        flashSaleStock = new FlashSaleStock(productRepository, entityManager, eventPublisher,
+                mock(PlatformTransactionManager.class), 2, 10, List.of());
+    }
+
+    @Test
+    void tryAcquire_whenModeNotEnabled_thenNotActive() {
+        assertThat(flashSaleStock.tryAcquire(PRODUCT_ID, 1)).isEqualTo(FlashSaleStock.Result.NOT_ACTIVE);
+        verifyNoInteractions(entityManager);
+    }
+
+    @Test
+    void tryAcquire_leasesABlockFromTheRow_andServesTheNextReservationsFromIt() {
+        Product product = lockedProduct(50, 0);
+        flashSaleStock.enable(PRODUCT_ID);
+
+        assertThat(flashSaleStock.tryAcquire(PRODUCT_ID, 3)).isEqualTo(FlashSaleStock.Result.ACQUIRED);
+        assertThat(flashSaleStock.tryAcquire(PRODUCT_ID, 7)).isEqualTo(FlashSaleStock.Result.ACQUIRED);
+
+        assertThat(product.getStockLeased()).isEqualTo(10);
+        verify(entityManager, times(1)).find(Product.class, PRODUCT_ID, LockModeType.PESSIMISTIC_WRITE);
+    }
+
+    @Test
+    void tryAcquire_whenTheRowHasNotEnoughFreeUnits_thenSoldOutWithoutLeasing() {
+        // 5 en stock, 4 ya arrendadas por otra instancia
+        Product product = lockedProduct(5, 4);
+        flashSaleStock.enable(PRODUCT_ID);
+
+        assertThat(flashSaleStock.tryAcquire(PRODUCT_ID, 2)).isEqualTo(FlashSaleStock.Result.SOLD_OUT);
+
+        assertThat(product.getStockLeased()).isEqualTo(4);
+    }
+
+    @Test
+    void tryAcquire_leasesOnlyWhatIsFree_whenLessThanABlock() {
+        Product product = lockedProduct(6, 0);
+        flashSaleStock.enable(PRODUCT_ID);
+
+        assertThat(flashSaleStock.tryAcquire(PRODUCT_ID, 4)).isEqualTo(FlashSaleStock.Result.ACQUIRED);
+        assertThat(product.getStockLeased()).isEqualTo(6);
+        assertThat(flashSaleStock.tryAcquire(PRODUCT_ID, 3)).isEqualTo(FlashSaleStock.Result.SOLD_OUT);
+    }
+
+    @Test
+    void flushSales_appliesSoldUnitsToStockAndLease_andPublishesTheChange() {
+        lockedProduct(50, 0);
+        when(productRepository.findSnapshotById(PRODUCT_ID)).thenReturn(Optional.of(snapshot(47)));
+        flashSaleStock.enable(PRODUCT_ID);
+        flashSaleStock.tryAcquire(PRODUCT_ID, 3);
+
+        flashSaleStock.flushSales();
+        flashSaleStock.flushSales();
+
+        verify(productRepository, times(1)).applyLeasedSales(PRODUCT_ID, 3);
+        ArgumentCaptor<ProductChangedEvent> event = ArgumentCaptor.forClass(ProductChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertThat(event.getValue().before().stock()).isEqualTo(50);
+        assertThat(event.getValue().after().stock()).isEqualTo(47);
+    }
+
+    @Test
+    void flushSales_whenTheUpdateFails_thenKeepsTheSalesForTheNextFlush() {
+        lockedProduct(50, 0);
+        when(productRepository.applyLeasedSales(PRODUCT_ID, 3))
+                .thenThrow(new IllegalStateException("db down"))
+                .thenReturn(1);
+        flashSaleStock.enable(PRODUCT_ID);
+        flashSaleStock.tryAcquire(PRODUCT_ID, 3);
+
+        flashSaleStock.flushSales();
+        flashSaleStock.flushSales();
+
+        verify(productRepository, times(2)).applyLeasedSales(PRODUCT_ID, 3);
+    }
+
+    @Test
+    void release_returnsUnitsToTheCounter_soTheyAreNotFlushedAsSold() {
+        lockedProduct(50, 0);
+        flashSaleStock.enable(PRODUCT_ID);
+        flashSaleStock.tryAcquire(PRODUCT_ID, 3);
+
+        assertThat(flashSaleStock.release(PRODUCT_ID, 1)).isTrue();
+        flashSaleStock.flushSales();
+
+        verify(productRepository).applyLeasedSales(PRODUCT_ID, 2);
+    }
+
+    @Test
+    void disable_flushesSalesAndReturnsTheUnsoldLease_andLaterReleasesGoToTheRow() {
+        lockedProduct(50, 0);
+        flashSaleStock.enable(PRODUCT_ID);
+        flashSaleStock.tryAcquire(PRODUCT_ID, 3);
+
+        flashSaleStock.disable(PRODUCT_ID);
+
+        verify(productRepository).applyLeasedSales(PRODUCT_ID, 3);
+        verify(productRepository).returnLease(PRODUCT_ID, 7);
+        assertThat(flashSaleStock.isActive(PRODUCT_ID)).isFalse();
+        assertThat(flashSaleStock.release(PRODUCT_ID, 3)).isFalse();
+        assertThat(flashSaleStock.tryAcquire(PRODUCT_ID, 1)).isEqualTo(FlashSaleStock.Result.NOT_ACTIVE);
+    }
+
+    @Test
+    void disable_withoutSalesOrLease_touchesNoRows() {
+        flashSaleStock.enable(PRODUCT_ID);
+
+        flashSaleStock.disable(PRODUCT_ID);
+
+        verify(productRepository, never()).applyLeasedSales(anyLong(), anyInt());
+        verify(productRepository, never()).returnLease(anyLong(), anyInt());
+    }
+
+    private Product lockedProduct(int stock, int leased) {
+        Product product = Product.builder().id(PRODUCT_ID).name("Producto").price(BigDecimal.TEN)
+                .stock(stock).stockLeased(leased).build();
+        when(entityManager.find(Product.class, PRODUCT_ID, LockModeType.PESSIMISTIC_WRITE)).thenReturn(product);
+        return product;
+    }
+
+    private static ProductSnapshot snapshot(int stock) {
+        return new ProductSnapshot(PRODUCT_ID, 1L, 1L, "Producto", "", BigDecimal.TEN, stock);
+    }
+}
@@ -0,0 +1,76 @@
+package com.marware.ecommerce.stock;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ShardedStockCounterTest {
+
+    @Test
+    void acquire_collectsUnitsFromSeveralShards_andNeverGoesBelowZero() {
+        ShardedStockCounter counter = new ShardedStockCounter(4);
+        counter.add(6);
+
+        // Ningún shard tiene 5 unidades: se juntan de varios
+        assertThat(counter.tryAcquire(5)).isTrue();
+        assertThat(counter.tryAcquire(2)).isFalse();
+        assertThat(counter.available()).isEqualTo(1);
+        assertThat(counter.tryAcquire(1)).isTrue();
+        assertThat(counter.available()).isZero();
+
+        assertThat(counter.drainSold()).isEqualTo(6);
+        assertThat(counter.drainSold()).isZero();
+    }
+
+    @Test
+    void release_returnsUnitsAndDiscountsThemFromSold() {
+        ShardedStockCounter counter = new ShardedStockCounter(2);
+        counter.add(3);
+        assertThat(counter.tryAcquire(3)).isTrue();
+        assertThat(counter.drainSold()).isEqualTo(3);
+
+        // Liberada después del volcado: el siguiente volcado la devuelve a la fila
+        counter.release(1);
+        assertThat(counter.available()).isEqualTo(1);
+        assertThat(counter.drainSold()).isEqualTo(-1);
+    }
+
+    @Test
+    void concurrentAcquires_sellExactlyTheAvailableUnits() throws Exception {
+        ShardedStockCounter counter = new ShardedStockCounter(8);
+        counter.add(1000);
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                results.add(pool.submit(() -> {
+                    int acquired = 0;
+                    for (int i = 0; i < 500; i++) {
+                        if (counter.tryAcquire(1)) {
+                            acquired++;
+                        }
+                    }
+                    return acquired;
+                }));
+            }
+            int total = 0;
+            for (Future<Integer> result : results) {
+                total += result.get(10, TimeUnit.SECONDS);
+            }
+
+            assertThat(total).isEqualTo(1000);
+            assertThat(counter.available()).isZero();
+            assertThat(counter.drainSold()).isEqualTo(1000);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
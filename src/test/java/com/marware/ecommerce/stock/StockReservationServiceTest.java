@@ -0,0 +1,252 @@
+package com.marware.ecommerce.stock;
+
+import com.marware.ecommerce.dto.StockReservationRequest;
+import com.marware.ecommerce.dto.StockReservationResponse;
+import com.marware.ecommerce.event.ProductChangedEvent;
+import com.marware.ecommerce.event.ProductSnapshot;
+import com.marware.ecommerce.exception.EntityNotFoundException;
+import com.marware.ecommerce.exception.StockException;
+import com.marware.ecommerce.model.StockReservation;
+import com.marware.ecommerce.model.User;
+import com.marware.ecommerce.repository.ProductRepository;
+import com.marware.ecommerce.repository.StockReservationRepository;
+import com.marware.ecommerce.security.AuthenticatedUser;
+import com.marware.ecommerce.service.AuthService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class StockReservationServiceTest {
+
+    private static final Instant NOW = Instant.parse("2026-01-01T10:00:00Z");
+    private static final Long PRODUCT_ID = 1L;
+    private static final Long USER_ID = 5L;
+
+    private ProductRepository productRepository;
+    private StockReservationRepository reservationRepository;
+    private FlashSaleStock flashSaleStock;
+    private ApplicationEventPublisher eventPublisher;
+    private StockReservationService service;
+
+    @BeforeEach
+    void setUp() {
+        productRepository = mock(ProductRepository.class);
+        reservationRepository = mock(StockReservationRepository.class);
+        flashSaleStock = mock(FlashSaleStock.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        AuthService authService = mock(AuthService.class);
+        User user = new User();
+        user.setId(USER_ID);
+        when(authService.getCurrentUser()).thenReturn(AuthenticatedUser.from(user));
+        when(flashSaleStock.tryAcquire(anyLong(), anyInt())).thenReturn(FlashSaleStock.Result.NOT_ACTIVE);
+        when(reservationRepository.save(any(StockReservation.class))).thenAnswer(invocation -> {
+            StockReservation reservation = invocation.getArgument(0);
+            reservation.setId(100L);
+            return reservation;
+        });
+
+        // Sin BD: el TransactionTemplate sólo ejecuta el callback contra el mock
+        service = new StockReservationService(productRepository, reservationRepository, flashSaleStock,
+                authService, eventPublisher, mock(PlatformTransactionManager.class),
+                Duration.ofMinutes(10), Duration.ofHours(1), 2, Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    @Test
+    void reserve_takesStockWithTheConditionalUpdate_andPublishesTheChange() {
+        when(productRepository.reserveStock(PRODUCT_ID, 2)).thenReturn(1);
+        when(productRepository.findSnapshotById(PRODUCT_ID)).thenReturn(Optional.of(snapshot(3)));
+
+        StockReservationResponse response = service.reserve(PRODUCT_ID, request(2, null));
+
+        assertThat(response.getId()).isEqualTo(100L);
+        assertThat(response.getStatus()).isEqualTo(StockReservation.Status.RESERVED);
+        assertThat(response.getExpiresAt()).isEqualTo(NOW.plus(Duration.ofMinutes(10)));
+        ArgumentCaptor<ProductChangedEvent> event = ArgumentCaptor.forClass(ProductChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertThat(event.getValue().before().stock()).isEqualTo(5);
+        assertThat(event.getValue().after().stock()).isEqualTo(3);
+    }
+
+    @Test
+    void reserve_whenTheUpdateMatchesNoRows_thenOutOfStockAndNothingSaved() {
+        when(productRepository.reserveStock(PRODUCT_ID, 2)).thenReturn(0);
+        when(productRepository.existsById(PRODUCT_ID)).thenReturn(true);
+
+        assertThatThrownBy(() -> service.reserve(PRODUCT_ID, request(2, null)))
+                .isInstanceOf(StockException.class)
+                .extracting("errorCode").isEqualTo("OUT_OF_STOCK");
+        verify(reservationRepository, never()).save(any());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void reserve_whenProductDoesNotExist_thenNotFound() {
+        when(productRepository.reserveStock(PRODUCT_ID, 2)).thenReturn(0);
+        when(productRepository.existsById(PRODUCT_ID)).thenReturn(false);
+
+        assertThatThrownBy(() -> service.reserve(PRODUCT_ID, request(2, null)))
+                .isInstanceOf(EntityNotFoundException.class);
+    }
+
+    @Test
+    void reserve_capsTheRequestedTtl() {
+        when(productRepository.reserveStock(PRODUCT_ID, 1)).thenReturn(1);
+
+        StockReservationResponse response = service.reserve(PRODUCT_ID, request(1, Duration.ofDays(1).toSeconds()));
+
+        assertThat(response.getExpiresAt()).isEqualTo(NOW.plus(Duration.ofHours(1)));
+    }
+
+    @Test
+    void reserve_inFlashSaleMode_usesTheCounterInsteadOfTheRow() {
+        when(flashSaleStock.tryAcquire(PRODUCT_ID, 2)).thenReturn(FlashSaleStock.Result.ACQUIRED);
+
+        service.reserve(PRODUCT_ID, request(2, null));
+
+        ArgumentCaptor<StockReservation> saved = ArgumentCaptor.forClass(StockReservation.class);
+        verify(reservationRepository).save(saved.capture());
+        assertThat(saved.getValue().isFlashSale()).isTrue();
+        verify(productRepository, never()).reserveStock(anyLong(), anyInt());
+    }
+
+    @Test
+    void reserve_inFlashSaleMode_whenSaveFails_thenReturnsUnitsToTheCounter() {
+        when(flashSaleStock.tryAcquire(PRODUCT_ID, 2)).thenReturn(FlashSaleStock.Result.ACQUIRED);
+        when(flashSaleStock.release(PRODUCT_ID, 2)).thenReturn(true);
+        doThrow(new IllegalStateException("db down")).when(reservationRepository).save(any(StockReservation.class));
+
+        assertThatThrownBy(() -> service.reserve(PRODUCT_ID, request(2, null)))
+                .isInstanceOf(IllegalStateException.class);
+        verify(flashSaleStock).release(PRODUCT_ID, 2);
+        verify(productRepository, never()).returnStock(anyLong(), anyInt());
+    }
+
+    @Test
+    void reserve_inFlashSaleMode_whenSoldOut_thenOutOfStock() {
+        when(flashSaleStock.tryAcquire(PRODUCT_ID, 2)).thenReturn(FlashSaleStock.Result.SOLD_OUT);
+        when(productRepository.existsById(PRODUCT_ID)).thenReturn(true);
+
+        assertThatThrownBy(() -> service.reserve(PRODUCT_ID, request(2, null)))
+                .isInstanceOf(StockException.class)
+                .extracting("errorCode").isEqualTo("OUT_OF_STOCK");
+        verify(productRepository, never()).reserveStock(anyLong(), anyInt());
+    }
+
+    @Test
+    void reserve_inFlashSaleMode_whenProductDoesNotExist_thenNotFound() {
+        // FlashSaleStock.lease no encuentra la fila y responde como agotado
+        when(flashSaleStock.tryAcquire(PRODUCT_ID, 2)).thenReturn(FlashSaleStock.Result.SOLD_OUT);
+        when(productRepository.existsById(PRODUCT_ID)).thenReturn(false);
+
+        assertThatThrownBy(() -> service.reserve(PRODUCT_ID, request(2, null)))
+                .isInstanceOf(EntityNotFoundException.class);
+        verify(reservationRepository, never()).save(any());
+    }
+
+    @Test
+    void confirm_whenActive_thenConfirmedWithoutTouchingStock() {
+        StockReservation reservation = reservation(10L, false);
+        when(reservationRepository.findById(10L)).thenReturn(Optional.of(reservation));
+        when(reservationRepository.confirm(10L, NOW)).thenReturn(1);
+
+        StockReservationResponse response = service.confirm(10L);
+
+        assertThat(response.getStatus()).isEqualTo(StockReservation.Status.CONFIRMED);
+        verify(productRepository, never()).returnStock(anyLong(), anyInt());
+    }
+
+    @Test
+    void confirm_whenNoLongerActive_thenConflict() {
+        when(reservationRepository.findById(10L)).thenReturn(Optional.of(reservation(10L, false)));
+        when(reservationRepository.confirm(10L, NOW)).thenReturn(0);
+
+        assertThatThrownBy(() -> service.confirm(10L))
+                .isInstanceOf(StockException.class)
+                .extracting("errorCode").isEqualTo("RESERVATION_NOT_ACTIVE");
+    }
+
+    @Test
+    void cancel_returnsTheUnitsToTheRow_onlyTheFirstTime() {
+        when(reservationRepository.findById(10L)).thenReturn(Optional.of(reservation(10L, false)));
+        when(reservationRepository.release(10L, StockReservation.Status.RELEASED)).thenReturn(1, 0);
+        when(productRepository.returnStock(PRODUCT_ID, 2)).thenReturn(1);
+
+        service.cancel(10L);
+        assertThatThrownBy(() -> service.cancel(10L))
+                .isInstanceOf(StockException.class)
+                .extracting("errorCode").isEqualTo("RESERVATION_NOT_ACTIVE");
+
+        verify(productRepository, times(1)).returnStock(PRODUCT_ID, 2);
+    }
+
+    @Test
+    void releaseExpired_returnsStockExactlyOnce_evenIfTheReservationIsSweptAgain() {
+        StockReservation expired = reservation(10L, false);
+        StockReservation confirmedMeanwhile = reservation(11L, false);
+        when(reservationRepository.findExpired(eq(NOW), any(Pageable.class)))
+                .thenReturn(List.of(expired, confirmedMeanwhile), List.of(expired), List.of());
+        when(reservationRepository.release(10L, StockReservation.Status.EXPIRED)).thenReturn(1, 0);
+        when(reservationRepository.release(11L, StockReservation.Status.EXPIRED)).thenReturn(0);
+
+        // Lote lleno (2) con avances: se pide otro lote en el mismo barrido
+        assertThat(service.releaseExpired()).isEqualTo(1);
+        assertThat(service.releaseExpired()).isZero();
+
+        verify(productRepository, times(1)).returnStock(PRODUCT_ID, 2);
+        verify(reservationRepository, times(3)).findExpired(eq(NOW), any(Pageable.class));
+    }
+
+    @Test
+    void releaseExpired_flashSaleUnits_goBackToTheRowWhenTheModeIsNoLongerActive() {
+        StockReservation expired = reservation(10L, true);
+        when(reservationRepository.findExpired(eq(NOW), any(Pageable.class))).thenReturn(List.of(expired));
+        when(reservationRepository.release(10L, StockReservation.Status.EXPIRED)).thenReturn(1);
+        when(flashSaleStock.release(PRODUCT_ID, 2)).thenReturn(false);
+
+        assertThat(service.releaseExpired()).isEqualTo(1);
+
+        verify(flashSaleStock).release(PRODUCT_ID, 2);
+        verify(productRepository, times(1)).returnStock(PRODUCT_ID, 2);
+    }
+
+    private static StockReservationRequest request(int quantity, Long ttlSeconds) {
+        StockReservationRequest request = new StockReservationRequest();
+        request.setQuantity(quantity);
+        request.setTtlSeconds(ttlSeconds);
+        return request;
+    }
+
+    private static StockReservation reservation(Long id, boolean flashSale) {
+        return StockReservation.builder()
+                .id(id)
+                .productId(PRODUCT_ID)
+                .userId(USER_ID)
+                .quantity(2)
+                .status(StockReservation.Status.RESERVED)
+                .flashSale(flashSale)
+                .expiresAt(NOW.minusSeconds(1))
+                .build();
+    }
+
+    private static ProductSnapshot snapshot(int stock) {
+        return new ProductSnapshot(PRODUCT_ID, 1L, 1L, "Producto", "", BigDecimal.TEN, stock);
+    }
+}
@@ -0,0 +1,177 @@
+package com.marware.ecommerce.stream;
+
+import com.marware.ecommerce.event.ProductChangedEvent;
+import com.marware.ecommerce.event.ProductSnapshot;
+import com.marware.ecommerce.exception.StreamCapacityException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CatalogStreamHubTest {
+
+    private CatalogStreamHub hub;
+
+    @BeforeEach
+    void setUp() {
+        // Ventana larga: los tests llaman a dispatch() a mano y los envíos se hacen en el mismo hilo
+        hub = new CatalogStreamHub(2, 10, 3, Duration.ofHours(1), Duration.ofHours(1), Duration.ofMinutes(1),
+                Runnable::run, Duration.ofSeconds(10), System::nanoTime);
+    }
+
+    @AfterEach
+    void tearDown() {
+        hub.shutdown();
+    }
+
+    @Test
+    void rapidUpdatesOfTheSameProduct_areCoalescedIntoTheLatest() {
+        RecordingEmitter emitter = new RecordingEmitter();
+        hub.register(emitter, List.of(1L), null);
+
+        hub.onProductChanged(stockChange(1L, 7L, 5, 4));
+        hub.onProductChanged(stockChange(1L, 7L, 4, 3));
+        hub.onProductChanged(stockChange(2L, 7L, 9, 8));
+        hub.dispatch();
+
+        assertThat(emitter.changes()).singleElement()
+                .satisfies(change -> assertThat(change.stock()).isEqualTo(3));
+    }
+
+    @Test
+    void tenantSubscription_receivesEveryProductOfTheTenant_butNotTextOnlyEdits() {
+        RecordingEmitter emitter = new RecordingEmitter();
+        hub.register(emitter, null, List.of(7L));
+
+        hub.onProductChanged(stockChange(1L, 7L, 5, 0));
+        hub.onProductChanged(stockChange(2L, 8L, 5, 4));
+        ProductSnapshot before = snapshot(3L, 7L, "Mesa", 2);
+        hub.onProductChanged(ProductChangedEvent.updated(before, snapshot(3L, 7L, "Mesa roble", 2)));
+        hub.dispatch();
+
+        assertThat(emitter.changes()).extracting(CatalogChange::id).containsExactly(1L);
+        assertThat(emitter.changes().get(0).inStock()).isFalse();
+    }
+
+    @Test
+    void fullBuffer_isDroppedAndReplacedByResync() {
+        RecordingEmitter emitter = new RecordingEmitter();
+        hub.register(emitter, null, List.of(7L));
+
+        for (long id = 1; id <= 4; id++) {
+            hub.onProductChanged(stockChange(id, 7L, 5, 4));
+        }
+        hub.dispatch();
+
+        assertThat(emitter.resyncs).isEqualTo(1);
+        assertThat(emitter.changes()).extracting(CatalogChange::id).containsExactly(4L);
+    }
+
+    @Test
+    void subscribers_areBoundedAndReleasedOnCompletion() {
+        RecordingEmitter first = new RecordingEmitter();
+        hub.register(first, List.of(1L), null);
+        hub.register(new RecordingEmitter(), List.of(1L), null);
+
+        assertThatThrownBy(() -> hub.register(new RecordingEmitter(), List.of(1L), null))
+                .isInstanceOf(StreamCapacityException.class);
+
+        first.failNextSend = true;
+        hub.onProductChanged(stockChange(1L, 7L, 5, 4));
+        hub.dispatch();
+
+        assertThat(hub.subscriberCount()).isEqualTo(1);
+    }
+
+    @Test
+    void stalledSubscriber_doesNotDelayOthers_andIsDroppedAfterSendTimeout() throws Exception {
+        ExecutorService senders = Executors.newFixedThreadPool(2);
+        AtomicLong now = new AtomicLong();
+        CatalogStreamHub slowHub = new CatalogStreamHub(2, 10, 3, Duration.ofHours(1), Duration.ofHours(1),
+                Duration.ofMinutes(1), senders, Duration.ofSeconds(10), now::get);
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingEmitter stalled = new RecordingEmitter();
+        stalled.blockUntil = release;
+        RecordingEmitter fast = new RecordingEmitter();
+        try {
+            slowHub.register(stalled, null, List.of(7L));
+            slowHub.register(fast, null, List.of(7L));
+
+            slowHub.onProductChanged(stockChange(1L, 7L, 5, 4));
+            slowHub.dispatch();
+
+            assertThat(stalled.entered.await(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(fast.entered.await(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(slowHub.subscriberCount()).isEqualTo(2);
+
+            now.set(Duration.ofSeconds(11).toNanos());
+            slowHub.dispatch();
+
+            assertThat(slowHub.subscriberCount()).isEqualTo(1);
+        } finally {
+            release.countDown();
+            slowHub.shutdown();
+        }
+    }
+
+    private static ProductChangedEvent stockChange(Long id, Long tenantId, int before, int after) {
+        return ProductChangedEvent.updated(snapshot(id, tenantId, "P" + id, before), snapshot(id, tenantId, "P" + id, after));
+    }
+
+    private static ProductSnapshot snapshot(Long id, Long tenantId, String name, int stock) {
+        return new ProductSnapshot(id, tenantId, 1L, name, "", BigDecimal.TEN, stock);
+    }
+
+    private static final class RecordingEmitter extends SseEmitter {
+        private final List<Object> sent = new ArrayList<>();
+        private int resyncs;
+        private boolean failNextSend;
+        private CountDownLatch blockUntil;
+        private final CountDownLatch entered = new CountDownLatch(1);
+
+        @Override
+        public void send(SseEventBuilder builder) throws java.io.IOException {
+            entered.countDown();
+            if (blockUntil != null) {
+                try {
+                    blockUntil.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new java.io.IOException("Interrupted", e);
+                }
+            }
+            if (failNextSend) {
+                throw new java.io.IOException("Broken pipe");
+            }
+            Set<ResponseBodyEmitter.DataWithMediaType> parts = builder.build();
+            for (ResponseBodyEmitter.DataWithMediaType part : parts) {
+                if (part.getData() instanceof String text && text.contains("event:" + CatalogStreamHub.EVENT_RESYNC)) {
+                    resyncs++;
+                }
+                sent.add(part.getData());
+            }
+        }
+
+        List<CatalogChange> changes() {
+            return sent.stream()
+                    .filter(CatalogChange.class::isInstance)
+                    .map(CatalogChange.class::cast)
+                    .toList();
+        }
+    }
+}